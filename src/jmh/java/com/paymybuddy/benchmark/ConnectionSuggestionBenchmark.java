@@ -0,0 +1,58 @@
+package com.paymybuddy.benchmark;
+
+import com.paymybuddy.event.UserDeletedEvent;
+import com.paymybuddy.model.dto.ConnectionSuggestionDTO;
+import com.paymybuddy.repository.UserRepository;
+import com.paymybuddy.service.ConnectionGraph;
+import com.paymybuddy.service.ConnectionSuggestionServiceImpl;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.*;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Suggestions for a user with 5000 connections of 100 connections each (500k neighbours scanned), the
+ * cache being cleared before each call. The repository is a stub that finds no user, so the figure is
+ * the in-memory ranking; the target is a median under 20 ms.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConnectionSuggestionBenchmark {
+
+    private static final int USER_ID = 1;
+    private static final int FRIENDS = 5000;
+    private static final int FRIENDS_OF_FRIEND = 100;
+
+    private ConnectionSuggestionServiceImpl connectionSuggestionService;
+
+    @Setup
+    public void setUp() {
+        // Never loaded from the database, the connections are added below
+        ConnectionGraph connectionGraph = new ConnectionGraph(Mockito.mock(DataSource.class));
+        SplittableRandom random = new SplittableRandom(42);
+        for (int friend = USER_ID + 1; friend <= USER_ID + FRIENDS; friend++) {
+            connectionGraph.connect(USER_ID, friend);
+            for (int i = 0; i < FRIENDS_OF_FRIEND; i++) {
+                connectionGraph.connect(friend, 10_000 + random.nextInt(200_000));
+            }
+        }
+        UserRepository userRepository = Mockito.mock(UserRepository.class);
+        Mockito.when(userRepository.findAllById(Mockito.anyIterable())).thenReturn(List.of());
+        connectionSuggestionService = new ConnectionSuggestionServiceImpl(connectionGraph, userRepository,
+                10, 1_000_000, Duration.ofMinutes(10), 1000);
+    }
+
+    @Benchmark
+    public List<ConnectionSuggestionDTO> getSuggestions() {
+        connectionSuggestionService.onUserDeleted(new UserDeletedEvent(0));
+        return connectionSuggestionService.getSuggestions(USER_ID);
+    }
+}
@@ -0,0 +1,80 @@
+package com.paymybuddy.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.paymybuddy.model.Transaction;
+import com.paymybuddy.model.User;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of the entity graphs the API returns: a User with its sent and received
+ * transactions (GET /api/users/{id}), and a list of transactions (GET /api/transactions...).
+ * The mapper is built the way Spring Boot builds the one used by the controllers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonSerializationBenchmark {
+
+    @Param({"10", "1000"})
+    private int transactions;
+
+    private ObjectMapper objectMapper;
+
+    private User user;
+
+    private List<Transaction> transactionList;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        user = user(1, "alice");
+        List<User> connections = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            connections.add(user(i + 2, "friend" + i));
+        }
+        transactionList = new ArrayList<>(transactions);
+        for (int i = 0; i < transactions; i++) {
+            User connection = connections.get(i % connections.size());
+            boolean sent = i % 2 == 0;
+            Transaction transaction = Transaction.builder()
+                    .id(i + 1)
+                    .description("transfer " + i)
+                    .amount(new BigDecimal("12.50"))
+                    .sender(sent ? user : connection)
+                    .receiver(sent ? connection : user)
+                    .build();
+            (sent ? user.getSentTransactions() : user.getReceivedTransactions()).add(transaction);
+            transactionList.add(transaction);
+        }
+    }
+
+    private static User user(int id, String username) {
+        return User.builder()
+                .id(id)
+                .username(username)
+                .email(username + "@example.com")
+                .password("$2a$10$7EqJtq98hPqEX7fNZaFWoOhi5BWX4Z9WqS1Q6Qbf2d0rYQ6n0D1Vy")
+                .balance(new BigDecimal("1000.00"))
+                .build();
+    }
+
+    @Benchmark
+    public byte[] userWithTransactions() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(user);
+    }
+
+    @Benchmark
+    public byte[] transactionList() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(transactionList);
+    }
+}
@@ -0,0 +1,80 @@
+package com.paymybuddy.benchmark;
+
+import com.nimbusds.jose.jwk.source.ImmutableSecret;
+import com.paymybuddy.service.security.CachingJwtDecoder;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
+import org.springframework.security.oauth2.jwt.*;
+
+import javax.crypto.spec.SecretKeySpec;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bearer token decoding as done on every /api/** request: the plain Nimbus HS256 decoder
+ * against the same decoder behind CachingJwtDecoder, for a client replaying a few live tokens.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtDecoderBenchmark {
+
+    @Param({"1", "1000"})
+    private int distinctTokens;
+
+    private String[] tokens;
+
+    private JwtDecoder nimbusJwtDecoder;
+
+    private JwtDecoder cachingJwtDecoder;
+
+    @Setup
+    public void setUp() {
+        byte[] secret = new byte[32];
+        new SecureRandom().nextBytes(secret);
+        JwtEncoder jwtEncoder = new NimbusJwtEncoder(new ImmutableSecret<>(secret));
+        nimbusJwtDecoder = NimbusJwtDecoder.withSecretKey(new SecretKeySpec(secret, "RSA"))
+                .macAlgorithm(MacAlgorithm.HS256)
+                .build();
+        cachingJwtDecoder = new CachingJwtDecoder(nimbusJwtDecoder, 10_000, Duration.ofMinutes(5));
+
+        Instant now = Instant.now();
+        tokens = new String[distinctTokens];
+        for (int i = 0; i < distinctTokens; i++) {
+            JwtClaimsSet claims = JwtClaimsSet.builder()
+                    .issuer("self")
+                    .issuedAt(now)
+                    .expiresAt(now.plus(Duration.ofHours(1)))
+                    .subject("user" + i + "@example.com")
+                    .build();
+            tokens[i] = jwtEncoder.encode(JwtEncoderParameters.from(JwsHeader.with(MacAlgorithm.HS256).build(), claims))
+                    .getTokenValue();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Benchmark
+    public Jwt nimbus(Cursor cursor) {
+        return nimbusJwtDecoder.decode(nextToken(cursor));
+    }
+
+    @Benchmark
+    public Jwt cached(Cursor cursor) {
+        return cachingJwtDecoder.decode(nextToken(cursor));
+    }
+
+    private String nextToken(Cursor cursor) {
+        int index = cursor.next;
+        cursor.next = index + 1 == tokens.length ? 0 : index + 1;
+        return tokens[index];
+    }
+}
@@ -0,0 +1,134 @@
+package com.paymybuddy.benchmark;
+
+import com.paymybuddy.PaymybuddyApplication;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.io.IOException;
+import java.net.CookieManager;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Throughput and latency of /home and /api/transactions/sender/{id} with requests served by
+ * Tomcat's platform thread pool or by virtual threads behind ConnectionAdmissionFilter.
+ * Each mode boots its own application on a random port, on the H2 test profile.
+ * Run with: mvn -Pjmh test-compile exec:exec -Djmh.args="RequestExecution -t 64"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Threads(64)
+@Fork(1)
+public class RequestExecutionBenchmark {
+
+    private static final int SENDER_ID = 1;
+    private static final String EMAIL = "sender@example.com";
+    private static final String PASSWORD = "secret";
+    private static final int RECEIVERS = 50;
+    private static final int TRANSACTIONS = 500;
+    private static final Pattern CSRF = Pattern.compile("name=\"_csrf\" value=\"([^\"]+)\"");
+
+    @Param({"platform", "virtual"})
+    private String threads;
+
+    private ConfigurableApplicationContext context;
+
+    private HttpClient client;
+
+    private String baseUrl;
+
+    private volatile String accessToken;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        context = new SpringApplicationBuilder(PaymybuddyApplication.class)
+                .profiles("test")
+                .properties("server.port=0",
+                        "spring.threads.virtual.enabled=" + "virtual".equals(threads),
+                        "logging.level.root=warn")
+                .run();
+        baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+        seed(context.getBean(JdbcTemplate.class));
+
+        client = HttpClient.newBuilder().cookieHandler(new CookieManager()).build();
+        login();
+    }
+
+    // Access tokens live one minute, longer than a whole run of one mode
+    @Setup(Level.Iteration)
+    public void refreshAccessToken() throws Exception {
+        String credentials = Base64.getEncoder().encodeToString((EMAIL + ":" + PASSWORD).getBytes(StandardCharsets.UTF_8));
+        accessToken = send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/login"))
+                .header("Authorization", "Basic " + credentials)
+                .POST(HttpRequest.BodyPublishers.noBody())
+                .build());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public String home() throws Exception {
+        return send(HttpRequest.newBuilder(URI.create(baseUrl + "/home")).GET().build());
+    }
+
+    @Benchmark
+    public String transactionsBySender() throws Exception {
+        return send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/transactions/sender/" + SENDER_ID))
+                .header("Authorization", "Bearer " + accessToken)
+                .GET()
+                .build());
+    }
+
+    private String send(HttpRequest request) throws IOException, InterruptedException {
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException(request.uri() + " answered " + response.statusCode());
+        }
+        return response.body();
+    }
+
+    private void login() throws IOException, InterruptedException {
+        String page = send(HttpRequest.newBuilder(URI.create(baseUrl + "/login")).GET().build());
+        Matcher csrf = CSRF.matcher(page);
+        if (!csrf.find()) {
+            throw new IllegalStateException("No CSRF token on the login page");
+        }
+        String form = "username=" + EMAIL + "&password=" + PASSWORD + "&_csrf=" + csrf.group(1);
+        HttpResponse<Void> response = client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/login"))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(form))
+                .build(), HttpResponse.BodyHandlers.discarding());
+        if (!response.headers().firstValue("Location").orElse("").endsWith("/home")) {
+            throw new IllegalStateException("Login failed");
+        }
+    }
+
+    private static void seed(JdbcTemplate jdbcTemplate) {
+        jdbcTemplate.update("INSERT INTO USER (id, username, email, password, balance) VALUES (?, 'sender', ?, ?, 1000000)",
+                SENDER_ID, EMAIL, new BCryptPasswordEncoder(4).encode(PASSWORD));
+        jdbcTemplate.update("INSERT INTO USER (id, username, email, password) "
+                        + "SELECT X, CONCAT('receiver', X), CONCAT('receiver', X, '@example.com'), 'x' FROM SYSTEM_RANGE(?, ?)",
+                SENDER_ID + 1, SENDER_ID + RECEIVERS);
+        jdbcTemplate.update("INSERT INTO USER_CONNECTIONS (user_id, connected_user_id) SELECT ?, X FROM SYSTEM_RANGE(?, ?)",
+                SENDER_ID, SENDER_ID + 1, SENDER_ID + RECEIVERS);
+        jdbcTemplate.update("INSERT INTO TRANSACTION (sender_id, receiver_id, description, amount) "
+                        + "SELECT ?, ? + MOD(X, ?), CONCAT('transfer ', X), 1.00 FROM SYSTEM_RANGE(1, ?)",
+                SENDER_ID, SENDER_ID + 1, RECEIVERS, TRANSACTIONS);
+    }
+}
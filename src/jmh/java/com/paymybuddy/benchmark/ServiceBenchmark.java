@@ -0,0 +1,101 @@
+package com.paymybuddy.benchmark;
+
+import com.paymybuddy.PaymybuddyApplication;
+import com.paymybuddy.model.Transaction;
+import com.paymybuddy.model.User;
+import com.paymybuddy.service.TransactionServiceImpl;
+import com.paymybuddy.service.UserServiceImpl;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The two write paths of the service layer, through the Spring proxies and on the H2 test profile:
+ * a transfer (connection check, ledger UPDATEs, INSERT, commit) and a new connection between two users.
+ * The application is booted once, on a random port (the security configuration needs the web context).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class ServiceBenchmark {
+
+    private static final int SENDER_ID = 1;
+    private static final int RECEIVERS = 100;
+    // Users paired by connectUsers, two by two; the pairs are disconnected again before each iteration
+    private static final int POOL_FIRST_ID = 1_000;
+    private static final int POOL_SIZE = 100_000;
+
+    private ConfigurableApplicationContext context;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private TransactionServiceImpl transactionService;
+
+    private UserServiceImpl userService;
+
+    private int nextReceiver;
+
+    private int nextPair;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(PaymybuddyApplication.class)
+                .profiles("test")
+                .properties("server.port=0", "logging.level.root=warn")
+                .run();
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        transactionService = context.getBean(TransactionServiceImpl.class);
+        userService = context.getBean(UserServiceImpl.class);
+        seed();
+    }
+
+    @Setup(Level.Iteration)
+    public void resetPairs() {
+        jdbcTemplate.update("DELETE FROM USER_CONNECTIONS WHERE user_id >= ?", POOL_FIRST_ID);
+        nextPair = 0;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Transaction saveTransaction() {
+        int receiverId = SENDER_ID + 1 + nextReceiver;
+        nextReceiver = (nextReceiver + 1) % RECEIVERS;
+        return transactionService.saveTransaction(Transaction.builder()
+                .sender(User.builder().id(SENDER_ID).build())
+                .receiver(User.builder().id(receiverId).build())
+                .amount(new BigDecimal("0.01"))
+                .description("benchmark")
+                .build());
+    }
+
+    @Benchmark
+    public void connectUsers() {
+        int first = POOL_FIRST_ID + nextPair;
+        nextPair = (nextPair + 2) % POOL_SIZE;
+        userService.connectUsers(first, first + 1);
+    }
+
+    private void seed() {
+        jdbcTemplate.update("INSERT INTO USER (id, username, email, password, balance) "
+                + "VALUES (?, 'sender', 'sender@example.com', 'x', 1000000000)", SENDER_ID);
+        jdbcTemplate.update("INSERT INTO USER (id, username, email, password) "
+                        + "SELECT X, CONCAT('receiver', X), CONCAT('receiver', X, '@example.com'), 'x' FROM SYSTEM_RANGE(?, ?)",
+                SENDER_ID + 1, SENDER_ID + RECEIVERS);
+        jdbcTemplate.update("INSERT INTO USER_CONNECTIONS (user_id, connected_user_id) SELECT ?, X FROM SYSTEM_RANGE(?, ?)",
+                SENDER_ID, SENDER_ID + 1, SENDER_ID + RECEIVERS);
+        jdbcTemplate.update("INSERT INTO USER (id, username, email, password) "
+                        + "SELECT X, CONCAT('user', X), CONCAT('user', X, '@example.com'), 'x' FROM SYSTEM_RANGE(?, ?)",
+                POOL_FIRST_ID, POOL_FIRST_ID + POOL_SIZE - 1);
+    }
+}
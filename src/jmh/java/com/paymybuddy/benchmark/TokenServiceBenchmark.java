@@ -0,0 +1,53 @@
+package com.paymybuddy.benchmark;
+
+import com.nimbusds.jose.jwk.source.ImmutableSecret;
+import com.paymybuddy.service.security.TokenServiceImpl;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+import org.springframework.security.oauth2.jwt.NimbusJwtEncoder;
+
+import javax.crypto.spec.SecretKeySpec;
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Issuing an access token as /api/login and /api/token/refresh do, alone and followed by the
+ * Nimbus decode the next request pays (see JwtDecoderBenchmark for the cached decoder).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TokenServiceBenchmark {
+
+    private static final String SUBJECT = "alice@example.com";
+
+    private TokenServiceImpl tokenService;
+
+    private JwtDecoder jwtDecoder;
+
+    @Setup
+    public void setUp() {
+        byte[] secret = new byte[32];
+        new SecureRandom().nextBytes(secret);
+        tokenService = new TokenServiceImpl(new NimbusJwtEncoder(new ImmutableSecret<>(secret)));
+        jwtDecoder = NimbusJwtDecoder.withSecretKey(new SecretKeySpec(secret, "RSA"))
+                .macAlgorithm(MacAlgorithm.HS256)
+                .build();
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return tokenService.generateToken(SUBJECT);
+    }
+
+    @Benchmark
+    public Jwt generateAndDecode() {
+        return jwtDecoder.decode(tokenService.generateToken(SUBJECT));
+    }
+}
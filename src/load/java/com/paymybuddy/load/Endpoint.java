@@ -0,0 +1,115 @@
+package com.paymybuddy.load;
+
+import com.paymybuddy.dataset.DatasetGenerator;
+
+import java.io.IOException;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The requests of the mix. Each call is one HTTP round trip, except login which fetches the
+ * form then posts it, as a browser does.
+ */
+enum Endpoint {
+
+    LOGIN("login") {
+        @Override
+        boolean call(LoadClient client, VirtualUser user, int users) throws IOException, InterruptedException {
+            return client.formLogin(user) != null;
+        }
+    },
+    HOME("home") {
+        @Override
+        boolean call(LoadClient client, VirtualUser user, int users) throws IOException, InterruptedException {
+            return client.get("/home", user) == 200;
+        }
+    },
+    TRANSFER("transfer") {
+        @Override
+        boolean call(LoadClient client, VirtualUser user, int users) throws IOException, InterruptedException {
+            String location = client.postForm("/transfer", user,
+                    "connectionEmail", DatasetGenerator.email(connection(user)),
+                    "amount", amount(),
+                    "description", "load",
+                    "idempotencyKey", UUID.randomUUID().toString());
+            return location != null && location.endsWith("/home");
+        }
+    },
+    ADD_RELATION("add-relation") {
+        @Override
+        boolean call(LoadClient client, VirtualUser user, int users) throws IOException, InterruptedException {
+            // Mostly new connections; an existing one is rejected by the form, still a normal answer
+            int other = 1 + ThreadLocalRandom.current().nextInt(users);
+            String location = client.postForm("/add-relation", user, "email", DatasetGenerator.email(other));
+            return location != null && location.endsWith("/add-relation");
+        }
+    },
+    API_LOGIN("api-login") {
+        @Override
+        boolean call(LoadClient client, VirtualUser user, int users) throws IOException, InterruptedException {
+            return client.apiLogin(user) != null;
+        }
+    },
+    API_TRANSACTIONS("api-transactions") {
+        @Override
+        boolean call(LoadClient client, VirtualUser user, int users) throws IOException, InterruptedException {
+            return client.getApi("/api/transactions/sender/" + user.id, user) == 200;
+        }
+    },
+    API_USER("api-user") {
+        @Override
+        boolean call(LoadClient client, VirtualUser user, int users) throws IOException, InterruptedException {
+            return client.getApi("/api/users/" + user.id, user) == 200;
+        }
+    },
+    API_BATCH("api-batch") {
+        @Override
+        boolean call(LoadClient client, VirtualUser user, int users) throws IOException, InterruptedException {
+            StringBuilder transfers = new StringBuilder();
+            for (int i = 0; i < BATCH_SIZE; i++) {
+                transfers.append(i == 0 ? "" : ",")
+                        .append("{\"receiverId\":").append(connection(user))
+                        .append(",\"amount\":").append(amount())
+                        .append(",\"description\":\"load batch\"}");
+            }
+            return client.postApi("/api/transactions/batch", user,
+                    "{\"senderId\":" + user.id + ",\"transfers\":[" + transfers + "]}") == 200;
+        }
+    };
+
+    private static final int BATCH_SIZE = 5;
+
+    private final String label;
+
+    Endpoint(String label) {
+        this.label = label;
+    }
+
+    String label() {
+        return label;
+    }
+
+    /**
+     * @param users Number of seeded users, ids 1 to users
+     * @return Whether the answer is the one expected from a successful call
+     */
+    abstract boolean call(LoadClient client, VirtualUser user, int users) throws IOException, InterruptedException;
+
+    static Endpoint byName(String label) {
+        for (Endpoint endpoint : values()) {
+            if (endpoint.label.equals(label)) {
+                return endpoint;
+            }
+        }
+        throw new IllegalArgumentException("Unknown endpoint " + label);
+    }
+
+    private static int connection(VirtualUser user) {
+        return user.connectionIds[ThreadLocalRandom.current().nextInt(user.connectionIds.length)];
+    }
+
+    // Small amounts: balances last the whole run
+    private static String amount() {
+        return "0." + (10 + ThreadLocalRandom.current().nextInt(90));
+    }
+}
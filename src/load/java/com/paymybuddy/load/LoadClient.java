@@ -0,0 +1,154 @@
+package com.paymybuddy.load;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The HTTP calls of the endpoints, on one shared client. Session cookies are sent by hand so that
+ * every virtual user keeps its own session over the shared connection pool.
+ */
+final class LoadClient {
+
+    private static final Pattern CSRF = Pattern.compile("name=\"_csrf\" value=\"([^\"]+)\"");
+    private static final Pattern SESSION = Pattern.compile("JSESSIONID=([^;]+)");
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+    private final HttpClient client;
+    private final String baseUrl;
+    private final String password;
+
+    LoadClient(String baseUrl, String password) {
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(TIMEOUT)
+                .build();
+        this.baseUrl = baseUrl;
+        this.password = password;
+    }
+
+    /**
+     * Logs the user in through the form and keeps the session and its CSRF token on it
+     */
+    void openSession(VirtualUser user) throws IOException, InterruptedException {
+        String session = formLogin(user);
+        if (session == null) {
+            throw new IllegalStateException("Login of " + user.email + " failed");
+        }
+        user.sessionCookie = session;
+        HttpResponse<String> home = send(request("/home", user).GET(), HttpResponse.BodyHandlers.ofString());
+        Matcher csrf = CSRF.matcher(home.body());
+        if (home.statusCode() != 200 || !csrf.find()) {
+            throw new IllegalStateException("No CSRF token on the home page of " + user.email);
+        }
+        user.csrfToken = csrf.group(1);
+    }
+
+    /**
+     * @return The cookie of the new authenticated session, or null when the login is refused
+     */
+    String formLogin(VirtualUser user) throws IOException, InterruptedException {
+        HttpResponse<String> page = send(request("/login", null).GET(), HttpResponse.BodyHandlers.ofString());
+        Matcher csrf = CSRF.matcher(page.body());
+        String anonymous = sessionCookie(page);
+        if (!csrf.find() || anonymous == null) {
+            return null;
+        }
+        HttpRequest.Builder login = request("/login", null)
+                .header("Cookie", anonymous)
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(form("username", user.email, "password", password, "_csrf", csrf.group(1)));
+        HttpResponse<Void> response = send(login, HttpResponse.BodyHandlers.discarding());
+        boolean home = response.headers().firstValue("Location").orElse("").endsWith("/home");
+        return home ? sessionCookie(response) : null;
+    }
+
+    /**
+     * @return A new access token from Basic credentials, or null when refused
+     */
+    String apiLogin(VirtualUser user) throws IOException, InterruptedException {
+        String credentials = Base64.getEncoder()
+                .encodeToString((user.email + ":" + password).getBytes(StandardCharsets.UTF_8));
+        HttpResponse<String> response = send(request("/api/login", null)
+                .header("Authorization", "Basic " + credentials)
+                .POST(HttpRequest.BodyPublishers.noBody()), HttpResponse.BodyHandlers.ofString());
+        return response.statusCode() == 200 ? response.body() : null;
+    }
+
+    int get(String path, VirtualUser user) throws IOException, InterruptedException {
+        return send(request(path, user).GET(), HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    int getApi(String path, VirtualUser user) throws IOException, InterruptedException {
+        return send(apiRequest(path, user).GET(), HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    /**
+     * Posts a form of the user's session with its CSRF token
+     * @return The redirect location, or null when the answer is not a redirect
+     */
+    String postForm(String path, VirtualUser user, String... fields) throws IOException, InterruptedException {
+        String[] withToken = Arrays.copyOf(fields, fields.length + 2);
+        withToken[fields.length] = "_csrf";
+        withToken[fields.length + 1] = user.csrfToken;
+        HttpResponse<Void> response = send(request(path, user)
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(form(withToken)), HttpResponse.BodyHandlers.discarding());
+        return response.statusCode() == 302 ? response.headers().firstValue("Location").orElse(null) : null;
+    }
+
+    int postApi(String path, VirtualUser user, String json) throws IOException, InterruptedException {
+        return send(apiRequest(path, user)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json)), HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private HttpRequest.Builder request(String path, VirtualUser user) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(TIMEOUT);
+        if (user != null && user.sessionCookie != null) {
+            builder.header("Cookie", user.sessionCookie);
+        }
+        return builder;
+    }
+
+    private HttpRequest.Builder apiRequest(String path, VirtualUser user) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(TIMEOUT)
+                .header("Authorization", "Bearer " + user.accessToken);
+    }
+
+    private <T> HttpResponse<T> send(HttpRequest.Builder request, HttpResponse.BodyHandler<T> handler)
+            throws IOException, InterruptedException {
+        return client.send(request.build(), handler);
+    }
+
+    private static String sessionCookie(HttpResponse<?> response) {
+        for (String cookie : response.headers().allValues("Set-Cookie")) {
+            Matcher session = SESSION.matcher(cookie);
+            if (session.lookingAt()) {
+                return "JSESSIONID=" + session.group(1);
+            }
+        }
+        return null;
+    }
+
+    private static HttpRequest.BodyPublisher form(String... fields) {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < fields.length; i += 2) {
+            if (!body.isEmpty()) {
+                body.append('&');
+            }
+            body.append(fields[i]).append('=').append(URLEncoder.encode(fields[i + 1], StandardCharsets.UTF_8));
+        }
+        return HttpRequest.BodyPublishers.ofString(body.toString());
+    }
+}
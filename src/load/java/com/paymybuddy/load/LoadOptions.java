@@ -0,0 +1,92 @@
+package com.paymybuddy.load;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Command line of the load test, as name=value. Arguments starting with -- are handed to the
+ * application instead, e.g. --spring.threads.virtual.enabled=true
+ */
+record LoadOptions(double rate,
+                   Duration duration,
+                   Duration warmup,
+                   int users,
+                   int connections,
+                   int transactions,
+                   int sessions,
+                   int maxInFlight,
+                   long seed,
+                   Map<Endpoint, Integer> mix,
+                   Path output,
+                   String[] applicationArgs) {
+
+    static final String DEFAULT_MIX =
+            "home:35,transfer:15,add-relation:5,login:5,api-login:5,api-transactions:20,api-user:10,api-batch:5";
+
+    static LoadOptions parse(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        List<String> applicationArgs = new ArrayList<>();
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            if (arg.startsWith("--")) {
+                applicationArgs.add(arg);
+            } else if (equals > 0 && isOption(arg.substring(0, equals))) {
+                values.put(arg.substring(0, equals), arg.substring(equals + 1));
+            } else {
+                throw new IllegalArgumentException("Unknown option " + arg);
+            }
+        }
+        LoadOptions options = new LoadOptions(
+                Double.parseDouble(values.getOrDefault("rate", "100")),
+                DurationStyle.detectAndParse(values.getOrDefault("duration", "60s")),
+                DurationStyle.detectAndParse(values.getOrDefault("warmup", "15s")),
+                Integer.parseInt(values.getOrDefault("users", "10000")),
+                Integer.parseInt(values.getOrDefault("connections", "10")),
+                Integer.parseInt(values.getOrDefault("transactions", "20")),
+                Integer.parseInt(values.getOrDefault("sessions", "200")),
+                Integer.parseInt(values.getOrDefault("max-in-flight", "10000")),
+                Long.parseLong(values.getOrDefault("seed", "42")),
+                parseMix(values.getOrDefault("mix", DEFAULT_MIX)),
+                Path.of(values.getOrDefault("output", "target/load")),
+                applicationArgs.toArray(String[]::new));
+        if (options.rate <= 0 || options.sessions < 1 || options.users < options.sessions
+                || options.connections < 1 || options.connections >= options.users) {
+            throw new IllegalArgumentException("Needs rate > 0, 1 <= sessions <= users and 1 <= connections < users");
+        }
+        return options;
+    }
+
+    private static boolean isOption(String name) {
+        return switch (name) {
+            case "rate", "duration", "warmup", "users", "connections", "transactions", "sessions",
+                 "max-in-flight", "seed", "mix", "output" -> true;
+            default -> false;
+        };
+    }
+
+    // home:35,transfer:15,... ; endpoints left out are not called
+    private static Map<Endpoint, Integer> parseMix(String mix) {
+        Map<Endpoint, Integer> weights = new EnumMap<>(Endpoint.class);
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Mix entries are endpoint:weight, got " + entry);
+            }
+            int weight = Integer.parseInt(parts[1].trim());
+            if (weight > 0) {
+                weights.put(Endpoint.byName(parts[0].trim()), weight);
+            }
+        }
+        if (weights.isEmpty()) {
+            throw new IllegalArgumentException("The mix calls no endpoint");
+        }
+        return weights;
+    }
+}
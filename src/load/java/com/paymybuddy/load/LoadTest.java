@@ -0,0 +1,173 @@
+package com.paymybuddy.load;
+
+import com.paymybuddy.PaymybuddyApplication;
+import com.paymybuddy.dataset.DatasetGenerator;
+import com.paymybuddy.service.security.TokenService;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end load test: boots the application on the H2 test profile with a random port, loads a
+ * DatasetGenerator dataset, logs a pool of users in, then replays the endpoint mix at a
+ * constant arrival rate through the real HTTP stack (security filters, sessions, CSRF, JWT).
+ * Prints response-time percentiles per endpoint and writes their full distribution, in milliseconds,
+ * as HdrHistogram .hgrm files.
+ * Run with: mvn -Pload test-compile exec:exec -Dload.args="rate=200 duration=60s"
+ * Options: rate (requests/s), duration, warmup, users, connections and transactions (means per user),
+ * sessions (logged-in users the requests are spread over), mix (endpoint:weight,...), max-in-flight,
+ * seed, as name=value; arguments starting with -- are application properties,
+ * e.g. --spring.threads.virtual.enabled=true
+ */
+public class LoadTest {
+
+    private static final String PASSWORD = "load-password";
+    // Enough for any sender to keep transferring for the whole run
+    private static final BigDecimal BALANCE = new BigDecimal("1000000.00");
+
+    public static void main(String[] args) throws Exception {
+        LoadOptions options = LoadOptions.parse(args);
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(PaymybuddyApplication.class)
+                .profiles("test")
+                .properties("server.port=0", "logging.level.root=warn")
+                .run(options.applicationArgs());
+        ScheduledExecutorService tokenRefresh = Executors.newSingleThreadScheduledExecutor();
+        try {
+            seed(context, options);
+            LoadClient client = new LoadClient(
+                    "http://localhost:" + context.getEnvironment().getProperty("local.server.port"), PASSWORD);
+            List<VirtualUser> sessions = openSessions(context, client, options);
+            // Access tokens expire quickly; refreshed outside the measured requests
+            long refreshSeconds = TokenService.ACCESS_TOKEN_TTL.toSeconds() / 2;
+            tokenRefresh.scheduleAtFixedRate(() -> refreshTokens(client, sessions),
+                    refreshSeconds, refreshSeconds, TimeUnit.SECONDS);
+
+            OpenLoopDriver driver = new OpenLoopDriver(client, sessions, options);
+            System.out.printf("Warming up for %ss at %.0f requests/s%n", options.warmup().toSeconds(), options.rate());
+            driver.run(options.warmup());
+            driver.reset();
+            System.out.printf("Measuring for %ss at %.0f requests/s%n", options.duration().toSeconds(), options.rate());
+            driver.run(options.duration());
+            report(driver.stats(), options);
+        } finally {
+            tokenRefresh.shutdownNow();
+            context.close();
+        }
+    }
+
+    /**
+     * Users 1 to users with skewed connections and transactions, see DatasetGenerator
+     */
+    private static void seed(ConfigurableApplicationContext context, LoadOptions options) {
+        DatasetGenerator.Summary summary = DatasetGenerator.builder()
+                .seed(options.seed())
+                .users(options.users())
+                .meanConnections(options.connections())
+                .meanTransactions(options.transactions())
+                .balance(BALANCE)
+                .passwordHash(context.getBean(PasswordEncoder.class).encode(PASSWORD))
+                .build()
+                .generate(context.getBean(DataSource.class));
+        System.out.printf("Seeded %d users, %d connections and %d transactions in %ss%n", summary.users(),
+                summary.connections(), summary.transactions(), summary.elapsed().toSeconds());
+    }
+
+    // Spread over the ids; popular users are scattered over them by the generator
+    private static List<VirtualUser> openSessions(ConfigurableApplicationContext context, LoadClient client,
+                                                  LoadOptions options) throws Exception {
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        List<VirtualUser> sessions = new ArrayList<>(options.sessions());
+        int step = options.users() / options.sessions();
+        for (int i = 0; i < options.sessions(); i++) {
+            int id = 1 + i * step;
+            int[] connections = jdbcTemplate.queryForList(
+                    "SELECT connected_user_id FROM USER_CONNECTIONS WHERE user_id = ?", Integer.class, id)
+                    .stream().mapToInt(Integer::intValue).toArray();
+            VirtualUser user = new VirtualUser(id, connections);
+            client.openSession(user);
+            user.accessToken = client.apiLogin(user);
+            sessions.add(user);
+        }
+        System.out.printf("Logged %d users in%n", sessions.size());
+        return sessions;
+    }
+
+    private static void refreshTokens(LoadClient client, List<VirtualUser> sessions) {
+        for (VirtualUser user : sessions) {
+            try {
+                String token = client.apiLogin(user);
+                if (token != null) {
+                    user.accessToken = token;
+                }
+            } catch (IOException exception) {
+                System.err.println("Token refresh of " + user.email + " failed: " + exception.getMessage());
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private static void report(Map<Endpoint, OpenLoopDriver.Stats> stats, LoadOptions options) throws IOException {
+        double seconds = options.duration().toMillis() / 1000.0;
+        Files.createDirectories(options.output());
+        System.out.printf("%nResponse time (from when the request was due) in ms; service time (from when it was sent) p99 last%n");
+        System.out.printf("%-17s %8s %7s %7s %8s %8s %8s %8s %8s %9s %9s%n",
+                "endpoint", "ok", "errors", "skipped", "ok/s", "p50", "p90", "p99", "p99.9", "max", "svc p99");
+        Histogram allResponses = null;
+        Histogram allServices = null;
+        long errors = 0;
+        long skipped = 0;
+        for (Map.Entry<Endpoint, OpenLoopDriver.Stats> entry : stats.entrySet()) {
+            OpenLoopDriver.Stats endpointStats = entry.getValue();
+            print(entry.getKey().label(), endpointStats.responseTime, endpointStats.serviceTime,
+                    endpointStats.errors.sum(), endpointStats.skipped.sum(), seconds);
+            write(options, entry.getKey().label(), endpointStats.responseTime);
+            errors += endpointStats.errors.sum();
+            skipped += endpointStats.skipped.sum();
+            if (allResponses == null) {
+                allResponses = endpointStats.responseTime.copy();
+                allServices = endpointStats.serviceTime.copy();
+            } else {
+                allResponses.add(endpointStats.responseTime);
+                allServices.add(endpointStats.serviceTime);
+            }
+        }
+        print("all", allResponses, allServices, errors, skipped, seconds);
+        write(options, "all", allResponses);
+        System.out.printf("%nPercentile distributions written to %s%n", options.output().toAbsolutePath());
+    }
+
+    private static void print(String label, Histogram responses, Histogram services, long errors, long skipped,
+                              double seconds) {
+        System.out.printf("%-17s %8d %7d %7d %8.1f %8.2f %8.2f %8.2f %8.2f %9.2f %9.2f%n",
+                label, responses.getTotalCount(), errors, skipped, responses.getTotalCount() / seconds,
+                millis(responses.getValueAtPercentile(50)), millis(responses.getValueAtPercentile(90)),
+                millis(responses.getValueAtPercentile(99)), millis(responses.getValueAtPercentile(99.9)),
+                millis(responses.getMaxValue()), millis(services.getValueAtPercentile(99)));
+    }
+
+    private static void write(LoadOptions options, String label, Histogram responses) throws IOException {
+        try (PrintStream out = new PrintStream(Files.newOutputStream(options.output().resolve(label + ".hgrm")))) {
+            responses.outputPercentileDistribution(out, 1000.0);
+        }
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+}
@@ -0,0 +1,145 @@
+package com.paymybuddy.load;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Issues requests at a constant arrival rate, whatever the server's latency: request i is due at
+ * start + i / rate and runs on its own virtual thread. A stall of the server delays no request,
+ * they pile up as they would with real users (no coordinated omission).
+ * Response time is measured from when the request was due, service time from when it was sent.
+ */
+final class OpenLoopDriver {
+
+    // Microseconds, up to one hour, 3 significant digits
+    private static final long HIGHEST_LATENCY = TimeUnit.HOURS.toMicros(1);
+
+    private final LoadClient client;
+    private final List<VirtualUser> sessions;
+    private final int users;
+    private final double rate;
+    private final int maxInFlight;
+    private final Endpoint[] endpoints;
+    private final int[] cumulativeWeights;
+    private final SplittableRandom random;
+    private final Map<Endpoint, Stats> stats = new EnumMap<>(Endpoint.class);
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    OpenLoopDriver(LoadClient client, List<VirtualUser> sessions, LoadOptions options) {
+        this.client = client;
+        this.sessions = sessions;
+        this.users = options.users();
+        this.rate = options.rate();
+        this.maxInFlight = options.maxInFlight();
+        this.random = new SplittableRandom(options.seed());
+        this.endpoints = options.mix().keySet().toArray(Endpoint[]::new);
+        this.cumulativeWeights = new int[endpoints.length];
+        int total = 0;
+        for (int i = 0; i < endpoints.length; i++) {
+            total += options.mix().get(endpoints[i]);
+            cumulativeWeights[i] = total;
+            stats.put(endpoints[i], new Stats());
+        }
+    }
+
+    /**
+     * Runs the mix for the duration, then waits for the requests still in flight
+     */
+    void run(Duration duration) {
+        double intervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (long i = 0; ; i++) {
+                long due = start + Math.round(i * intervalNanos);
+                if (due - end >= 0) {
+                    break;
+                }
+                long wait;
+                while ((wait = due - System.nanoTime()) > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                Endpoint endpoint = pick();
+                VirtualUser user = sessions.get(random.nextInt(sessions.size()));
+                if (inFlight.incrementAndGet() > maxInFlight) {
+                    // The driver itself would fall over; counted, not sent
+                    inFlight.decrementAndGet();
+                    stats.get(endpoint).skipped.increment();
+                    continue;
+                }
+                executor.execute(() -> execute(endpoint, user, due));
+            }
+        }
+    }
+
+    /**
+     * Forgets everything measured so far, after the warmup
+     */
+    void reset() {
+        stats.values().forEach(Stats::reset);
+    }
+
+    Map<Endpoint, Stats> stats() {
+        return stats;
+    }
+
+    private void execute(Endpoint endpoint, VirtualUser user, long due) {
+        Stats endpointStats = stats.get(endpoint);
+        long sent = System.nanoTime();
+        boolean ok;
+        try {
+            ok = endpoint.call(client, user, users);
+        } catch (Exception exception) {
+            ok = false;
+        } finally {
+            inFlight.decrementAndGet();
+        }
+        long done = System.nanoTime();
+        if (ok) {
+            endpointStats.responseTime.recordValue(Math.min(HIGHEST_LATENCY, TimeUnit.NANOSECONDS.toMicros(done - due)));
+            endpointStats.serviceTime.recordValue(Math.min(HIGHEST_LATENCY, TimeUnit.NANOSECONDS.toMicros(done - sent)));
+        } else {
+            endpointStats.errors.increment();
+        }
+    }
+
+    private Endpoint pick() {
+        int ticket = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (ticket < cumulativeWeights[i]) {
+                return endpoints[i];
+            }
+        }
+        throw new IllegalStateException();
+    }
+
+    /**
+     * Latencies of the successful calls of one endpoint, in microseconds, and the count of the others
+     */
+    static final class Stats {
+
+        final Histogram responseTime = new ConcurrentHistogram(HIGHEST_LATENCY, 3);
+        final Histogram serviceTime = new ConcurrentHistogram(HIGHEST_LATENCY, 3);
+        final LongAdder errors = new LongAdder();
+        final LongAdder skipped = new LongAdder();
+
+        private void reset() {
+            responseTime.reset();
+            serviceTime.reset();
+            errors.reset();
+            skipped.reset();
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.paymybuddy.load;
+
+import com.paymybuddy.dataset.DatasetGenerator;
+
+/**
+ * One seeded user the driver acts as: a logged-in web session and an API access token.
+ * Requests of the same user may run concurrently, like several tabs of one browser.
+ */
+final class VirtualUser {
+
+    final int id;
+    final String email;
+    // Connections from the dataset, always valid transfer receivers
+    final int[] connectionIds;
+    volatile String sessionCookie;
+    volatile String csrfToken;
+    volatile String accessToken;
+
+    VirtualUser(int id, int[] connectionIds) {
+        this.id = id;
+        this.email = DatasetGenerator.email(id);
+        this.connectionIds = connectionIds;
+    }
+}
@@ -0,0 +1,179 @@
+package com.paymybuddy.configuration;
+
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.PathContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caps the number of requests in flight once they run on virtual threads.
+ * Tomcat's thread pool used to be the limit; with one virtual thread per request, thousands of
+ * requests would otherwise all queue inside Hikari. Requests wait here for a permit instead,
+ * one per pooled connection, and get a 503 when none frees up within max-wait.
+ * An async request, such as the NDJSON export, keeps its permit until it completes, since it still
+ * uses a connection after the request thread is released. Long-lived streams that hold no connection
+ * while idle, such as the live feed, must be listed in excluded-paths instead.
+ * Only active with spring.threads.virtual.enabled=true.
+ */
+@Slf4j
+@Component
+@ConditionalOnThreading(Threading.VIRTUAL)
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class ConnectionAdmissionFilter extends OncePerRequestFilter {
+
+    private static final int DEFAULT_POOL_SIZE = 10;
+
+    private final Semaphore permits;
+    private final int maxPermits;
+    private final long maxWaitNanos;
+    private final List<PathPattern> excludedPaths;
+    private final AtomicLong rejected = new AtomicLong();
+
+    @Autowired
+    public ConnectionAdmissionFilter(DataSource dataSource,
+                                     @Value("${paymybuddy.admission.permits:0}") int permits,
+                                     @Value("${paymybuddy.admission.max-wait:2s}") Duration maxWait,
+                                     @Value("${paymybuddy.admission.excluded-paths:/css/**,/home/feed}") List<String> excludedPaths) {
+        this(permits > 0 ? permits : poolSize(dataSource), maxWait, excludedPaths);
+    }
+
+    ConnectionAdmissionFilter(int permits, Duration maxWait, List<String> excludedPaths) {
+        this.permits = new Semaphore(permits, true);
+        this.maxPermits = permits;
+        this.maxWaitNanos = maxWait.toNanos();
+        this.excludedPaths = excludedPaths.stream().map(PathPatternParser.defaultInstance::parse).toList();
+        log.info("Admitting at most {} concurrent requests", permits);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        PathContainer path = PathContainer.parsePath(request.getRequestURI().substring(request.getContextPath().length()));
+        return excludedPaths.stream().anyMatch(pattern -> pattern.matches(path));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        boolean admitted;
+        try {
+            admitted = permits.tryAcquire(maxWaitNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            admitted = false;
+        }
+        if (!admitted) {
+            rejected.incrementAndGet();
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), "The server is busy, please retry.");
+            return;
+        }
+
+        boolean async = false;
+        try {
+            filterChain.doFilter(request, response);
+            async = request.isAsyncStarted();
+        } finally {
+            if (async) {
+                request.getAsyncContext().addListener(new PermitRelease());
+            } else {
+                permits.release();
+            }
+        }
+    }
+
+    public int getMaxPermits() {
+        return maxPermits;
+    }
+
+    public int getAvailablePermits() {
+        return permits.availablePermits();
+    }
+
+    /**
+     * @return The number of requests waiting for a permit
+     */
+    public int getQueueLength() {
+        return permits.getQueueLength();
+    }
+
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    /**
+     * Gives the permit of an async request back once, on whichever of complete, error or timeout comes first.
+     * Async dispatches are not filtered, so the request keeps the permit it was admitted with.
+     */
+    private class PermitRelease implements AsyncListener {
+
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // Restarted on an async dispatch: keep listening on the new cycle
+            event.getAsyncContext().addListener(this);
+        }
+
+        private void release() {
+            if (released.compareAndSet(false, true)) {
+                permits.release();
+            }
+        }
+    }
+
+    /**
+     * @return The maximum size of the connection pool behind the data source, or 10 when it can not be read
+     */
+    public static int poolSize(DataSource dataSource) {
+        try {
+            if (dataSource.isWrapperFor(HikariDataSource.class)) {
+                return dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize();
+            }
+        } catch (SQLException exception) {
+            log.warn("Could not read the connection pool size, assuming {}", DEFAULT_POOL_SIZE, exception);
+        }
+        return DEFAULT_POOL_SIZE;
+    }
+}
@@ -0,0 +1,124 @@
+package com.paymybuddy.configuration;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.paymybuddy.event.TransactionEventBus;
+import com.paymybuddy.service.GroupCommitTransactionService;
+import com.paymybuddy.service.PrincipalCache;
+import com.paymybuddy.service.TransactionFeedHub;
+import com.paymybuddy.service.security.BoundedBCryptPasswordEncoder;
+import com.paymybuddy.service.security.CachingAuthenticationProvider;
+import com.paymybuddy.service.security.CachingJwtDecoder;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Publishes what the application already counts (caches, bounded pools, the event bus, the feed)
+ * as meters, read when scraped. Hikari, Hibernate, Spring Data repositories, HTTP requests and
+ * the services (@Timed) are instrumented by Spring Boot; authentication outcomes by AuthenticationMetrics.
+ * Tags only name components, never users.
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public MeterBinder cacheMetrics(PrincipalCache principalCache,
+                                    CachingJwtDecoder jwtDecoder,
+                                    ObjectProvider<CachingAuthenticationProvider> cachingAuthenticationProvider) {
+        return registry -> {
+            bindCache(registry, "principals", principalCache, PrincipalCache::stats);
+            bindCache(registry, "jwt", jwtDecoder, CachingJwtDecoder::stats);
+            cachingAuthenticationProvider.ifAvailable(provider ->
+                    bindCache(registry, "basic-auth", provider, CachingAuthenticationProvider::stats));
+        };
+    }
+
+    @Bean
+    public MeterBinder passwordEncoderMetrics(BoundedBCryptPasswordEncoder passwordEncoder) {
+        return registry -> {
+            Gauge.builder("paymybuddy.bcrypt.queue", passwordEncoder, BoundedBCryptPasswordEncoder::getQueueDepth)
+                    .description("Hashes waiting for a BCrypt thread")
+                    .register(registry);
+            Gauge.builder("paymybuddy.bcrypt.active", passwordEncoder, BoundedBCryptPasswordEncoder::getActiveCount)
+                    .register(registry);
+            FunctionCounter.builder("paymybuddy.bcrypt.rejected", passwordEncoder, BoundedBCryptPasswordEncoder::getRejectedCount)
+                    .description("Hashes refused because the queue was full")
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder transactionFeedMetrics(TransactionEventBus eventBus, TransactionFeedHub transactionFeedHub) {
+        return registry -> {
+            FunctionCounter.builder("paymybuddy.events.published", eventBus, TransactionEventBus::getCursor)
+                    .register(registry);
+            FunctionCounter.builder("paymybuddy.events.producer.waits", eventBus, TransactionEventBus::getProducerWaits)
+                    .description("Publishers that waited for a blocking subscriber to free a slot")
+                    .register(registry);
+            Gauge.builder("paymybuddy.feed.connections", transactionFeedHub, TransactionFeedHub::getConnectionCount)
+                    .register(registry);
+            // Read through the hub: the subscription only exists once the hub has started
+            Gauge.builder("paymybuddy.events.lag", transactionFeedHub, hub -> hub.getSubscription().getLag())
+                    .tag("subscription", "feed")
+                    .register(registry);
+            FunctionCounter.builder("paymybuddy.events.dropped", transactionFeedHub, hub -> hub.getSubscription().getDropped())
+                    .tag("subscription", "feed")
+                    .register(registry);
+            FunctionCounter.builder("paymybuddy.events.failures", transactionFeedHub, hub -> hub.getSubscription().getFailures())
+                    .tag("subscription", "feed")
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder admissionMetrics(ObjectProvider<ConnectionAdmissionFilter> admissionFilter) {
+        return registry -> admissionFilter.ifAvailable(filter -> {
+            Gauge.builder("paymybuddy.admission.available", filter, ConnectionAdmissionFilter::getAvailablePermits)
+                    .register(registry);
+            Gauge.builder("paymybuddy.admission.queue", filter, ConnectionAdmissionFilter::getQueueLength)
+                    .register(registry);
+            FunctionCounter.builder("paymybuddy.admission.rejected", filter, ConnectionAdmissionFilter::getRejectedCount)
+                    .register(registry);
+        });
+    }
+
+    @Bean
+    public MeterBinder groupCommitMetrics(ObjectProvider<GroupCommitTransactionService> groupCommit) {
+        return registry -> groupCommit.ifAvailable(service -> {
+            Gauge.builder("paymybuddy.group-commit.queue", service, GroupCommitTransactionService::getQueueDepth)
+                    .register(registry);
+            FunctionCounter.builder("paymybuddy.group-commit.groups", service, s -> s.getGroupSizes().getCount())
+                    .register(registry);
+            FunctionCounter.builder("paymybuddy.group-commit.transfers", service, s -> s.getGroupSizes().getSum())
+                    .description("Transfers committed in groups; divided by groups, the mean group size")
+                    .register(registry);
+            FunctionTimer.builder("paymybuddy.group-commit.queue.wait", service,
+                            s -> s.getQueueWaits().getCount(), s -> s.getQueueWaits().getSum(), TimeUnit.MICROSECONDS)
+                    .register(registry);
+        });
+    }
+
+    // Same names and tags as Micrometer's own cache metrics. Meters only hold their object weakly:
+    // it must be the bean itself, not a method reference on it.
+    private static <T> void bindCache(MeterRegistry registry, String name, T cache, Function<T, CacheStats> stats) {
+        FunctionCounter.builder("cache.gets", cache, c -> stats.apply(c).hitCount())
+                .tag("cache", name)
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("cache.gets", cache, c -> stats.apply(c).missCount())
+                .tag("cache", name)
+                .tag("result", "miss")
+                .register(registry);
+        FunctionCounter.builder("cache.evictions", cache, c -> stats.apply(c).evictionCount())
+                .tag("cache", name)
+                .register(registry);
+    }
+}
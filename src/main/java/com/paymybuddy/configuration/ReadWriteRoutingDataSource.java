@@ -0,0 +1,78 @@
+package com.paymybuddy.configuration;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Sends read-only transactions to the replica, and everything else (writes, reads outside a
+ * transaction) to the primary. Must sit behind a LazyConnectionDataSourceProxy: the transaction
+ * manager asks for a connection before the transaction is flagged read-only, the proxy only
+ * fetches it at the first statement.
+ * Read your writes: once a write transaction of the authenticated user commits, their reads stay
+ * on the primary for replicaLag, the time the replica may take to catch up.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    enum Route { PRIMARY, REPLICA }
+
+    // Bounds the memory of a burst of writers; a user evicted early just reads from the replica sooner
+    private static final long MAX_RECENT_WRITERS = 100_000;
+
+    private final boolean readYourWrites;
+    private final Cache<String, Boolean> recentWriters;
+
+    public ReadWriteRoutingDataSource(DataSource primary, DataSource replica, Duration replicaLag) {
+        this(primary, replica, replicaLag, Ticker.systemTicker());
+    }
+
+    ReadWriteRoutingDataSource(DataSource primary, DataSource replica, Duration replicaLag, Ticker ticker) {
+        setTargetDataSources(Map.of(Route.PRIMARY, primary, Route.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+        this.readYourWrites = replicaLag.isPositive();
+        this.recentWriters = Caffeine.newBuilder()
+                .expireAfterWrite(replicaLag)
+                .maximumSize(MAX_RECENT_WRITERS)
+                .ticker(ticker)
+                .build();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            return Route.PRIMARY;
+        }
+        String user = currentUser();
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (user != null && readYourWrites && TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        recentWriters.put(user, Boolean.TRUE);
+                    }
+                });
+            }
+            return Route.PRIMARY;
+        }
+        return user != null && recentWriters.getIfPresent(user) != null ? Route.PRIMARY : Route.REPLICA;
+    }
+
+    private static String currentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || authentication instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        return authentication.getName();
+    }
+}
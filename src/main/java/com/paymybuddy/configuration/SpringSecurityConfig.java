@@ -1,27 +1,36 @@
 package com.paymybuddy.configuration;
 
 import com.nimbusds.jose.jwk.source.ImmutableSecret;
+import com.paymybuddy.service.security.BoundedBCryptPasswordEncoder;
+import com.paymybuddy.service.security.CachingAuthenticationProvider;
+import com.paymybuddy.service.security.CachingJwtDecoder;
 import com.paymybuddy.service.security.UserDetailsServiceImpl;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.Ordered;
 import org.springframework.core.annotation.Order;
+import org.springframework.security.authentication.AuthenticationEventPublisher;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.ProviderManager;
 import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
 import org.springframework.security.oauth2.jwt.JwtDecoder;
 import org.springframework.security.oauth2.jwt.JwtEncoder;
 import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
 import org.springframework.security.oauth2.jwt.NimbusJwtEncoder;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationProvider;
 import org.springframework.security.web.SecurityFilterChain;
 
 import javax.crypto.spec.SecretKeySpec;
+import java.time.Duration;
 
 @Configuration
 @RequiredArgsConstructor
@@ -31,25 +40,60 @@ public class SpringSecurityConfig {
 
     private final String jwtKey = "66A39E5BBC888714F2C67EF6E17C1BD3A41C77F29791F44F565382EA38";
 
+    /**
+     * BCrypt on its own bounded pool. Strength 0 calibrates the cost to the target latency at startup,
+     * to find the value to pin: it may differ between machines and boots.
+     */
     @Bean
-    public BCryptPasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public BoundedBCryptPasswordEncoder passwordEncoder(
+            @Value("${paymybuddy.security.bcrypt.strength:10}") int strength,
+            @Value("${paymybuddy.security.bcrypt.target-latency:250ms}") Duration targetLatency,
+            @Value("${paymybuddy.security.bcrypt.threads:0}") int threads,
+            @Value("${paymybuddy.security.bcrypt.queue-capacity:64}") int queueCapacity) {
+        int cost = strength > 0 ? strength : BoundedBCryptPasswordEncoder.calibrate(targetLatency);
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        return new BoundedBCryptPasswordEncoder(cost, poolSize, queueCapacity);
     }
 
     // API stateless security (JWT) - higher priority
+    // Basic credentials go through the verified-credential cache when it is enabled. The chain then
+    // gets its own manager, with no fallback that would check a rejected password a second time.
     @Bean
     @Order(Ordered.HIGHEST_PRECEDENCE)
-    public SecurityFilterChain apiSecurityFilterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain apiSecurityFilterChain(HttpSecurity http, JwtDecoder jwtDecoder,
+            ObjectProvider<CachingAuthenticationProvider> cachingAuthenticationProvider,
+            ObjectProvider<AuthenticationEventPublisher> authenticationEventPublisher) throws Exception {
+        cachingAuthenticationProvider.ifAvailable(provider -> {
+            ProviderManager authenticationManager = new ProviderManager(provider, new JwtAuthenticationProvider(jwtDecoder));
+            // Outcomes are published like those of the managers Spring builds, for AuthenticationMetrics
+            authenticationEventPublisher.ifAvailable(authenticationManager::setAuthenticationEventPublisher);
+            http.authenticationManager(authenticationManager);
+        });
         return http
                 .securityMatcher("/api/**")
                 .csrf(AbstractHttpConfigurer::disable)
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
-                .authorizeHttpRequests(auth -> auth.anyRequest().authenticated())
+                .authorizeHttpRequests(auth -> auth
+                        .requestMatchers("/api/token/refresh").permitAll() // the refresh token is the credential
+                        .anyRequest().authenticated())
                 .httpBasic(Customizer.withDefaults())
                 .oauth2ResourceServer(oauth2 -> oauth2.jwt(Customizer.withDefaults()))
                 .build();
     }
 
+    // Actuator endpoints, served on the management port only (management.server.port), which is
+    // kept off the public network; only health and prometheus are exposed there
+    @Bean
+    @Order(Ordered.HIGHEST_PRECEDENCE + 1)
+    public SecurityFilterChain managementSecurityFilterChain(HttpSecurity http) throws Exception {
+        return http
+                .securityMatcher(EndpointRequest.toAnyEndpoint())
+                .csrf(AbstractHttpConfigurer::disable)
+                .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+                .authorizeHttpRequests(auth -> auth.anyRequest().permitAll())
+                .build();
+    }
+
     // Web form security (Thymeleaf)
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
@@ -77,10 +121,16 @@ public class SpringSecurityConfig {
         return http.build();
     }
 
+    /**
+     * Nimbus HS256 decoder behind a cache of already verified tokens, kept until each token expires
+     */
     @Bean
-    public JwtDecoder jwtDecoder() {
+    public CachingJwtDecoder jwtDecoder(
+            @Value("${paymybuddy.security.jwt-cache.max-size:10000}") long maxSize,
+            @Value("${paymybuddy.security.jwt-cache.max-ttl:5m}") Duration maxTtl) {
         SecretKeySpec secretKey = new SecretKeySpec(this.jwtKey.getBytes(), 0, this.jwtKey.getBytes().length,"RSA");
-        return NimbusJwtDecoder.withSecretKey(secretKey).macAlgorithm(MacAlgorithm.HS256).build();
+        JwtDecoder nimbusJwtDecoder = NimbusJwtDecoder.withSecretKey(secretKey).macAlgorithm(MacAlgorithm.HS256).build();
+        return new CachingJwtDecoder(nimbusJwtDecoder, maxSize, maxTtl);
     }
 
     @Bean
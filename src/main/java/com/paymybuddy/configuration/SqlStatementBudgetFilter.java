@@ -0,0 +1,73 @@
+package com.paymybuddy.configuration;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Counts the SQL statements each request runs, authentication included, and logs the requests
+ * running more than max-statements, or the same statement shape repeated-threshold times or more:
+ * the lazy loads of an N+1. The counter is left on the request under SqlStatementCounter.ATTRIBUTE,
+ * for tests to assert on.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "paymybuddy.sql.budget.enabled", havingValue = "true", matchIfMissing = true)
+@Order(Ordered.HIGHEST_PRECEDENCE + 20)
+public class SqlStatementBudgetFilter extends OncePerRequestFilter {
+
+    // Enough to spot the culprit without flooding the log
+    private static final int MAX_LOGGED_SHAPES = 3;
+
+    private final int maxStatements;
+    private final int repeatedThreshold;
+
+    public SqlStatementBudgetFilter(@Value("${paymybuddy.sql.budget.max-statements:10}") int maxStatements,
+                                    @Value("${paymybuddy.sql.budget.repeated-threshold:5}") int repeatedThreshold) {
+        this.maxStatements = maxStatements;
+        this.repeatedThreshold = repeatedThreshold;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        SqlStatementCounter counter = SqlStatementCounter.start();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            SqlStatementCounter.stop();
+            request.setAttribute(SqlStatementCounter.ATTRIBUTE, counter);
+            report(request, counter);
+        }
+    }
+
+    private void report(HttpServletRequest request, SqlStatementCounter counter) {
+        if (counter.getCount() > maxStatements) {
+            log.warn("{} {} ran {} SQL statements, over the budget of {}",
+                    request.getMethod(), path(request), counter.getCount(), maxStatements);
+        }
+        List<SqlStatementCounter.Shape> repeated = counter.getRepeatedShapes(repeatedThreshold);
+        for (SqlStatementCounter.Shape shape : repeated.subList(0, Math.min(repeated.size(), MAX_LOGGED_SHAPES))) {
+            log.warn("{} {} ran the same statement {} times, likely an N+1: {}",
+                    request.getMethod(), path(request), shape.count(), shape.sql());
+        }
+    }
+
+    // The mapping pattern groups the requests to one handler, whatever their ids
+    private static Object path(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern != null ? pattern : request.getRequestURI();
+    }
+}
@@ -0,0 +1,92 @@
+package com.paymybuddy.configuration;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * The SQL statements Hibernate prepared on the current thread while an HTTP request was handled,
+ * counted per shape: the SQL with its literals and IN lists folded, so that the same query for
+ * different ids is one shape. Many statements of one shape in a request are the mark of an N+1.
+ * Filled by SqlStatementInspector between the start and the end of SqlStatementBudgetFilter;
+ * JdbcTemplate and statements run on other threads are not seen.
+ */
+public final class SqlStatementCounter {
+
+    /**
+     * Request attribute holding the counter of the request once it has been handled
+     */
+    public static final String ATTRIBUTE = SqlStatementCounter.class.getName();
+
+    // Beyond this, new shapes are only counted in the total
+    private static final int MAX_SHAPES = 100;
+
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+    private static final Pattern PARAMETER_LIST = Pattern.compile("\\(\\s*\\?(?:\\s*,\\s*\\?)+\\s*\\)");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private static final ThreadLocal<SqlStatementCounter> CURRENT = new ThreadLocal<>();
+
+    private final Map<String, Integer> shapes = new HashMap<>();
+    private int count;
+
+    /**
+     * A shape and the number of times it ran
+     */
+    public record Shape(String sql, int count) {
+    }
+
+    static SqlStatementCounter start() {
+        SqlStatementCounter counter = new SqlStatementCounter();
+        CURRENT.set(counter);
+        return counter;
+    }
+
+    static void stop() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Counts a statement against the request handled by this thread, if any
+     */
+    static void record(String sql) {
+        SqlStatementCounter counter = CURRENT.get();
+        if (counter != null) {
+            counter.add(sql);
+        }
+    }
+
+    void add(String sql) {
+        count++;
+        String shape = shape(sql);
+        if (shapes.size() < MAX_SHAPES || shapes.containsKey(shape)) {
+            shapes.merge(shape, 1, Integer::sum);
+        }
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * @param threshold Least number of runs of a shape to be reported
+     * @return The shapes run at least threshold times, most run first
+     */
+    public List<Shape> getRepeatedShapes(int threshold) {
+        return shapes.entrySet().stream()
+                .filter(entry -> entry.getValue() >= threshold)
+                .map(entry -> new Shape(entry.getKey(), entry.getValue()))
+                .sorted(Comparator.comparingInt(Shape::count).reversed())
+                .toList();
+    }
+
+    static String shape(String sql) {
+        String shape = STRING_LITERAL.matcher(sql).replaceAll("?");
+        shape = NUMBER_LITERAL.matcher(shape).replaceAll("?");
+        shape = PARAMETER_LIST.matcher(shape).replaceAll("(?)");
+        return WHITESPACE.matcher(shape).replaceAll(" ").trim();
+    }
+}
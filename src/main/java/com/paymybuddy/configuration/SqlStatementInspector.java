@@ -0,0 +1,16 @@
+package com.paymybuddy.configuration;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Counts each statement Hibernate prepares against the current request, leaving the SQL untouched.
+ * Set through hibernate.session_factory.statement_inspector, Hibernate creates it.
+ */
+public class SqlStatementInspector implements StatementInspector {
+
+    @Override
+    public String inspect(String sql) {
+        SqlStatementCounter.record(sql);
+        return sql;
+    }
+}
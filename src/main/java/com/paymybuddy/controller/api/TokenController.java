@@ -0,0 +1,51 @@
+package com.paymybuddy.controller.api;
+
+import com.paymybuddy.model.dto.RefreshTokenRequestDTO;
+import com.paymybuddy.model.dto.TokenResponseDTO;
+import com.paymybuddy.model.dto.UserSummaryDTO;
+import com.paymybuddy.service.UserService;
+import com.paymybuddy.service.security.RefreshTokenService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/token")
+@RequiredArgsConstructor
+public class TokenController {
+
+    private final UserService userService;
+    private final RefreshTokenService refreshTokenService;
+
+    /**
+     * Create - Exchange credentials for an access token and a refresh token
+     * Only a password login gets tokens: a bearer access token must not be turned into a long-lived refresh token.
+     * @param authentication The user authenticated by HTTP Basic
+     * @return A ResponseEntity containing both tokens
+     */
+    @PostMapping
+    public ResponseEntity<TokenResponseDTO> getTokens(Authentication authentication) {
+        if (!(authentication instanceof UsernamePasswordAuthenticationToken)) {
+            throw new SecurityException("Tokens are only issued for a login with email and password.");
+        }
+        UserSummaryDTO user = userService.getUserSummaryByEmail(authentication.getName())
+                .orElseThrow(() -> new SecurityException("Unknown user."));
+        return ResponseEntity.ok(refreshTokenService.issueTokens(user.getId(), user.getEmail()));
+    }
+
+    /**
+     * Create - Exchange a refresh token for new tokens, without the password
+     * @param request The refresh token, which can not be used again
+     * @return A ResponseEntity containing the new tokens
+     */
+    @PostMapping("/refresh")
+    public ResponseEntity<TokenResponseDTO> refresh(@Valid @RequestBody RefreshTokenRequestDTO request) {
+        return ResponseEntity.ok(refreshTokenService.refresh(request.getRefreshToken()));
+    }
+}
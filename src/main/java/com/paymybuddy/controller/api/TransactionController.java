@@ -1,33 +1,85 @@
 package com.paymybuddy.controller.api;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import com.paymybuddy.model.Transaction;
+import com.paymybuddy.model.dto.BatchTransferRequestDTO;
+import com.paymybuddy.model.dto.BatchTransferResultDTO;
+import com.paymybuddy.model.dto.TransactionPageDTO;
+import com.paymybuddy.service.BatchTransferService;
+import com.paymybuddy.service.IdempotencyStore;
 import com.paymybuddy.service.TransactionService;
-import lombok.RequiredArgsConstructor;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.URI;
+import java.time.Duration;
 import java.util.List;
 
 @RestController
 @RequestMapping("/api/transactions")
-@RequiredArgsConstructor
 public class TransactionController {
 
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     private final TransactionService transactionService;
+    private final BatchTransferService batchTransferService;
+    private final IdempotencyStore idempotencyStore;
+    private final ObjectMapper objectMapper;
+    private final long exportTimeoutMillis;
+
+    public TransactionController(TransactionService transactionService,
+                                 BatchTransferService batchTransferService,
+                                 IdempotencyStore idempotencyStore,
+                                 ObjectMapper objectMapper,
+                                 @Value("${paymybuddy.export.timeout:30m}") Duration exportTimeout) {
+        this.transactionService = transactionService;
+        this.batchTransferService = batchTransferService;
+        this.idempotencyStore = idempotencyStore;
+        this.objectMapper = objectMapper;
+        this.exportTimeoutMillis = exportTimeout.toMillis();
+    }
 
     /**
      * Create - Add a new transaction
+     * A request repeated with the same Idempotency-Key returns the transaction created the first time.
      * @param transaction An object transaction
+     * @param idempotencyKey An optional client key identifying this transfer across retries
      * @return A ResponseEntity containing the transaction object saved
      */
     @PostMapping
-    public ResponseEntity<Transaction> createTransaction(@RequestBody Transaction transaction) {
-        Transaction savedTransaction = transactionService.saveTransaction(transaction);
+    public ResponseEntity<Transaction> createTransaction(
+            @RequestBody Transaction transaction,
+            @RequestHeader(name = IdempotencyStore.HEADER, required = false) String idempotencyKey) {
+        transaction.setIdempotencyKey(idempotencyKey);
+        Integer senderId = transaction.getSender() == null ? null : transaction.getSender().getId();
+        Transaction savedTransaction = idempotencyStore.execute(senderId, idempotencyKey,
+                () -> transactionService.saveTransaction(transaction));
         URI location = URI.create("/api/transactions/" + savedTransaction.getId());
         return ResponseEntity.created(location).body(savedTransaction);
     }
 
+    /**
+     * Create - Add many transactions from one sender in a single call
+     * Each transfer is validated on its own; accepted ones are inserted in JDBC batches.
+     * @param request The sender id and the list of transfers
+     * @return A ResponseEntity containing the outcome of every transfer
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<BatchTransferResultDTO> createTransactions(@Valid @RequestBody BatchTransferRequestDTO request) {
+        return ResponseEntity.ok(batchTransferService.transfer(request));
+    }
+
     /**
      * Read - Get all transactions
      * @return - A ResponseEntity containing an Iterable object of Transaction fulfilled
@@ -37,6 +89,37 @@ public class TransactionController {
         return ResponseEntity.ok(transactionService.getTransactions());
     }
 
+    /**
+     * Read - Stream all transactions as newline-delimited JSON
+     * Rows are written as they are fetched so memory stays constant whatever the table size.
+     * The export may outlive the MVC async timeout, so it is given its own.
+     * @param request The current request, whose async timeout is set before the streaming starts
+     * @return - A ResponseEntity containing a StreamingResponseBody writing one Transaction per line
+     */
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamTransactions(HttpServletRequest request) {
+        WebAsyncUtils.getAsyncManager(request).getAsyncWebRequest().setTimeout(exportTimeoutMillis);
+        ObjectWriter writer = objectMapper.writerFor(Transaction.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = writer.createGenerator(outputStream)) {
+                generator.setRootValueSeparator(null);
+                transactionService.forEachTransaction(transaction -> {
+                    try {
+                        writer.writeValue(generator, transaction);
+                        generator.writeRaw('\n');
+                    } catch (IOException exception) {
+                        throw new UncheckedIOException(exception);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
     /**
      * Read - Get one transaction
      * @param id The id of the transaction
@@ -50,31 +133,33 @@ public class TransactionController {
     }
 
     /**
-     * Read - Get all sent transactions of a user
+     * Read - Get one page of sent transactions of a user, newest first
      * @param senderId The id of the transactions sender
+     * @param cursor The cursor returned in the X-Next-Cursor header of the previous page, if any
+     * @param size The maximum number of transactions to return (capped server-side)
      * @return A ResponseEntity containing a List of Transaction objects fulfilled
      */
     @GetMapping("/sender/{senderId}")
-    public ResponseEntity<List<Transaction>> getTransactionsBySenderId(@PathVariable Integer senderId) {
-        List<Transaction> transactions = transactionService.getTransactionsBySenderId(senderId);
-        if (transactions.isEmpty()) {
-            return ResponseEntity.noContent().build();
-        }
-        return ResponseEntity.ok(transactions);
+    public ResponseEntity<List<Transaction>> getTransactionsBySenderId(
+            @PathVariable Integer senderId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        return toPageResponse(transactionService.getTransactionsBySenderId(senderId, cursor, size));
     }
 
     /**
-     * Read - Get all received transactions of a user
+     * Read - Get one page of received transactions of a user, newest first
      * @param receiverId The id of the transactions receiver
+     * @param cursor The cursor returned in the X-Next-Cursor header of the previous page, if any
+     * @param size The maximum number of transactions to return (capped server-side)
      * @return A ResponseEntity containing a List of Transaction objects fulfilled
      */
     @GetMapping("/receiver/{receiverId}")
-    public ResponseEntity<List<Transaction>> getTransactionsByReceiverId(@PathVariable Integer receiverId) {
-        List<Transaction> transactions = transactionService.getTransactionsByReceiverId(receiverId);
-        if (transactions.isEmpty()) {
-            return ResponseEntity.noContent().build();
-        }
-        return ResponseEntity.ok(transactions);
+    public ResponseEntity<List<Transaction>> getTransactionsByReceiverId(
+            @PathVariable Integer receiverId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        return toPageResponse(transactionService.getTransactionsByReceiverId(receiverId, cursor, size));
     }
 
     /**
@@ -88,21 +173,13 @@ public class TransactionController {
             @PathVariable Integer id,
             @RequestBody Transaction transactionDetails) {
 
-        return transactionService.getTransactionById(id)
-                .map(existingTransaction -> {
-                    existingTransaction.setAmount(transactionDetails.getAmount());
-                    existingTransaction.setDescription(transactionDetails.getDescription());
-                    existingTransaction.setSender(transactionDetails.getSender());
-                    existingTransaction.setReceiver(transactionDetails.getReceiver());
-
-                    Transaction updated = transactionService.saveTransaction(existingTransaction);
-                    return ResponseEntity.ok(updated);
-                })
+        return transactionService.updateTransaction(id, transactionDetails)
+                .map(ResponseEntity::ok)
                 .orElseGet(() -> ResponseEntity.notFound().build());
     }
 
     /**
-     * Delete - Delete a transaction
+     * Delete - Delete a transaction, reversing it
      * @param id - The id of the transaction to delete
      */
     @DeleteMapping("/{id}")
@@ -110,4 +187,15 @@ public class TransactionController {
         transactionService.deleteTransactionById(id);
         return ResponseEntity.noContent().build();
     }
+
+    private ResponseEntity<List<Transaction>> toPageResponse(TransactionPageDTO page) {
+        if (page.getTransactions().isEmpty()) {
+            return ResponseEntity.noContent().build();
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNext() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.getNext());
+        }
+        return response.body(page.getTransactions());
+    }
 }
@@ -7,6 +7,7 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.math.BigDecimal;
 import java.net.URI;
 import java.util.Optional;
 
@@ -54,6 +55,18 @@ public class UserController {
                 .orElseGet(() -> ResponseEntity.notFound().build());
     }
 
+    /**
+     * Update - Add money to the balance of a user
+     * @param id - The id of the user to credit
+     * @param amount - The positive amount to add
+     * @return An empty ResponseEntity
+     */
+    @PostMapping("/{id}/deposit")
+    public ResponseEntity<Void> deposit(@PathVariable Integer id, @RequestParam BigDecimal amount) {
+        userService.deposit(id, amount);
+        return ResponseEntity.noContent().build();
+    }
+
     /**
      * Update - Update an existing user
      * @param id - The id of the user to update
@@ -1,7 +1,8 @@
 package com.paymybuddy.controller.web;
 
-import com.paymybuddy.model.User;
 import com.paymybuddy.model.dto.AddConnectionDTO;
+import com.paymybuddy.model.dto.UserSummaryDTO;
+import com.paymybuddy.service.ConnectionSuggestionService;
 import com.paymybuddy.service.UserService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -22,12 +23,15 @@ import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 public class ConnectionController {
 
     private final UserService userService;
+    private final ConnectionSuggestionService connectionSuggestionService;
 
     @GetMapping
     public String addRelationPage(@AuthenticationPrincipal UserDetails principal, Model model) {
         if (!model.containsAttribute("addConnection")) {
             model.addAttribute("addConnection", new AddConnectionDTO());
         }
+        userService.getUserSummaryByEmail(principal.getUsername())
+                .ifPresent(user -> model.addAttribute("suggestions", connectionSuggestionService.getSuggestions(user.getId())));
         return "add-relation";
     }
 
@@ -37,19 +41,19 @@ public class ConnectionController {
                                 BindingResult result,
                                 RedirectAttributes redirectAttributes) {
 
-        User currentUser = userService.getUserByEmail(principal.getUsername()).orElse(null);
+        UserSummaryDTO currentUser = userService.getUserSummaryByEmail(principal.getUsername()).orElse(null);
         if (currentUser == null) {
             redirectAttributes.addFlashAttribute("error", "Authenticated user not found.");
             return "redirect:/add-relation";
         }
 
         // Check if user exists
-        User targetUser = userService.getUserByEmail(addConnection.getEmail()).orElse(null);
+        UserSummaryDTO targetUser = userService.getUserSummaryByEmail(addConnection.getEmail()).orElse(null);
         if (targetUser == null) {
             result.rejectValue("email", "user.notfound", "No user found with this email.");
         } else if (currentUser.getId().equals(targetUser.getId())) {
             result.rejectValue("email", "user.self", "You cannot add yourself as a connection.");
-        } else if (currentUser.getConnections().contains(targetUser)) {
+        } else if (userService.areConnected(currentUser.getId(), targetUser.getId())) {
             result.rejectValue("email", "connection.exists", "This connection already exists.");
         }
 
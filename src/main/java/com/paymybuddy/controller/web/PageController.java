@@ -1,6 +1,7 @@
 package com.paymybuddy.controller.web;
 
-import com.paymybuddy.model.User;
+import com.paymybuddy.model.dto.UserSummaryDTO;
+import com.paymybuddy.service.TransactionFeedHub;
 import com.paymybuddy.service.TransactionService;
 import com.paymybuddy.service.UserService;
 import lombok.RequiredArgsConstructor;
@@ -10,12 +11,15 @@ import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 
+import java.util.UUID;
+
 @Controller
 @RequiredArgsConstructor
 public class PageController {
 
     private final UserService userService;
     private final TransactionService transactionService;
+    private final TransactionFeedHub transactionFeedHub;
 
     @GetMapping("/login")
     public String loginPage() {
@@ -25,25 +29,32 @@ public class PageController {
     @GetMapping({"/", "/home"})
     public String homePage(@AuthenticationPrincipal UserDetails principal, Model model) {
         model.addAttribute("username", principal.getUsername());
+        // Read before the queries: the live feed resumes from here, so nothing falls in between. A transfer
+        // committed meanwhile may be both in the page and pushed, the client skips the rows it already has
+        // and takes the balance the feed sends over the one rendered
+        model.addAttribute("feedSequence", transactionFeedHub.currentSequence());
 
-        User user = userService.getUserByEmail(principal.getUsername()).orElse(null);
+        UserSummaryDTO user = userService.getUserSummaryByEmail(principal.getUsername()).orElse(null);
         if (user != null) {
-            model.addAttribute("connections", user.getConnections());
-            model.addAttribute("transactions", transactionService.getTransactionsBySenderId(user.getId()));
+            model.addAttribute("balance", userService.getBalance(user.getId()).orElse(null));
+            model.addAttribute("connections", userService.getConnections(user.getId()));
+            model.addAttribute("transactions", transactionService.getTransactionHistoryBySenderId(user.getId()));
         } else {
             model.addAttribute("connections", java.util.Collections.emptyList());
             model.addAttribute("transactions", java.util.Collections.emptyList());
         }
         // Prepare an empty transfer object so field values can be preserved on redirect errors
         if (!model.containsAttribute("transfer")) {
-            model.addAttribute("transfer", new com.paymybuddy.model.dto.TransferRequestDTO());
+            com.paymybuddy.model.dto.TransferRequestDTO transfer = new com.paymybuddy.model.dto.TransferRequestDTO();
+            transfer.setIdempotencyKey(UUID.randomUUID().toString());
+            model.addAttribute("transfer", transfer);
         }
         return "home";
     }
 
     @GetMapping("/profile")
     public String profilePage(@AuthenticationPrincipal UserDetails principal, Model model) {
-        User user = userService.getUserByEmail(principal.getUsername()).orElse(null);
+        UserSummaryDTO user = userService.getUserSummaryByEmail(principal.getUsername()).orElse(null);
         model.addAttribute("user", user);
         return "profile";
     }
@@ -0,0 +1,38 @@
+package com.paymybuddy.controller.web;
+
+import com.paymybuddy.model.dto.UserSummaryDTO;
+import com.paymybuddy.service.TransactionFeedHub;
+import com.paymybuddy.service.UserService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Live feed of the home page: the transfers of the logged-in user, pushed as they commit
+ */
+@Controller
+@RequiredArgsConstructor
+public class TransactionFeedController {
+
+    private final UserService userService;
+    private final TransactionFeedHub transactionFeedHub;
+
+    /**
+     * @param since Sequence the page was rendered at
+     * @param lastEventId Sent by the browser when it reconnects, the last message it received
+     */
+    @GetMapping(value = "/home/feed", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter feed(@AuthenticationPrincipal UserDetails principal,
+                           @RequestParam(defaultValue = "-1") long since,
+                           @RequestHeader(name = "Last-Event-ID", required = false) Long lastEventId) {
+        UserSummaryDTO user = userService.getUserSummaryByEmail(principal.getUsername())
+                .orElseThrow(() -> new SecurityException("Authenticated user not found."));
+        return transactionFeedHub.open(user.getId(), lastEventId != null ? Math.max(since, lastEventId) : since);
+    }
+}
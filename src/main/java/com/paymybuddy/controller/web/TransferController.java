@@ -3,6 +3,8 @@ package com.paymybuddy.controller.web;
 import com.paymybuddy.model.Transaction;
 import com.paymybuddy.model.User;
 import com.paymybuddy.model.dto.TransferRequestDTO;
+import com.paymybuddy.model.dto.UserSummaryDTO;
+import com.paymybuddy.service.IdempotencyStore;
 import com.paymybuddy.service.TransactionService;
 import com.paymybuddy.service.UserService;
 import jakarta.validation.Valid;
@@ -21,6 +23,7 @@ public class TransferController {
 
     private final UserService userService;
     private final TransactionService transactionService;
+    private final IdempotencyStore idempotencyStore;
 
     @PostMapping("/transfer")
     public String makeTransfer(@AuthenticationPrincipal UserDetails principal,
@@ -28,16 +31,13 @@ public class TransferController {
                                BindingResult result,
                                RedirectAttributes redirectAttributes) {
 
-        User sender = userService.getUserByEmail(principal.getUsername()).orElse(null);
+        UserSummaryDTO sender = userService.getUserSummaryByEmail(principal.getUsername()).orElse(null);
         if (sender == null) {
             redirectAttributes.addFlashAttribute("error", "Authenticated user not found.");
             return "redirect:/home";
         }
 
-        User receiver = null;
-        if (transfer.getConnectionEmail() != null) {
-            receiver = userService.getUserByEmail(transfer.getConnectionEmail()).orElse(null);
-        }
+        UserSummaryDTO receiver = userService.getUserSummaryByEmail(transfer.getConnectionEmail()).orElse(null);
         if (receiver == null) {
             result.rejectValue("connectionEmail", "receiver.notfound", "Recipient not found");
         } else if (sender.getId().equals(receiver.getId())) {
@@ -52,12 +52,15 @@ public class TransferController {
 
         try {
             Transaction transaction = Transaction.builder()
-                    .sender(sender)
-                    .receiver(receiver)
+                    // Only the ids are needed: the users are referenced, not updated
+                    .sender(User.builder().id(sender.getId()).build())
+                    .receiver(User.builder().id(receiver.getId()).build())
                     .amount(transfer.getAmount())
                     .description(transfer.getDescription())
+                    .idempotencyKey(transfer.getIdempotencyKey())
                     .build();
-            transactionService.saveTransaction(transaction);
+            idempotencyStore.execute(sender.getId(), transfer.getIdempotencyKey(),
+                    () -> transactionService.saveTransaction(transaction));
             redirectAttributes.addFlashAttribute("success", "Transfer completed successfully.");
         } catch (IllegalArgumentException ex) {
             redirectAttributes.addFlashAttribute("error", ex.getMessage());
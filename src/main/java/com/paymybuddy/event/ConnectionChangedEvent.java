@@ -0,0 +1,7 @@
+package com.paymybuddy.event;
+
+/**
+ * Published when two users are connected or disconnected; connections are always mutual
+ */
+public record ConnectionChangedEvent(Integer userId, Integer connectedUserId, boolean connected) {
+}
@@ -0,0 +1,8 @@
+package com.paymybuddy.event;
+
+/**
+ * Published when a user's password hash is upgraded on login. The password itself is unchanged,
+ * so sessions and refresh tokens stay valid; only copies of the old hash need dropping.
+ */
+public record PasswordRehashedEvent(Integer userId, String email) {
+}
@@ -0,0 +1,55 @@
+package com.paymybuddy.event;
+
+import java.math.BigDecimal;
+
+/**
+ * A committed transfer or deposit, as seen by TransactionEventBus consumers.
+ * Instances are preallocated and reused: a handler must copy what it needs before returning.
+ */
+public final class TransactionEvent {
+
+    // Transaction and sender id of a deposit, which has neither; database ids start at 1
+    public static final int NONE = 0;
+
+    private int transactionId;
+    private int senderId;
+    private int receiverId;
+    private BigDecimal amount;
+    private String description;
+
+    public int getTransactionId() {
+        return transactionId;
+    }
+
+    public int getSenderId() {
+        return senderId;
+    }
+
+    public int getReceiverId() {
+        return receiverId;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public boolean isDeposit() {
+        return senderId == NONE;
+    }
+
+    void set(int transactionId, int senderId, int receiverId, BigDecimal amount, String description) {
+        this.transactionId = transactionId;
+        this.senderId = senderId;
+        this.receiverId = receiverId;
+        this.amount = amount;
+        this.description = description;
+    }
+
+    void copyFrom(TransactionEvent other) {
+        set(other.transactionId, other.senderId, other.receiverId, other.amount, other.description);
+    }
+}
@@ -0,0 +1,333 @@
+package com.paymybuddy.event;
+
+import com.paymybuddy.model.Transaction;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.lang.invoke.VarHandle;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * In-process feed of committed transfers, so consumers stop polling the TRANSACTION table.
+ * Events go into a preallocated ring of reusable slots: publishing claims a sequence number with
+ * a CAS, waits for the slot's previous event to be fully written, copies the fields into the slot
+ * and marks it published, without allocating.
+ * Each subscription reads the ring on its own thread and tracks its own sequence. A BLOCK
+ * subscription holds producers back when it is a full ring behind; a DROP subscription never does
+ * and skips the events overwritten before it could read them, counting them as dropped.
+ */
+@Slf4j
+@Component
+public class TransactionEventBus {
+
+    public enum OverflowPolicy { BLOCK, DROP }
+
+    // Marks a slot being rewritten, so a DROP subscription never reads half of two events
+    private static final long IN_PROGRESS = Long.MIN_VALUE;
+    private static final long PRODUCER_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    private static final long CONSUMER_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private final int capacity;
+    private final int mask;
+    private final TransactionEvent[] slots;
+    // Sequence last published in each slot
+    private final AtomicLongArray published;
+    private final AtomicLong claimed = new AtomicLong(-1);
+    private volatile Subscription[] subscriptions = new Subscription[0];
+    private final LongAdder producerWaits = new LongAdder();
+
+    public TransactionEventBus(@Value("${paymybuddy.events.ring-size:8192}") int ringSize) {
+        if (ringSize < 2 || Integer.bitCount(ringSize) != 1) {
+            throw new IllegalArgumentException("The ring size must be a power of two, got " + ringSize);
+        }
+        this.capacity = ringSize;
+        this.mask = ringSize - 1;
+        this.slots = new TransactionEvent[ringSize];
+        this.published = new AtomicLongArray(ringSize);
+        for (int i = 0; i < ringSize; i++) {
+            slots[i] = new TransactionEvent();
+            published.set(i, i - (long) ringSize);
+        }
+    }
+
+    /**
+     * Publishes the transfer once the current transaction commits, or right away outside one.
+     * Nothing is published if the transaction rolls back.
+     */
+    public void publishAfterCommit(Transaction transaction) {
+        publishAfterCommit(transaction.getId(), transaction.getSender().getId(), transaction.getReceiver().getId(),
+                transaction.getAmount(), transaction.getDescription());
+    }
+
+    /**
+     * Publishes a deposit once the current transaction commits: an event without transaction nor sender
+     */
+    public void publishDepositAfterCommit(int userId, BigDecimal amount) {
+        publishAfterCommit(TransactionEvent.NONE, TransactionEvent.NONE, userId, amount, null);
+    }
+
+    /**
+     * Same as publishAfterCommit(Transaction), for rows written without an entity.
+     * Events of one transaction are queued on a single synchronization and published in order.
+     */
+    public void publishAfterCommit(int transactionId, int senderId, int receiverId, BigDecimal amount, String description) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publish(transactionId, senderId, receiverId, amount, description);
+            return;
+        }
+        PendingEvents pending = (PendingEvents) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            pending = new PendingEvents();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        pending.events.add(new PendingEvent(transactionId, senderId, receiverId, amount, description));
+    }
+
+    public void publish(int transactionId, int senderId, int receiverId, BigDecimal amount, String description) {
+        long sequence = claim();
+        int index = (int) sequence & mask;
+        // Without a BLOCK subscription, the producer of the previous lap may still be writing this slot
+        long previous = sequence - capacity;
+        while (published.get(index) != previous) {
+            LockSupport.parkNanos(PRODUCER_PARK_NANOS);
+        }
+        published.set(index, IN_PROGRESS);
+        VarHandle.storeStoreFence();
+        write(slots[index], transactionId, senderId, receiverId, amount, description);
+        published.set(index, sequence);
+        for (Subscription subscription : subscriptions) {
+            subscription.wake();
+        }
+    }
+
+    void write(TransactionEvent slot, int transactionId, int senderId, int receiverId, BigDecimal amount, String description) {
+        slot.set(transactionId, senderId, receiverId, amount, description);
+    }
+
+    /**
+     * Starts a consumer thread reading every event published from now on
+     * @param name Names the thread and the subscription in logs
+     * @param policy What happens when the consumer is a full ring behind the producers
+     * @param handler Called for each event, in sequence order
+     * @return The subscription, to monitor or close it
+     */
+    public synchronized Subscription subscribe(String name, OverflowPolicy policy, TransactionEventHandler handler) {
+        Subscription subscription = new Subscription(name, policy, handler, claimed.get());
+        Subscription[] updated = Arrays.copyOf(subscriptions, subscriptions.length + 1);
+        updated[updated.length - 1] = subscription;
+        subscriptions = updated;
+        subscription.thread.start();
+        return subscription;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return The last sequence claimed by a producer, -1 before the first event
+     */
+    public long getCursor() {
+        return claimed.get();
+    }
+
+    /**
+     * @return How many times a producer had to wait for a BLOCK subscription
+     */
+    public long getProducerWaits() {
+        return producerWaits.sum();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (Subscription subscription : subscriptions) {
+            subscription.close();
+        }
+    }
+
+    private long claim() {
+        while (true) {
+            long current = claimed.get();
+            long next = current + 1;
+            // The slot of next still holds wrapPoint, which every BLOCK subscription must have read
+            long wrapPoint = next - capacity;
+            if (wrapPoint >= 0 && wrapPoint > minimumBlockingSequence()) {
+                producerWaits.increment();
+                LockSupport.parkNanos(PRODUCER_PARK_NANOS);
+                continue;
+            }
+            if (claimed.compareAndSet(current, next)) {
+                return next;
+            }
+        }
+    }
+
+    private long minimumBlockingSequence() {
+        long minimum = Long.MAX_VALUE;
+        for (Subscription subscription : subscriptions) {
+            if (subscription.policy == OverflowPolicy.BLOCK) {
+                minimum = Math.min(minimum, subscription.sequence.get());
+            }
+        }
+        return minimum;
+    }
+
+    private synchronized void remove(Subscription subscription) {
+        subscriptions = Arrays.stream(subscriptions)
+                .filter(candidate -> candidate != subscription)
+                .toArray(Subscription[]::new);
+    }
+
+    private record PendingEvent(int transactionId, int senderId, int receiverId, BigDecimal amount,
+                                String description) {
+    }
+
+    /**
+     * The events of the current transaction, bound to it as a resource so that each publish finds the list.
+     * Unbound while the transaction is suspended, so that a nested one gets its own.
+     */
+    private final class PendingEvents implements TransactionSynchronization {
+
+        private final List<PendingEvent> events = new ArrayList<>();
+
+        @Override
+        public void suspend() {
+            TransactionSynchronizationManager.unbindResource(TransactionEventBus.this);
+        }
+
+        @Override
+        public void resume() {
+            TransactionSynchronizationManager.bindResource(TransactionEventBus.this, this);
+        }
+
+        @Override
+        public void afterCommit() {
+            for (PendingEvent event : events) {
+                publish(event.transactionId(), event.senderId(), event.receiverId(), event.amount(), event.description());
+            }
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(TransactionEventBus.this);
+        }
+    }
+
+    public final class Subscription implements AutoCloseable {
+
+        private final String name;
+        private final OverflowPolicy policy;
+        private final TransactionEventHandler handler;
+        private final TransactionEvent view = new TransactionEvent();
+        // Last sequence handed to the handler (or skipped)
+        private final AtomicLong sequence;
+        private final AtomicLong dropped = new AtomicLong();
+        private final AtomicLong failures = new AtomicLong();
+        private final Thread thread;
+        private volatile boolean running = true;
+        private volatile boolean parked;
+
+        private Subscription(String name, OverflowPolicy policy, TransactionEventHandler handler, long start) {
+            this.name = name;
+            this.policy = policy;
+            this.handler = handler;
+            this.sequence = new AtomicLong(start);
+            this.thread = Thread.ofPlatform().name("transaction-events-" + name).daemon().unstarted(this::run);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public OverflowPolicy getPolicy() {
+            return policy;
+        }
+
+        public long getSequence() {
+            return sequence.get();
+        }
+
+        /**
+         * @return Events claimed by producers and not yet handled by this subscription
+         */
+        public long getLag() {
+            return Math.max(0, claimed.get() - sequence.get());
+        }
+
+        public long getDropped() {
+            return dropped.get();
+        }
+
+        public long getFailures() {
+            return failures.get();
+        }
+
+        @Override
+        public void close() {
+            running = false;
+            remove(this);
+            LockSupport.unpark(thread);
+        }
+
+        private void wake() {
+            if (parked) {
+                LockSupport.unpark(thread);
+            }
+        }
+
+        private void run() {
+            long next = sequence.get() + 1;
+            while (running) {
+                int index = (int) next & mask;
+                if (published.get(index) == next) {
+                    view.copyFrom(slots[index]);
+                    VarHandle.acquireFence();
+                    if (published.get(index) == next) {
+                        boolean endOfBatch = published.get((int) (next + 1) & mask) != next + 1;
+                        handle(next, endOfBatch);
+                        sequence.set(next);
+                        next++;
+                        continue;
+                    }
+                }
+
+                // Only a DROP subscription can fall a full ring behind
+                long oldest = claimed.get() - capacity + 1;
+                if (next < oldest) {
+                    dropped.addAndGet(oldest - next);
+                    sequence.set(oldest - 1);
+                    next = oldest;
+                    continue;
+                }
+
+                parked = true;
+                if (running && published.get(index) != next) {
+                    LockSupport.parkNanos(this, CONSUMER_PARK_NANOS);
+                }
+                parked = false;
+            }
+        }
+
+        private void handle(long next, boolean endOfBatch) {
+            try {
+                handler.onEvent(view, next, endOfBatch);
+            } catch (RuntimeException exception) {
+                failures.incrementAndGet();
+                log.warn("Transaction event consumer {} failed on event {}", name, next, exception);
+            }
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.paymybuddy.event;
+
+/**
+ * Consumer of TransactionEventBus, called on the subscription's own thread
+ */
+@FunctionalInterface
+public interface TransactionEventHandler {
+
+    /**
+     * @param event Reused for the next event once this call returns
+     * @param sequence Position of the event on the bus, increasing by one unless events were dropped
+     * @param endOfBatch Whether no further event is ready yet, a good time to flush buffered work
+     */
+    void onEvent(TransactionEvent event, long sequence, boolean endOfBatch);
+}
@@ -0,0 +1,4 @@
+package com.paymybuddy.event;
+
+public record UserChangedEvent(Integer userId, String email) {
+}
@@ -0,0 +1,4 @@
+package com.paymybuddy.event;
+
+public record UserDeletedEvent(Integer userId) {
+}
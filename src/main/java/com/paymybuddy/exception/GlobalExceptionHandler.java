@@ -1,5 +1,6 @@
 package com.paymybuddy.exception;
 
+import com.paymybuddy.service.security.PasswordHashingRejectedException;
 import jakarta.validation.ConstraintViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -39,6 +40,14 @@ public class GlobalExceptionHandler {
         return buildResponse(HttpStatus.UNAUTHORIZED, exception.getMessage(), request);
     }
 
+    /**
+     * Manages requests turned away because password hashing is saturated
+     */
+    @ExceptionHandler(PasswordHashingRejectedException.class)
+    public ResponseEntity<Object> handlePasswordHashingRejected(PasswordHashingRejectedException exception, WebRequest request) {
+        return buildResponse(HttpStatus.SERVICE_UNAVAILABLE, exception.getMessage(), request);
+    }
+
     /**
      * Manages all other unplanned exceptions.
      */
@@ -0,0 +1,30 @@
+package com.paymybuddy.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.*;
+
+import java.time.Instant;
+
+@Entity
+@Table(name = "REFRESH_TOKEN")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RefreshToken {
+
+    // Base64url SHA-256 of the token handed to the client, never the token itself
+    @Id
+    @Column(name = "token_hash", length = 43)
+    private String tokenHash;
+
+    @Column(name = "user_id", nullable = false)
+    private Integer userId;
+
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+}
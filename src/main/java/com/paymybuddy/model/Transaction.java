@@ -1,6 +1,7 @@
 package com.paymybuddy.model;
 
 import com.fasterxml.jackson.annotation.JsonBackReference;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.*;
 
@@ -26,6 +27,11 @@ public class Transaction {
     @Column(name = "amount")
     private BigDecimal amount;
 
+    // Set from the Idempotency-Key header or form field, never from the request body
+    @JsonIgnore
+    @Column(name = "idempotency_key", length = 64, updatable = false)
+    private String idempotencyKey;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "sender_id")
     @JsonBackReference("sent")
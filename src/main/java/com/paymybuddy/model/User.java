@@ -8,7 +8,9 @@ import jakarta.persistence.*;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import lombok.*;
+import org.hibernate.annotations.Formula;
 
+import java.math.BigDecimal;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -40,6 +42,12 @@ public class User {
     @Column(name = "password", nullable = false, length = 100)
     private String password;
 
+    // Only moved by the ledger's conditional UPDATEs; includes the shards of split accounts
+    @Builder.Default
+    @JsonProperty(access = Access.READ_ONLY)
+    @Formula("balance + (SELECT COALESCE(SUM(s.balance), 0) FROM USER_BALANCE_SHARD s WHERE s.user_id = id)")
+    private BigDecimal balance = BigDecimal.ZERO;
+
     @OneToMany(mappedBy = "sender", fetch = FetchType.LAZY, cascade = CascadeType.ALL)
     @JsonManagedReference("sent")
     private final Set<Transaction> sentTransactions = new HashSet<>();
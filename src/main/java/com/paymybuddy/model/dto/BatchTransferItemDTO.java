@@ -0,0 +1,21 @@
+package com.paymybuddy.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchTransferItemDTO {
+
+    private Integer receiverId;
+
+    private BigDecimal amount;
+
+    private String description;
+}
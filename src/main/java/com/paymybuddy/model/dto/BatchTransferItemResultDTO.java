@@ -0,0 +1,25 @@
+package com.paymybuddy.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class BatchTransferItemResultDTO {
+
+    public enum Status {
+        CREATED,
+        REJECTED,
+        FAILED
+    }
+
+    private final int index;
+
+    private final Integer receiverId;
+
+    private final Status status;
+
+    private final Integer transactionId;
+
+    private final String message;
+}
@@ -0,0 +1,23 @@
+package com.paymybuddy.model.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+public class BatchTransferRequestDTO {
+
+    @NotNull(message = "Sender id is required")
+    private Integer senderId;
+
+    // Items are validated one by one so that each gets its own result
+    @NotEmpty(message = "At least one transfer is required")
+    private List<BatchTransferItemDTO> transfers = new ArrayList<>();
+}
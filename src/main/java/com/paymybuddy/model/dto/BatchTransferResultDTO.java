@@ -0,0 +1,19 @@
+package com.paymybuddy.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+public class BatchTransferResultDTO {
+
+    private final int created;
+
+    private final int rejected;
+
+    private final int failed;
+
+    private final List<BatchTransferItemResultDTO> results;
+}
@@ -0,0 +1,15 @@
+package com.paymybuddy.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class ConnectionDTO {
+
+    private final Integer id;
+
+    private final String username;
+
+    private final String email;
+}
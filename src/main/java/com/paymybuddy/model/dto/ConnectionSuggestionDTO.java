@@ -0,0 +1,17 @@
+package com.paymybuddy.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class ConnectionSuggestionDTO {
+
+    private final Integer userId;
+
+    private final String username;
+
+    private final String email;
+
+    private final int mutualConnections;
+}
@@ -0,0 +1,15 @@
+package com.paymybuddy.model.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+public class RefreshTokenRequestDTO {
+
+    @NotBlank(message = "Refresh token is required")
+    private String refreshToken;
+}
@@ -0,0 +1,21 @@
+package com.paymybuddy.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * A short-lived access token and the single-use refresh token that replaces it
+ */
+@Getter
+@AllArgsConstructor
+public class TokenResponseDTO {
+
+    private final String accessToken;
+
+    private final String refreshToken;
+
+    private final String tokenType = "Bearer";
+
+    // Lifetime of the access token, in seconds
+    private final long expiresIn;
+}
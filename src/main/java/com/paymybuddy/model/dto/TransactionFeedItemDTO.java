@@ -0,0 +1,28 @@
+package com.paymybuddy.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+
+/**
+ * A committed transfer pushed to the live feed of one of its two users, or a deposit to its user's
+ */
+@Getter
+@AllArgsConstructor
+public class TransactionFeedItemDTO {
+
+    public enum Direction { SENT, RECEIVED, DEPOSIT }
+
+    // Null for a deposit
+    private final Integer id;
+
+    private final Direction direction;
+
+    // The receiver of a sent transfer, the sender of a received one, null for a deposit
+    private final String counterpartUsername;
+
+    private final String description;
+
+    private final BigDecimal amount;
+}
@@ -0,0 +1,20 @@
+package com.paymybuddy.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * One message of the live feed: the transfers since the previous one, and the balance read after them
+ */
+@Getter
+@AllArgsConstructor
+public class TransactionFeedMessageDTO {
+
+    private final List<TransactionFeedItemDTO> items;
+
+    // Replaces the balance shown rather than being added to it, a transfer may already be in the page
+    private final BigDecimal balance;
+}
@@ -0,0 +1,22 @@
+package com.paymybuddy.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+
+/**
+ * One row of a sender's history, read in the same query as the receiver's name
+ */
+@Getter
+@AllArgsConstructor
+public class TransactionHistoryDTO {
+
+    private final Integer id;
+
+    private final String receiverUsername;
+
+    private final String description;
+
+    private final BigDecimal amount;
+}
@@ -0,0 +1,19 @@
+package com.paymybuddy.model.dto;
+
+import com.paymybuddy.model.Transaction;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+public class TransactionPageDTO {
+
+    private final List<Transaction> transactions;
+
+    /**
+     * Opaque cursor to pass back to fetch the next page, or null on the last page
+     */
+    private final String next;
+}
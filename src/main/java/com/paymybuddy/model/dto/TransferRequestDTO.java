@@ -24,6 +24,9 @@ public class TransferRequestDTO {
     private BigDecimal amount;
 
     private String description;
+
+    // Generated when the form is rendered, so a resubmitted form is recognized
+    private String idempotencyKey;
 }
 
 
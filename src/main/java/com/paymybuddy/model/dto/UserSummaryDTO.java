@@ -0,0 +1,21 @@
+package com.paymybuddy.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * What a request needs to know about the authenticated user, small enough to cache
+ */
+@Getter
+@AllArgsConstructor
+public class UserSummaryDTO {
+
+    private final Integer id;
+
+    private final String username;
+
+    private final String email;
+
+    // BCrypt hash, never the raw password
+    private final String password;
+}
@@ -0,0 +1,69 @@
+package com.paymybuddy.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Sub-balances of split ("hot") accounts. A split account's balance is its USER row
+ * plus the sum of its shards; credits land on one shard so they do not all queue on the USER row.
+ */
+@Repository
+@RequiredArgsConstructor
+public class BalanceShardRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * @return the number of shards of every split account, by user id
+     */
+    public Map<Integer, Integer> findShardCounts() {
+        Map<Integer, Integer> shardCounts = new HashMap<>();
+        jdbcTemplate.query("SELECT user_id, COUNT(*) FROM USER_BALANCE_SHARD GROUP BY user_id",
+                row -> { shardCounts.put(row.getInt(1), row.getInt(2)); });
+        return shardCounts;
+    }
+
+    public int countShards(Integer userId) {
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM USER_BALANCE_SHARD WHERE user_id = ?", Integer.class, userId);
+        return count == null ? 0 : count;
+    }
+
+    public void createShards(Integer userId, int shards) {
+        jdbcTemplate.batchUpdate("INSERT INTO USER_BALANCE_SHARD (user_id, sub, balance) VALUES (?, ?, 0)",
+                IntStream.range(0, shards)
+                        .mapToObj(sub -> new Object[]{userId, sub})
+                        .toList());
+    }
+
+    public void lock(Integer userId, int sub) {
+        jdbcTemplate.queryForList("SELECT sub FROM USER_BALANCE_SHARD WHERE user_id = ? AND sub = ? FOR UPDATE",
+                Integer.class, userId, sub);
+    }
+
+    public int credit(Integer userId, int sub, BigDecimal amount) {
+        return jdbcTemplate.update("UPDATE USER_BALANCE_SHARD SET balance = balance + ? WHERE user_id = ? AND sub = ?",
+                amount, userId, sub);
+    }
+
+    /**
+     * Locks every shard of the account in sub order, empties them and returns what they held
+     */
+    public BigDecimal drain(Integer userId) {
+        List<BigDecimal> balances = jdbcTemplate.queryForList(
+                "SELECT balance FROM USER_BALANCE_SHARD WHERE user_id = ? ORDER BY sub FOR UPDATE",
+                BigDecimal.class, userId);
+        BigDecimal total = balances.stream().reduce(BigDecimal.ZERO, BigDecimal::add);
+        if (total.signum() > 0) {
+            jdbcTemplate.update("UPDATE USER_BALANCE_SHARD SET balance = 0 WHERE user_id = ?", userId);
+        }
+        return total;
+    }
+}
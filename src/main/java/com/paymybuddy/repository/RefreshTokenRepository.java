@@ -0,0 +1,33 @@
+package com.paymybuddy.repository;
+
+import com.paymybuddy.model.RefreshToken;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+
+@Repository
+public interface RefreshTokenRepository extends CrudRepository<RefreshToken, String> {
+
+    // Plain INSERT: save() would first SELECT the row because the id is assigned
+    @Modifying
+    @Query(value = "INSERT INTO REFRESH_TOKEN (token_hash, user_id, expires_at) VALUES (:tokenHash, :userId, :expiresAt)",
+            nativeQuery = true)
+    int insert(String tokenHash, Integer userId, Instant expiresAt);
+
+    // 0 when another request has already used the token
+    @Modifying
+    @Query("delete from RefreshToken t where t.tokenHash = :tokenHash")
+    int deleteByTokenHash(String tokenHash);
+
+    @Modifying
+    @Query("delete from RefreshToken t where t.userId = :userId")
+    int deleteByUserId(Integer userId);
+
+    // Served by the expires_at index
+    @Modifying
+    @Query("delete from RefreshToken t where t.expiresAt <= :now")
+    int deleteExpired(Instant now);
+}
@@ -1,14 +1,51 @@
 package com.paymybuddy.repository;
 
 import com.paymybuddy.model.Transaction;
+import com.paymybuddy.model.dto.TransactionHistoryDTO;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface TransactionRepository extends CrudRepository<Transaction, Integer> {
 
+    String STREAM_FETCH_SIZE = "500";
+
+    // Held until the ledger has reversed or amended it, so that concurrent changes apply one after the other
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select t from Transaction t where t.id = :id")
+    Optional<Transaction> findForUpdateById(Integer id);
+
+    Optional<Transaction> findBySenderIdAndIdempotencyKey(Integer senderId, String idempotencyKey);
+
     List<Transaction> findBySenderId(Integer senderId);
     List<Transaction> findByReceiverId(Integer receiverId);
+
+    // Receiver names joined in, instead of one lazy load per row
+    @Query("select new com.paymybuddy.model.dto.TransactionHistoryDTO(t.id, r.username, t.description, t.amount) "
+            + "from Transaction t join t.receiver r where t.sender.id = :senderId order by t.id")
+    List<TransactionHistoryDTO> findHistoryBySenderId(Integer senderId);
+
+    // Keyset pagination: newest first, served by the (sender_id, id) / (receiver_id, id) indexes
+    List<Transaction> findBySenderIdAndIdLessThanOrderByIdDesc(Integer senderId, Integer id, Limit limit);
+    List<Transaction> findByReceiverIdAndIdLessThanOrderByIdDesc(Integer receiverId, Integer id, Limit limit);
+
+    // Forward-only cursor over the whole table; must be consumed inside a transaction and closed
+    @Query("select t from Transaction t order by t.id")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    Stream<Transaction> streamAll();
 }
@@ -1,13 +1,63 @@
 package com.paymybuddy.repository;
 
 import com.paymybuddy.model.User;
+import com.paymybuddy.model.dto.ConnectionDTO;
+import com.paymybuddy.model.dto.UserSummaryDTO;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @Repository
 public interface UserRepository extends CrudRepository<User, Integer> {
 
     Optional<User> findByEmail(String email);
+
+    @Query("select new com.paymybuddy.model.dto.UserSummaryDTO(u.id, u.username, u.email, u.password) "
+            + "from User u where u.email = :email")
+    Optional<UserSummaryDTO> findSummaryByEmail(String email);
+
+    @Query("select u.email from User u where u.id = :id")
+    Optional<String> findEmailById(Integer id);
+
+    @Query("select u.username from User u where u.id = :id")
+    Optional<String> findUsernameById(Integer id);
+
+    @Query("select u.balance from User u where u.id = :id")
+    Optional<BigDecimal> findBalanceById(Integer id);
+
+    // One query for the whole list, the connected users are never loaded as entities
+    @Query("select new com.paymybuddy.model.dto.ConnectionDTO(c.id, c.username, c.email) "
+            + "from User u join u.connections c where u.id = :userId order by c.username")
+    List<ConnectionDTO> findConnectionsByUserId(Integer userId);
+
+    // Primary key lookup on USER_CONNECTIONS, the connections collection is never loaded
+    @Query(value = "SELECT COUNT(*) FROM USER_CONNECTIONS "
+            + "WHERE user_id = :userId AND connected_user_id = :connectedUserId", nativeQuery = true)
+    long countConnections(Integer userId, Integer connectedUserId);
+
+    @Query(value = "SELECT connected_user_id FROM USER_CONNECTIONS "
+            + "WHERE user_id = :userId AND connected_user_id IN (:connectedUserIds)", nativeQuery = true)
+    Set<Integer> findConnectedUserIds(Integer userId, Collection<Integer> connectedUserIds);
+
+    @Query(value = "SELECT id FROM USER WHERE id IN (:ids) ORDER BY id FOR UPDATE", nativeQuery = true)
+    List<Integer> lockByIdIn(Collection<Integer> ids);
+
+    @Modifying
+    @Query("update User u set u.password = :password where u.id = :id")
+    int updatePassword(Integer id, String password);
+
+    @Modifying
+    @Query(value = "UPDATE USER SET balance = balance - :amount WHERE id = :id AND balance >= :amount", nativeQuery = true)
+    int debitBalance(Integer id, BigDecimal amount);
+
+    @Modifying
+    @Query(value = "UPDATE USER SET balance = balance + :amount WHERE id = :id", nativeQuery = true)
+    int creditBalance(Integer id, BigDecimal amount);
 }
@@ -0,0 +1,9 @@
+package com.paymybuddy.service;
+
+import com.paymybuddy.model.dto.BatchTransferRequestDTO;
+import com.paymybuddy.model.dto.BatchTransferResultDTO;
+
+public interface BatchTransferService {
+
+    BatchTransferResultDTO transfer(BatchTransferRequestDTO request);
+}
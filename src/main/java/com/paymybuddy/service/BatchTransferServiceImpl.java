@@ -0,0 +1,200 @@
+package com.paymybuddy.service;
+
+import com.paymybuddy.event.TransactionEventBus;
+import com.paymybuddy.model.dto.BatchTransferItemDTO;
+import com.paymybuddy.model.dto.BatchTransferItemResultDTO;
+import com.paymybuddy.model.dto.BatchTransferItemResultDTO.Status;
+import com.paymybuddy.model.dto.BatchTransferRequestDTO;
+import com.paymybuddy.model.dto.BatchTransferResultDTO;
+import com.paymybuddy.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Fan-out transfers from one sender: connections are checked with a single query,
+ * then accepted items are inserted as JDBC batches and committed chunk by chunk,
+ * so a failing chunk does not roll back the ones already committed.
+ * Each chunk moves balances as a whole: if the sender cannot cover it, none of it is recorded.
+ * The rows of a chunk are published on the TransactionEventBus once it commits, like single transfers.
+ */
+@Service
+public class BatchTransferServiceImpl implements BatchTransferService {
+
+    private static final BigDecimal MINIMUM_AMOUNT = new BigDecimal("0.01");
+    private static final int MAX_DESCRIPTION_LENGTH = 255;
+    // Written with plain JDBC: Hibernate cannot batch inserts of IDENTITY ids
+    private static final String INSERT_TRANSACTION =
+            "INSERT INTO TRANSACTION (sender_id, receiver_id, description, amount) VALUES (?, ?, ?, ?)";
+
+    private final UserRepository userRepository;
+    private final LedgerService ledgerService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionEventBus transactionEventBus;
+    private final int chunkSize;
+    private final int maxSize;
+
+    public BatchTransferServiceImpl(UserRepository userRepository,
+                                    LedgerService ledgerService,
+                                    JdbcTemplate jdbcTemplate,
+                                    PlatformTransactionManager transactionManager,
+                                    TransactionEventBus transactionEventBus,
+                                    @Value("${paymybuddy.transactions.batch.chunk-size:500}") int chunkSize,
+                                    @Value("${paymybuddy.transactions.batch.max-size:10000}") int maxSize) {
+        this.userRepository = userRepository;
+        this.ledgerService = ledgerService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionEventBus = transactionEventBus;
+        this.chunkSize = chunkSize;
+        this.maxSize = maxSize;
+    }
+
+    @Override
+    public BatchTransferResultDTO transfer(BatchTransferRequestDTO request) {
+        Integer senderId = request.getSenderId();
+        List<BatchTransferItemDTO> items = request.getTransfers();
+        if (items.size() > maxSize) {
+            throw new IllegalArgumentException("A batch cannot contain more than " + maxSize + " transfers.");
+        }
+        if (!userRepository.existsById(senderId)) {
+            throw new IllegalArgumentException("Sender not found.");
+        }
+
+        Set<Integer> receiverIds = items.stream()
+                .map(BatchTransferItemDTO::getReceiverId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Set<Integer> connectedIds = receiverIds.isEmpty()
+                ? Set.of()
+                : userRepository.findConnectedUserIds(senderId, receiverIds);
+
+        BatchTransferItemResultDTO[] results = new BatchTransferItemResultDTO[items.size()];
+        List<Integer> accepted = new ArrayList<>(items.size());
+        for (int index = 0; index < items.size(); index++) {
+            BatchTransferItemDTO item = items.get(index);
+            String rejection = validate(senderId, item, connectedIds);
+            if (rejection == null) {
+                accepted.add(index);
+            } else {
+                results[index] = new BatchTransferItemResultDTO(index, item.getReceiverId(), Status.REJECTED, null, rejection);
+            }
+        }
+
+        for (int from = 0; from < accepted.size(); from += chunkSize) {
+            saveChunk(senderId, items, accepted.subList(from, Math.min(from + chunkSize, accepted.size())), results);
+        }
+
+        return new BatchTransferResultDTO(
+                count(results, Status.CREATED),
+                count(results, Status.REJECTED),
+                count(results, Status.FAILED),
+                Arrays.asList(results));
+    }
+
+    private String validate(Integer senderId, BatchTransferItemDTO item, Set<Integer> connectedIds) {
+        if (item.getReceiverId() == null) {
+            return "Receiver id is required.";
+        }
+        if (item.getReceiverId().equals(senderId)) {
+            return "You cannot send money to yourself.";
+        }
+        if (item.getAmount() == null || item.getAmount().compareTo(MINIMUM_AMOUNT) < 0) {
+            return "Amount must be at least 0.01.";
+        }
+        if (item.getDescription() != null && item.getDescription().length() > MAX_DESCRIPTION_LENGTH) {
+            return "Description must be 255 characters or fewer.";
+        }
+        if (!connectedIds.contains(item.getReceiverId())) {
+            return "You can only send money to your connections.";
+        }
+        return null;
+    }
+
+    private void saveChunk(Integer senderId, List<BatchTransferItemDTO> items, List<Integer> chunk,
+                           BatchTransferItemResultDTO[] results) {
+        try {
+            List<Integer> ids = transactionTemplate.execute(status -> {
+                // One debit for the whole chunk, one credit per distinct receiver
+                Map<Integer, BigDecimal> credits = new HashMap<>();
+                for (int index : chunk) {
+                    BatchTransferItemDTO item = items.get(index);
+                    credits.merge(item.getReceiverId(), item.getAmount(), BigDecimal::add);
+                }
+                if (!ledgerService.transfer(senderId, credits)) {
+                    return null;
+                }
+                List<Integer> inserted = insertTransactions(senderId, items, chunk);
+                for (int i = 0; i < chunk.size(); i++) {
+                    BatchTransferItemDTO item = items.get(chunk.get(i));
+                    transactionEventBus.publishAfterCommit(inserted.get(i), senderId, item.getReceiverId(),
+                            item.getAmount(), item.getDescription());
+                }
+                return inserted;
+            });
+            for (int i = 0; i < chunk.size(); i++) {
+                int index = chunk.get(i);
+                results[index] = ids == null
+                        ? new BatchTransferItemResultDTO(
+                                index, items.get(index).getReceiverId(), Status.REJECTED, null, "Insufficient funds.")
+                        : new BatchTransferItemResultDTO(
+                                index, items.get(index).getReceiverId(), Status.CREATED, ids.get(i), null);
+            }
+        } catch (DataAccessException | TransactionException exception) {
+            for (int index : chunk) {
+                results[index] = new BatchTransferItemResultDTO(
+                        index, items.get(index).getReceiverId(), Status.FAILED, null, "Transfer could not be saved.");
+            }
+        }
+    }
+
+    private List<Integer> insertTransactions(Integer senderId, List<BatchTransferItemDTO> items, List<Integer> chunk) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+                connection -> connection.prepareStatement(INSERT_TRANSACTION, new String[]{"id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement statement, int i) throws SQLException {
+                        BatchTransferItemDTO item = items.get(chunk.get(i));
+                        statement.setInt(1, senderId);
+                        statement.setInt(2, item.getReceiverId());
+                        statement.setString(3, item.getDescription());
+                        statement.setBigDecimal(4, item.getAmount());
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return chunk.size();
+                    }
+                },
+                keyHolder);
+        // Key column names differ between drivers, each row holds a single generated key
+        return keyHolder.getKeyList().stream()
+                .map(keys -> ((Number) keys.values().iterator().next()).intValue())
+                .toList();
+    }
+
+    private static int count(BatchTransferItemResultDTO[] results, Status status) {
+        return (int) Arrays.stream(results).filter(result -> result.getStatus() == status).count();
+    }
+}
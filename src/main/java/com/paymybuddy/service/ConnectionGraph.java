@@ -0,0 +1,251 @@
+package com.paymybuddy.service;
+
+import com.paymybuddy.event.ConnectionChangedEvent;
+import com.paymybuddy.event.UserDeletedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.sql.DataSource;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Process-local copy of USER_CONNECTIONS: one sorted int[] of neighbour ids per user id.
+ * Reads are lock-free; writers replace a user's array under the graph lock (copy-on-write),
+ * so a reader always sees a complete neighbour set.
+ * Loaded once at startup, then kept in step by connection events once their transaction commits,
+ * ahead of any other listener so that those see the updated graph.
+ */
+@Slf4j
+@Component
+public class ConnectionGraph {
+
+    private static final int[] NO_NEIGHBOURS = new int[0];
+    private static final int LOAD_FETCH_SIZE = 10_000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private volatile AtomicReferenceArray<int[]> adjacency = new AtomicReferenceArray<>(0);
+    private volatile long edgeCount;
+
+    public ConnectionGraph(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(LOAD_FETCH_SIZE);
+    }
+
+    /**
+     * Rebuilds the graph from USER_CONNECTIONS. Writers wait meanwhile, so an event
+     * committed during the load is applied on top of the new graph rather than lost.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void load() {
+        Loader loader = new Loader();
+        try {
+            jdbcTemplate.query("SELECT user_id, connected_user_id FROM USER_CONNECTIONS ORDER BY user_id, connected_user_id",
+                    loader);
+        } catch (DataAccessException exception) {
+            log.warn("Connection graph could not be loaded, connection checks will use the database", exception);
+            return;
+        }
+        loader.flush();
+        adjacency = loader.rows;
+        edgeCount = loader.edges;
+        log.info("Connection graph loaded: {}", footprint());
+    }
+
+    public boolean contains(int userId, int connectedUserId) {
+        return Arrays.binarySearch(neighboursOf(userId), connectedUserId) >= 0;
+    }
+
+    public int degree(int userId) {
+        return neighboursOf(userId).length;
+    }
+
+    /**
+     * @return the sorted ids of the user's connections, a copy the caller may keep
+     */
+    public int[] neighbours(int userId) {
+        return neighboursOf(userId).clone();
+    }
+
+    /**
+     * Copies the user's connections into the target without an intermediate copy
+     * @return How many ids were copied, at most maxLength
+     */
+    public int copyNeighbours(int userId, int[] target, int offset, int maxLength) {
+        int[] neighbours = neighboursOf(userId);
+        int length = Math.min(neighbours.length, maxLength);
+        System.arraycopy(neighbours, 0, target, offset, length);
+        return length;
+    }
+
+    /**
+     * @return One more than the highest user id the graph has room for
+     */
+    public int capacity() {
+        return adjacency.length();
+    }
+
+    public synchronized void connect(int userId, int connectedUserId) {
+        addEdge(userId, connectedUserId);
+        addEdge(connectedUserId, userId);
+    }
+
+    public synchronized void disconnect(int userId, int connectedUserId) {
+        removeEdge(userId, connectedUserId);
+        removeEdge(connectedUserId, userId);
+    }
+
+    public synchronized void removeUser(int userId) {
+        for (int neighbour : neighboursOf(userId)) {
+            disconnect(userId, neighbour);
+        }
+    }
+
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onConnectionChanged(ConnectionChangedEvent event) {
+        if (event.connected()) {
+            connect(event.userId(), event.connectedUserId());
+        } else {
+            disconnect(event.userId(), event.connectedUserId());
+        }
+    }
+
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onUserDeleted(UserDeletedEvent event) {
+        removeUser(event.userId());
+    }
+
+    /**
+     * Estimated heap held by the graph, assuming compressed references and 8-byte object alignment
+     */
+    public Footprint footprint() {
+        AtomicReferenceArray<int[]> rows = adjacency;
+        long bytes = align(16L + 4L * rows.length());
+        int users = 0;
+        for (int id = 0; id < rows.length(); id++) {
+            int[] neighbours = rows.get(id);
+            if (neighbours != null && neighbours.length > 0) {
+                users++;
+                bytes += align(16L + 4L * neighbours.length);
+            }
+        }
+        return new Footprint(users, edgeCount, bytes);
+    }
+
+    public record Footprint(int users, long edges, long bytes) {
+
+        public long bytesPerMillionEdges() {
+            return edges == 0 ? 0 : bytes * 1_000_000 / edges;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d users, %d edges, %.1f MB (%.1f MB per million edges)",
+                    users, edges, bytes / 1e6, bytesPerMillionEdges() / 1e6);
+        }
+    }
+
+    private int[] neighboursOf(int userId) {
+        AtomicReferenceArray<int[]> rows = adjacency;
+        if (userId < 0 || userId >= rows.length()) {
+            return NO_NEIGHBOURS;
+        }
+        int[] neighbours = rows.get(userId);
+        return neighbours == null ? NO_NEIGHBOURS : neighbours;
+    }
+
+    private void addEdge(int userId, int connectedUserId) {
+        int[] neighbours = neighboursOf(userId);
+        int position = Arrays.binarySearch(neighbours, connectedUserId);
+        if (position >= 0) {
+            return;
+        }
+        position = -position - 1;
+        int[] updated = new int[neighbours.length + 1];
+        System.arraycopy(neighbours, 0, updated, 0, position);
+        updated[position] = connectedUserId;
+        System.arraycopy(neighbours, position, updated, position + 1, neighbours.length - position);
+        adjacency = store(adjacency, userId, updated);
+        edgeCount++;
+    }
+
+    private void removeEdge(int userId, int connectedUserId) {
+        int[] neighbours = neighboursOf(userId);
+        int position = Arrays.binarySearch(neighbours, connectedUserId);
+        if (position < 0) {
+            return;
+        }
+        int[] updated = neighbours.length == 1 ? NO_NEIGHBOURS : new int[neighbours.length - 1];
+        System.arraycopy(neighbours, 0, updated, 0, position);
+        System.arraycopy(neighbours, position + 1, updated, position, neighbours.length - position - 1);
+        adjacency.set(userId, updated);
+        edgeCount--;
+    }
+
+    /**
+     * Stores the user's neighbours, growing the array when the id is beyond it
+     * @return the array holding the row, either the given one or a larger copy
+     */
+    private static AtomicReferenceArray<int[]> store(AtomicReferenceArray<int[]> rows, int userId, int[] neighbours) {
+        AtomicReferenceArray<int[]> target = rows;
+        if (userId >= rows.length()) {
+            target = new AtomicReferenceArray<>(Math.max(userId + 1, rows.length() + (rows.length() >> 1)));
+            for (int id = 0; id < rows.length(); id++) {
+                target.set(id, rows.get(id));
+            }
+        }
+        target.set(userId, neighbours);
+        return target;
+    }
+
+    private static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+
+    /**
+     * Collects the rows of one user at a time; relies on the query being ordered by user id
+     */
+    private static final class Loader implements RowCallbackHandler {
+
+        private AtomicReferenceArray<int[]> rows = new AtomicReferenceArray<>(0);
+        private long edges;
+        private int userId = -1;
+        private int[] buffer = new int[16];
+        private int size;
+
+        @Override
+        public void processRow(ResultSet resultSet) throws SQLException {
+            int rowUserId = resultSet.getInt(1);
+            if (rowUserId != userId) {
+                flush();
+                userId = rowUserId;
+            }
+            if (size == buffer.length) {
+                buffer = Arrays.copyOf(buffer, size * 2);
+            }
+            buffer[size++] = resultSet.getInt(2);
+            edges++;
+        }
+
+        void flush() {
+            if (userId >= 0 && size > 0) {
+                rows = store(rows, userId, Arrays.copyOf(buffer, size));
+            }
+            size = 0;
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.paymybuddy.service;
+
+import com.paymybuddy.model.dto.ConnectionSuggestionDTO;
+
+import java.util.List;
+
+public interface ConnectionSuggestionService {
+
+    /**
+     * Lists people the user may know, most mutual connections first
+     * @param userId The id of the user
+     * @return The suggestions, empty when the user has no connection yet
+     */
+    List<ConnectionSuggestionDTO> getSuggestions(Integer userId);
+}
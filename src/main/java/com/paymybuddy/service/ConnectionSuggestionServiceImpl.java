@@ -0,0 +1,328 @@
+package com.paymybuddy.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.paymybuddy.event.ConnectionChangedEvent;
+import com.paymybuddy.event.UserDeletedEvent;
+import com.paymybuddy.model.User;
+import com.paymybuddy.model.dto.ConnectionSuggestionDTO;
+import com.paymybuddy.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Ranks friends of friends by mutual connections, straight from the ConnectionGraph.
+ * Slices of friends copy their neighbours side by side into one frontier array, which is then split
+ * into buckets of ids sharing their high 16 bits. Slices of buckets count their ids on the low 16 bits
+ * and keep their best candidates, merged pairwise; only ids found in the frontier are ever ranked.
+ * A request scans at most maxScannedConnections ids, taking the friends with the fewest
+ * connections first since they say the most about who the user knows.
+ * The frontier and its partitioned copy cost 8 bytes per scanned id while a request runs, whatever
+ * the number of users, hence the cache in front.
+ */
+@Service
+public class ConnectionSuggestionServiceImpl implements ConnectionSuggestionService {
+
+    // Gathering leaves copy about this many ids, ranking leaves count this many
+    private static final int LEAF_SIZE = 8192;
+    private static final int RANK_LEAF_SIZE = 65_536;
+
+    // Ids are bucketed on their high half and counted on their low half
+    private static final int HALF_BITS = 16;
+    private static final int HALF = 1 << HALF_BITS;
+
+    // Most mutual connections first, then lowest id so that the order is stable
+    private static final Comparator<int[]> RANKING = Comparator.<int[]>comparingInt(pair -> -pair[1])
+            .thenComparingInt(pair -> pair[0]);
+
+    private final ConnectionGraph connectionGraph;
+    private final UserRepository userRepository;
+    private final int limit;
+    private final int maxScannedConnections;
+    private final Cache<Integer, List<ConnectionSuggestionDTO>> suggestions;
+
+    public ConnectionSuggestionServiceImpl(ConnectionGraph connectionGraph,
+                                           UserRepository userRepository,
+                                           @Value("${paymybuddy.connections.suggestions.limit:10}") int limit,
+                                           @Value("${paymybuddy.connections.suggestions.max-scanned-connections:1000000}") int maxScannedConnections,
+                                           @Value("${paymybuddy.connections.suggestions.cache-ttl:10m}") Duration cacheTtl,
+                                           @Value("${paymybuddy.connections.suggestions.cache-max-size:100000}") long cacheMaxSize) {
+        this.connectionGraph = connectionGraph;
+        this.userRepository = userRepository;
+        this.limit = limit;
+        this.maxScannedConnections = maxScannedConnections;
+        this.suggestions = Caffeine.newBuilder()
+                .expireAfterWrite(cacheTtl)
+                .maximumSize(cacheMaxSize)
+                .build();
+    }
+
+    @Override
+    public List<ConnectionSuggestionDTO> getSuggestions(Integer userId) {
+        return suggestions.get(userId, this::loadSuggestions);
+    }
+
+    /**
+     * Ranks candidates for the user without touching the database
+     * @return Pairs of (candidate id, mutual connections), best first
+     */
+    int[][] rank(int userId) {
+        int[] friends = connectionGraph.neighbours(userId);
+        int[] scanned = scannedFriends(friends);
+        if (scanned.length == 0) {
+            return new int[0][];
+        }
+        // offsets[i] is where the neighbours of scanned[i] start in the frontier
+        int[] offsets = new int[scanned.length + 1];
+        for (int i = 0; i < scanned.length; i++) {
+            offsets[i + 1] = offsets[i] + connectionGraph.degree(scanned[i]);
+        }
+        int[] frontier = new int[offsets[scanned.length]];
+        ForkJoinPool.commonPool().invoke(new GatherTask(scanned, offsets, 0, scanned.length, frontier, userId));
+        Buckets buckets = partitionIds(frontier);
+        if (buckets.count() == 0) {
+            return new int[0][];
+        }
+        return ForkJoinPool.commonPool().invoke(new RankTask(buckets, 0, buckets.count(), userId, friends));
+    }
+
+    /**
+     * Suggestions change for both users and for everyone connected to either of them.
+     * The graph listener runs first, so the neighbours read here are up to date and no
+     * load can cache a result computed from the old graph.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onConnectionChanged(ConnectionChangedEvent event) {
+        List<Integer> affected = new ArrayList<>();
+        affected.add(event.userId());
+        affected.add(event.connectedUserId());
+        for (int neighbour : connectionGraph.neighbours(event.userId())) {
+            affected.add(neighbour);
+        }
+        for (int neighbour : connectionGraph.neighbours(event.connectedUserId())) {
+            affected.add(neighbour);
+        }
+        suggestions.invalidateAll(affected);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onUserDeleted(UserDeletedEvent event) {
+        suggestions.invalidateAll();
+    }
+
+    private List<ConnectionSuggestionDTO> loadSuggestions(Integer userId) {
+        int[][] ranked = rank(userId);
+        if (ranked.length == 0) {
+            return List.of();
+        }
+        List<Integer> ids = new ArrayList<>(ranked.length);
+        for (int[] pair : ranked) {
+            ids.add(pair[0]);
+        }
+        Map<Integer, User> users = new HashMap<>();
+        userRepository.findAllById(ids).forEach(user -> users.put(user.getId(), user));
+
+        List<ConnectionSuggestionDTO> result = new ArrayList<>(ranked.length);
+        for (int[] pair : ranked) {
+            User user = users.get(pair[0]);
+            if (user != null) {
+                result.add(new ConnectionSuggestionDTO(user.getId(), user.getUsername(), user.getEmail(), pair[1]));
+            }
+        }
+        return List.copyOf(result);
+    }
+
+    /**
+     * @return The friends whose neighbour lists fit in the scan budget, fewest connections first
+     */
+    private int[] scannedFriends(int[] friends) {
+        long[] byDegree = new long[friends.length];
+        for (int i = 0; i < friends.length; i++) {
+            byDegree[i] = (long) connectionGraph.degree(friends[i]) << 32 | friends[i];
+        }
+        Arrays.sort(byDegree);
+
+        int[] scanned = new int[friends.length];
+        int count = 0;
+        long budget = maxScannedConnections;
+        for (long entry : byDegree) {
+            budget -= entry >>> 32;
+            if (budget < 0) {
+                break;
+            }
+            scanned[count++] = (int) entry;
+        }
+        return Arrays.copyOf(scanned, count);
+    }
+
+    /**
+     * Groups the ids by their high 16 bits with one counting pass and one scatter.
+     * Below 65,536 users every id is in the same bucket and nothing is moved.
+     */
+    static Buckets partitionIds(int[] ids) {
+        int[] starts = new int[HALF + 1];
+        for (int id : ids) {
+            starts[(id >>> HALF_BITS) + 1]++;
+        }
+        int[] bounds = new int[HALF + 1];
+        int count = 0;
+        for (int high = 0; high < HALF; high++) {
+            if (starts[high + 1] > 0) {
+                bounds[count++] = starts[high];
+            }
+            starts[high + 1] += starts[high];
+        }
+        bounds[count] = ids.length;
+        if (count <= 1) {
+            return new Buckets(ids, Arrays.copyOf(bounds, count + 1));
+        }
+        int[] grouped = new int[ids.length];
+        for (int id : ids) {
+            grouped[starts[id >>> HALF_BITS]++] = id;
+        }
+        return new Buckets(grouped, Arrays.copyOf(bounds, count + 1));
+    }
+
+    /**
+     * Keeps the best of both lists, each already in ranking order
+     */
+    private int[][] best(int[][] first, int[][] second) {
+        int[][] merged = new int[Math.min(limit, first.length + second.length)][];
+        int i = 0, j = 0;
+        for (int k = 0; k < merged.length; k++) {
+            merged[k] = j == second.length || (i < first.length && RANKING.compare(first[i], second[j]) <= 0)
+                    ? first[i++] : second[j++];
+        }
+        return merged;
+    }
+
+    private final class GatherTask extends RecursiveAction {
+
+        private final int[] friends;
+        private final int[] offsets;
+        private final int from;
+        private final int to;
+        private final int[] frontier;
+        private final int userId;
+
+        GatherTask(int[] friends, int[] offsets, int from, int to, int[] frontier, int userId) {
+            this.friends = friends;
+            this.offsets = offsets;
+            this.from = from;
+            this.to = to;
+            this.frontier = frontier;
+            this.userId = userId;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1 || offsets[to] - offsets[from] <= LEAF_SIZE) {
+                for (int i = from; i < to; i++) {
+                    // A connection added since the offsets were taken is left for the next request, one removed
+                    // leaves slots that get the user's own id, which is never suggested
+                    int length = connectionGraph.copyNeighbours(friends[i], frontier, offsets[i], offsets[i + 1] - offsets[i]);
+                    Arrays.fill(frontier, offsets[i] + length, offsets[i + 1], userId);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new GatherTask(friends, offsets, from, middle, frontier, userId),
+                    new GatherTask(friends, offsets, middle, to, frontier, userId));
+        }
+    }
+
+    /**
+     * @param ids The ids, those sharing their high 16 bits next to each other
+     * @param bounds Where each bucket starts in ids, followed by the length of ids
+     */
+    record Buckets(int[] ids, int[] bounds) {
+
+        int count() {
+            return bounds.length - 1;
+        }
+    }
+
+    private final class RankTask extends RecursiveTask<int[][]> {
+
+        private final Buckets buckets;
+        private final int from;
+        private final int to;
+        private final int userId;
+        private final int[] friends;
+
+        RankTask(Buckets buckets, int from, int to, int userId, int[] friends) {
+            this.buckets = buckets;
+            this.from = from;
+            this.to = to;
+            this.userId = userId;
+            this.friends = friends;
+        }
+
+        @Override
+        protected int[][] compute() {
+            int[] bounds = buckets.bounds();
+            if (to - from == 1 || bounds[to] - bounds[from] <= RANK_LEAF_SIZE) {
+                return rankLeaf();
+            }
+            // Split on the bucket closest to half of the ids
+            int middle = Arrays.binarySearch(bounds, from + 1, to, (bounds[from] + bounds[to]) >>> 1);
+            middle = Math.clamp(middle >= 0 ? middle : -middle - 1, from + 1, to - 1);
+            RankTask left = new RankTask(buckets, from, middle, userId, friends);
+            left.fork();
+            int[][] right = new RankTask(buckets, middle, to, userId, friends).compute();
+            return best(left.join(), right);
+        }
+
+        private int[][] rankLeaf() {
+            int[] ids = buckets.ids();
+            int[] bounds = buckets.bounds();
+            int[] counts = new int[HALF];
+            PriorityQueue<int[]> best = new PriorityQueue<>(limit + 1, RANKING.reversed());
+            for (int bucket = from; bucket < to; bucket++) {
+                for (int i = bounds[bucket]; i < bounds[bucket + 1]; i++) {
+                    counts[ids[i] & HALF - 1]++;
+                }
+                // A candidate is ranked on its first occurrence, which clears its counter for the next bucket
+                for (int i = bounds[bucket]; i < bounds[bucket + 1]; i++) {
+                    int candidate = ids[i];
+                    int mutual = counts[candidate & HALF - 1];
+                    if (mutual == 0) {
+                        continue;
+                    }
+                    counts[candidate & HALF - 1] = 0;
+                    if (best.size() == limit && !beats(candidate, mutual, best.peek())) {
+                        continue;
+                    }
+                    if (candidate == userId || Arrays.binarySearch(friends, candidate) >= 0) {
+                        continue;
+                    }
+                    best.add(new int[]{candidate, mutual});
+                    if (best.size() > limit) {
+                        best.poll();
+                    }
+                }
+            }
+            int[][] ranked = best.toArray(new int[0][]);
+            Arrays.sort(ranked, RANKING);
+            return ranked;
+        }
+
+        private static boolean beats(int candidate, int mutual, int[] worst) {
+            return mutual > worst[1] || (mutual == worst[1] && candidate < worst[0]);
+        }
+    }
+}
@@ -0,0 +1,266 @@
+package com.paymybuddy.service;
+
+import com.paymybuddy.model.Transaction;
+import com.paymybuddy.model.dto.TransactionHistoryDTO;
+import com.paymybuddy.model.dto.TransactionPageDTO;
+import com.paymybuddy.service.TransactionServiceImpl.TransferOutcome;
+import io.micrometer.core.annotation.Timed;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Group commit for new transfers: callers enqueue their transfer and a single writer thread
+ * records up to maxGroupSize of them, waiting at most maxDelay for the group to fill, in one
+ * database transaction, so that many transfers share one commit (and one fsync).
+ * Each caller still blocks until its own transfer is committed or rejected.
+ * A rejected transfer (insufficient funds, not connected...) only fails its caller. If the group
+ * itself fails (deadlock, constraint violation...), it is rolled back and its transfers are
+ * retried one by one, each in its own transaction, so one bad transfer cannot fail the others.
+ * Updates, calls made inside an existing transaction, and transfers arriving while the queue
+ * is full go straight to TransactionServiceImpl.
+ */
+@Slf4j
+@Service
+@Primary
+@Timed("paymybuddy.service")
+@ConditionalOnProperty(name = "paymybuddy.transactions.group-commit.enabled", havingValue = "true")
+public class GroupCommitTransactionService implements TransactionService {
+
+    private final TransactionServiceImpl transactionService;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxGroupSize;
+    private final long maxDelayNanos;
+    private final BlockingQueue<PendingTransfer> queue;
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    // Transfers per commit, and time spent queued before the group started, in microseconds
+    private final LogHistogram groupSizes = new LogHistogram();
+    private final LogHistogram queueWaits = new LogHistogram();
+
+    public GroupCommitTransactionService(TransactionServiceImpl transactionService,
+                                         PlatformTransactionManager transactionManager,
+                                         @Value("${paymybuddy.transactions.group-commit.max-group-size:64}") int maxGroupSize,
+                                         @Value("${paymybuddy.transactions.group-commit.max-delay:5ms}") Duration maxDelay,
+                                         @Value("${paymybuddy.transactions.group-commit.queue-capacity:10000}") int queueCapacity) {
+        this.transactionService = transactionService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxGroupSize = maxGroupSize;
+        this.maxDelayNanos = maxDelay.toNanos();
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.writer = Thread.ofPlatform().name("transfer-group-commit").daemon().start(this::run);
+    }
+
+    @Override
+    public Transaction saveTransaction(Transaction transaction) {
+        if (transaction.getId() != null || !running || TransactionSynchronizationManager.isActualTransactionActive()) {
+            return transactionService.saveTransaction(transaction);
+        }
+
+        PendingTransfer pending = new PendingTransfer(transaction, new CompletableFuture<>(), System.nanoTime());
+        if (!queue.offer(pending)) {
+            return transactionService.saveTransaction(transaction);
+        }
+        // Shutdown may have drained the queue for the last time before this offer: nothing would commit it
+        if (!running && queue.remove(pending)) {
+            return transactionService.saveTransaction(transaction);
+        }
+        try {
+            return pending.result().join();
+        } catch (CompletionException exception) {
+            if (exception.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw exception;
+        }
+    }
+
+    public LogHistogram getGroupSizes() {
+        return groupSizes;
+    }
+
+    public LogHistogram getQueueWaits() {
+        return queueWaits;
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    /**
+     * Stops accepting transfers; those already queued are still committed, later ones run on their caller's thread
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(30));
+        // Enqueued while the writer was stopping
+        PendingTransfer pending;
+        while ((pending = queue.poll()) != null) {
+            retryAlone(pending);
+        }
+    }
+
+    private void run() {
+        List<PendingTransfer> group = new ArrayList<>(maxGroupSize);
+        try {
+            writeGroups(group);
+        } catch (RuntimeException | Error exception) {
+            // Nothing commits queued transfers any more: fail their callers rather than leave them waiting
+            running = false;
+            IllegalStateException stopped = new IllegalStateException("The transfer writer has stopped.", exception);
+            group.forEach(pending -> pending.result().completeExceptionally(stopped));
+            PendingTransfer pending;
+            while ((pending = queue.poll()) != null) {
+                pending.result().completeExceptionally(stopped);
+            }
+            throw exception;
+        }
+    }
+
+    private void writeGroups(List<PendingTransfer> group) {
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingTransfer first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                group.add(first);
+                long deadline = first.enqueuedAt() + maxDelayNanos;
+                while (group.size() < maxGroupSize) {
+                    queue.drainTo(group, maxGroupSize - group.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (group.size() >= maxGroupSize || remaining <= 0) {
+                        break;
+                    }
+                    PendingTransfer next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    group.add(next);
+                }
+            } catch (InterruptedException exception) {
+                running = false;
+            }
+            if (!group.isEmpty()) {
+                commit(group);
+                group.clear();
+            }
+        }
+    }
+
+    private void commit(List<PendingTransfer> group) {
+        long start = System.nanoTime();
+        groupSizes.record(group.size());
+        for (PendingTransfer pending : group) {
+            queueWaits.record(TimeUnit.NANOSECONDS.toMicros(start - pending.enqueuedAt()));
+        }
+
+        List<TransferOutcome> outcomes;
+        try {
+            outcomes = transactionTemplate.execute(status -> {
+                List<TransferOutcome> recorded = new ArrayList<>(group.size());
+                for (PendingTransfer pending : group) {
+                    recorded.add(transactionService.record(pending.transaction()));
+                }
+                return recorded;
+            });
+        } catch (RuntimeException exception) {
+            log.warn("Group of {} transfers rolled back, retrying them one by one", group.size(), exception);
+            for (PendingTransfer pending : group) {
+                retryAlone(pending);
+            }
+            return;
+        }
+
+        for (int i = 0; i < group.size(); i++) {
+            TransferOutcome outcome = outcomes.get(i);
+            if (outcome.rejection() == null) {
+                group.get(i).result().complete(outcome.transaction());
+            } else {
+                group.get(i).result().completeExceptionally(new IllegalArgumentException(outcome.rejection()));
+            }
+        }
+    }
+
+    private void retryAlone(PendingTransfer pending) {
+        // The rolled back INSERT may have assigned an id, which would make this look like an update
+        pending.transaction().setId(null);
+        try {
+            pending.result().complete(transactionService.saveTransaction(pending.transaction()));
+        } catch (RuntimeException exception) {
+            pending.result().completeExceptionally(exception);
+        }
+    }
+
+    @Override
+    public Iterable<Transaction> getTransactions() {
+        return transactionService.getTransactions();
+    }
+
+    @Override
+    public void forEachTransaction(Consumer<Transaction> action) {
+        transactionService.forEachTransaction(action);
+    }
+
+    @Override
+    public Optional<Transaction> getTransactionById(Integer id) {
+        return transactionService.getTransactionById(id);
+    }
+
+    @Override
+    public List<Transaction> getTransactionsBySenderId(Integer senderId) {
+        return transactionService.getTransactionsBySenderId(senderId);
+    }
+
+    @Override
+    public List<Transaction> getTransactionsByReceiverId(Integer receiverId) {
+        return transactionService.getTransactionsByReceiverId(receiverId);
+    }
+
+    @Override
+    public List<TransactionHistoryDTO> getTransactionHistoryBySenderId(Integer senderId) {
+        return transactionService.getTransactionHistoryBySenderId(senderId);
+    }
+
+    @Override
+    public TransactionPageDTO getTransactionsBySenderId(Integer senderId, String cursor, int size) {
+        return transactionService.getTransactionsBySenderId(senderId, cursor, size);
+    }
+
+    @Override
+    public TransactionPageDTO getTransactionsByReceiverId(Integer receiverId, String cursor, int size) {
+        return transactionService.getTransactionsByReceiverId(receiverId, cursor, size);
+    }
+
+    @Override
+    public Optional<Transaction> updateTransaction(Integer id, Transaction changes) {
+        return transactionService.updateTransaction(id, changes);
+    }
+
+    @Override
+    public void deleteTransactionById(Integer id) {
+        transactionService.deleteTransactionById(id);
+    }
+
+    private record PendingTransfer(Transaction transaction, CompletableFuture<Transaction> result, long enqueuedAt) {
+    }
+}
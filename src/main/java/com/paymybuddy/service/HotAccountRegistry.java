@@ -0,0 +1,132 @@
+package com.paymybuddy.service;
+
+import com.paymybuddy.repository.BalanceShardRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Knows which accounts keep a split balance and promotes the ones whose USER row becomes a hot spot.
+ * Contention is measured as the number of credits waiting on the same USER row at once;
+ * promotion runs on its own thread and transaction, never inside a transfer.
+ * Accounts split by another instance are only learnt when one of them is found with shards.
+ */
+@Slf4j
+@Component
+public class HotAccountRegistry {
+
+    private final BalanceShardRepository balanceShardRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int shards;
+    private final int promotionThreshold;
+
+    // User id -> number of shards
+    private final Map<Integer, Integer> splitAccounts = new ConcurrentHashMap<>();
+    private final Map<Integer, Integer> pendingCredits = new ConcurrentHashMap<>();
+    private final Set<Integer> promoting = ConcurrentHashMap.newKeySet();
+    private final ExecutorService promoter = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "hot-account-promoter");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public HotAccountRegistry(BalanceShardRepository balanceShardRepository,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${paymybuddy.ledger.hot-accounts.shards:16}") int shards,
+                              @Value("${paymybuddy.ledger.hot-accounts.promotion-threshold:8}") int promotionThreshold) {
+        this.balanceShardRepository = balanceShardRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.shards = shards;
+        this.promotionThreshold = promotionThreshold;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadSplitAccounts() {
+        try {
+            splitAccounts.putAll(balanceShardRepository.findShardCounts());
+        } catch (DataAccessException exception) {
+            log.warn("Split accounts could not be loaded, all balances stay on USER rows", exception);
+        }
+    }
+
+    public boolean isSplit(Integer userId) {
+        return splitAccounts.containsKey(userId);
+    }
+
+    /**
+     * @return a random shard of a split account, or null when the account is not split
+     */
+    public Integer pickShard(Integer userId) {
+        Integer shardCount = splitAccounts.get(userId);
+        return shardCount == null ? null : ThreadLocalRandom.current().nextInt(shardCount);
+    }
+
+    public void creditStarted(Integer userId) {
+        int waiting = pendingCredits.merge(userId, 1, Integer::sum);
+        if (promotionThreshold > 0 && waiting >= promotionThreshold && promoting.add(userId)) {
+            promoter.execute(() -> promote(userId));
+        }
+    }
+
+    public void creditFinished(Integer userId) {
+        pendingCredits.computeIfPresent(userId, (id, waiting) -> waiting == 1 ? null : waiting - 1);
+    }
+
+    /**
+     * Records, on the promotion thread, the shards of an account another instance split
+     */
+    public void splitElsewhere(Integer userId) {
+        if (promoting.add(userId)) {
+            promoter.execute(() -> {
+                try {
+                    int shardCount = balanceShardRepository.countShards(userId);
+                    if (shardCount > 0) {
+                        splitAccounts.put(userId, shardCount);
+                        log.info("User {} was split by another instance, on {} shards", userId, shardCount);
+                    }
+                } catch (DataAccessException exception) {
+                    log.warn("Shards of user {} could not be read", userId, exception);
+                } finally {
+                    promoting.remove(userId);
+                }
+            });
+        }
+    }
+
+    public void promote(Integer userId) {
+        try {
+            int shardCount = transactionTemplate.execute(status -> {
+                int existing = balanceShardRepository.countShards(userId);
+                if (existing > 0) {
+                    return existing;
+                }
+                balanceShardRepository.createShards(userId, shards);
+                return shards;
+            });
+            splitAccounts.put(userId, shardCount);
+            log.info("User {} now keeps its balance on {} shards", userId, shardCount);
+        } catch (DataAccessException exception) {
+            log.warn("User {} could not be promoted to a split balance", userId, exception);
+        } finally {
+            promoting.remove(userId);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        promoter.shutdownNow();
+    }
+}
@@ -0,0 +1,97 @@
+package com.paymybuddy.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.paymybuddy.model.Transaction;
+import com.paymybuddy.repository.TransactionRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * Remembers the transaction created for each (sender, Idempotency-Key) pair so that a retried
+ * request gets the original result without running the transfer again.
+ * The first request for a key runs the transfer; duplicates arriving meanwhile wait for its outcome.
+ * Entries are bounded and expire; past that, the unique (sender_id, idempotency_key) constraint
+ * and the lookup in TransactionServiceImpl take over. When two instances race on the same key,
+ * the loser's INSERT breaks that constraint and it replays the winner's transaction.
+ */
+@Component
+public class IdempotencyStore {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final int MAX_KEY_LENGTH = 64;
+
+    private final TransactionRepository transactionRepository;
+    private final Cache<String, CompletableFuture<Transaction>> results;
+
+    public IdempotencyStore(TransactionRepository transactionRepository,
+                            @Value("${paymybuddy.idempotency.ttl:24h}") Duration ttl,
+                            @Value("${paymybuddy.idempotency.max-size:100000}") long maxSize) {
+        this.transactionRepository = transactionRepository;
+        this.results = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maxSize)
+                .build();
+    }
+
+    /**
+     * Runs the transfer once per key, or returns the transaction of the first run.
+     * A failed run is forgotten so that the client can retry with the same key.
+     * @param senderId The id of the sender, keys are scoped per sender
+     * @param key The client supplied key, or null to run the transfer unconditionally
+     * @param transfer The transfer to run, called outside any cached state
+     * @return The transaction created by this run or by the first one
+     */
+    public Transaction execute(Integer senderId, String key, Supplier<Transaction> transfer) {
+        if (key == null || key.isBlank()) {
+            return transfer.get();
+        }
+        if (key.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("Idempotency key must be at most " + MAX_KEY_LENGTH + " characters.");
+        }
+
+        String cacheKey = senderId + ":" + key;
+        CompletableFuture<Transaction> pending = new CompletableFuture<>();
+        CompletableFuture<Transaction> first = results.asMap().putIfAbsent(cacheKey, pending);
+        if (first != null) {
+            return await(first);
+        }
+
+        try {
+            Transaction transaction = run(senderId, key, transfer);
+            pending.complete(transaction);
+            return transaction;
+        } catch (RuntimeException exception) {
+            results.asMap().remove(cacheKey, pending);
+            pending.completeExceptionally(exception);
+            throw exception;
+        }
+    }
+
+    private Transaction run(Integer senderId, String key, Supplier<Transaction> transfer) {
+        try {
+            return transfer.get();
+        } catch (DataIntegrityViolationException exception) {
+            // Another instance recorded the key first; read outside any transaction, so from the primary
+            return transactionRepository.findBySenderIdAndIdempotencyKey(senderId, key)
+                    .orElseThrow(() -> exception);
+        }
+    }
+
+    private static Transaction await(CompletableFuture<Transaction> first) {
+        try {
+            return first.join();
+        } catch (CompletionException exception) {
+            if (exception.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw exception;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.paymybuddy.service;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+public interface LedgerService {
+
+    /**
+     * @return false when the sender cannot cover the amount, in which case nothing was written
+     */
+    boolean transfer(Integer senderId, Integer receiverId, BigDecimal amount);
+
+    /**
+     * Debits the sum of the credits from the sender, then credits each receiver.
+     * @return false when the sender cannot cover the total, in which case nothing was written
+     */
+    boolean transfer(Integer senderId, Map<Integer, BigDecimal> credits);
+
+    /**
+     * Moves the balances of several accounts at once: negative amounts are debited, positive ones credited.
+     * Used to reverse or amend a recorded transfer, where more than one account may be debited.
+     * @throws IllegalArgumentException when a debited account cannot cover its amount; other accounts
+     * may already have moved, the caller's transaction must be rolled back
+     */
+    void move(Map<Integer, BigDecimal> amounts);
+
+    void deposit(Integer userId, BigDecimal amount);
+}
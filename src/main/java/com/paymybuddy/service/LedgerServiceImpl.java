@@ -0,0 +1,137 @@
+package com.paymybuddy.service;
+
+import com.paymybuddy.repository.BalanceShardRepository;
+import com.paymybuddy.repository.UserRepository;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Moves balances with conditional UPDATEs inside the caller's transaction.
+ * Rows are always locked in ascending (user id, shard) order, a USER row counting as the
+ * account's first shard, so opposite transfers (A to B while B pays A) queue on the same
+ * first row instead of deadlocking.
+ * Credits to a split account land on one of its shards picked at random; its debits are taken
+ * from the USER row, which is refilled from the shards when it runs short. The shards are looked up
+ * in the database then, not in the registry: another instance may have split the account.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional(Transactional.TxType.MANDATORY)
+public class LedgerServiceImpl implements LedgerService {
+
+    private final UserRepository userRepository;
+    private final BalanceShardRepository balanceShardRepository;
+    private final HotAccountRegistry hotAccountRegistry;
+
+    @Override
+    public boolean transfer(Integer senderId, Integer receiverId, BigDecimal amount) {
+        return transfer(senderId, Map.of(receiverId, amount));
+    }
+
+    @Override
+    public boolean transfer(Integer senderId, Map<Integer, BigDecimal> credits) {
+        SortedMap<Integer, BigDecimal> ordered = new TreeMap<>(credits);
+        BigDecimal total = ordered.values().stream().reduce(BigDecimal.ZERO, BigDecimal::add);
+
+        Map<Integer, Integer> shards = new HashMap<>();
+        for (Integer receiverId : ordered.keySet()) {
+            Integer shard = hotAccountRegistry.pickShard(receiverId);
+            if (shard != null) {
+                shards.put(receiverId, shard);
+            }
+        }
+
+        // Receivers ranked before the sender are locked first, without writing to them yet
+        lock(ordered.headMap(senderId).keySet(), shards);
+        if (!debit(senderId, total)) {
+            return false;
+        }
+        ordered.forEach((receiverId, amount) -> credit(receiverId, shards.get(receiverId), amount));
+        return true;
+    }
+
+    @Override
+    public void move(Map<Integer, BigDecimal> amounts) {
+        // Each row is written, hence locked, in ascending id order
+        new TreeMap<>(amounts).forEach((userId, amount) -> {
+            if (amount.signum() < 0 && !debit(userId, amount.negate())) {
+                throw new IllegalArgumentException("Insufficient funds.");
+            }
+            if (amount.signum() > 0) {
+                credit(userId, hotAccountRegistry.pickShard(userId), amount);
+            }
+        });
+    }
+
+    @Override
+    public void deposit(Integer userId, BigDecimal amount) {
+        if (!tryCredit(userId, hotAccountRegistry.pickShard(userId), amount)) {
+            throw new IllegalArgumentException("User not found.");
+        }
+    }
+
+    private void lock(Collection<Integer> userIds, Map<Integer, Integer> shards) {
+        List<Integer> rows = new ArrayList<>();
+        for (Integer userId : userIds) {
+            Integer shard = shards.get(userId);
+            if (shard == null) {
+                rows.add(userId);
+                continue;
+            }
+            if (!rows.isEmpty()) {
+                userRepository.lockByIdIn(rows);
+                rows = new ArrayList<>();
+            }
+            balanceShardRepository.lock(userId, shard);
+        }
+        if (!rows.isEmpty()) {
+            userRepository.lockByIdIn(rows);
+        }
+    }
+
+    private boolean debit(Integer userId, BigDecimal amount) {
+        if (userRepository.debitBalance(userId, amount) == 1) {
+            return true;
+        }
+        // Folding the shards back only moves money within the account. A conditional UPDATE that
+        // matched nothing may not have locked the USER row, which must be held before the shards.
+        userRepository.lockByIdIn(List.of(userId));
+        BigDecimal drained = balanceShardRepository.drain(userId);
+        if (drained.signum() == 0) {
+            return false;
+        }
+        if (!hotAccountRegistry.isSplit(userId)) {
+            hotAccountRegistry.splitElsewhere(userId);
+        }
+        userRepository.creditBalance(userId, drained);
+        return userRepository.debitBalance(userId, amount) == 1;
+    }
+
+    private void credit(Integer userId, Integer shard, BigDecimal amount) {
+        if (!tryCredit(userId, shard, amount)) {
+            throw new IllegalArgumentException("Receiver not found.");
+        }
+    }
+
+    private boolean tryCredit(Integer userId, Integer shard, BigDecimal amount) {
+        if (shard != null) {
+            return balanceShardRepository.credit(userId, shard, amount) == 1;
+        }
+        hotAccountRegistry.creditStarted(userId);
+        try {
+            return userRepository.creditBalance(userId, amount) == 1;
+        } finally {
+            hotAccountRegistry.creditFinished(userId);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.paymybuddy.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.paymybuddy.event.PasswordRehashedEvent;
+import com.paymybuddy.event.UserChangedEvent;
+import com.paymybuddy.event.UserDeletedEvent;
+import com.paymybuddy.model.dto.UserSummaryDTO;
+import com.paymybuddy.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Caches the summary of users by email, so that authentication and the pages reading the
+ * current user share one lookup instead of each going to the database.
+ * Entries are dropped once a save or delete of the user commits, and expire anyway after ttl.
+ * Those events carry the user id, so the email each cached user was loaded under is indexed by id.
+ * Unknown emails are not cached, so a registration needs no invalidation.
+ * Users are loaded from the primary, outside any transaction: a replica lagging behind a password change
+ * would put the old hash back right after the change dropped it, for the whole ttl.
+ */
+@Component
+public class PrincipalCache {
+
+    private final UserRepository userRepository;
+    private final Cache<String, UserSummaryDTO> principals;
+    // Email each cached user is stored under, kept in step with the evictions
+    private final Map<Integer, String> emails = new ConcurrentHashMap<>();
+
+    public PrincipalCache(UserRepository userRepository,
+                          @Value("${paymybuddy.principal-cache.ttl:10m}") Duration ttl,
+                          @Value("${paymybuddy.principal-cache.max-size:100000}") long maxSize) {
+        this.userRepository = userRepository;
+        this.principals = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maxSize)
+                // Called within the eviction, so it cannot undo the index entry of a reload of the same email
+                .<String, UserSummaryDTO>evictionListener((email, user, cause) -> {
+                    if (user != null) {
+                        emails.remove(user.getId(), email);
+                    }
+                })
+                .recordStats()
+                .build();
+    }
+
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Optional<UserSummaryDTO> getByEmail(String email) {
+        if (email == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(principals.get(email, key -> {
+            UserSummaryDTO user = userRepository.findSummaryByEmail(key).orElse(null);
+            if (user != null) {
+                emails.put(user.getId(), key);
+            }
+            return user;
+        }));
+    }
+
+    /**
+     * @return Hit, miss and eviction counts since startup
+     */
+    public CacheStats stats() {
+        return principals.stats();
+    }
+
+    /**
+     * Drops the user under their current email, and under the one they were cached with if it changed
+     */
+    public void invalidate(Integer userId, String email) {
+        if (email != null) {
+            principals.invalidate(email);
+        }
+        String cachedEmail = emails.remove(userId);
+        if (cachedEmail != null && !cachedEmail.equals(email)) {
+            principals.invalidate(cachedEmail);
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        invalidate(event.userId(), event.email());
+    }
+
+    // The email is unchanged, only the cached hash is stale
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onPasswordRehashed(PasswordRehashedEvent event) {
+        invalidate(event.userId(), event.email());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onUserDeleted(UserDeletedEvent event) {
+        invalidate(event.userId(), null);
+    }
+}
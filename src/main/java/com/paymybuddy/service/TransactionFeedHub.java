@@ -0,0 +1,475 @@
+package com.paymybuddy.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.paymybuddy.configuration.ConnectionAdmissionFilter;
+import com.paymybuddy.event.TransactionEvent;
+import com.paymybuddy.event.TransactionEventBus;
+import com.paymybuddy.event.TransactionEventBus.OverflowPolicy;
+import com.paymybuddy.event.TransactionEventBus.Subscription;
+import com.paymybuddy.event.UserChangedEvent;
+import com.paymybuddy.event.UserDeletedEvent;
+import com.paymybuddy.model.dto.TransactionFeedItemDTO;
+import com.paymybuddy.model.dto.TransactionFeedItemDTO.Direction;
+import com.paymybuddy.model.dto.TransactionFeedMessageDTO;
+import com.paymybuddy.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Pushes committed transfers to the Server-Sent Events connections of their sender and receiver.
+ * The hub reads the TransactionEventBus with a DROP subscription, so slow browsers never hold
+ * back transfers. Events are grouped per user until the bus has nothing more ready, then queued
+ * on each of the user's connections; a connection sends everything queued since its last write as
+ * one message, on a virtual thread, so a burst of transfers costs one write per connection.
+ * An idle connection is an async request with no thread attached.
+ * The feed is not behind the admission filter, so its own database reads are capped: the counterparts
+ * and the balance of a group of transfers are read once for all the connections of its user, by at
+ * most max-reads senders at a time (a quarter of the connection pool by default).
+ * Each message carries the user's balance read from the primary once its transfers are committed, and a
+ * feed opens with one: the page may already include a transfer committed before it was pushed, or come
+ * from a replica that missed one, so the client replaces its balance instead of adding the amounts.
+ * The last replay-size transfers of each user are kept for resume-window, so a feed opening from an older
+ * sequence (a page rendered just before a transfer, a reconnect) is first sent what it missed.
+ * A client that may have missed transfers the hub no longer has (events dropped by the bus, a connection
+ * that fell too far behind, a gap older than its user's buffer) is sent "resync" and reloads the page.
+ */
+@Slf4j
+@Component
+public class TransactionFeedHub {
+
+    public static final String TRANSACTIONS_EVENT = "transactions";
+    public static final String RESYNC_EVENT = "resync";
+
+    // Events grouped on the subscription thread before they are handed to the connections
+    private static final int MAX_BATCH = 256;
+
+    private final TransactionEventBus eventBus;
+    private final UserRepository userRepository;
+    private final int maxConnectionsPerUser;
+    private final int maxPending;
+    private final long timeoutMillis;
+    private final Map<Integer, List<Connection>> connections = new ConcurrentHashMap<>();
+    private final AtomicInteger connectionCount = new AtomicInteger();
+    // Last transfers of each user, replayed to a client resuming from an older sequence
+    private final Cache<Integer, Replay> replays;
+    private final int replaySize;
+    // Clients resuming from before this sequence may have missed events the hub no longer knows about
+    private final AtomicLong resyncBefore = new AtomicLong(-1);
+    private final Cache<Integer, String> usernames;
+    private final ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+    private final Semaphore reads;
+    private Subscription subscription;
+
+    // Only used by the subscription thread
+    private final Map<Integer, List<FeedEntry>> batch = new HashMap<>();
+    private int batchSize;
+    private long lastHandled;
+
+    @Autowired
+    public TransactionFeedHub(TransactionEventBus eventBus,
+                              UserRepository userRepository,
+                              DataSource dataSource,
+                              @Value("${paymybuddy.feed.max-connections-per-user:5}") int maxConnectionsPerUser,
+                              @Value("${paymybuddy.feed.max-pending:1000}") int maxPending,
+                              @Value("${paymybuddy.feed.timeout:30m}") Duration timeout,
+                              @Value("${paymybuddy.feed.max-reads:0}") int maxReads,
+                              @Value("${paymybuddy.feed.replay-size:64}") int replaySize,
+                              @Value("${paymybuddy.feed.resume-window:1h}") Duration resumeWindow,
+                              @Value("${paymybuddy.feed.resume-max-users:100000}") long resumeMaxUsers) {
+        this(eventBus, userRepository, maxConnectionsPerUser, maxPending, timeout,
+                maxReads > 0 ? maxReads : Math.max(1, ConnectionAdmissionFilter.poolSize(dataSource) / 4),
+                replaySize, resumeWindow, resumeMaxUsers);
+    }
+
+    TransactionFeedHub(TransactionEventBus eventBus, UserRepository userRepository, int maxConnectionsPerUser,
+                       int maxPending, Duration timeout, int maxReads, int replaySize, Duration resumeWindow,
+                       long resumeMaxUsers) {
+        this.eventBus = eventBus;
+        this.userRepository = userRepository;
+        this.maxConnectionsPerUser = maxConnectionsPerUser;
+        this.maxPending = maxPending;
+        this.timeoutMillis = timeout.toMillis();
+        this.reads = new Semaphore(maxReads);
+        this.replaySize = replaySize;
+        this.replays = Caffeine.newBuilder()
+                .expireAfterWrite(resumeWindow)
+                .maximumSize(resumeMaxUsers)
+                // Called within the eviction: resyncBefore is raised before the buffer can be found missing
+                .<Integer, Replay>evictionListener((userId, replay, cause) -> {
+                    if (replay != null) {
+                        resyncBefore.accumulateAndGet(replay.last() + 1, Math::max);
+                    }
+                })
+                .build();
+        this.usernames = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMinutes(10))
+                .maximumSize(100_000)
+                .build();
+    }
+
+    @PostConstruct
+    public void start() {
+        // Anything claimed before the subscription is never delivered to it
+        lastHandled = eventBus.getCursor();
+        subscription = eventBus.subscribe("feed", OverflowPolicy.DROP, this::onEvent);
+    }
+
+    /**
+     * @return The last sequence published on the bus: a page rendered from now on already shows
+     * every transfer up to it, and passes it back when opening its feed
+     */
+    public long currentSequence() {
+        return eventBus.getCursor();
+    }
+
+    /**
+     * Opens a feed for the user, completed after the feed timeout (the browser reconnects)
+     * @param since Last sequence the client has seen, from the page or the Last-Event-ID header
+     */
+    public SseEmitter open(Integer userId, long since) {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        register(userId, since, emitter);
+        return emitter;
+    }
+
+    Connection register(Integer userId, long since, SseEmitter emitter) {
+        Connection connection = new Connection(userId, emitter);
+        emitter.onCompletion(() -> remove(connection));
+        List<Connection> evicted = new ArrayList<>();
+        // Held until the replay is queued, so that transfers delivered meanwhile queue after it
+        synchronized (connection) {
+            connection.queued = since;
+            connections.compute(userId, (id, current) -> {
+                List<Connection> updated = current != null ? current : new CopyOnWriteArrayList<>();
+                updated.add(connection);
+                while (updated.size() > maxConnectionsPerUser) {
+                    evicted.add(updated.removeFirst());
+                }
+                return updated;
+            });
+
+            // Registered first: anything the buffer misses is delivered to the connection instead. The buffer
+            // is read before resyncBefore, which an eviction raises before the buffer is gone
+            Replay replay = replays.getIfPresent(userId);
+            List<FeedEntry> missed = replay != null ? replay.after(since) : List.of();
+            // A sequence ahead of the bus comes from before a restart
+            if (missed == null || since < resyncBefore.get() || since > eventBus.getCursor()) {
+                connection.resync();
+            } else if (!missed.isEmpty()) {
+                connection.enqueue(new Update(userId, missed));
+            } else {
+                connection.schedule();
+            }
+        }
+        connectionCount.addAndGet(1 - evicted.size());
+        evicted.forEach(Connection::close);
+        return connection;
+    }
+
+    public int getConnectionCount() {
+        return connectionCount.get();
+    }
+
+    /**
+     * @return The hub's subscription to the bus, for its lag and dropped events
+     */
+    public Subscription getSubscription() {
+        return subscription;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        usernames.invalidate(event.userId());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onUserDeleted(UserDeletedEvent event) {
+        usernames.invalidate(event.userId());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (subscription != null) {
+            subscription.close();
+        }
+        connections.values().forEach(list -> list.forEach(connection -> connection.emitter.complete()));
+        senders.shutdown();
+    }
+
+    private void onEvent(TransactionEvent event, long sequence, boolean endOfBatch) {
+        if (sequence > lastHandled + 1) {
+            log.warn("Transaction feed missed events {} to {}, asking every client to reload", lastHandled + 1, sequence - 1);
+            resyncBefore.accumulateAndGet(sequence, Math::max);
+            connections.values().forEach(list -> list.forEach(Connection::resync));
+        }
+        lastHandled = sequence;
+
+        int senderId = event.getSenderId();
+        int receiverId = event.getReceiverId();
+        if (event.isDeposit()) {
+            add(receiverId, new FeedEntry(sequence, TransactionEvent.NONE, Direction.DEPOSIT, TransactionEvent.NONE,
+                    null, event.getAmount()));
+        } else {
+            add(senderId, new FeedEntry(sequence, event.getTransactionId(), Direction.SENT, receiverId,
+                    event.getDescription(), event.getAmount()));
+            add(receiverId, new FeedEntry(sequence, event.getTransactionId(), Direction.RECEIVED, senderId,
+                    event.getDescription(), event.getAmount()));
+        }
+
+        if (endOfBatch || batchSize >= MAX_BATCH) {
+            batch.forEach((userId, entries) -> {
+                Update update = new Update(userId, entries);
+                connections.getOrDefault(userId, List.of()).forEach(connection -> connection.enqueue(update));
+            });
+            batch.clear();
+            batchSize = 0;
+        }
+    }
+
+    private void add(Integer userId, FeedEntry entry) {
+        // Buffered first: a feed registered after this check finds the entry in the buffer
+        replays.asMap().compute(userId, (id, replay) -> {
+            Replay updated = replay != null ? replay : new Replay();
+            updated.add(entry, replaySize);
+            return updated;
+        });
+        if (connections.containsKey(userId)) {
+            batch.computeIfAbsent(userId, id -> new ArrayList<>()).add(entry);
+            batchSize++;
+        }
+    }
+
+    private void remove(Connection connection) {
+        connections.computeIfPresent(connection.userId, (id, current) -> {
+            if (current.remove(connection)) {
+                connectionCount.decrementAndGet();
+            }
+            return current.isEmpty() ? null : current;
+        });
+    }
+
+    /**
+     * Runs a query once one of the max-reads permits is free
+     */
+    private <T> T read(Supplier<T> query) {
+        reads.acquireUninterruptibly();
+        try {
+            return query.get();
+        } finally {
+            reads.release();
+        }
+    }
+
+    private TransactionFeedItemDTO toItem(FeedEntry entry) {
+        if (entry.direction() == Direction.DEPOSIT) {
+            return new TransactionFeedItemDTO(null, Direction.DEPOSIT, null, null, entry.amount());
+        }
+        String counterpart = usernames.get(entry.counterpartId(), id -> userRepository.findUsernameById(id).orElse(null));
+        return new TransactionFeedItemDTO(entry.transactionId(), entry.direction(), counterpart,
+                entry.description(), entry.amount());
+    }
+
+    private record FeedEntry(long sequence, int transactionId, Direction direction, int counterpartId,
+                             String description, BigDecimal amount) {
+    }
+
+    /**
+     * The last transfers of one user, oldest first
+     */
+    private static final class Replay {
+
+        private final ArrayDeque<FeedEntry> entries = new ArrayDeque<>();
+        // Last sequence dropped to stay within replay-size, -1 while none was
+        private long dropped = -1;
+
+        private synchronized void add(FeedEntry entry, int capacity) {
+            if (entries.size() == capacity) {
+                dropped = entries.removeFirst().sequence();
+            }
+            entries.addLast(entry);
+        }
+
+        private synchronized long last() {
+            return entries.getLast().sequence();
+        }
+
+        /**
+         * @return The entries after the sequence, or null when some of them were already dropped
+         */
+        private synchronized List<FeedEntry> after(long since) {
+            if (since < dropped) {
+                return null;
+            }
+            return entries.stream().filter(entry -> entry.sequence() > since).toList();
+        }
+    }
+
+    /**
+     * Transfers of one user handed to their connections together. The connections share the items and
+     * the balance, read by the first one to send them: the balance is read after the transfers were
+     * committed, so it includes at least those.
+     */
+    private final class Update {
+
+        private final Integer userId;
+        private final List<FeedEntry> entries;
+        private List<TransactionFeedItemDTO> items;
+        private BigDecimal balance;
+        private boolean balanceRead;
+
+        private Update(Integer userId, List<FeedEntry> entries) {
+            this.userId = userId;
+            this.entries = entries;
+        }
+
+        private long lastSequence() {
+            return entries.getLast().sequence();
+        }
+
+        private Update after(long sequence) {
+            return new Update(userId, entries.stream().filter(entry -> entry.sequence() > sequence).toList());
+        }
+
+        private synchronized List<TransactionFeedItemDTO> items() {
+            if (items == null) {
+                items = read(() -> entries.stream().map(TransactionFeedHub.this::toItem).toList());
+            }
+            return items;
+        }
+
+        private synchronized BigDecimal balance() {
+            if (!balanceRead) {
+                balance = read(() -> userRepository.findBalanceById(userId).orElse(null));
+                balanceRead = true;
+            }
+            return balance;
+        }
+    }
+
+    final class Connection {
+
+        private final Integer userId;
+        private final SseEmitter emitter;
+        private final Queue<Update> pending = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger pendingCount = new AtomicInteger();
+        // Whether a drain is queued or running; at most one at a time keeps messages in order
+        private final AtomicBoolean draining = new AtomicBoolean();
+        // Last sequence queued, guarded by the connection: a transfer both replayed and delivered is sent once
+        private long queued;
+        // The first message only carries the balance
+        private volatile boolean opening = true;
+        private volatile boolean resync;
+        private volatile boolean closed;
+
+        private Connection(Integer userId, SseEmitter emitter) {
+            this.userId = userId;
+            this.emitter = emitter;
+        }
+
+        private synchronized void enqueue(Update update) {
+            if (update.lastSequence() <= queued) {
+                return;
+            }
+            if (update.entries.getFirst().sequence() <= queued) {
+                update = update.after(queued);
+            }
+            queued = update.lastSequence();
+            if (pendingCount.addAndGet(update.entries.size()) > maxPending) {
+                resync();
+                return;
+            }
+            pending.add(update);
+            schedule();
+        }
+
+        private void resync() {
+            resync = true;
+            schedule();
+        }
+
+        private void close() {
+            closed = true;
+            emitter.complete();
+        }
+
+        private void schedule() {
+            if (!closed && draining.compareAndSet(false, true)) {
+                senders.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            do {
+                try {
+                    send();
+                } catch (IOException | IllegalStateException exception) {
+                    // The browser went away; the container completes the emitter
+                    log.debug("Transaction feed of user {} closed: {}", userId, exception.getMessage());
+                    closed = true;
+                    remove(this);
+                }
+                draining.set(false);
+            } while (!closed && (resync || opening || !pending.isEmpty()) && draining.compareAndSet(false, true));
+        }
+
+        private void send() throws IOException {
+            if (resync) {
+                // The page reloads and opens a new feed, nothing else is worth sending
+                closed = true;
+                pending.clear();
+                emitter.send(SseEmitter.event().name(RESYNC_EVENT).data(""));
+                emitter.complete();
+                return;
+            }
+            List<TransactionFeedItemDTO> items = new ArrayList<>();
+            Update last = null;
+            Update update;
+            while ((update = pending.poll()) != null) {
+                pendingCount.addAndGet(-update.entries.size());
+                items.addAll(update.items());
+                last = update;
+            }
+            if (last == null && !opening) {
+                return;
+            }
+            opening = false;
+            BigDecimal balance = last != null ? last.balance()
+                    : read(() -> userRepository.findBalanceById(userId).orElse(null));
+            SseEmitter.SseEventBuilder event = SseEmitter.event().name(TRANSACTIONS_EVENT);
+            if (last != null) {
+                event.id(Long.toString(last.lastSequence()));
+            }
+            emitter.send(event.data(new TransactionFeedMessageDTO(items, balance), MediaType.APPLICATION_JSON));
+        }
+    }
+}
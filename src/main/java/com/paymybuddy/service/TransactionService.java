@@ -1,21 +1,43 @@
 package com.paymybuddy.service;
 
 import com.paymybuddy.model.Transaction;
+import com.paymybuddy.model.dto.TransactionHistoryDTO;
+import com.paymybuddy.model.dto.TransactionPageDTO;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface TransactionService {
 
     Iterable<Transaction> getTransactions();
 
+    void forEachTransaction(Consumer<Transaction> action);
+
     Optional<Transaction> getTransactionById(Integer id);
 
     List<Transaction> getTransactionsBySenderId(Integer senderId);
 
     List<Transaction> getTransactionsByReceiverId(Integer receiverId);
 
+    List<TransactionHistoryDTO> getTransactionHistoryBySenderId(Integer senderId);
+
+    TransactionPageDTO getTransactionsBySenderId(Integer senderId, String cursor, int size);
+
+    TransactionPageDTO getTransactionsByReceiverId(Integer receiverId, String cursor, int size);
+
     Transaction saveTransaction(Transaction transaction);
 
+    /**
+     * Changes a recorded transaction; the balances move by the difference with the stored one
+     * @param id The id of the transaction
+     * @param changes The new amount, description and parties; those left null are kept
+     * @return The updated transaction, or empty when there is none with this id
+     */
+    Optional<Transaction> updateTransaction(Integer id, Transaction changes);
+
+    /**
+     * Deletes a transaction and reverses it, so that balances still match the history
+     */
     void deleteTransactionById(Integer id);
 }
@@ -1,56 +1,234 @@
 package com.paymybuddy.service;
 
+import com.paymybuddy.event.TransactionEventBus;
 import com.paymybuddy.model.Transaction;
 import com.paymybuddy.model.User;
+import com.paymybuddy.model.dto.TransactionHistoryDTO;
+import com.paymybuddy.model.dto.TransactionPageDTO;
 import com.paymybuddy.repository.TransactionRepository;
-import jakarta.transaction.Transactional;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
+@Timed("paymybuddy.service")
 @RequiredArgsConstructor
 @Transactional
 public class TransactionServiceImpl implements TransactionService {
 
+    public static final int MAX_PAGE_SIZE = 100;
+
+    // Detach streamed entities at the same pace the driver fetches them
+    static final int STREAM_CLEAR_INTERVAL = Integer.parseInt(TransactionRepository.STREAM_FETCH_SIZE);
+
     private final TransactionRepository transactionRepository;
+    private final LedgerService ledgerService;
+    private final UserService userService;
+    private final EntityManager entityManager;
+    private final TransactionEventBus transactionEventBus;
 
     @Override
+    @Transactional(readOnly = true)
     public Iterable<Transaction> getTransactions() {
         return transactionRepository.findAll();
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public void forEachTransaction(Consumer<Transaction> action) {
+        try (Stream<Transaction> transactions = transactionRepository.streamAll()) {
+            Iterator<Transaction> iterator = transactions.iterator();
+            int processed = 0;
+            while (iterator.hasNext()) {
+                action.accept(iterator.next());
+                if (++processed % STREAM_CLEAR_INTERVAL == 0) {
+                    entityManager.clear();
+                }
+            }
+        }
+    }
+
+    // Not read-only: under open-in-view, the entity would stay read-only for an update later in the request
     @Override
     public Optional<Transaction> getTransactionById(Integer id) {
         return transactionRepository.findById(id);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<Transaction> getTransactionsBySenderId(Integer userId) {
         return transactionRepository.findBySenderId(userId);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<Transaction> getTransactionsByReceiverId(Integer receiverId) {
         return transactionRepository.findByReceiverId(receiverId);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public List<TransactionHistoryDTO> getTransactionHistoryBySenderId(Integer senderId) {
+        return transactionRepository.findHistoryBySenderId(senderId);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public TransactionPageDTO getTransactionsBySenderId(Integer senderId, String cursor, int size) {
+        int pageSize = Math.clamp(size, 1, MAX_PAGE_SIZE);
+        return toPage(transactionRepository.findBySenderIdAndIdLessThanOrderByIdDesc(
+                senderId, decodeCursor(cursor), Limit.of(pageSize + 1)), pageSize);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public TransactionPageDTO getTransactionsByReceiverId(Integer receiverId, String cursor, int size) {
+        int pageSize = Math.clamp(size, 1, MAX_PAGE_SIZE);
+        return toPage(transactionRepository.findByReceiverIdAndIdLessThanOrderByIdDesc(
+                receiverId, decodeCursor(cursor), Limit.of(pageSize + 1)), pageSize);
+    }
+
     @Override
     public Transaction saveTransaction(Transaction transaction) {
+        TransferOutcome outcome = record(transaction);
+        if (outcome.rejection() != null) {
+            throw new IllegalArgumentException(outcome.rejection());
+        }
+        return outcome.transaction();
+    }
+
+    /**
+     * Same as saveTransaction, but a rejected transfer is returned instead of thrown, so that
+     * several transfers can share one transaction without a rejection marking it rollback-only.
+     * @param transaction The transaction to record
+     * @return The saved (or original) transaction, or the reason it was rejected
+     */
+    public TransferOutcome record(Transaction transaction) {
+        if (transaction.getId() != null) {
+            return TransferOutcome.rejected("A recorded transaction can only be changed through an update.");
+        }
         User sender = transaction.getSender();
         User receiver = transaction.getReceiver();
 
-        if (!sender.getConnections().contains(receiver)) {
-            throw new IllegalArgumentException("You can only send money to your connections.");
+        // A retry the idempotency store no longer remembers still gets the original transaction
+        if (transaction.getIdempotencyKey() != null) {
+            Optional<Transaction> original = transactionRepository
+                    .findBySenderIdAndIdempotencyKey(sender.getId(), transaction.getIdempotencyKey());
+            if (original.isPresent()) {
+                return TransferOutcome.saved(original.get());
+            }
+        }
+
+        if (!userService.areConnected(sender.getId(), receiver.getId())) {
+            return TransferOutcome.rejected("You can only send money to your connections.");
+        }
+        if (transaction.getAmount() == null || transaction.getAmount().signum() <= 0) {
+            return TransferOutcome.rejected("Amount must be positive.");
+        }
+
+        // The ledger runs before the INSERT so its row locks are taken in id order, ahead of the foreign key checks
+        if (!ledgerService.transfer(sender.getId(), receiver.getId(), transaction.getAmount())) {
+            return TransferOutcome.rejected("Insufficient funds.");
         }
 
-        return transactionRepository.save(transaction);
+        Transaction saved = transactionRepository.save(transaction);
+        transactionEventBus.publishAfterCommit(saved);
+        return TransferOutcome.saved(saved);
+    }
+
+    @Override
+    public Optional<Transaction> updateTransaction(Integer id, Transaction changes) {
+        return transactionRepository.findForUpdateById(id).map(stored -> {
+            Integer senderId = changes.getSender() != null ? changes.getSender().getId() : stored.getSender().getId();
+            Integer receiverId = changes.getReceiver() != null ? changes.getReceiver().getId() : stored.getReceiver().getId();
+            BigDecimal amount = changes.getAmount() != null ? changes.getAmount() : stored.getAmount();
+            if (amount.signum() <= 0) {
+                throw new IllegalArgumentException("Amount must be positive.");
+            }
+            if (!userService.areConnected(senderId, receiverId)) {
+                throw new IllegalArgumentException("You can only send money to your connections.");
+            }
+
+            // The stored transfer is reversed and the new one applied, netted per account under the same locks
+            Map<Integer, BigDecimal> amounts = new HashMap<>();
+            amounts.merge(stored.getSender().getId(), stored.getAmount(), BigDecimal::add);
+            amounts.merge(stored.getReceiver().getId(), stored.getAmount().negate(), BigDecimal::add);
+            amounts.merge(senderId, amount.negate(), BigDecimal::add);
+            amounts.merge(receiverId, amount, BigDecimal::add);
+            amounts.values().removeIf(change -> change.signum() == 0);
+            if (!amounts.isEmpty()) {
+                ledgerService.move(amounts);
+            }
+
+            stored.setSender(entityManager.getReference(User.class, senderId));
+            stored.setReceiver(entityManager.getReference(User.class, receiverId));
+            stored.setAmount(amount);
+            if (changes.getDescription() != null) {
+                stored.setDescription(changes.getDescription());
+            }
+            return transactionRepository.save(stored);
+        });
     }
 
     @Override
     public void deleteTransactionById(Integer id) {
-        transactionRepository.deleteById(id);
+        transactionRepository.findForUpdateById(id).ifPresent(stored -> {
+            ledgerService.move(Map.of(
+                    stored.getSender().getId(), stored.getAmount(),
+                    stored.getReceiver().getId(), stored.getAmount().negate()));
+            transactionRepository.delete(stored);
+        });
+    }
+
+    /**
+     * One extra row is fetched to know whether a next page exists without a COUNT query
+     */
+    private TransactionPageDTO toPage(List<Transaction> rows, int pageSize) {
+        if (rows.size() <= pageSize) {
+            return new TransactionPageDTO(rows, null);
+        }
+        List<Transaction> page = rows.subList(0, pageSize);
+        return new TransactionPageDTO(page, encodeCursor(page.getLast().getId()));
+    }
+
+    private static String encodeCursor(Integer lastId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(String.valueOf(lastId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Integer decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return Integer.MAX_VALUE;
+        }
+        try {
+            return Integer.valueOf(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException exception) {
+            throw new IllegalArgumentException("Invalid cursor.");
+        }
+    }
+
+    public record TransferOutcome(Transaction transaction, String rejection) {
+
+        static TransferOutcome saved(Transaction transaction) {
+            return new TransferOutcome(transaction, null);
+        }
+
+        static TransferOutcome rejected(String rejection) {
+            return new TransferOutcome(null, rejection);
+        }
     }
 }
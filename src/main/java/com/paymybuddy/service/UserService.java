@@ -1,7 +1,11 @@
 package com.paymybuddy.service;
 
 import com.paymybuddy.model.User;
+import com.paymybuddy.model.dto.ConnectionDTO;
+import com.paymybuddy.model.dto.UserSummaryDTO;
 
+import java.math.BigDecimal;
+import java.util.List;
 import java.util.Optional;
 
 public interface UserService {
@@ -12,9 +16,24 @@ public interface UserService {
 
     Optional<User> getUserByEmail(String email);
 
+    /**
+     * Cached lookup for the current user, see PrincipalCache
+     */
+    Optional<UserSummaryDTO> getUserSummaryByEmail(String email);
+
+    Optional<BigDecimal> getBalance(Integer id);
+
     User saveUser(User user);
 
     void deleteUserById(Integer id);
 
     void connectUsers(Integer id1, Integer id2);
+
+    void disconnectUsers(Integer id1, Integer id2);
+
+    List<ConnectionDTO> getConnections(Integer userId);
+
+    boolean areConnected(Integer userId, Integer connectedUserId);
+
+    void deposit(Integer id, BigDecimal amount);
 }
@@ -1,48 +1,86 @@
 package com.paymybuddy.service;
 
+import com.paymybuddy.event.ConnectionChangedEvent;
+import com.paymybuddy.event.TransactionEventBus;
+import com.paymybuddy.event.UserChangedEvent;
+import com.paymybuddy.event.UserDeletedEvent;
 import com.paymybuddy.model.User;
+import com.paymybuddy.model.dto.ConnectionDTO;
+import com.paymybuddy.model.dto.UserSummaryDTO;
 import com.paymybuddy.repository.UserRepository;
-import jakarta.transaction.Transactional;
+import com.paymybuddy.service.security.BoundedBCryptPasswordEncoder;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.util.List;
 import java.util.Optional;
 
 @Service
+@Timed("paymybuddy.service")
 @RequiredArgsConstructor
 @Transactional
 public class UserServiceImpl implements UserService {
 
     private final UserRepository userRepository;
+    private final LedgerService ledgerService;
     private final PasswordEncoder passwordEncoder;
+    private final ConnectionGraph connectionGraph;
+    private final PrincipalCache principalCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionEventBus transactionEventBus;
 
     @Override
+    @Transactional(readOnly = true)
     public Iterable<User> getUsers() {
         return userRepository.findAll();
     }
 
+    // Not read-only: callers update the returned entity, and a read-only load would leave it
+    // read-only in the request's (open-in-view) persistence context, silently ignoring the update
     @Override
     public Optional<User> getUserById(Integer id) {
         return userRepository.findById(id);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Optional<User> getUserByEmail(String email) {
         return userRepository.findByEmail(email);
     }
 
+    // Not read-only: principals are loaded from the primary, see PrincipalCache
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Optional<UserSummaryDTO> getUserSummaryByEmail(String email) {
+        return principalCache.getByEmail(email);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<BigDecimal> getBalance(Integer id) {
+        return userRepository.findBalanceById(id);
+    }
+
     @Override
     public User saveUser(User user) {
-        if (user.getPassword() != null && !user.getPassword().startsWith("$2a$")) {
+        if (user.getPassword() != null && !BoundedBCryptPasswordEncoder.isBCryptHash(user.getPassword())) {
             user.setPassword(passwordEncoder.encode(user.getPassword()));
         }
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        eventPublisher.publishEvent(new UserChangedEvent(saved.getId(), saved.getEmail()));
+        return saved;
     }
 
     @Override
     public void deleteUserById(Integer id) {
         userRepository.deleteById(id);
+        eventPublisher.publishEvent(new UserDeletedEvent(id));
     }
 
     @Override
@@ -53,5 +91,42 @@ public class UserServiceImpl implements UserService {
         user1.addConnection(user2);
 
         userRepository.save(user1);
+        eventPublisher.publishEvent(new ConnectionChangedEvent(id1, id2, true));
+    }
+
+    @Override
+    public void disconnectUsers(Integer id1, Integer id2) {
+        User user1 = userRepository.findById(id1).orElseThrow();
+        User user2 = userRepository.findById(id2).orElseThrow();
+
+        user1.removeConnection(user2);
+
+        userRepository.save(user1);
+        eventPublisher.publishEvent(new ConnectionChangedEvent(id1, id2, false));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<ConnectionDTO> getConnections(Integer userId) {
+        return userRepository.findConnectionsByUserId(userId);
+    }
+
+    /**
+     * The graph only learns of a connection once its transaction commits,
+     * so a miss is confirmed against the database before answering no
+     */
+    @Override
+    public boolean areConnected(Integer userId, Integer connectedUserId) {
+        return connectionGraph.contains(userId, connectedUserId)
+                || userRepository.countConnections(userId, connectedUserId) > 0;
+    }
+
+    @Override
+    public void deposit(Integer id, BigDecimal amount) {
+        if (amount == null || amount.signum() <= 0) {
+            throw new IllegalArgumentException("Amount must be positive.");
+        }
+        ledgerService.deposit(id, amount);
+        transactionEventBus.publishDepositAfterCommit(id, amount);
     }
 }
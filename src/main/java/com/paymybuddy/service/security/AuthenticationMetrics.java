@@ -0,0 +1,64 @@
+package com.paymybuddy.service.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.EventListener;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.event.AbstractAuthenticationFailureEvent;
+import org.springframework.security.authentication.event.AuthenticationSuccessEvent;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.server.resource.authentication.BearerTokenAuthenticationToken;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.stereotype.Component;
+
+/**
+ * Counts the authentication outcomes published by the authentication managers, as
+ * paymybuddy.authentication tagged with the mechanism (password, jwt), the outcome and, for
+ * failures, the reason taken from the event type. Never tagged with who authenticated.
+ */
+@Component
+@RequiredArgsConstructor
+public class AuthenticationMetrics {
+
+    static final String METER = "paymybuddy.authentication";
+
+    private final MeterRegistry meterRegistry;
+
+    @EventListener
+    public void onSuccess(AuthenticationSuccessEvent event) {
+        count(mechanism(event.getAuthentication()), "success", "none");
+    }
+
+    @EventListener
+    public void onFailure(AbstractAuthenticationFailureEvent event) {
+        count(mechanism(event.getAuthentication()), "failure", reason(event));
+    }
+
+    private void count(String mechanism, String outcome, String reason) {
+        Counter.builder(METER)
+                .tag("mechanism", mechanism)
+                .tag("outcome", outcome)
+                .tag("reason", reason)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private static String mechanism(Authentication authentication) {
+        if (authentication instanceof UsernamePasswordAuthenticationToken) {
+            return "password";
+        }
+        if (authentication instanceof JwtAuthenticationToken || authentication instanceof BearerTokenAuthenticationToken) {
+            return "jwt";
+        }
+        return "other";
+    }
+
+    // AuthenticationFailureBadCredentialsEvent -> bad-credentials: one value per event type
+    private static String reason(AbstractAuthenticationFailureEvent event) {
+        String name = event.getClass().getSimpleName()
+                .replaceFirst("^AuthenticationFailure", "")
+                .replaceFirst("Event$", "");
+        return name.replaceAll("([a-z])([A-Z])", "$1-$2").toLowerCase();
+    }
+}
@@ -0,0 +1,152 @@
+package com.paymybuddy.service.security;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.authentication.AuthenticationServiceException;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * BCrypt on a dedicated, bounded pool, so that a login storm queues on a few hashing threads
+ * instead of holding every request thread. Once the queue is full, callers are turned away
+ * at once with a PasswordHashingRejectedException.
+ * Hashes made with a lower cost than the current strength are reported by upgradeEncoding,
+ * which makes Spring Security rehash them on the next successful login. Higher costs are kept:
+ * nodes configured differently must not rehash the same users back and forth.
+ */
+@Slf4j
+public class BoundedBCryptPasswordEncoder implements PasswordEncoder {
+
+    // Calibration never goes below the BCryptPasswordEncoder default
+    static final int MIN_CALIBRATED_STRENGTH = 10;
+    static final int MAX_CALIBRATED_STRENGTH = 16;
+
+    private static final Pattern BCRYPT_HASH = Pattern.compile("\\A\\$2[aby]?\\$(\\d\\d)\\$[./0-9A-Za-z]{53}");
+
+    private final BCryptPasswordEncoder delegate;
+    private final int strength;
+    private final ThreadPoolExecutor executor;
+    private final AtomicLong rejected = new AtomicLong();
+
+    public BoundedBCryptPasswordEncoder(int strength, int threads, int queueCapacity) {
+        this.delegate = new BCryptPasswordEncoder(strength);
+        this.strength = strength;
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "bcrypt-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Finds the highest strength whose hash still takes at most the target on this machine.
+     * Each step doubles the work, so the search stops once twice the last time exceeds the target.
+     */
+    public static int calibrate(Duration target) {
+        long targetNanos = target.toNanos();
+        int strength = MIN_CALIBRATED_STRENGTH;
+        // The first run pays for class loading and JIT, the second one is measured
+        timeHash(strength);
+        long elapsed = timeHash(strength);
+        while (strength < MAX_CALIBRATED_STRENGTH && elapsed * 2 <= targetNanos) {
+            strength++;
+            elapsed = timeHash(strength);
+        }
+        log.info("BCrypt strength calibrated to {} ({} ms per hash, target {} ms)",
+                strength, TimeUnit.NANOSECONDS.toMillis(elapsed), target.toMillis());
+        return strength;
+    }
+
+    /**
+     * @return true when the value looks like a BCrypt hash rather than a raw password
+     */
+    public static boolean isBCryptHash(String value) {
+        return value != null && BCRYPT_HASH.matcher(value).matches();
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return execute(() -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return execute(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        if (encodedPassword == null) {
+            return false;
+        }
+        Matcher matcher = BCRYPT_HASH.matcher(encodedPassword);
+        return matcher.matches() && Integer.parseInt(matcher.group(1)) < strength;
+    }
+
+    public int getStrength() {
+        return strength;
+    }
+
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    <T> T execute(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(task);
+        } catch (RejectedExecutionException exception) {
+            rejected.incrementAndGet();
+            throw new PasswordHashingRejectedException("Too many password checks in progress, please retry shortly.");
+        }
+        try {
+            return future.get();
+        } catch (InterruptedException exception) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new AuthenticationServiceException("Interrupted while checking the password.", exception);
+        } catch (ExecutionException exception) {
+            if (exception.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new AuthenticationServiceException("Password hashing failed.", exception.getCause());
+        }
+    }
+
+    private static long timeHash(int strength) {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(strength);
+        long start = System.nanoTime();
+        encoder.encode("calibration");
+        return System.nanoTime() - start;
+    }
+}
@@ -0,0 +1,178 @@
+package com.paymybuddy.service.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.paymybuddy.event.UserChangedEvent;
+import com.paymybuddy.event.UserDeletedEvent;
+import com.paymybuddy.model.dto.UserSummaryDTO;
+import com.paymybuddy.service.PrincipalCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.CredentialsContainer;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Remembers recently verified HTTP Basic credentials so that an integration calling the API
+ * in a loop pays for BCrypt once per ttl instead of once per request.
+ * Entries are keyed by an HMAC of (username, password) under a key drawn at startup and never
+ * stored, so neither the password nor anything that can be brute-forced offline is kept.
+ * A user's entries are dropped once a save or delete of that user commits, found through an index
+ * of cache keys by user id. Failed attempts are never cached.
+ */
+@Component
+@ConditionalOnProperty(name = "paymybuddy.security.basic-auth-cache.enabled", havingValue = "true")
+public class CachingAuthenticationProvider implements AuthenticationProvider {
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    private final DaoAuthenticationProvider delegate;
+    private final PrincipalCache principalCache;
+    private final SecretKeySpec key;
+    private final Cache<String, VerifiedCredential> credentials;
+    // Sets are only changed inside compute calls on their user, so they never miss a key being added
+    private final Map<Integer, Set<String>> keysByUser = new ConcurrentHashMap<>();
+    // Bumped by every invalidation, so a check that raced with one is not cached
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public CachingAuthenticationProvider(UserDetailsServiceImpl userDetailsService,
+                                         PasswordEncoder passwordEncoder,
+                                         PrincipalCache principalCache,
+                                         @Value("${paymybuddy.security.basic-auth-cache.ttl:60s}") Duration ttl,
+                                         @Value("${paymybuddy.security.basic-auth-cache.max-size:10000}") long maxSize) {
+        this.delegate = new DaoAuthenticationProvider(userDetailsService);
+        this.delegate.setPasswordEncoder(passwordEncoder);
+        this.delegate.setUserDetailsPasswordService(userDetailsService);
+        this.principalCache = principalCache;
+        byte[] secret = new byte[32];
+        new SecureRandom().nextBytes(secret);
+        this.key = new SecretKeySpec(secret, HMAC_ALGORITHM);
+        this.credentials = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maxSize)
+                .<String, VerifiedCredential>evictionListener((cacheKey, credential, cause) -> {
+                    if (credential != null) {
+                        keysByUser.computeIfPresent(credential.userId(), (id, keys) -> {
+                            keys.remove(cacheKey);
+                            return keys.isEmpty() ? null : keys;
+                        });
+                    }
+                })
+                .recordStats()
+                .build();
+    }
+
+    @Override
+    public Authentication authenticate(Authentication authentication) throws AuthenticationException {
+        String username = authentication.getName();
+        Object password = authentication.getCredentials();
+        if (username == null || password == null) {
+            return delegate.authenticate(authentication);
+        }
+
+        String cacheKey = hmac(username, password.toString());
+        VerifiedCredential cached = credentials.getIfPresent(cacheKey);
+        if (cached != null) {
+            return toAuthentication(cached.principal(), authentication);
+        }
+
+        long generation = invalidations.get();
+        Authentication result = delegate.authenticate(authentication);
+        UserDetails principal = (UserDetails) result.getPrincipal();
+        if (principal instanceof CredentialsContainer container) {
+            container.eraseCredentials();
+        }
+        Integer userId = principalCache.getByEmail(principal.getUsername()).map(UserSummaryDTO::getId).orElse(null);
+        if (userId != null && invalidations.get() == generation) {
+            keysByUser.compute(userId, (id, keys) -> {
+                Set<String> updated = keys != null ? keys : new HashSet<>();
+                updated.add(cacheKey);
+                return updated;
+            });
+            credentials.put(cacheKey, new VerifiedCredential(userId, principal));
+            // An invalidation between the check and the put may have missed the entry
+            if (invalidations.get() != generation) {
+                credentials.invalidate(cacheKey);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public boolean supports(Class<?> authentication) {
+        return UsernamePasswordAuthenticationToken.class.isAssignableFrom(authentication);
+    }
+
+    /**
+     * @return Hit, miss and eviction counts since startup
+     */
+    public CacheStats stats() {
+        return credentials.stats();
+    }
+
+    public long size() {
+        return credentials.estimatedSize();
+    }
+
+    public void invalidate(Integer userId) {
+        invalidations.incrementAndGet();
+        Set<String> keys = keysByUser.remove(userId);
+        if (keys != null) {
+            credentials.invalidateAll(keys);
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        invalidate(event.userId());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onUserDeleted(UserDeletedEvent event) {
+        invalidate(event.userId());
+    }
+
+    private Authentication toAuthentication(UserDetails principal, Authentication request) {
+        UsernamePasswordAuthenticationToken result =
+                UsernamePasswordAuthenticationToken.authenticated(principal, null, principal.getAuthorities());
+        result.setDetails(request.getDetails());
+        return result;
+    }
+
+    private String hmac(String username, String password) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(key);
+            mac.update(username.getBytes(StandardCharsets.UTF_8));
+            mac.update((byte) 0);
+            return Base64.getEncoder().encodeToString(mac.doFinal(password.getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException exception) {
+            throw new IllegalStateException("HmacSHA256 is not available", exception);
+        }
+    }
+
+    private record VerifiedCredential(Integer userId, UserDetails principal) {
+    }
+}
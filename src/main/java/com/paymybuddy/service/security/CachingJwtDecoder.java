@@ -0,0 +1,124 @@
+package com.paymybuddy.service.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.security.oauth2.core.OAuth2TokenValidator;
+import org.springframework.security.oauth2.core.OAuth2TokenValidatorResult;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.security.oauth2.jwt.JwtValidationException;
+import org.springframework.security.oauth2.jwt.JwtValidators;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Keeps the Jwt produced by the delegate for tokens it has already verified, so a client
+ * replaying the same bearer token skips the JSON parsing and the MAC check.
+ * Entries are keyed by the SHA-256 of the token and live until the token's exp (capped by maxTtl).
+ * A cached Jwt is validated again on every hit with the same validators as the Nimbus decoder,
+ * so an expired or not-yet-valid token is rejected exactly as if it had been decoded.
+ * Tokens the delegate rejects are never cached.
+ */
+public class CachingJwtDecoder implements JwtDecoder {
+
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+
+    private final JwtDecoder delegate;
+    private final OAuth2TokenValidator<Jwt> validator;
+    private final Cache<String, Jwt> tokens;
+
+    public CachingJwtDecoder(JwtDecoder delegate, long maxSize, Duration maxTtl) {
+        this(delegate, JwtValidators.createDefault(), maxSize, maxTtl, Clock.systemUTC());
+    }
+
+    CachingJwtDecoder(JwtDecoder delegate, OAuth2TokenValidator<Jwt> validator,
+                      long maxSize, Duration maxTtl, Clock clock) {
+        this.delegate = delegate;
+        this.validator = validator;
+        this.tokens = Caffeine.newBuilder()
+                .expireAfter(new UntilExpiry(maxTtl, clock))
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+    }
+
+    @Override
+    public Jwt decode(String token) throws JwtException {
+        if (token == null) {
+            return delegate.decode(null);
+        }
+
+        String key = digest(token);
+        Jwt cached = tokens.getIfPresent(key);
+        if (cached != null && cached.getTokenValue().equals(token)) {
+            OAuth2TokenValidatorResult result = validator.validate(cached);
+            if (result.hasErrors()) {
+                tokens.invalidate(key);
+                throw new JwtValidationException("Unable to validate Jwt", result.getErrors());
+            }
+            return cached;
+        }
+
+        Jwt jwt = delegate.decode(token);
+        tokens.put(key, jwt);
+        return jwt;
+    }
+
+    /**
+     * @return Hit, miss and eviction counts since startup
+     */
+    public CacheStats stats() {
+        return tokens.stats();
+    }
+
+    public long size() {
+        return tokens.estimatedSize();
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance(DIGEST_ALGORITHM).digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException exception) {
+            throw new IllegalStateException("SHA-256 is not available", exception);
+        }
+    }
+
+    /**
+     * Expires an entry when its token does, or after maxTtl for tokens without an exp claim
+     */
+    private record UntilExpiry(Duration maxTtl, Clock clock) implements Expiry<String, Jwt> {
+
+        @Override
+        public long expireAfterCreate(String key, Jwt jwt, long currentTime) {
+            Duration ttl = maxTtl;
+            Instant expiresAt = jwt.getExpiresAt();
+            if (expiresAt != null) {
+                Duration remaining = Duration.between(clock.instant(), expiresAt);
+                if (remaining.compareTo(ttl) < 0) {
+                    ttl = remaining.isNegative() ? Duration.ZERO : remaining;
+                }
+            }
+            return ttl.toNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Jwt jwt, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, jwt, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, Jwt jwt, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
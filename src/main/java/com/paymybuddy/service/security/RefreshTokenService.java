@@ -0,0 +1,12 @@
+package com.paymybuddy.service.security;
+
+import com.paymybuddy.model.dto.TokenResponseDTO;
+
+public interface RefreshTokenService {
+
+    TokenResponseDTO issueTokens(Integer userId, String subject);
+
+    TokenResponseDTO refresh(String refreshToken);
+
+    void revokeAll(Integer userId);
+}
@@ -0,0 +1,126 @@
+package com.paymybuddy.service.security;
+
+import com.paymybuddy.event.UserChangedEvent;
+import com.paymybuddy.model.RefreshToken;
+import com.paymybuddy.model.dto.TokenResponseDTO;
+import com.paymybuddy.repository.RefreshTokenRepository;
+import com.paymybuddy.repository.UserRepository;
+import jakarta.transaction.Transactional;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Long-lived refresh tokens exchanged for access tokens without checking the password again.
+ * A refresh token is 32 random bytes; only its SHA-256 is stored. Each one is single use:
+ * refreshing deletes it and hands out a new one, so a replayed token is rejected.
+ * Expired rows are never read as valid and are purged lazily, at most once per purge interval,
+ * by the request that issues the next token. Tokens of a user are revoked when the user is
+ * saved (the password may have changed) and removed with the user by the foreign key.
+ */
+@Service
+@Transactional
+public class RefreshTokenServiceImpl implements RefreshTokenService {
+
+    private static final int TOKEN_BYTES = 32;
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final UserRepository userRepository;
+    private final TokenService tokenService;
+    private final Duration ttl;
+    private final long purgeIntervalMillis;
+    private final SecureRandom random = new SecureRandom();
+    private final AtomicLong lastPurge = new AtomicLong();
+
+    public RefreshTokenServiceImpl(RefreshTokenRepository refreshTokenRepository,
+                                   UserRepository userRepository,
+                                   TokenService tokenService,
+                                   @Value("${paymybuddy.security.refresh-token.ttl:30d}") Duration ttl,
+                                   @Value("${paymybuddy.security.refresh-token.purge-interval:10m}") Duration purgeInterval) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.userRepository = userRepository;
+        this.tokenService = tokenService;
+        this.ttl = ttl;
+        this.purgeIntervalMillis = purgeInterval.toMillis();
+    }
+
+    /**
+     * Issues an access token and a new refresh token for an already authenticated user
+     * @param userId The id of the user
+     * @param subject The email of the user, the subject of the access token
+     * @return Both tokens
+     */
+    @Override
+    public TokenResponseDTO issueTokens(Integer userId, String subject) {
+        Instant now = Instant.now();
+        purgeExpired(now);
+
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        String refreshToken = ENCODER.encodeToString(bytes);
+        refreshTokenRepository.insert(hash(refreshToken), userId, now.plus(ttl));
+
+        return new TokenResponseDTO(tokenService.generateToken(subject), refreshToken,
+                TokenService.ACCESS_TOKEN_TTL.toSeconds());
+    }
+
+    /**
+     * Exchanges a refresh token for a new access token and a new refresh token
+     * @param refreshToken The refresh token, unusable afterwards
+     * @return Both new tokens
+     * @throws SecurityException If the token is unknown, expired or already used
+     */
+    @Override
+    public TokenResponseDTO refresh(String refreshToken) {
+        String tokenHash = hash(refreshToken);
+        RefreshToken stored = refreshTokenRepository.findById(tokenHash)
+                .filter(token -> token.getExpiresAt().isAfter(Instant.now()))
+                .orElseThrow(() -> new SecurityException("Invalid or expired refresh token."));
+        if (refreshTokenRepository.deleteByTokenHash(tokenHash) == 0) {
+            throw new SecurityException("Invalid or expired refresh token.");
+        }
+
+        String subject = userRepository.findEmailById(stored.getUserId())
+                .orElseThrow(() -> new SecurityException("Invalid or expired refresh token."));
+        return issueTokens(stored.getUserId(), subject);
+    }
+
+    @Override
+    public void revokeAll(Integer userId) {
+        refreshTokenRepository.deleteByUserId(userId);
+    }
+
+    // The user's transaction has committed, so the delete needs one of its own
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    @Transactional(Transactional.TxType.REQUIRES_NEW)
+    public void onUserChanged(UserChangedEvent event) {
+        revokeAll(event.userId());
+    }
+
+    private void purgeExpired(Instant now) {
+        long last = lastPurge.get();
+        if (now.toEpochMilli() - last >= purgeIntervalMillis && lastPurge.compareAndSet(last, now.toEpochMilli())) {
+            refreshTokenRepository.deleteExpired(now);
+        }
+    }
+
+    private static String hash(String refreshToken) {
+        try {
+            return ENCODER.encodeToString(MessageDigest.getInstance("SHA-256")
+                    .digest(refreshToken.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException exception) {
+            throw new IllegalStateException("SHA-256 is not available", exception);
+        }
+    }
+}
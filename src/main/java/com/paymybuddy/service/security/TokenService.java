@@ -2,7 +2,13 @@ package com.paymybuddy.service.security;
 
 import org.springframework.security.core.Authentication;
 
+import java.time.Duration;
+
 public interface TokenService {
 
+    Duration ACCESS_TOKEN_TTL = Duration.ofMinutes(1);
+
     String generateToken(Authentication authentication);
+
+    String generateToken(String subject);
 }
@@ -1,23 +1,30 @@
 package com.paymybuddy.service.security;
 
-import com.paymybuddy.model.User;
+import com.paymybuddy.event.PasswordRehashedEvent;
+import com.paymybuddy.model.dto.UserSummaryDTO;
 import com.paymybuddy.repository.UserRepository;
+import com.paymybuddy.service.PrincipalCache;
+import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.core.userdetails.User.UserBuilder;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
 @Service
 @RequiredArgsConstructor
-public class UserDetailsServiceImpl implements UserDetailsService {
+public class UserDetailsServiceImpl implements UserDetailsService, UserDetailsPasswordService {
 
+    private final PrincipalCache principalCache;
     private final UserRepository userRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
-        User user = userRepository.findByEmail(email)
+        UserSummaryDTO user = principalCache.getByEmail(email)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found with this email: " + email));
 
         UserBuilder builder = org.springframework.security.core.userdetails.User.withUsername(user.getEmail());
@@ -26,4 +33,22 @@ public class UserDetailsServiceImpl implements UserDetailsService {
 
         return builder.build();
     }
+
+    /**
+     * Called by Spring Security after a successful login whose hash the encoder wants upgraded.
+     * Not a UserChangedEvent: the password is the same, the user's refresh tokens must survive.
+     */
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        UserSummaryDTO summary = principalCache.getByEmail(user.getUsername())
+                .orElseThrow(() -> new UsernameNotFoundException("User not found with this email: " + user.getUsername()));
+
+        userRepository.updatePassword(summary.getId(), newPassword);
+        eventPublisher.publishEvent(new PasswordRehashedEvent(summary.getId(), summary.getEmail()));
+
+        return org.springframework.security.core.userdetails.User.withUserDetails(user)
+                .password(newPassword)
+                .build();
+    }
 }
@@ -1,3 +1,5 @@
+DROP TABLE IF EXISTS REFRESH_TOKEN;
+DROP TABLE IF EXISTS USER_BALANCE_SHARD;
 DROP TABLE IF EXISTS USER;
 DROP TABLE IF EXISTS TRANSACTION;
 DROP TABLE IF EXISTS USER_CONNECTIONS;
@@ -6,18 +8,24 @@ CREATE TABLE USER (
   id INT PRIMARY KEY NOT NULL AUTO_INCREMENT,
   username VARCHAR(50) NOT NULL,
   email VARCHAR(100) NOT NULL UNIQUE,
-  password VARCHAR(100) NOT NULL
+  password VARCHAR(100) NOT NULL,
+  balance DECIMAL(15, 2) NOT NULL DEFAULT 0,
+
+  CHECK (balance >= 0)
 );
 
 CREATE TABLE TRANSACTION (
-  id INT PRIMARY KEY AUTO_INCREMENT,
+  id INT PRIMARY KEY NOT NULL AUTO_INCREMENT,
   sender_id INT NOT NULL,
   receiver_id INT NOT NULL,
   description VARCHAR(255),
   amount DECIMAL(10, 2),
+  idempotency_key VARCHAR(64),
 
   FOREIGN KEY (sender_id) REFERENCES USER(id) ON DELETE CASCADE,
-  FOREIGN KEY (receiver_id) REFERENCES USER(id) ON DELETE CASCADE
+  FOREIGN KEY (receiver_id) REFERENCES USER(id) ON DELETE CASCADE,
+  -- Durable guard against replayed requests once the in-memory idempotency store has forgotten them
+  UNIQUE (sender_id, idempotency_key)
 );
 
 CREATE TABLE USER_CONNECTIONS (
@@ -28,3 +36,27 @@ CREATE TABLE USER_CONNECTIONS (
   FOREIGN KEY (user_id) REFERENCES USER(id),
   FOREIGN KEY (connected_user_id) REFERENCES USER(id)
 );
+
+-- Extra sub-balances of hot accounts: a user's balance is its USER row plus its shards
+CREATE TABLE USER_BALANCE_SHARD (
+  user_id INT NOT NULL,
+  sub INT NOT NULL,
+  balance DECIMAL(15, 2) NOT NULL DEFAULT 0,
+
+  PRIMARY KEY (user_id, sub),
+  FOREIGN KEY (user_id) REFERENCES USER(id) ON DELETE CASCADE,
+  CHECK (balance >= 0)
+);
+
+-- Outstanding API refresh tokens, stored as the SHA-256 of the token; each one is single use
+CREATE TABLE REFRESH_TOKEN (
+  token_hash CHAR(43) PRIMARY KEY NOT NULL,
+  user_id INT NOT NULL,
+  expires_at TIMESTAMP NOT NULL,
+
+  FOREIGN KEY (user_id) REFERENCES USER(id) ON DELETE CASCADE
+);
+
+CREATE INDEX idx_transaction_sender ON TRANSACTION (sender_id, id);
+CREATE INDEX idx_transaction_receiver ON TRANSACTION (receiver_id, id);
+CREATE INDEX idx_refresh_token_expiry ON REFRESH_TOKEN (expires_at);
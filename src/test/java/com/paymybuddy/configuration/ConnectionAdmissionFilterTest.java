@@ -0,0 +1,108 @@
+package com.paymybuddy.configuration;
+
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+public class ConnectionAdmissionFilterTest {
+
+    private final ConnectionAdmissionFilter filter =
+            new ConnectionAdmissionFilter(1, Duration.ofMillis(50), List.of("/css/**"));
+
+    @Test
+    @DisplayName("The filter should be created from the pool size once requests run on virtual threads")
+    void givenVirtualThreads_whenContextStarts_thenFilterCreated() {
+        new ApplicationContextRunner()
+                .withInitializer(context -> context.getBeanFactory()
+                        .setConversionService(ApplicationConversionService.getSharedInstance()))
+                .withPropertyValues("spring.threads.virtual.enabled=true", "paymybuddy.admission.permits=3")
+                .withBean(DataSource.class, () -> mock(DataSource.class))
+                .withUserConfiguration(ConnectionAdmissionFilter.class)
+                .run(context -> assertThat(context.getBean(ConnectionAdmissionFilter.class).getMaxPermits()).isEqualTo(3));
+    }
+
+    @Test
+    @DisplayName("A request should be admitted and give its permit back")
+    void givenFreePermit_whenRequest_thenAdmitted() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/home"), response, chain);
+
+        assertThat(chain.getRequest()).isNotNull();
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(filter.getAvailablePermits()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("An async request should keep its permit until it completes")
+    void givenAsyncRequest_whenStarted_thenPermitHeldUntilComplete() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/transactions");
+        request.setAsyncSupported(true);
+        FilterChain asyncChain = (servletRequest, servletResponse) -> servletRequest.startAsync();
+
+        filter.doFilter(request, new MockHttpServletResponse(), asyncChain);
+
+        assertThat(filter.getAvailablePermits()).isZero();
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/home"), rejected, new MockFilterChain());
+        assertThat(rejected.getStatus()).isEqualTo(503);
+
+        request.getAsyncContext().complete();
+
+        assertThat(filter.getAvailablePermits()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("A request should get a 503 when no permit frees up in time, excluded paths still pass")
+    void givenAllPermitsTaken_whenRequest_thenServiceUnavailable() throws Exception {
+        CountDownLatch admitted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        FilterChain blockingChain = (request, response) -> {
+            admitted.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            }
+        };
+        CompletableFuture<Void> first = CompletableFuture.runAsync(() -> {
+            try {
+                filter.doFilter(new MockHttpServletRequest("GET", "/home"), new MockHttpServletResponse(), blockingChain);
+            } catch (Exception exception) {
+                throw new IllegalStateException(exception);
+            }
+        });
+        assertThat(admitted.await(5, TimeUnit.SECONDS)).isTrue();
+
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/home"), rejected, new MockFilterChain());
+        MockHttpServletResponse stylesheet = new MockHttpServletResponse();
+        MockFilterChain stylesheetChain = new MockFilterChain();
+        filter.doFilter(new MockHttpServletRequest("GET", "/css/style.css"), stylesheet, stylesheetChain);
+
+        release.countDown();
+        first.get(5, TimeUnit.SECONDS);
+
+        assertThat(rejected.getStatus()).isEqualTo(503);
+        assertThat(rejected.getHeader("Retry-After")).isEqualTo("1");
+        assertThat(filter.getRejectedCount()).isEqualTo(1);
+        assertThat(stylesheetChain.getRequest()).isNotNull();
+        assertThat(filter.getAvailablePermits()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,114 @@
+package com.paymybuddy.configuration;
+
+import com.github.benmanes.caffeine.cache.Ticker;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Two H2 databases standing for the primary and the replica, each answering with its own name
+ */
+public class ReadWriteRoutingDataSourceTest {
+
+    private static final String WHICH = "SELECT name FROM NODE";
+
+    private final AtomicLong nanos = new AtomicLong();
+    private final Ticker ticker = nanos::get;
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate readWrite;
+    private TransactionTemplate readOnly;
+
+    @BeforeEach
+    public void setUp() {
+        DataSource primary = database("primary");
+        DataSource replica = database("replica");
+        DataSource dataSource = new LazyConnectionDataSourceProxy(
+                new ReadWriteRoutingDataSource(primary, replica, Duration.ofSeconds(2), ticker));
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    private static DataSource database(String name) {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:routing-" + name + ";DB_CLOSE_DELAY=-1");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS NODE (name VARCHAR(16))");
+        jdbcTemplate.execute("DELETE FROM NODE");
+        jdbcTemplate.update("INSERT INTO NODE (name) VALUES (?)", name);
+        return dataSource;
+    }
+
+    private String readOnlyNode() {
+        return readOnly.execute(status -> jdbcTemplate.queryForObject(WHICH, String.class));
+    }
+
+    private String readWriteNode() {
+        return readWrite.execute(status -> jdbcTemplate.queryForObject(WHICH, String.class));
+    }
+
+    private static void login(String username) {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(username, null, List.of()));
+    }
+
+    @Test
+    @DisplayName("Read-only transactions should go to the replica, the rest to the primary")
+    void givenTransactions_whenRouted_thenReadOnlyOnReplica() {
+        assertThat(readOnlyNode()).isEqualTo("replica");
+        assertThat(readWriteNode()).isEqualTo("primary");
+        assertThat(jdbcTemplate.queryForObject(WHICH, String.class)).isEqualTo("primary");
+    }
+
+    @Test
+    @DisplayName("A user should read from the primary for the replica lag after one of their writes commits")
+    void givenCommittedWrite_whenReadingWithinLag_thenPrimary() {
+        login("alice@example.com");
+        readWriteNode();
+
+        assertThat(readOnlyNode()).isEqualTo("primary");
+
+        login("bob@example.com");
+        assertThat(readOnlyNode()).isEqualTo("replica");
+
+        login("alice@example.com");
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(3));
+        assertThat(readOnlyNode()).isEqualTo("replica");
+    }
+
+    @Test
+    @DisplayName("A rolled back write should not keep the user on the primary")
+    void givenRolledBackWrite_whenReading_thenReplica() {
+        login("alice@example.com");
+        readWrite.executeWithoutResult(status -> {
+            jdbcTemplate.queryForObject(WHICH, String.class);
+            status.setRollbackOnly();
+        });
+
+        assertThat(readOnlyNode()).isEqualTo("replica");
+    }
+}
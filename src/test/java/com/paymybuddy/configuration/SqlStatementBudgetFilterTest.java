@@ -0,0 +1,59 @@
+package com.paymybuddy.configuration;
+
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SqlStatementBudgetFilterTest {
+
+    private final SqlStatementBudgetFilter filter = new SqlStatementBudgetFilter(3, 2);
+
+    private final SqlStatementInspector inspector = new SqlStatementInspector();
+
+    @Test
+    @DisplayName("Statements run while a request is handled should be counted per shape")
+    void givenStatementsInRequest_whenFiltered_thenCountedOnRequest() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/home");
+        FilterChain chain = (req, res) -> {
+            inspector.inspect("select u1_0.balance from user u1_0 where u1_0.id=?");
+            for (int id = 1; id <= 4; id++) {
+                inspector.inspect("select u1_0.id,u1_0.username from user u1_0 where u1_0.id=" + id);
+            }
+        };
+
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+        SqlStatementCounter counter = (SqlStatementCounter) request.getAttribute(SqlStatementCounter.ATTRIBUTE);
+        assertThat(counter.getCount()).isEqualTo(5);
+        assertThat(counter.getRepeatedShapes(2))
+                .containsExactly(new SqlStatementCounter.Shape("select u1_0.id,u1_0.username from user u1_0 where u1_0.id=?", 4));
+    }
+
+    @Test
+    @DisplayName("Statements run outside of a request should not be counted")
+    void givenNoRequest_whenStatement_thenNotCounted() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/home");
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> inspector.inspect("select 1"));
+
+        // The counter is gone from the thread once the request is handled
+        inspector.inspect("select 2");
+
+        SqlStatementCounter counter = (SqlStatementCounter) request.getAttribute(SqlStatementCounter.ATTRIBUTE);
+        assertThat(counter.getCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Literals and IN lists should be folded into one shape, other differences kept")
+    void givenStatements_whenShaped_thenLiteralsFolded() {
+        assertThat(SqlStatementCounter.shape("select * from user where email='a@example.com' and id = 42"))
+                .isEqualTo("select * from user where email=? and id = ?");
+        assertThat(SqlStatementCounter.shape("select * from user u1_0 where u1_0.id in (?,?,?)"))
+                .isEqualTo(SqlStatementCounter.shape("select * from user u1_0 where u1_0.id in (?, ?)"));
+        assertThat(SqlStatementCounter.shape("select * from user where id=?"))
+                .isNotEqualTo(SqlStatementCounter.shape("select * from transaction where id=?"));
+    }
+}
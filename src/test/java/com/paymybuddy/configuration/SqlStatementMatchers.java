@@ -0,0 +1,46 @@
+package com.paymybuddy.configuration;
+
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultMatcher;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * MockMvc expectations on the SQL statements a request ran, as counted by SqlStatementBudgetFilter:
+ * mockMvc.perform(get("/home")).andExpect(SqlStatementMatchers.atMost(3)).
+ * Only meaningful where Hibernate runs, that is in @SpringBootTest tests; @WebMvcTest slices mock the services.
+ */
+public final class SqlStatementMatchers {
+
+    private SqlStatementMatchers() {
+    }
+
+    /**
+     * @param max Most statements the request may run
+     */
+    public static ResultMatcher atMost(int max) {
+        return result -> assertThat(counter(result).getCount())
+                .as("SQL statements run by %s", result.getRequest().getRequestURI())
+                .isLessThanOrEqualTo(max);
+    }
+
+    /**
+     * @param threshold Number of runs of one statement shape taken as an N+1
+     */
+    public static ResultMatcher noRepeatedStatements(int threshold) {
+        return result -> {
+            List<SqlStatementCounter.Shape> repeated = counter(result).getRepeatedShapes(threshold);
+            assertThat(repeated)
+                    .as("Statements run %d times or more by %s", threshold, result.getRequest().getRequestURI())
+                    .isEmpty();
+        };
+    }
+
+    public static SqlStatementCounter counter(MvcResult result) {
+        Object counter = result.getRequest().getAttribute(SqlStatementCounter.ATTRIBUTE);
+        assertThat(counter).as("No statement count: is SqlStatementBudgetFilter in the MockMvc filters?").isNotNull();
+        return (SqlStatementCounter) counter;
+    }
+}
@@ -0,0 +1,100 @@
+package com.paymybuddy.controller.api;
+
+import com.paymybuddy.model.dto.TokenResponseDTO;
+import com.paymybuddy.model.dto.UserSummaryDTO;
+import com.paymybuddy.service.UserService;
+import com.paymybuddy.service.security.RefreshTokenService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ExtendWith(MockitoExtension.class)
+class TokenControllerTest {
+
+    @Mock
+    private UserService userService;
+
+    @Mock
+    private RefreshTokenService refreshTokenService;
+
+    @InjectMocks
+    private TokenController tokenController;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.standaloneSetup(tokenController).build();
+    }
+
+    @Test
+    @DisplayName("Get Tokens - Success")
+    void givenAuthenticatedUser_whenGetTokens_thenReturnAccessAndRefreshTokens() throws Exception {
+        Authentication authentication = UsernamePasswordAuthenticationToken.authenticated("test@example.com", null, List.of());
+        given(userService.getUserSummaryByEmail("test@example.com"))
+                .willReturn(Optional.of(new UserSummaryDTO(1, "testuser", "test@example.com", "hash")));
+        given(refreshTokenService.issueTokens(1, "test@example.com"))
+                .willReturn(new TokenResponseDTO("access", "refresh", 60));
+
+        mockMvc.perform(post("/api/token").principal(authentication))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accessToken").value("access"))
+                .andExpect(jsonPath("$.refreshToken").value("refresh"))
+                .andExpect(jsonPath("$.tokenType").value("Bearer"))
+                .andExpect(jsonPath("$.expiresIn").value(60));
+    }
+
+    @Test
+    @DisplayName("Get Tokens - Not a password login")
+    void givenTokenAuthentication_whenGetTokens_thenThrowSecurityException() {
+        Authentication authentication = new TestingAuthenticationToken("test@example.com", null, "ROLE_USER");
+
+        assertThatThrownBy(() -> tokenController.getTokens(authentication)).isInstanceOf(SecurityException.class);
+
+        verifyNoInteractions(userService, refreshTokenService);
+    }
+
+    @Test
+    @DisplayName("Refresh - Success")
+    void givenRefreshToken_whenRefresh_thenReturnNewTokens() throws Exception {
+        given(refreshTokenService.refresh("refresh")).willReturn(new TokenResponseDTO("access2", "refresh2", 60));
+
+        mockMvc.perform(post("/api/token/refresh")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"refreshToken\":\"refresh\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accessToken").value("access2"))
+                .andExpect(jsonPath("$.refreshToken").value("refresh2"));
+    }
+
+    @Test
+    @DisplayName("Refresh - Missing token")
+    void givenNoRefreshToken_whenRefresh_thenReturnBadRequest() throws Exception {
+        mockMvc.perform(post("/api/token/refresh")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{}"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(refreshTokenService);
+    }
+}
@@ -3,23 +3,32 @@ package com.paymybuddy.controller.api;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.paymybuddy.model.Transaction;
 import com.paymybuddy.model.User;
+import com.paymybuddy.model.dto.BatchTransferItemResultDTO;
+import com.paymybuddy.model.dto.BatchTransferResultDTO;
+import com.paymybuddy.model.dto.TransactionPageDTO;
+import com.paymybuddy.repository.TransactionRepository;
+import com.paymybuddy.service.BatchTransferService;
+import com.paymybuddy.service.IdempotencyStore;
 import com.paymybuddy.service.TransactionService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.*;
@@ -33,19 +42,26 @@ public class TransactionControllerTest {
     @Mock
     private TransactionService transactionService;
 
-    @InjectMocks
+    @Mock
+    private BatchTransferService batchTransferService;
+
     private TransactionController transactionController;
 
-    private MockMvc mockMvc;
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper(); // For serialize/deserialize JSON
 
-    private ObjectMapper objectMapper; // For serialize/deserialize JSON
+    @Spy
+    private IdempotencyStore idempotencyStore = new IdempotencyStore(mock(TransactionRepository.class), Duration.ofMinutes(5), 100);
+
+    private MockMvc mockMvc;
 
     private Transaction transaction;
 
     @BeforeEach
     void setUp() {
+        transactionController = new TransactionController(transactionService,
+                batchTransferService, idempotencyStore, objectMapper, Duration.ofMinutes(5));
         mockMvc = MockMvcBuilders.standaloneSetup(transactionController).build();
-        objectMapper = new ObjectMapper();
 
         User user1 = User.builder()
                 .id(1)
@@ -79,6 +95,54 @@ public class TransactionControllerTest {
                 .andExpect(jsonPath("$.description").value("Payment"));
     }
 
+    @Test
+    @DisplayName("Create Transaction - Retried with the same Idempotency-Key")
+    void givenIdempotencyKey_whenCreateTransactionTwice_thenSaveOnce() throws Exception {
+        given(transactionService.saveTransaction(any(Transaction.class))).willReturn(transaction);
+
+        for (int attempt = 0; attempt < 2; attempt++) {
+            mockMvc.perform(post("/api/transactions")
+                            .header(IdempotencyStore.HEADER, "3f1c6d2e")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(transaction)))
+                    .andExpect(status().isCreated())
+                    .andExpect(header().string("Location", "/api/transactions/1"))
+                    .andExpect(jsonPath("$.id").value(1));
+        }
+
+        verify(transactionService, times(1)).saveTransaction(any(Transaction.class));
+    }
+
+    @Test
+    @DisplayName("Create Transactions in batch - Success")
+    void givenBatch_whenCreateTransactions_thenReturnResultPerTransfer() throws Exception {
+        BatchTransferResultDTO result = new BatchTransferResultDTO(1, 1, 0, List.of(
+                new BatchTransferItemResultDTO(0, 2, BatchTransferItemResultDTO.Status.CREATED, 10, null),
+                new BatchTransferItemResultDTO(1, 3, BatchTransferItemResultDTO.Status.REJECTED, null,
+                        "You can only send money to your connections.")));
+        given(batchTransferService.transfer(any())).willReturn(result);
+
+        mockMvc.perform(post("/api/transactions/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"senderId\":1,\"transfers\":[{\"receiverId\":2,\"amount\":5},{\"receiverId\":3,\"amount\":5}]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(1))
+                .andExpect(jsonPath("$.rejected").value(1))
+                .andExpect(jsonPath("$.results[0].transactionId").value(10))
+                .andExpect(jsonPath("$.results[1].status").value("REJECTED"));
+    }
+
+    @Test
+    @DisplayName("Create Transactions in batch - Empty batch")
+    void givenEmptyBatch_whenCreateTransactions_thenReturnBadRequest() throws Exception {
+        mockMvc.perform(post("/api/transactions/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"senderId\":1,\"transfers\":[]}"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(batchTransferService);
+    }
+
     @Test
     @DisplayName("Get All Transactions - Success")
     void givenTransactions_whenGetTransactions_thenReturnTransactionList() {
@@ -90,6 +154,36 @@ public class TransactionControllerTest {
         assertThat(result.getBody()).isEqualTo(List.of(transaction));
     }
 
+    @Test
+    @DisplayName("Stream All Transactions - NDJSON")
+    @SuppressWarnings("unchecked")
+    void givenNdjsonAccept_whenGetTransactions_thenStreamOneTransactionPerLine() throws Exception {
+        Transaction second = Transaction.builder().id(2).description("Refund").amount(BigDecimal.TEN).build();
+        willAnswer(invocation -> {
+            Consumer<Transaction> action = invocation.getArgument(0);
+            action.accept(transaction);
+            action.accept(second);
+            return null;
+        }).given(transactionService).forEachTransaction(any(Consumer.class));
+
+        MvcResult pending = mockMvc.perform(get("/api/transactions").accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        // The export's own timeout, whatever spring.mvc.async.request-timeout is
+        assertThat(pending.getRequest().getAsyncContext().getTimeout()).isEqualTo(Duration.ofMinutes(5).toMillis());
+
+        MvcResult result = mockMvc.perform(asyncDispatch(pending))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn();
+
+        String[] lines = result.getResponse().getContentAsString().split("\n");
+        assertThat(lines).hasSize(2);
+        assertThat(objectMapper.readTree(lines[0]).get("description").asText()).isEqualTo("Payment");
+        assertThat(objectMapper.readTree(lines[1]).get("id").asInt()).isEqualTo(2);
+        verify(transactionService, never()).getTransactions();
+    }
+
     @Test
     @DisplayName("Get Transaction By ID - Success")
     void givenTransactionId_whenGetTransactionById_thenReturnTransaction() throws Exception {
@@ -113,23 +207,52 @@ public class TransactionControllerTest {
     @Test
     @DisplayName("Get Transactions By Sender ID - Success")
     void givenSenderId_whenGetTransactionsBySenderId_thenReturnTransactionList() throws Exception {
-        given(transactionService.getTransactionsBySenderId(1)).willReturn(Collections.singletonList(transaction));
+        given(transactionService.getTransactionsBySenderId(1, null, 20))
+                .willReturn(new TransactionPageDTO(Collections.singletonList(transaction), null));
 
         mockMvc.perform(get("/api/transactions/sender/1"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.length()").value(1))
-                .andExpect(jsonPath("$[0].amount").value(25.5));
+                .andExpect(jsonPath("$[0].amount").value(25.5))
+                .andExpect(header().doesNotExist(TransactionController.NEXT_CURSOR_HEADER));
+    }
+
+    @Test
+    @DisplayName("Get Transactions By Sender ID - Next Page Cursor")
+    void givenMoreTransactions_whenGetTransactionsBySenderId_thenReturnNextCursor() throws Exception {
+        given(transactionService.getTransactionsBySenderId(1, "MTA", 1))
+                .willReturn(new TransactionPageDTO(List.of(transaction), "MQ"));
+
+        mockMvc.perform(get("/api/transactions/sender/1")
+                        .param("cursor", "MTA")
+                        .param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(header().string(TransactionController.NEXT_CURSOR_HEADER, "MQ"));
     }
 
     @Test
     @DisplayName("Get Transactions By Sender ID - Not Found")
     void testGetTransactionsBySenderIdEmpty() throws Exception {
-        given(transactionService.getTransactionsBySenderId(1)).willReturn(List.of());
+        given(transactionService.getTransactionsBySenderId(1, null, 20))
+                .willReturn(new TransactionPageDTO(List.of(), null));
 
         mockMvc.perform(get("/api/transactions/sender/1"))
                 .andExpect(status().isNoContent());
     }
 
+    @Test
+    @DisplayName("Get Transactions By Receiver ID - Success")
+    void givenReceiverId_whenGetTransactionsByReceiverId_thenReturnTransactionList() throws Exception {
+        given(transactionService.getTransactionsByReceiverId(2, null, 20))
+                .willReturn(new TransactionPageDTO(List.of(transaction), null));
+
+        mockMvc.perform(get("/api/transactions/receiver/2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].description").value("Payment"));
+    }
+
     @Test
     @DisplayName("Update Transaction - Success")
     void givenUpdatedTransaction_whenUpdateTransaction_thenReturnUpdatedTransaction() throws Exception {
@@ -140,8 +263,7 @@ public class TransactionControllerTest {
                 .amount(BigDecimal.valueOf(100.0))
                 .build();
 
-        given(transactionService.getTransactionById(1)).willReturn(Optional.of(transaction));
-        given(transactionService.saveTransaction(any(Transaction.class))).willReturn(transaction1);
+        given(transactionService.updateTransaction(eq(1), any(Transaction.class))).willReturn(Optional.of(transaction1));
 
         mockMvc.perform(put("/api/transactions/1")
                         .contentType(MediaType.APPLICATION_JSON)
@@ -157,7 +279,7 @@ public class TransactionControllerTest {
                 .amount(BigDecimal.valueOf(100.0))
                 .build();
 
-        given(transactionService.getTransactionById(anyInt())).willReturn(Optional.empty());
+        given(transactionService.updateTransaction(anyInt(), any(Transaction.class))).willReturn(Optional.empty());
 
         mockMvc.perform(put("/api/transactions/1")
                         .contentType(MediaType.APPLICATION_JSON)
@@ -14,6 +14,7 @@ import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
+import java.math.BigDecimal;
 import java.util.List;
 import java.util.Optional;
 
@@ -137,6 +138,15 @@ public class UserControllerTest {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    @DisplayName("Deposit - Success")
+    void givenAmount_whenDeposit_thenReturnNoContent() throws Exception {
+        mockMvc.perform(post("/api/users/1/deposit").param("amount", "50.00"))
+                .andExpect(status().isNoContent());
+
+        verify(userService, times(1)).deposit(1, new BigDecimal("50.00"));
+    }
+
     @Test
     @DisplayName("Delete User - Success")
     void givenUserId_whenDeleteUser_thenReturnOk() throws Exception {
@@ -1,9 +1,12 @@
 package com.paymybuddy.controller.web;
 
-import com.paymybuddy.model.User;
+import com.paymybuddy.model.dto.ConnectionSuggestionDTO;
+import com.paymybuddy.model.dto.UserSummaryDTO;
+import com.paymybuddy.service.ConnectionSuggestionService;
 import com.paymybuddy.service.UserService;
 import com.paymybuddy.configuration.SpringSecurityConfig;
 import com.paymybuddy.service.security.UserDetailsServiceImpl;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
@@ -16,8 +19,10 @@ import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.util.List;
 import java.util.Optional;
 
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.verify;
@@ -35,6 +40,15 @@ class ConnectionControllerTest {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private ConnectionSuggestionService connectionSuggestionService;
+
+    // The mocks outlive each test with the cached context, stubs must not leak into the next one
+    @AfterEach
+    void resetMocks() {
+        Mockito.reset(userService, connectionSuggestionService);
+    }
+
     @TestConfiguration
     static class MvcTestConfig {
         @Bean
@@ -42,6 +56,10 @@ class ConnectionControllerTest {
             return Mockito.mock(UserService.class);
         }
         @Bean
+        ConnectionSuggestionService connectionSuggestionService() {
+            return Mockito.mock(ConnectionSuggestionService.class);
+        }
+        @Bean
         UserDetailsServiceImpl userDetailsServiceImpl() {
             return Mockito.mock(UserDetailsServiceImpl.class);
         }
@@ -58,11 +76,27 @@ class ConnectionControllerTest {
                 .andExpect(model().attribute("addConnection", notNullValue()));
     }
 
+    @Test
+    @WithMockUser(username = "me@example.com")
+    @DisplayName("GET /add-relation should list people the user may know")
+    void getAddRelation_shouldRenderSuggestions() throws Exception {
+        UserSummaryDTO me = new UserSummaryDTO(1, "me", "me@example.com", null);
+        Mockito.when(userService.getUserSummaryByEmail("me@example.com")).thenReturn(Optional.of(me));
+        Mockito.when(connectionSuggestionService.getSuggestions(1))
+                .thenReturn(List.of(new ConnectionSuggestionDTO(7, "alice", "alice@example.com", 3)));
+
+        mockMvc.perform(get("/add-relation"))
+                .andExpect(status().isOk())
+                .andExpect(model().attributeExists("suggestions"))
+                .andExpect(content().string(containsString("alice")))
+                .andExpect(content().string(containsString("3 mutual connections")));
+    }
+
     @Test
     @WithMockUser(username = "me@example.com")
     @DisplayName("POST /add-relation should redirect with error when current user not found")
     void postAddRelation_currentUserMissing() throws Exception {
-        Mockito.when(userService.getUserByEmail("me@example.com")).thenReturn(Optional.empty());
+        Mockito.when(userService.getUserSummaryByEmail("me@example.com")).thenReturn(Optional.empty());
 
         mockMvc.perform(post("/add-relation")
                         .with(SecurityMockMvcRequestPostProcessors.csrf())
@@ -76,12 +110,10 @@ class ConnectionControllerTest {
     @WithMockUser(username = "me@example.com")
     @DisplayName("POST /add-relation should reject when target user not found")
     void postAddRelation_targetMissing() throws Exception {
-        User me = new User();
-        me.setId(1);
-        me.setEmail("me@example.com");
+        UserSummaryDTO me = new UserSummaryDTO(1, null, "me@example.com", null);
 
-        Mockito.when(userService.getUserByEmail("me@example.com")).thenReturn(Optional.of(me));
-        Mockito.when(userService.getUserByEmail("unknown@example.com")).thenReturn(Optional.empty());
+        Mockito.when(userService.getUserSummaryByEmail("me@example.com")).thenReturn(Optional.of(me));
+        Mockito.when(userService.getUserSummaryByEmail("unknown@example.com")).thenReturn(Optional.empty());
 
         mockMvc.perform(post("/add-relation")
                         .with(SecurityMockMvcRequestPostProcessors.csrf())
@@ -96,12 +128,10 @@ class ConnectionControllerTest {
     @WithMockUser(username = "me@example.com")
     @DisplayName("POST /add-relation should reject when adding self")
     void postAddRelation_selfAdd() throws Exception {
-        User me = new User();
-        me.setId(1);
-        me.setEmail("me@example.com");
+        UserSummaryDTO me = new UserSummaryDTO(1, null, "me@example.com", null);
 
-        Mockito.when(userService.getUserByEmail("me@example.com")).thenReturn(Optional.of(me));
-        Mockito.when(userService.getUserByEmail("me@example.com")).thenReturn(Optional.of(me));
+        Mockito.when(userService.getUserSummaryByEmail("me@example.com")).thenReturn(Optional.of(me));
+        Mockito.when(userService.getUserSummaryByEmail("me@example.com")).thenReturn(Optional.of(me));
 
         mockMvc.perform(post("/add-relation")
                         .with(SecurityMockMvcRequestPostProcessors.csrf())
@@ -116,18 +146,13 @@ class ConnectionControllerTest {
     @WithMockUser(username = "me@example.com")
     @DisplayName("POST /add-relation should reject when connection already exists")
     void postAddRelation_alreadyConnected() throws Exception {
-        User me = new User();
-        me.setId(1);
-        me.setEmail("me@example.com");
-
-        User target = new User();
-        target.setId(2);
-        target.setEmail("friend@example.com");
+        UserSummaryDTO me = new UserSummaryDTO(1, null, "me@example.com", null);
 
-        me.getConnections().add(target);
+        UserSummaryDTO target = new UserSummaryDTO(2, null, "friend@example.com", null);
 
-        Mockito.when(userService.getUserByEmail("me@example.com")).thenReturn(Optional.of(me));
-        Mockito.when(userService.getUserByEmail("friend@example.com")).thenReturn(Optional.of(target));
+        Mockito.when(userService.getUserSummaryByEmail("me@example.com")).thenReturn(Optional.of(me));
+        Mockito.when(userService.getUserSummaryByEmail("friend@example.com")).thenReturn(Optional.of(target));
+        Mockito.when(userService.areConnected(1, 2)).thenReturn(true);
 
         mockMvc.perform(post("/add-relation")
                         .with(SecurityMockMvcRequestPostProcessors.csrf())
@@ -142,16 +167,12 @@ class ConnectionControllerTest {
     @WithMockUser(username = "me@example.com")
     @DisplayName("POST /add-relation should connect users and flash success")
     void postAddRelation_success() throws Exception {
-        User me = new User();
-        me.setId(1);
-        me.setEmail("me@example.com");
+        UserSummaryDTO me = new UserSummaryDTO(1, null, "me@example.com", null);
 
-        User target = new User();
-        target.setId(2);
-        target.setEmail("friend@example.com");
+        UserSummaryDTO target = new UserSummaryDTO(2, null, "friend@example.com", null);
 
-        Mockito.when(userService.getUserByEmail("me@example.com")).thenReturn(Optional.of(me));
-        Mockito.when(userService.getUserByEmail("friend@example.com")).thenReturn(Optional.of(target));
+        Mockito.when(userService.getUserSummaryByEmail("me@example.com")).thenReturn(Optional.of(me));
+        Mockito.when(userService.getUserSummaryByEmail("friend@example.com")).thenReturn(Optional.of(target));
 
         mockMvc.perform(post("/add-relation")
                         .with(SecurityMockMvcRequestPostProcessors.csrf())
@@ -167,16 +188,12 @@ class ConnectionControllerTest {
     @WithMockUser(username = "me@example.com")
     @DisplayName("POST /add-relation should flash error when service throws")
     void postAddRelation_serviceThrows() throws Exception {
-        User me = new User();
-        me.setId(1);
-        me.setEmail("me@example.com");
+        UserSummaryDTO me = new UserSummaryDTO(1, null, "me@example.com", null);
 
-        User target = new User();
-        target.setId(2);
-        target.setEmail("friend@example.com");
+        UserSummaryDTO target = new UserSummaryDTO(2, null, "friend@example.com", null);
 
-        Mockito.when(userService.getUserByEmail("me@example.com")).thenReturn(Optional.of(me));
-        Mockito.when(userService.getUserByEmail("friend@example.com")).thenReturn(Optional.of(target));
+        Mockito.when(userService.getUserSummaryByEmail("me@example.com")).thenReturn(Optional.of(me));
+        Mockito.when(userService.getUserSummaryByEmail("friend@example.com")).thenReturn(Optional.of(target));
         Mockito.doThrow(new RuntimeException("boom")).when(userService).connectUsers(Mockito.anyInt(), Mockito.anyInt());
 
         mockMvc.perform(post("/add-relation")
@@ -1,7 +1,9 @@
 package com.paymybuddy.controller.web;
 
-import com.paymybuddy.model.Transaction;
-import com.paymybuddy.model.User;
+import com.paymybuddy.model.dto.ConnectionDTO;
+import com.paymybuddy.model.dto.TransactionHistoryDTO;
+import com.paymybuddy.model.dto.UserSummaryDTO;
+import com.paymybuddy.service.TransactionFeedHub;
 import com.paymybuddy.service.TransactionService;
 import com.paymybuddy.service.UserService;
 import com.paymybuddy.configuration.SpringSecurityConfig;
@@ -17,10 +19,12 @@ import org.springframework.context.annotation.Import;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.math.BigDecimal;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.is;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
@@ -39,6 +43,9 @@ class PageControllerTest {
     @Autowired
     private TransactionService transactionService;
 
+    @Autowired
+    private TransactionFeedHub transactionFeedHub;
+
     @TestConfiguration
     static class MvcTestConfig {
         @Bean
@@ -50,6 +57,10 @@ class PageControllerTest {
             return Mockito.mock(TransactionService.class);
         }
         @Bean
+        TransactionFeedHub transactionFeedHub() {
+            return Mockito.mock(TransactionFeedHub.class);
+        }
+        @Bean
         UserDetailsServiceImpl userDetailsServiceImpl() {
             return Mockito.mock(UserDetailsServiceImpl.class);
         }
@@ -67,31 +78,36 @@ class PageControllerTest {
     @WithMockUser(username = "alice@example.com")
     @DisplayName("GET /home should render home with user data when user exists")
     void homePage_shouldRenderHomeWithUserData() throws Exception {
-        User user = new User();
-        user.setId(1);
-        user.setEmail("alice@example.com");
-        user.setUsername("alice");
+        UserSummaryDTO user = new UserSummaryDTO(1, "alice", "alice@example.com", null);
 
-        List<Transaction> txs = Collections.emptyList();
+        List<TransactionHistoryDTO> txs = List.of(new TransactionHistoryDTO(5, "bob", "Lunch", new BigDecimal("12.50")));
 
-        Mockito.when(userService.getUserByEmail("alice@example.com")).thenReturn(Optional.of(user));
-        Mockito.when(transactionService.getTransactionsBySenderId(1)).thenReturn(txs);
+        Mockito.when(userService.getUserSummaryByEmail("alice@example.com")).thenReturn(Optional.of(user));
+        Mockito.when(userService.getBalance(1)).thenReturn(Optional.of(new BigDecimal("80.00")));
+        Mockito.when(userService.getConnections(1)).thenReturn(List.of(new ConnectionDTO(2, "bob", "bob@example.com")));
+        Mockito.when(transactionService.getTransactionHistoryBySenderId(1)).thenReturn(txs);
+        Mockito.when(transactionFeedHub.currentSequence()).thenReturn(41L);
 
         mockMvc.perform(get("/home"))
                 .andExpect(status().isOk())
                 .andExpect(view().name("home"))
                 .andExpect(model().attribute("username", is("alice@example.com")))
+                .andExpect(model().attribute("balance", is(new BigDecimal("80.00"))))
                 .andExpect(model().attributeExists("connections"))
                 .andExpect(model().attributeExists("transactions"))
-                .andExpect(model().attributeExists("transfer"));
+                .andExpect(model().attributeExists("transfer"))
+                .andExpect(content().string(containsString("bob (bob@example.com)")))
+                .andExpect(content().string(containsString("Lunch")))
+                .andExpect(content().string(containsString("data-transaction-id=\"5\"")))
+                .andExpect(content().string(containsString("data-feed-url=\"/home/feed?since=41\"")));
     }
 
     @Test
     @WithMockUser(username = "bob@example.com")
     @DisplayName("GET /home should render empty lists when user not found")
     void homePage_shouldRenderEmptyWhenUserNotFound() throws Exception {
-        Mockito.when(userService.getUserByEmail("bob@example.com")).thenReturn(Optional.empty());
-        Mockito.when(transactionService.getTransactionsBySenderId(Mockito.anyInt())).thenReturn(Collections.emptyList());
+        Mockito.when(userService.getUserSummaryByEmail("bob@example.com")).thenReturn(Optional.empty());
+        Mockito.when(transactionService.getTransactionHistoryBySenderId(Mockito.anyInt())).thenReturn(Collections.emptyList());
 
         mockMvc.perform(get("/home"))
                 .andExpect(status().isOk())
@@ -106,12 +122,9 @@ class PageControllerTest {
     @WithMockUser(username = "charlie@example.com")
     @DisplayName("GET /profile should render profile with user in model")
     void profilePage_shouldRenderProfile() throws Exception {
-        User user = new User();
-        user.setId(7);
-        user.setEmail("charlie@example.com");
-        user.setUsername("charlie");
+        UserSummaryDTO user = new UserSummaryDTO(7, "charlie", "charlie@example.com", null);
 
-        Mockito.when(userService.getUserByEmail("charlie@example.com")).thenReturn(Optional.of(user));
+        Mockito.when(userService.getUserSummaryByEmail("charlie@example.com")).thenReturn(Optional.of(user));
 
         mockMvc.perform(get("/profile"))
                 .andExpect(status().isOk())
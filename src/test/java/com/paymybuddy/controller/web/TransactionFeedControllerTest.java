@@ -0,0 +1,93 @@
+package com.paymybuddy.controller.web;
+
+import com.paymybuddy.configuration.SpringSecurityConfig;
+import com.paymybuddy.model.dto.UserSummaryDTO;
+import com.paymybuddy.service.TransactionFeedHub;
+import com.paymybuddy.service.UserService;
+import com.paymybuddy.service.security.UserDetailsServiceImpl;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Optional;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(TransactionFeedController.class)
+@Import(SpringSecurityConfig.class)
+class TransactionFeedControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private TransactionFeedHub transactionFeedHub;
+
+    @TestConfiguration
+    static class MvcTestConfig {
+        @Bean
+        UserService userService() {
+            return Mockito.mock(UserService.class);
+        }
+        @Bean
+        TransactionFeedHub transactionFeedHub() {
+            return Mockito.mock(TransactionFeedHub.class);
+        }
+        @Bean
+        UserDetailsServiceImpl userDetailsServiceImpl() {
+            return Mockito.mock(UserDetailsServiceImpl.class);
+        }
+    }
+
+    @Test
+    @WithMockUser(username = "alice@example.com")
+    @DisplayName("GET /home/feed should open the feed of the user from the sequence the page was rendered at")
+    void feed_shouldOpenFromPageSequence() throws Exception {
+        Mockito.when(userService.getUserSummaryByEmail("alice@example.com"))
+                .thenReturn(Optional.of(new UserSummaryDTO(1, "alice", "alice@example.com", null)));
+        Mockito.when(transactionFeedHub.open(1, 41L)).thenReturn(new SseEmitter());
+
+        mockMvc.perform(get("/home/feed").param("since", "41"))
+                .andExpect(request().asyncStarted());
+
+        Mockito.verify(transactionFeedHub).open(1, 41L);
+    }
+
+    @Test
+    @WithMockUser(username = "alice@example.com")
+    @DisplayName("GET /home/feed should resume from Last-Event-ID when the browser reconnects")
+    void feed_shouldResumeFromLastEventId() throws Exception {
+        Mockito.when(userService.getUserSummaryByEmail("alice@example.com"))
+                .thenReturn(Optional.of(new UserSummaryDTO(1, "alice", "alice@example.com", null)));
+        Mockito.when(transactionFeedHub.open(1, 57L)).thenReturn(new SseEmitter());
+
+        mockMvc.perform(get("/home/feed").param("since", "41").header("Last-Event-ID", "57"))
+                .andExpect(request().asyncStarted());
+
+        Mockito.verify(transactionFeedHub).open(1, 57L);
+    }
+
+    @Test
+    @DisplayName("GET /home/feed should redirect anonymous users to the login page")
+    void feed_shouldRequireLogin() throws Exception {
+        // The mock is shared by the whole context
+        Mockito.clearInvocations(transactionFeedHub);
+
+        mockMvc.perform(get("/home/feed"))
+                .andExpect(status().is3xxRedirection());
+
+        Mockito.verifyNoInteractions(transactionFeedHub);
+    }
+}
@@ -1,6 +1,9 @@
 package com.paymybuddy.controller.web;
 
-import com.paymybuddy.model.User;
+import com.paymybuddy.model.Transaction;
+import com.paymybuddy.model.dto.UserSummaryDTO;
+import com.paymybuddy.repository.TransactionRepository;
+import com.paymybuddy.service.IdempotencyStore;
 import com.paymybuddy.service.TransactionService;
 import com.paymybuddy.service.UserService;
 import com.paymybuddy.configuration.SpringSecurityConfig;
@@ -13,13 +16,16 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.time.Duration;
 import java.util.Optional;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -36,6 +42,9 @@ class TransferControllerTest {
     @Autowired
     private TransactionService transactionService;
 
+    @Autowired
+    private TransactionRepository transactionRepository;
+
     @TestConfiguration
     static class MvcTestConfig {
         @Bean
@@ -47,6 +56,14 @@ class TransferControllerTest {
             return Mockito.mock(TransactionService.class);
         }
         @Bean
+        TransactionRepository transactionRepository() {
+            return Mockito.mock(TransactionRepository.class);
+        }
+        @Bean
+        IdempotencyStore idempotencyStore(TransactionRepository transactionRepository) {
+            return new IdempotencyStore(transactionRepository, Duration.ofMinutes(5), 100);
+        }
+        @Bean
         UserDetailsServiceImpl userDetailsServiceImpl() {
             return Mockito.mock(UserDetailsServiceImpl.class);
         }
@@ -56,15 +73,11 @@ class TransferControllerTest {
     @WithMockUser(username = "sender@example.com")
     @DisplayName("POST /transfer should save transaction")
     void postTransfer_success() throws Exception {
-        User sender = new User();
-        sender.setId(1);
-        sender.setEmail("sender@example.com");
-        User receiver = new User();
-        receiver.setId(2);
-        receiver.setEmail("rcv@example.com");
+        UserSummaryDTO sender = new UserSummaryDTO(1, null, "sender@example.com", null);
+        UserSummaryDTO receiver = new UserSummaryDTO(2, null, "rcv@example.com", null);
 
-        Mockito.when(userService.getUserByEmail("sender@example.com")).thenReturn(Optional.of(sender));
-        Mockito.when(userService.getUserByEmail("rcv@example.com")).thenReturn(Optional.of(receiver));
+        Mockito.when(userService.getUserSummaryByEmail("sender@example.com")).thenReturn(Optional.of(sender));
+        Mockito.when(userService.getUserSummaryByEmail("rcv@example.com")).thenReturn(Optional.of(receiver));
 
         mockMvc.perform(post("/transfer")
                         .with(SecurityMockMvcRequestPostProcessors.csrf())
@@ -76,11 +89,63 @@ class TransferControllerTest {
 
     }
 
+    @Test
+    @WithMockUser(username = "sender@example.com")
+    @DisplayName("POST /transfer should save a resubmitted form only once")
+    void postTransfer_resubmitted() throws Exception {
+        UserSummaryDTO sender = new UserSummaryDTO(1, null, "sender@example.com", null);
+        UserSummaryDTO receiver = new UserSummaryDTO(2, null, "rcv@example.com", null);
+
+        Mockito.when(userService.getUserSummaryByEmail("sender@example.com")).thenReturn(Optional.of(sender));
+        Mockito.when(userService.getUserSummaryByEmail("rcv@example.com")).thenReturn(Optional.of(receiver));
+        Mockito.doAnswer(invocation -> invocation.getArgument(0)).when(transactionService).saveTransaction(any());
+
+        for (int attempt = 0; attempt < 2; attempt++) {
+            mockMvc.perform(post("/transfer")
+                            .with(SecurityMockMvcRequestPostProcessors.csrf())
+                            .param("connectionEmail", "rcv@example.com")
+                            .param("amount", "25.50")
+                            .param("description", "Dinner")
+                            .param("idempotencyKey", "7b0e4c1a"))
+                    .andExpect(status().is3xxRedirection())
+                    .andExpect(redirectedUrl("/home"))
+                    .andExpect(flash().attributeExists("success"));
+        }
+
+        Mockito.verify(transactionService, Mockito.times(1))
+                .saveTransaction(argThat(transaction -> "7b0e4c1a".equals(transaction.getIdempotencyKey())));
+    }
+
+    @Test
+    @WithMockUser(username = "sender@example.com")
+    @DisplayName("POST /transfer should report the transfer another instance saved under the same key")
+    void postTransfer_duplicateKeyRace() throws Exception {
+        UserSummaryDTO sender = new UserSummaryDTO(1, null, "sender@example.com", null);
+        UserSummaryDTO receiver = new UserSummaryDTO(2, null, "rcv@example.com", null);
+
+        Mockito.when(userService.getUserSummaryByEmail("sender@example.com")).thenReturn(Optional.of(sender));
+        Mockito.when(userService.getUserSummaryByEmail("rcv@example.com")).thenReturn(Optional.of(receiver));
+        Mockito.when(transactionService.saveTransaction(any()))
+                .thenThrow(new DataIntegrityViolationException("Duplicate entry for key 'uk_sender_idempotency_key'"));
+        Mockito.when(transactionRepository.findBySenderIdAndIdempotencyKey(1, "5d2f9a30"))
+                .thenReturn(Optional.of(Transaction.builder().id(7).idempotencyKey("5d2f9a30").build()));
+
+        mockMvc.perform(post("/transfer")
+                        .with(SecurityMockMvcRequestPostProcessors.csrf())
+                        .param("connectionEmail", "rcv@example.com")
+                        .param("amount", "25.50")
+                        .param("description", "Dinner")
+                        .param("idempotencyKey", "5d2f9a30"))
+                .andExpect(status().is3xxRedirection())
+                .andExpect(redirectedUrl("/home"))
+                .andExpect(flash().attribute("success", "Transfer completed successfully."));
+    }
+
     @Test
     @WithMockUser(username = "sender@example.com")
     @DisplayName("POST /transfer should redirect with error when sender not found")
     void postTransfer_senderMissing() throws Exception {
-        Mockito.when(userService.getUserByEmail("sender@example.com")).thenReturn(Optional.empty());
+        Mockito.when(userService.getUserSummaryByEmail("sender@example.com")).thenReturn(Optional.empty());
 
         mockMvc.perform(post("/transfer")
                         .with(SecurityMockMvcRequestPostProcessors.csrf())
@@ -96,11 +161,9 @@ class TransferControllerTest {
     @WithMockUser(username = "sender@example.com")
     @DisplayName("POST /transfer should reject when receiver not found")
     void postTransfer_receiverMissing() throws Exception {
-        User sender = new User();
-        sender.setId(1);
-        sender.setEmail("sender@example.com");
-        Mockito.when(userService.getUserByEmail("sender@example.com")).thenReturn(Optional.of(sender));
-        Mockito.when(userService.getUserByEmail("missing@example.com")).thenReturn(Optional.empty());
+        UserSummaryDTO sender = new UserSummaryDTO(1, null, "sender@example.com", null);
+        Mockito.when(userService.getUserSummaryByEmail("sender@example.com")).thenReturn(Optional.of(sender));
+        Mockito.when(userService.getUserSummaryByEmail("missing@example.com")).thenReturn(Optional.empty());
 
         mockMvc.perform(post("/transfer")
                         .with(SecurityMockMvcRequestPostProcessors.csrf())
@@ -117,11 +180,9 @@ class TransferControllerTest {
     @WithMockUser(username = "sender@example.com")
     @DisplayName("POST /transfer should reject when trying to send to self")
     void postTransfer_self() throws Exception {
-        User sender = new User();
-        sender.setId(1);
-        sender.setEmail("sender@example.com");
-        Mockito.when(userService.getUserByEmail("sender@example.com")).thenReturn(Optional.of(sender));
-        Mockito.when(userService.getUserByEmail("sender@example.com")).thenReturn(Optional.of(sender));
+        UserSummaryDTO sender = new UserSummaryDTO(1, null, "sender@example.com", null);
+        Mockito.when(userService.getUserSummaryByEmail("sender@example.com")).thenReturn(Optional.of(sender));
+        Mockito.when(userService.getUserSummaryByEmail("sender@example.com")).thenReturn(Optional.of(sender));
 
         mockMvc.perform(post("/transfer")
                         .with(SecurityMockMvcRequestPostProcessors.csrf())
@@ -138,15 +199,11 @@ class TransferControllerTest {
     @WithMockUser(username = "sender@example.com")
     @DisplayName("POST /transfer should flash error when service throws")
     void postTransfer_serviceThrows() throws Exception {
-        User sender = new User();
-        sender.setId(1);
-        sender.setEmail("sender@example.com");
-        User receiver = new User();
-        receiver.setId(2);
-        receiver.setEmail("rcv@example.com");
-
-        Mockito.when(userService.getUserByEmail("sender@example.com")).thenReturn(Optional.of(sender));
-        Mockito.when(userService.getUserByEmail("rcv@example.com")).thenReturn(Optional.of(receiver));
+        UserSummaryDTO sender = new UserSummaryDTO(1, null, "sender@example.com", null);
+        UserSummaryDTO receiver = new UserSummaryDTO(2, null, "rcv@example.com", null);
+
+        Mockito.when(userService.getUserSummaryByEmail("sender@example.com")).thenReturn(Optional.of(sender));
+        Mockito.when(userService.getUserSummaryByEmail("rcv@example.com")).thenReturn(Optional.of(receiver));
         Mockito.doThrow(new IllegalArgumentException("Insufficient funds")).when(transactionService).saveTransaction(any());
 
         mockMvc.perform(post("/transfer")
@@ -0,0 +1,381 @@
+package com.paymybuddy.dataset;
+
+import lombok.Builder;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Bulk-loads a synthetic dataset into the schema.sql tables, for benchmarks and scale tests:
+ * users with ids firstUserId to firstUserId + users - 1, a connection graph whose out-degrees follow
+ * a power law and whose targets favour a few popular users (heavy-tailed in-degrees), and
+ * transactions from each user to its connections, a few hot senders sending most of them.
+ * Rows are generated on the fly and written with batched JDBC inserts, one connection per partition
+ * of users, partitions loaded in parallel. Every user draws from its own random streams derived
+ * from the seed, so the same seed gives the same rows whatever the thread count.
+ * Usage: DatasetGenerator.builder().users(1_000_000).seed(7).build().generate(dataSource)
+ * On MySQL, add rewriteBatchedStatements=true to the JDBC URL or batches are sent row by row.
+ */
+@Builder
+public class DatasetGenerator {
+
+    private static final String INSERT_USER =
+            "INSERT INTO USER (id, username, email, password, balance) VALUES (?, ?, ?, ?, ?)";
+    private static final String INSERT_CONNECTION =
+            "INSERT INTO USER_CONNECTIONS (user_id, connected_user_id) VALUES (?, ?)";
+    private static final String INSERT_TRANSACTION =
+            "INSERT INTO TRANSACTION (id, sender_id, receiver_id, description, amount) VALUES (?, ?, ?, ?, ?)";
+    private static final String[] DESCRIPTIONS = {
+            "Lunch", "Dinner", "Rent", "Groceries", "Concert tickets", "Trip", "Gift", "Coffee", "Taxi", "Movie"};
+
+    private static final long CONNECTION_STREAM = 0x2545F4914F6CDD1DL;
+    private static final long TRANSACTION_STREAM = 0x9E3779B97F4A7C15L;
+
+    @Builder.Default
+    private final long seed = 42;
+
+    @Builder.Default
+    private final int firstUserId = 1;
+
+    @Builder.Default
+    private final int users = 100_000;
+
+    /** Mean out-degree before duplicate targets are merged */
+    @Builder.Default
+    private final double meanConnections = 10;
+
+    /** Exponent of the out-degree power law, above 2; smaller means heavier hubs */
+    @Builder.Default
+    private final double connectionExponent = 2.5;
+
+    @Builder.Default
+    private final int maxConnections = 5_000;
+
+    /** Zipf exponent of the popularity of connection targets; 0 is uniform */
+    @Builder.Default
+    private final double popularityExponent = 1.0;
+
+    @Builder.Default
+    private final double meanTransactions = 20;
+
+    /** Exponent of the power law of transactions sent per user, above 2 */
+    @Builder.Default
+    private final double transactionExponent = 2.5;
+
+    @Builder.Default
+    private final int maxTransactions = 10_000;
+
+    @Builder.Default
+    private final int firstTransactionId = 1;
+
+    /** Median transfer amount; amounts are log-normal around it */
+    @Builder.Default
+    private final double medianAmount = 20;
+
+    @Builder.Default
+    private final BigDecimal balance = new BigDecimal("10000.00");
+
+    /** Stored as is: pass an encoded password for users who need to log in */
+    @Builder.Default
+    private final String passwordHash = "x";
+
+    @Builder.Default
+    private final int threads = Runtime.getRuntime().availableProcessors();
+
+    @Builder.Default
+    private final int partitionSize = 10_000;
+
+    @Builder.Default
+    private final int batchSize = 1_000;
+
+    /**
+     * What was loaded
+     * @param connections Rows of USER_CONNECTIONS, duplicate targets merged
+     */
+    public record Summary(int users, long connections, long transactions, Duration elapsed) {
+    }
+
+    public static String email(int id) {
+        return "user" + id + "@example.com";
+    }
+
+    /**
+     * Loads users, then connections, then transactions, each phase committed partition by partition
+     */
+    public Summary generate(DataSource dataSource) {
+        if (users < 2 || connectionExponent <= 2 || transactionExponent <= 2 || meanConnections < 1 || meanTransactions < 0) {
+            throw new IllegalArgumentException("Needs at least 2 users, exponents above 2, a mean of at least one connection");
+        }
+        long start = System.nanoTime();
+        Popularity popularity = new Popularity();
+        int partitions = (users + partitionSize - 1) / partitionSize;
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads));
+        try {
+            inParallel(executor, partitions, partition -> insertUsers(dataSource, partition));
+            long[] connections = inParallel(executor, partitions,
+                    partition -> insertConnections(dataSource, partition, popularity));
+            // Transaction ids follow user order, so they do not depend on which partition commits first
+            long[] counts = inParallel(executor, partitions, this::countTransactions);
+            long[] firstIds = new long[partitions];
+            long nextId = firstTransactionId;
+            for (int partition = 0; partition < partitions; partition++) {
+                firstIds[partition] = nextId;
+                nextId += counts[partition];
+            }
+            long[] transactions = inParallel(executor, partitions,
+                    partition -> insertTransactions(dataSource, partition, firstIds[partition], popularity));
+            restartIdentities(dataSource);
+            return new Summary(users, Arrays.stream(connections).sum(), Arrays.stream(transactions).sum(),
+                    Duration.ofNanos(System.nanoTime() - start));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private long insertUsers(DataSource dataSource, int partition) throws SQLException {
+        return insert(dataSource, INSERT_USER, batch -> {
+            for (int id = from(partition); id < to(partition); id++) {
+                PreparedStatement statement = batch.statement;
+                statement.setInt(1, id);
+                statement.setString(2, "user" + id);
+                statement.setString(3, email(id));
+                statement.setString(4, passwordHash);
+                statement.setBigDecimal(5, balance);
+                batch.add();
+            }
+        });
+    }
+
+    private long insertConnections(DataSource dataSource, int partition, Popularity popularity) throws SQLException {
+        return insert(dataSource, INSERT_CONNECTION, batch -> {
+            for (int id = from(partition); id < to(partition); id++) {
+                for (int target : connections(id, popularity)) {
+                    batch.statement.setInt(1, id);
+                    batch.statement.setInt(2, target);
+                    batch.add();
+                }
+            }
+        });
+    }
+
+    private long countTransactions(int partition) {
+        long count = 0;
+        for (int id = from(partition); id < to(partition); id++) {
+            count += transactionCount(random(TRANSACTION_STREAM, id));
+        }
+        return count;
+    }
+
+    private long insertTransactions(DataSource dataSource, int partition, long firstId, Popularity popularity)
+            throws SQLException {
+        return insert(dataSource, INSERT_TRANSACTION, batch -> {
+            long nextId = firstId;
+            for (int id = from(partition); id < to(partition); id++) {
+                SplittableRandom random = random(TRANSACTION_STREAM, id);
+                int count = transactionCount(random);
+                if (count == 0) {
+                    continue;
+                }
+                // Transfers only go to connections, which already favour the popular users
+                int[] receivers = connections(id, popularity);
+                for (int i = 0; i < count; i++) {
+                    PreparedStatement statement = batch.statement;
+                    statement.setLong(1, nextId++);
+                    statement.setInt(2, id);
+                    statement.setInt(3, receivers[random.nextInt(receivers.length)]);
+                    statement.setString(4, DESCRIPTIONS[random.nextInt(DESCRIPTIONS.length)]);
+                    statement.setBigDecimal(5, amount(random));
+                    batch.add();
+                }
+            }
+        });
+    }
+
+    /**
+     * The connection targets of a user, sorted and without duplicates; never empty
+     */
+    int[] connections(int id, Popularity popularity) {
+        SplittableRandom random = random(CONNECTION_STREAM, id);
+        double shape = connectionExponent - 1;
+        double degree = pareto(random, meanConnections * (shape - 1) / shape, shape);
+        int[] targets = new int[(int) Math.max(1, Math.min(Math.min(maxConnections, users - 1), Math.round(degree)))];
+        for (int i = 0; i < targets.length; i++) {
+            int target = popularity.sample(random);
+            targets[i] = target != id ? target : firstUserId + (id - firstUserId + 1) % users;
+        }
+        return Arrays.stream(targets).sorted().distinct().toArray();
+    }
+
+    private int transactionCount(SplittableRandom random) {
+        double shape = transactionExponent - 1;
+        double count = pareto(random, meanTransactions * (shape - 1) / shape, shape);
+        return (int) Math.min(maxTransactions, Math.floor(count));
+    }
+
+    private BigDecimal amount(SplittableRandom random) {
+        double amount = medianAmount * Math.exp(random.nextGaussian());
+        long cents = Math.max(1, Math.min(999_999, Math.round(amount * 100)));
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    private SplittableRandom random(long stream, int id) {
+        return new SplittableRandom(seed * stream + id);
+    }
+
+    // Continuous Pareto: minimum, then a density falling as x^-(shape + 1)
+    private static double pareto(SplittableRandom random, double minimum, double shape) {
+        return minimum * Math.pow(1 - random.nextDouble(), -1 / shape);
+    }
+
+    private int from(int partition) {
+        return firstUserId + partition * partitionSize;
+    }
+
+    private int to(int partition) {
+        return firstUserId + Math.min(users, (partition + 1) * partitionSize);
+    }
+
+    // H2 does not move its identity counters past explicit ids; MySQL does
+    private void restartIdentities(DataSource dataSource) {
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            if (!"H2".equals(connection.getMetaData().getDatabaseProductName())) {
+                return;
+            }
+            for (String table : List.of("USER", "TRANSACTION")) {
+                long next;
+                try (ResultSet resultSet = statement.executeQuery("SELECT COALESCE(MAX(id), 0) + 1 FROM " + table)) {
+                    resultSet.next();
+                    next = resultSet.getLong(1);
+                }
+                statement.execute("ALTER TABLE " + table + " ALTER COLUMN id RESTART WITH " + next);
+            }
+        } catch (SQLException exception) {
+            throw new IllegalStateException("Could not restart the identities", exception);
+        }
+    }
+
+    private long insert(DataSource dataSource, String sql, Rows rows) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                Batch batch = new Batch(statement);
+                rows.write(batch);
+                batch.flush();
+                connection.commit();
+                return batch.rows;
+            } catch (SQLException exception) {
+                connection.rollback();
+                throw exception;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        }
+    }
+
+    private static long[] inParallel(ExecutorService executor, int partitions, PartitionTask task) {
+        List<Future<Long>> futures = new ArrayList<>(partitions);
+        for (int partition = 0; partition < partitions; partition++) {
+            int index = partition;
+            futures.add(executor.submit(() -> task.run(index)));
+        }
+        long[] results = new long[partitions];
+        try {
+            for (int partition = 0; partition < partitions; partition++) {
+                results[partition] = futures.get(partition).get();
+            }
+        } catch (ExecutionException exception) {
+            futures.forEach(future -> future.cancel(true));
+            throw new IllegalStateException("Dataset generation failed", exception.getCause());
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Dataset generation interrupted", exception);
+        }
+        return results;
+    }
+
+    /**
+     * Draws user ids by popularity rank, with a Zipf law, then scatters the ranks over the ids with
+     * an affine permutation so that the popular users are not simply the first ones
+     */
+    final class Popularity {
+
+        private final long multiplier;
+        private final long offset;
+
+        private Popularity() {
+            SplittableRandom random = new SplittableRandom(seed);
+            long candidate = 1 + random.nextLong(users - 1);
+            while (gcd(candidate, users) != 1) {
+                candidate = candidate % (users - 1) + 1;
+            }
+            this.multiplier = candidate;
+            this.offset = random.nextLong(users);
+        }
+
+        int sample(SplittableRandom random) {
+            double u = random.nextDouble();
+            double s = popularityExponent;
+            // Inverse of the continuous x^-s distribution on [1, users + 1)
+            double x = s == 1
+                    ? Math.pow(users + 1, u)
+                    : Math.pow((Math.pow(users + 1, 1 - s) - 1) * u + 1, 1 / (1 - s));
+            long rank = Math.min(users - 1, (long) x - 1);
+            return firstUserId + (int) ((rank * multiplier + offset) % users);
+        }
+
+        private static long gcd(long a, long b) {
+            return b == 0 ? a : gcd(b, a % b);
+        }
+    }
+
+    private final class Batch {
+
+        private final PreparedStatement statement;
+        private int pending;
+        private long rows;
+
+        private Batch(PreparedStatement statement) {
+            this.statement = statement;
+        }
+
+        private void add() throws SQLException {
+            statement.addBatch();
+            rows++;
+            if (++pending == batchSize) {
+                flush();
+            }
+        }
+
+        private void flush() throws SQLException {
+            if (pending > 0) {
+                statement.executeBatch();
+                pending = 0;
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface Rows {
+        void write(Batch batch) throws SQLException;
+    }
+
+    @FunctionalInterface
+    private interface PartitionTask {
+        long run(int partition) throws SQLException;
+    }
+}
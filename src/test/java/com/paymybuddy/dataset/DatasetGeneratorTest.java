@@ -0,0 +1,99 @@
+package com.paymybuddy.dataset;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Each test loads its own H2 databases with schema.sql, apart from the application's
+ */
+public class DatasetGeneratorTest {
+
+    private static final int USERS = 5_000;
+
+    private static DataSource database(String name) {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:dataset-" + name + ";DB_CLOSE_DELAY=-1;MODE=MySQL;NON_KEYWORDS=USER");
+        new ResourceDatabasePopulator(new ClassPathResource("schema.sql")).execute(dataSource);
+        return dataSource;
+    }
+
+    private static DatasetGenerator.DatasetGeneratorBuilder generator() {
+        return DatasetGenerator.builder().users(USERS).partitionSize(700).batchSize(256);
+    }
+
+    @Test
+    @DisplayName("The same seed should load the same rows whatever the number of threads")
+    void givenSameSeed_whenGeneratedWithDifferentThreads_thenSameRows() {
+        JdbcTemplate single = new JdbcTemplate(database("single"));
+        JdbcTemplate parallel = new JdbcTemplate(database("parallel"));
+        JdbcTemplate other = new JdbcTemplate(database("other-seed"));
+
+        generator().seed(7).threads(1).meanTransactions(5).build().generate(single.getDataSource());
+        generator().seed(7).threads(4).meanTransactions(5).build().generate(parallel.getDataSource());
+        generator().seed(8).threads(4).meanTransactions(5).build().generate(other.getDataSource());
+
+        String connections = "SELECT user_id, connected_user_id FROM USER_CONNECTIONS ORDER BY user_id, connected_user_id";
+        String transactions = "SELECT id, sender_id, receiver_id, description, amount FROM TRANSACTION ORDER BY id";
+        assertThat(parallel.queryForList(connections)).isEqualTo(single.queryForList(connections));
+        assertThat(parallel.queryForList(transactions)).isEqualTo(single.queryForList(transactions));
+        assertThat(other.queryForList(connections)).isNotEqualTo(single.queryForList(connections));
+    }
+
+    @Test
+    @DisplayName("Connections and transactions should be skewed towards a few users and only link connected users")
+    void givenDataset_whenGenerated_thenSkewedAndConsistent() {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(database("shape"));
+
+        DatasetGenerator.Summary summary = generator().meanTransactions(10).build().generate(jdbcTemplate.getDataSource());
+
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM USER", Integer.class)).isEqualTo(USERS);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM USER_CONNECTIONS", Long.class))
+                .isEqualTo(summary.connections());
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM TRANSACTION", Long.class))
+                .isEqualTo(summary.transactions());
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM USER_CONNECTIONS WHERE user_id = connected_user_id",
+                Integer.class)).isZero();
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM TRANSACTION t WHERE NOT EXISTS (SELECT 1 "
+                + "FROM USER_CONNECTIONS c WHERE c.user_id = t.sender_id AND c.connected_user_id = t.receiver_id)",
+                Integer.class)).isZero();
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(DISTINCT user_id) FROM USER_CONNECTIONS", Integer.class))
+                .isEqualTo(USERS);
+
+        // Hubs: the most followed user is connected to by far more users than the mean degree
+        double meanDegree = (double) summary.connections() / USERS;
+        int maxInDegree = jdbcTemplate.queryForObject("SELECT MAX(c) FROM (SELECT COUNT(*) c FROM USER_CONNECTIONS "
+                + "GROUP BY connected_user_id)", Integer.class);
+        assertThat(maxInDegree).isGreaterThan((int) (20 * meanDegree));
+
+        // Hot senders: the top 1% send a far larger share than 1% of the transactions
+        List<Map<String, Object>> top = jdbcTemplate.queryForList("SELECT COUNT(*) c FROM TRANSACTION "
+                + "GROUP BY sender_id ORDER BY c DESC LIMIT " + USERS / 100);
+        long topSent = top.stream().mapToLong(row -> ((Number) row.get("c")).longValue()).sum();
+        assertThat((double) topSent / summary.transactions()).isGreaterThan(0.1);
+    }
+
+    @Test
+    @DisplayName("Rows inserted after the dataset should get ids following it")
+    void givenDataset_whenInsertingWithoutId_thenIdsFollow() {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(database("identity"));
+        DatasetGenerator.Summary summary = generator().meanTransactions(2).build().generate(jdbcTemplate.getDataSource());
+
+        jdbcTemplate.update("INSERT INTO USER (username, email, password) VALUES ('new', 'new@example.com', 'x')");
+        jdbcTemplate.update("INSERT INTO TRANSACTION (sender_id, receiver_id, amount) VALUES (1, 2, 1.00)");
+
+        assertThat(jdbcTemplate.queryForObject("SELECT id FROM USER WHERE email = 'new@example.com'", Integer.class))
+                .isEqualTo(USERS + 1);
+        assertThat(jdbcTemplate.queryForObject("SELECT MAX(id) FROM TRANSACTION", Long.class))
+                .isEqualTo(summary.transactions() + 1);
+    }
+}
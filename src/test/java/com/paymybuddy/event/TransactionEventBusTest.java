@@ -0,0 +1,220 @@
+package com.paymybuddy.event;
+
+import com.paymybuddy.event.TransactionEventBus.OverflowPolicy;
+import com.paymybuddy.event.TransactionEventBus.Subscription;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+
+public class TransactionEventBusTest {
+
+    private static final BigDecimal AMOUNT = new BigDecimal("10.00");
+
+    private final TransactionEventBus eventBus = new TransactionEventBus(8);
+
+    @AfterEach
+    public void tearDown() {
+        eventBus.shutdown();
+    }
+
+    private void publish(int transactionId) {
+        eventBus.publish(transactionId, 1, 2, AMOUNT, "transfer " + transactionId);
+    }
+
+    @Test
+    @DisplayName("Every subscription should see every event, in order, from several producers")
+    void givenSeveralProducers_whenPublishing_thenEachSubscriptionSeesAllEvents() {
+        List<Integer> first = new CopyOnWriteArrayList<>();
+        List<Long> sequences = new CopyOnWriteArrayList<>();
+        eventBus.subscribe("first", OverflowPolicy.BLOCK, (event, sequence, endOfBatch) -> {
+            first.add(event.getTransactionId());
+            sequences.add(sequence);
+        });
+        List<Integer> second = new CopyOnWriteArrayList<>();
+        eventBus.subscribe("second", OverflowPolicy.BLOCK, (event, sequence, endOfBatch) -> second.add(event.getTransactionId()));
+
+        // Four producers, 250 events each, through a ring of 8 slots
+        CompletableFuture.allOf(IntStream.range(0, 4)
+                .mapToObj(producer -> CompletableFuture.runAsync(() -> {
+                    for (int i = 0; i < 250; i++) {
+                        publish(producer * 1000 + i);
+                    }
+                }))
+                .toArray(CompletableFuture[]::new)).join();
+
+        await().atMost(5, TimeUnit.SECONDS).until(() -> first.size() == 1000 && second.size() == 1000);
+        assertThat(first).doesNotHaveDuplicates().containsExactlyInAnyOrderElementsOf(second);
+        assertThat(sequences).isSorted().startsWith(0L).endsWith(999L);
+        // Each producer's own events stay in publication order
+        for (int producer = 0; producer < 4; producer++) {
+            int from = producer * 1000;
+            assertThat(first.stream().filter(id -> id >= from && id < from + 1000).toList()).isSorted();
+        }
+    }
+
+    @Test
+    @DisplayName("A stalled BLOCK subscription should hold producers back once the ring is full")
+    void givenStalledBlockingSubscription_whenRingFull_thenProducerWaits() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        List<Integer> received = new CopyOnWriteArrayList<>();
+        eventBus.subscribe("slow", OverflowPolicy.BLOCK, (event, sequence, endOfBatch) -> {
+            awaitQuietly(release);
+            received.add(event.getTransactionId());
+        });
+
+        CompletableFuture<Void> producer = CompletableFuture.runAsync(() -> IntStream.range(0, 20).forEach(this::publish));
+
+        assertThatThrownBy(() -> producer.get(300, TimeUnit.MILLISECONDS)).isInstanceOf(TimeoutException.class);
+        assertThat(eventBus.getProducerWaits()).isPositive();
+
+        release.countDown();
+        producer.get(5, TimeUnit.SECONDS);
+        await().atMost(5, TimeUnit.SECONDS).until(() -> received.size() == 20);
+        assertThat(received).isEqualTo(IntStream.range(0, 20).boxed().toList());
+    }
+
+    @Test
+    @DisplayName("A stalled DROP subscription should never hold producers back and should skip what it missed")
+    void givenStalledDroppingSubscription_whenRingOverflows_thenEventsDropped() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        List<Integer> received = new CopyOnWriteArrayList<>();
+        Subscription subscription = eventBus.subscribe("lossy", OverflowPolicy.DROP, (event, sequence, endOfBatch) -> {
+            started.countDown();
+            awaitQuietly(release);
+            received.add(event.getTransactionId());
+        });
+
+        publish(0);
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        IntStream.range(1, 100).forEach(this::publish);
+        assertThat(eventBus.getProducerWaits()).isZero();
+
+        release.countDown();
+        await().atMost(5, TimeUnit.SECONDS).until(() -> subscription.getSequence() == 99);
+        assertThat(subscription.getDropped()).isPositive();
+        assertThat(received).startsWith(0).endsWith(99).isSorted();
+        assertThat(received.size() + subscription.getDropped()).isEqualTo(100);
+    }
+
+    @Test
+    @DisplayName("A producer a full ring ahead should wait for the slot's previous event to be written")
+    void givenSlowProducer_whenNextLapClaimsItsSlot_thenWaitsForIt() throws Exception {
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        TransactionEventBus smallBus = new TransactionEventBus(2) {
+            @Override
+            void write(TransactionEvent slot, int transactionId, int senderId, int receiverId, BigDecimal amount,
+                       String description) {
+                if (transactionId == 0) {
+                    writing.countDown();
+                    awaitQuietly(release);
+                }
+                super.write(slot, transactionId, senderId, receiverId, amount, description);
+            }
+        };
+        List<Integer> received = new CopyOnWriteArrayList<>();
+        Subscription subscription = smallBus.subscribe("lossy", OverflowPolicy.DROP,
+                (event, sequence, endOfBatch) -> received.add(event.getTransactionId()));
+
+        try {
+            CompletableFuture<Void> slow = CompletableFuture.runAsync(() -> smallBus.publish(0, 1, 2, AMOUNT, null));
+            assertThat(writing.await(5, TimeUnit.SECONDS)).isTrue();
+            // Sequences 1 and 2, the latter in the slot of sequence 0
+            CompletableFuture<Void> fast = CompletableFuture.runAsync(() -> {
+                smallBus.publish(1, 1, 2, AMOUNT, null);
+                smallBus.publish(2, 1, 2, AMOUNT, null);
+            });
+
+            assertThatThrownBy(() -> fast.get(300, TimeUnit.MILLISECONDS)).isInstanceOf(TimeoutException.class);
+            release.countDown();
+            slow.get(5, TimeUnit.SECONDS);
+            fast.get(5, TimeUnit.SECONDS);
+
+            await().atMost(5, TimeUnit.SECONDS).until(() -> subscription.getSequence() == 2);
+            assertThat(received).endsWith(2);
+        } finally {
+            smallBus.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("A failing handler should not stop its subscription")
+    void givenFailingHandler_whenPublishing_thenLaterEventsStillHandled() {
+        List<Integer> received = new CopyOnWriteArrayList<>();
+        Subscription subscription = eventBus.subscribe("flaky", OverflowPolicy.BLOCK, (event, sequence, endOfBatch) -> {
+            if (event.getTransactionId() == 1) {
+                throw new IllegalStateException("boom");
+            }
+            received.add(event.getTransactionId());
+        });
+
+        IntStream.range(0, 3).forEach(this::publish);
+
+        await().atMost(5, TimeUnit.SECONDS).until(() -> received.size() == 2);
+        assertThat(received).containsExactly(0, 2);
+        assertThat(subscription.getFailures()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Events of a transaction should share one synchronization and be published only once it commits")
+    void givenTransaction_whenPublishAfterCommit_thenPublishedTogetherOnCommit() {
+        long before = eventBus.getCursor();
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            eventBus.publishAfterCommit(1, 1, 2, AMOUNT, null);
+            eventBus.publishAfterCommit(2, 1, 3, AMOUNT, null);
+            eventBus.publishDepositAfterCommit(4, AMOUNT);
+
+            assertThat(TransactionSynchronizationManager.getSynchronizations()).hasSize(1);
+            assertThat(eventBus.getCursor()).isEqualTo(before);
+            TransactionSynchronizationUtils.triggerAfterCommit();
+            TransactionSynchronizationUtils.triggerAfterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertThat(eventBus.getCursor()).isEqualTo(before + 3);
+        assertThat(TransactionSynchronizationManager.hasResource(eventBus)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Events of a rolled back transaction should never be published")
+    void givenRollback_whenPublishAfterCommit_thenNothingPublished() {
+        long before = eventBus.getCursor();
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            eventBus.publishAfterCommit(1, 1, 2, AMOUNT, null);
+            TransactionSynchronizationUtils.triggerAfterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertThat(eventBus.getCursor()).isEqualTo(before);
+        assertThat(TransactionSynchronizationManager.hasResource(eventBus)).isFalse();
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.paymybuddy.integration.configuration;
+
+import com.paymybuddy.configuration.SpringSecurityConfig;
+import com.paymybuddy.controller.api.UserController;
+import com.paymybuddy.model.dto.UserSummaryDTO;
+import com.paymybuddy.service.PrincipalCache;
+import com.paymybuddy.service.UserService;
+import com.paymybuddy.service.security.CachingAuthenticationProvider;
+import com.paymybuddy.service.security.TokenServiceImpl;
+import com.paymybuddy.service.security.UserDetailsServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(value = UserController.class, properties = "paymybuddy.security.basic-auth-cache.enabled=true")
+@Import({SpringSecurityConfig.class, CachingAuthenticationProvider.class, TokenServiceImpl.class})
+class BasicAuthCacheTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserDetailsServiceImpl userDetailsService;
+
+    @Autowired
+    private PrincipalCache principalCache;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private TokenServiceImpl tokenService;
+
+    @TestConfiguration
+    static class MvcTestConfig {
+        @Bean
+        UserService userService() {
+            return Mockito.mock(UserService.class);
+        }
+        @Bean
+        UserDetailsServiceImpl userDetailsServiceImpl() {
+            return Mockito.mock(UserDetailsServiceImpl.class);
+        }
+        @Bean
+        PrincipalCache principalCache() {
+            return Mockito.mock(PrincipalCache.class);
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        String hash = passwordEncoder.encode("secret");
+        Mockito.reset(userDetailsService, principalCache);
+        Mockito.when(userDetailsService.loadUserByUsername("api@example.com")).thenAnswer(invocation ->
+                User.withUsername("api@example.com").password(hash).roles("USER").build());
+        Mockito.when(principalCache.getByEmail("api@example.com"))
+                .thenReturn(Optional.of(new UserSummaryDTO(1, "api", "api@example.com", hash)));
+    }
+
+    @Test
+    @DisplayName("Repeated Basic calls should verify the password once")
+    void givenBasicCredentials_whenCalledTwice_thenUserIsLoadedOnce() throws Exception {
+        mockMvc.perform(get("/api/users").with(httpBasic("api@example.com", "secret")))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/users").with(httpBasic("api@example.com", "secret")))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/users").with(httpBasic("api@example.com", "wrong")))
+                .andExpect(status().isUnauthorized());
+
+        Mockito.verify(userDetailsService, Mockito.times(2)).loadUserByUsername("api@example.com");
+    }
+
+    @Test
+    @DisplayName("Bearer tokens should still be accepted on the API chain")
+    void givenBearerToken_whenCalled_thenAuthorized() throws Exception {
+        String token = tokenService.generateToken(UsernamePasswordAuthenticationToken.authenticated("api@example.com", null, List.of()));
+
+        mockMvc.perform(get("/api/users").header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk());
+    }
+}
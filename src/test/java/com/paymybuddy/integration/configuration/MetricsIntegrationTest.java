@@ -0,0 +1,109 @@
+package com.paymybuddy.integration.configuration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class MetricsIntegrationTest {
+
+    private static final int USER_ID = 5200;
+    private static final String EMAIL = "user5200@example.com";
+
+    @Autowired
+    private WebApplicationContext context;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).apply(springSecurity()).build();
+        jdbcTemplate.update("INSERT INTO USER (id, username, email, password) VALUES (?, 'user5200', ?, ?)",
+                USER_ID, EMAIL, new BCryptPasswordEncoder(4).encode("secret"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM USER WHERE id = ?", USER_ID);
+    }
+
+    // The context is shared with the other tests: compare counts before and after
+    private double authentications(String outcome, String reason) {
+        return meterRegistry.find("paymybuddy.authentication")
+                .tag("mechanism", "password")
+                .tag("outcome", outcome)
+                .tag("reason", reason)
+                .counters().stream()
+                .mapToDouble(counter -> counter.count())
+                .sum();
+    }
+
+    private long serviceCalls(String method) {
+        Timer timer = meterRegistry.find("paymybuddy.service").tag("method", method).timer();
+        return timer == null ? 0 : timer.count();
+    }
+
+    @Test
+    @DisplayName("A request should be counted in the authentication, service and repository meters")
+    void givenApiRequests_whenServed_thenMetered() throws Exception {
+        double successes = authentications("success", "none");
+        double failures = authentications("failure", "bad-credentials");
+        long getUserById = serviceCalls("getUserById");
+
+        mockMvc.perform(get("/api/users/" + USER_ID).with(httpBasic(EMAIL, "secret")))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/users/" + USER_ID).with(httpBasic(EMAIL, "wrong")))
+                .andExpect(status().isUnauthorized());
+
+        assertThat(authentications("success", "none")).isEqualTo(successes + 1);
+        assertThat(authentications("failure", "bad-credentials")).isEqualTo(failures + 1);
+        assertThat(serviceCalls("getUserById")).isEqualTo(getUserById + 1);
+        assertThat(meterRegistry.find("paymybuddy.service").meters())
+                .allSatisfy(meter -> assertThat(meter.getId().getTags()).extracting(Tag::getKey)
+                        .isSubsetOf("class", "method", "exception", "extra"));
+        assertThat(meterRegistry.find("spring.data.repository.invocations").timers()).isNotEmpty();
+    }
+
+    @Test
+    @DisplayName("The pools, caches and the event feed should be bound, with bounded tags")
+    void givenContext_whenStarted_thenComponentMetersBound() {
+        assertThat(meterRegistry.find("hikaricp.connections.active").gauge()).isNotNull();
+        assertThat(meterRegistry.find("hibernate.sessions.open").meter()).isNotNull();
+        assertThat(meterRegistry.find("cache.gets").tag("cache", "principals").tag("result", "hit").functionCounter())
+                .isNotNull();
+        assertThat(meterRegistry.find("cache.gets").tag("cache", "jwt").functionCounter()).isNotNull();
+        assertThat(meterRegistry.find("paymybuddy.bcrypt.queue").gauge()).isNotNull();
+        assertThat(meterRegistry.find("paymybuddy.events.lag").tag("subscription", "feed").gauge().value())
+                .isGreaterThanOrEqualTo(0);
+
+        assertThat(meterRegistry.getMeters())
+                .flatMap(meter -> meter.getId().getTags())
+                .extracting(Tag::getValue)
+                .noneMatch(value -> value.contains("@"));
+    }
+}
@@ -0,0 +1,96 @@
+package com.paymybuddy.integration.configuration;
+
+import com.paymybuddy.service.security.BoundedBCryptPasswordEncoder;
+import com.paymybuddy.service.security.RefreshTokenService;
+import com.paymybuddy.service.security.UserDetailsServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestBuilders.formLogin;
+import static org.springframework.security.test.web.servlet.response.SecurityMockMvcResultMatchers.authenticated;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class PasswordRehashTest {
+
+    private static final int USER_ID = 4000;
+    private static final String EMAIL = "user4000@example.com";
+
+    @Autowired
+    private WebApplicationContext context;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private UserDetailsServiceImpl userDetailsService;
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).apply(springSecurity()).build();
+        jdbcTemplate.update("INSERT INTO USER (id, username, email, password) VALUES (?, 'user4000', ?, ?)",
+                USER_ID, EMAIL, new BCryptPasswordEncoder(4).encode("secret"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM REFRESH_TOKEN");
+        jdbcTemplate.update("DELETE FROM USER");
+    }
+
+    @Test
+    @DisplayName("A successful login should rehash a password stored with a lower cost, keeping refresh tokens")
+    void givenLowerCost_whenLogin_thenPasswordIsRehashed() {
+        // The test profile runs at the BCrypt minimum (4): the login is made as if configured one above
+        BoundedBCryptPasswordEncoder stronger = new BoundedBCryptPasswordEncoder(5, 1, 1);
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider(userDetailsService);
+        provider.setPasswordEncoder(stronger);
+        provider.setUserDetailsPasswordService(userDetailsService);
+        String refreshToken = refreshTokenService.issueTokens(USER_ID, EMAIL).getRefreshToken();
+
+        try {
+            provider.authenticate(UsernamePasswordAuthenticationToken.unauthenticated(EMAIL, "secret"));
+        } finally {
+            stronger.shutdown();
+        }
+
+        String hash = jdbcTemplate.queryForObject("SELECT password FROM USER WHERE id = ?", String.class, USER_ID);
+        assertThat(hash).startsWith("$2a$05$");
+        // The cached principal was dropped with the old hash
+        assertThat(userDetailsService.loadUserByUsername(EMAIL).getPassword()).isEqualTo(hash);
+        // The password is unchanged: the rehash must not sign the user out
+        assertThat(refreshTokenService.refresh(refreshToken).getAccessToken()).isNotBlank();
+    }
+
+    @Test
+    @DisplayName("A password stored with a higher cost should be kept as it is")
+    void givenHigherCost_whenLogin_thenPasswordIsKept() throws Exception {
+        String stronger = new BCryptPasswordEncoder(6).encode("secret");
+        jdbcTemplate.update("UPDATE USER SET password = ? WHERE id = ?", stronger, USER_ID);
+
+        mockMvc.perform(formLogin("/login").user(EMAIL).password("secret"))
+                .andExpect(authenticated());
+
+        assertThat(jdbcTemplate.queryForObject("SELECT password FROM USER WHERE id = ?", String.class, USER_ID))
+                .isEqualTo(stronger);
+    }
+}
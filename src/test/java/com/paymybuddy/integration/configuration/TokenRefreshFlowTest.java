@@ -0,0 +1,92 @@
+package com.paymybuddy.integration.configuration;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class TokenRefreshFlowTest {
+
+    private static final int USER_ID = 5100;
+    private static final String EMAIL = "user5100@example.com";
+
+    @Autowired
+    private WebApplicationContext context;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).apply(springSecurity()).build();
+        jdbcTemplate.update("INSERT INTO USER (id, username, email, password) VALUES (?, 'user5100', ?, ?)",
+                USER_ID, EMAIL, new BCryptPasswordEncoder(4).encode("secret"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM USER WHERE id = ?", USER_ID);
+    }
+
+    private JsonNode postJson(String path, String body) throws Exception {
+        String response = mockMvc.perform(post(path).contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(response);
+    }
+
+    @Test
+    @DisplayName("A refresh token should get a working access token without credentials")
+    void givenBasicLogin_whenRefresh_thenBearerTokenIsAccepted() throws Exception {
+        String response = mockMvc.perform(post("/api/token").with(httpBasic(EMAIL, "secret")))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        String refreshToken = objectMapper.readTree(response).get("refreshToken").asText();
+
+        JsonNode refreshed = postJson("/api/token/refresh", "{\"refreshToken\":\"" + refreshToken + "\"}");
+
+        mockMvc.perform(get("/api/users/" + USER_ID)
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + refreshed.get("accessToken").asText()))
+                .andExpect(status().isOk());
+        // Rotated: the first refresh token is gone
+        mockMvc.perform(post("/api/token/refresh").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"refreshToken\":\"" + refreshToken + "\"}"))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    @DisplayName("A bearer access token should not be exchanged for new tokens")
+    void givenBearerToken_whenGetTokens_thenUnauthorized() throws Exception {
+        String response = mockMvc.perform(post("/api/token").with(httpBasic(EMAIL, "secret")))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        String accessToken = objectMapper.readTree(response).get("accessToken").asText();
+
+        mockMvc.perform(post("/api/token").header(HttpHeaders.AUTHORIZATION, "Bearer " + accessToken))
+                .andExpect(status().isUnauthorized());
+    }
+}
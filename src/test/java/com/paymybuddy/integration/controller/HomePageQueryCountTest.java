@@ -0,0 +1,94 @@
+package com.paymybuddy.integration.controller;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class HomePageQueryCountTest {
+
+    private static final int USER_ID = 3000;
+    private static final String EMAIL = "user3000@example.com";
+
+    @Autowired
+    private WebApplicationContext context;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private MockMvc mockMvc;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).apply(springSecurity()).build();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        jdbcTemplate.update("INSERT INTO USER (id, username, email, password) VALUES (?, 'user3000', ?, 'x')", USER_ID, EMAIL);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("TRUNCATE TABLE TRANSACTION");
+        jdbcTemplate.update("DELETE FROM USER_CONNECTIONS");
+        jdbcTemplate.update("DELETE FROM USER");
+    }
+
+    @Test
+    @DisplayName("The home page should run the same number of statements whatever the number of rows")
+    void givenMoreConnectionsAndTransactions_whenHomePage_thenStatementCountIsConstant() throws Exception {
+        addConnectionsWithTransactions(USER_ID + 1, USER_ID + 5);
+        long fewRows = statementsForHomePage();
+
+        addConnectionsWithTransactions(USER_ID + 6, USER_ID + 50);
+        long manyRows = statementsForHomePage();
+
+        assertThat(statistics.isStatisticsEnabled()).isTrue();
+        assertThat(manyRows).isEqualTo(fewRows);
+        // The balance, the connections and the transactions
+        assertThat(manyRows).isLessThanOrEqualTo(3);
+    }
+
+    private long statementsForHomePage() throws Exception {
+        // The first view caches the principal; the count is for the views after it
+        mockMvc.perform(get("/home").with(user(EMAIL))).andExpect(status().isOk());
+        statistics.clear();
+        mockMvc.perform(get("/home").with(user(EMAIL)))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("user" + (USER_ID + 1))));
+        return statistics.getPrepareStatementCount();
+    }
+
+    private void addConnectionsWithTransactions(int from, int to) {
+        jdbcTemplate.update("INSERT INTO USER (id, username, email, password) "
+                + "SELECT X, CONCAT('user', X), CONCAT('user', X, '@example.com'), 'x' FROM SYSTEM_RANGE(?, ?)", from, to);
+        jdbcTemplate.update("INSERT INTO USER_CONNECTIONS (user_id, connected_user_id) "
+                + "SELECT ?, X FROM SYSTEM_RANGE(?, ?) UNION ALL SELECT X, ? FROM SYSTEM_RANGE(?, ?)",
+                USER_ID, from, to, USER_ID, from, to);
+        jdbcTemplate.update("INSERT INTO TRANSACTION (sender_id, receiver_id, description, amount) "
+                + "SELECT ?, X, CONCAT('Payment ', X), 1.00 FROM SYSTEM_RANGE(?, ?)", USER_ID, from, to);
+    }
+}
@@ -0,0 +1,106 @@
+package com.paymybuddy.integration.controller;
+
+import com.paymybuddy.configuration.SqlStatementBudgetFilter;
+import com.paymybuddy.configuration.SqlStatementMatchers;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import static com.paymybuddy.configuration.SqlStatementMatchers.atMost;
+import static com.paymybuddy.configuration.SqlStatementMatchers.noRepeatedStatements;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Statement budgets of the main pages and API reads, for a user with many connections and transfers:
+ * a lazy association loaded per row shows up as a repeated statement.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class RequestStatementBudgetTest {
+
+    private static final int USER_ID = 3500;
+    private static final String EMAIL = "user3500@example.com";
+    private static final int ROWS = 30;
+
+    @Autowired
+    private WebApplicationContext context;
+
+    @Autowired
+    private SqlStatementBudgetFilter sqlStatementBudgetFilter;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(context)
+                .addFilters(sqlStatementBudgetFilter)
+                .apply(springSecurity())
+                .build();
+        jdbcTemplate.update("INSERT INTO USER (id, username, email, password) VALUES (?, 'user3500', ?, ?)",
+                USER_ID, EMAIL, new BCryptPasswordEncoder(4).encode("secret"));
+        jdbcTemplate.update("INSERT INTO USER (id, username, email, password) "
+                + "SELECT X, CONCAT('user', X), CONCAT('user', X, '@example.com'), 'x' FROM SYSTEM_RANGE(?, ?)",
+                USER_ID + 1, USER_ID + ROWS);
+        jdbcTemplate.update("INSERT INTO USER_CONNECTIONS (user_id, connected_user_id) "
+                + "SELECT ?, X FROM SYSTEM_RANGE(?, ?) UNION ALL SELECT X, ? FROM SYSTEM_RANGE(?, ?)",
+                USER_ID, USER_ID + 1, USER_ID + ROWS, USER_ID, USER_ID + 1, USER_ID + ROWS);
+        jdbcTemplate.update("INSERT INTO TRANSACTION (sender_id, receiver_id, description, amount) "
+                + "SELECT ?, X, CONCAT('Payment ', X), 1.00 FROM SYSTEM_RANGE(?, ?)", USER_ID, USER_ID + 1, USER_ID + ROWS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM TRANSACTION WHERE sender_id = ?", USER_ID);
+        jdbcTemplate.update("DELETE FROM USER_CONNECTIONS WHERE user_id = ? OR connected_user_id = ?", USER_ID, USER_ID);
+        jdbcTemplate.update("DELETE FROM USER WHERE id BETWEEN ? AND ?", USER_ID, USER_ID + ROWS);
+    }
+
+    @Test
+    @DisplayName("The pages should stay within their statement budget, without per-row statements")
+    void givenManyRows_whenPages_thenWithinBudget() throws Exception {
+        mockMvc.perform(get("/home").with(user(EMAIL)))
+                .andExpect(status().isOk())
+                // Counted at all: the inspector is wired into Hibernate
+                .andExpect(result -> assertThat(SqlStatementMatchers.counter(result).getCount()).isPositive())
+                .andExpect(atMost(4))
+                .andExpect(noRepeatedStatements(3));
+        mockMvc.perform(get("/profile").with(user(EMAIL)))
+                .andExpect(status().isOk())
+                .andExpect(atMost(1))
+                .andExpect(noRepeatedStatements(3));
+        mockMvc.perform(get("/add-relation").with(user(EMAIL)))
+                .andExpect(status().isOk())
+                .andExpect(atMost(1))
+                .andExpect(noRepeatedStatements(3));
+    }
+
+    @Test
+    @DisplayName("The API reads should stay within their statement budget, authentication included")
+    void givenManyRows_whenApiReads_thenWithinBudget() throws Exception {
+        mockMvc.perform(get("/api/transactions/sender/" + USER_ID).with(httpBasic(EMAIL, "secret")))
+                .andExpect(status().isOk())
+                .andExpect(atMost(3))
+                .andExpect(noRepeatedStatements(3));
+        mockMvc.perform(get("/api/users/" + USER_ID).with(httpBasic(EMAIL, "secret")))
+                .andExpect(status().isOk())
+                .andExpect(atMost(3))
+                .andExpect(noRepeatedStatements(3));
+    }
+}
@@ -0,0 +1,96 @@
+package com.paymybuddy.integration.service;
+
+import com.paymybuddy.event.TransactionEventBus;
+import com.paymybuddy.event.TransactionEventBus.OverflowPolicy;
+import com.paymybuddy.event.TransactionEventBus.Subscription;
+import com.paymybuddy.model.dto.BatchTransferItemDTO;
+import com.paymybuddy.model.dto.BatchTransferItemResultDTO;
+import com.paymybuddy.model.dto.BatchTransferRequestDTO;
+import com.paymybuddy.model.dto.BatchTransferResultDTO;
+import com.paymybuddy.service.BatchTransferService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class BatchTransferIntegrationTest {
+
+    private static final int TRANSFERS = 1_000;
+
+    @Autowired
+    private BatchTransferService batchTransferService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionEventBus transactionEventBus;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("INSERT INTO USER (id, username, email, password, balance) VALUES "
+                + "(1, 'alice', 'alice@example.com', 'x', 5000.00), (2, 'bob', 'bob@example.com', 'x', 0), "
+                + "(3, 'carol', 'carol@example.com', 'x', 0)");
+        jdbcTemplate.update("INSERT INTO USER_CONNECTIONS (user_id, connected_user_id) VALUES (1, 2), (1, 3)");
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("TRUNCATE TABLE TRANSACTION");
+        jdbcTemplate.update("DELETE FROM USER_CONNECTIONS");
+        jdbcTemplate.update("DELETE FROM USER");
+    }
+
+    @Test
+    @DisplayName("A thousand transfers should be recorded and move balances once per chunk")
+    void givenThousandTransfers_whenTransfer_thenAllAreRecorded() {
+        List<BatchTransferItemDTO> items = new ArrayList<>(TRANSFERS);
+        for (int i = 0; i < TRANSFERS; i++) {
+            items.add(new BatchTransferItemDTO(i % 2 == 0 ? 2 : 3, new BigDecimal("1.00"), "Payout " + i));
+        }
+        BatchTransferRequestDTO request = new BatchTransferRequestDTO();
+        request.setSenderId(1);
+        request.setTransfers(items);
+
+        List<Integer> published = new CopyOnWriteArrayList<>();
+        BatchTransferResultDTO result;
+        try (Subscription subscription = transactionEventBus.subscribe("batch-test", OverflowPolicy.BLOCK,
+                (event, sequence, endOfBatch) -> {
+                    if (event.getSenderId() == 1) {
+                        published.add(event.getTransactionId());
+                    }
+                })) {
+            result = batchTransferService.transfer(request);
+            // Every committed row reaches the bus, in item order
+            await().atMost(10, TimeUnit.SECONDS).until(() -> published.size() == TRANSFERS);
+        }
+
+        assertThat(result.getCreated()).isEqualTo(TRANSFERS);
+        // Generated ids are read back from the batch, in item order
+        assertThat(result.getResults()).extracting(BatchTransferItemResultDTO::getTransactionId)
+                .doesNotContainNull()
+                .isSorted()
+                .doesNotHaveDuplicates()
+                .isEqualTo(published);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM TRANSACTION", Integer.class)).isEqualTo(TRANSFERS);
+        assertThat(jdbcTemplate.queryForObject("SELECT balance FROM USER WHERE id = 1", BigDecimal.class))
+                .isEqualByComparingTo("4000.00");
+        assertThat(jdbcTemplate.queryForObject("SELECT balance FROM USER WHERE id = 2", BigDecimal.class))
+                .isEqualByComparingTo("500.00");
+    }
+}
@@ -0,0 +1,94 @@
+package com.paymybuddy.integration.service;
+
+import com.paymybuddy.service.ConnectionGraph;
+import com.paymybuddy.service.UserService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class ConnectionGraphIntegrationTest {
+
+    private static final int FIRST_USER_ID = 2000;
+    private static final int USERS = 50;
+
+    @Autowired
+    private ConnectionGraph connectionGraph;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("INSERT INTO USER (id, username, email, password) "
+                + "SELECT X, CONCAT('user', X), CONCAT('user', X, '@example.com'), 'x' FROM SYSTEM_RANGE(?, ?)",
+                FIRST_USER_ID, FIRST_USER_ID + USERS - 1);
+        // Every user is connected to the first one, both ways
+        jdbcTemplate.update("INSERT INTO USER_CONNECTIONS (user_id, connected_user_id) "
+                + "SELECT ?, X FROM SYSTEM_RANGE(?, ?) UNION ALL SELECT X, ? FROM SYSTEM_RANGE(?, ?)",
+                FIRST_USER_ID, FIRST_USER_ID + 1, FIRST_USER_ID + USERS - 1,
+                FIRST_USER_ID, FIRST_USER_ID + 1, FIRST_USER_ID + USERS - 1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM USER_CONNECTIONS");
+        jdbcTemplate.update("DELETE FROM USER");
+        connectionGraph.load();
+    }
+
+    @Test
+    @DisplayName("load should read every row of USER_CONNECTIONS")
+    void givenConnections_whenLoad_thenGraphMatchesTable() {
+        connectionGraph.load();
+
+        assertThat(connectionGraph.degree(FIRST_USER_ID)).isEqualTo(USERS - 1);
+        assertThat(connectionGraph.neighbours(FIRST_USER_ID + 7)).containsExactly(FIRST_USER_ID);
+        assertThat(connectionGraph.footprint().edges()).isEqualTo(2L * (USERS - 1));
+    }
+
+    @Test
+    @DisplayName("Connection changes should reach the graph only once their transaction commits")
+    void givenConnectionChange_whenCommitted_thenGraphIsUpdated() {
+        connectionGraph.load();
+        int first = FIRST_USER_ID + 1;
+        int second = FIRST_USER_ID + 2;
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            userService.connectUsers(first, second);
+            assertThat(connectionGraph.contains(first, second)).isFalse();
+            assertThat(userService.areConnected(first, second)).isTrue();
+        });
+        assertThat(connectionGraph.contains(second, first)).isTrue();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            userService.connectUsers(first, FIRST_USER_ID + 3);
+            status.setRollbackOnly();
+        });
+        assertThat(connectionGraph.contains(first, FIRST_USER_ID + 3)).isFalse();
+
+        userService.disconnectUsers(second, first);
+        assertThat(connectionGraph.contains(first, second)).isFalse();
+        assertThat(userService.areConnected(first, second)).isFalse();
+
+        userService.deleteUserById(FIRST_USER_ID);
+        assertThat(connectionGraph.degree(first)).isZero();
+    }
+}
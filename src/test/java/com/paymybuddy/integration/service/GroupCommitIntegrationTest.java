@@ -0,0 +1,103 @@
+package com.paymybuddy.integration.service;
+
+import com.paymybuddy.model.Transaction;
+import com.paymybuddy.model.User;
+import com.paymybuddy.service.GroupCommitTransactionService;
+import com.paymybuddy.service.TransactionServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class GroupCommitIntegrationTest {
+
+    private static final int SENDER_ID = 6000;
+    private static final int RECEIVERS = 20;
+    private static final int POOR_SENDER_ID = SENDER_ID + RECEIVERS + 1;
+
+    @Autowired
+    private TransactionServiceImpl transactionServiceImpl;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private GroupCommitTransactionService groupCommitService;
+
+    @BeforeEach
+    void setUp() {
+        // Built by hand: enabling it through the property would start another application context
+        groupCommitService = new GroupCommitTransactionService(transactionServiceImpl, transactionManager,
+                64, Duration.ofMillis(200), 1000);
+        jdbcTemplate.update("INSERT INTO USER (id, username, email, password, balance) "
+                        + "SELECT X, CONCAT('user', X), CONCAT('user', X, '@example.com'), 'x', "
+                        + "CASE WHEN X = ? THEN 1000 ELSE 0 END FROM SYSTEM_RANGE(?, ?)",
+                SENDER_ID, SENDER_ID, POOR_SENDER_ID);
+        jdbcTemplate.update("INSERT INTO USER_CONNECTIONS (user_id, connected_user_id) SELECT ?, X FROM SYSTEM_RANGE(?, ?)",
+                SENDER_ID, SENDER_ID + 1, SENDER_ID + RECEIVERS);
+        jdbcTemplate.update("INSERT INTO USER_CONNECTIONS (user_id, connected_user_id) VALUES (?, ?)",
+                POOR_SENDER_ID, SENDER_ID + 1);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        groupCommitService.shutdown();
+        jdbcTemplate.update("TRUNCATE TABLE TRANSACTION");
+        jdbcTemplate.update("DELETE FROM USER_CONNECTIONS");
+        jdbcTemplate.update("DELETE FROM USER");
+    }
+
+    private static Transaction transfer(int senderId, int receiverId) {
+        return Transaction.builder()
+                .amount(new BigDecimal("10.00"))
+                .description("group")
+                .sender(User.builder().id(senderId).build())
+                .receiver(User.builder().id(receiverId).build())
+                .build();
+    }
+
+    @Test
+    @DisplayName("Concurrent transfers should share commits, and a rejected one should not fail the others")
+    void givenConcurrentTransfers_whenGroupCommitted_thenAllButRejectedAreRecorded() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(RECEIVERS + 1);
+        List<Future<Transaction>> results = new ArrayList<>();
+        for (int receiverId = SENDER_ID + 1; receiverId <= SENDER_ID + RECEIVERS; receiverId++) {
+            Transaction transaction = transfer(SENDER_ID, receiverId);
+            results.add(executor.submit(() -> groupCommitService.saveTransaction(transaction)));
+        }
+        Transaction uncovered = transfer(POOR_SENDER_ID, SENDER_ID + 1);
+        Future<Transaction> rejected = executor.submit(() -> groupCommitService.saveTransaction(uncovered));
+        executor.shutdown();
+
+        for (Future<Transaction> result : results) {
+            assertThat(result.get().getId()).isNotNull();
+        }
+        assertThatThrownBy(rejected::get).hasRootCauseMessage("Insufficient funds.");
+
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM TRANSACTION", Integer.class)).isEqualTo(RECEIVERS);
+        assertThat(jdbcTemplate.queryForObject("SELECT balance FROM USER WHERE id = ?", BigDecimal.class, SENDER_ID))
+                .isEqualByComparingTo("800.00");
+        assertThat(groupCommitService.getGroupSizes().getCount()).isLessThan(RECEIVERS + 1);
+        assertThat(groupCommitService.getGroupSizes().getSum()).isEqualTo(RECEIVERS + 1);
+    }
+}
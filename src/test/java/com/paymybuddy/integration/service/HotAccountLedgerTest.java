@@ -0,0 +1,142 @@
+package com.paymybuddy.integration.service;
+
+import com.paymybuddy.model.User;
+import com.paymybuddy.repository.UserRepository;
+import com.paymybuddy.service.HotAccountRegistry;
+import com.paymybuddy.service.LedgerService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class HotAccountLedgerTest {
+
+    // Ids kept apart from other tests: the registry remembers split accounts for the whole context
+    private static final int MERCHANT_ID = 1000;
+    private static final int FIRST_PAYER_ID = 1001;
+    private static final int PAYERS = 16;
+    private static final int SPLIT_ELSEWHERE_ID = 1100;
+    private static final int THREADS = 32;
+    private static final int TRANSFERS_PER_THREAD = 100;
+    private static final BigDecimal INITIAL_BALANCE = new BigDecimal("1000.00");
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Autowired
+    private HotAccountRegistry hotAccountRegistry;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("INSERT INTO USER (id, username, email, password, balance) "
+                + "SELECT X, CONCAT('user', X), CONCAT('user', X, '@example.com'), 'x', ? FROM SYSTEM_RANGE(?, ?)",
+                INITIAL_BALANCE, MERCHANT_ID, FIRST_PAYER_ID + PAYERS - 1);
+        hotAccountRegistry.promote(MERCHANT_ID);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM USER_BALANCE_SHARD");
+        jdbcTemplate.update("DELETE FROM USER");
+    }
+
+    @Test
+    @DisplayName("A split merchant should receive concurrent transfers on its shards and still pay out")
+    void givenSplitMerchant_whenConcurrentTransfers_thenMoneyIsConserved() throws Exception {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        AtomicInteger completed = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+        List<Future<?>> workers = new ArrayList<>(THREADS);
+        for (int thread = 0; thread < THREADS; thread++) {
+            workers.add(executor.submit(() -> {
+                start.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < TRANSFERS_PER_THREAD; i++) {
+                    int payerId = FIRST_PAYER_ID + random.nextInt(PAYERS);
+                    BigDecimal amount = BigDecimal.valueOf(random.nextInt(1, 1_000), 2);
+                    // One in ten transfers is a payout, which debits the merchant's USER row
+                    boolean payout = i % 10 == 0;
+                    Boolean done = transactionTemplate.execute(status -> payout
+                            ? ledgerService.transfer(MERCHANT_ID, payerId, amount)
+                            : ledgerService.transfer(payerId, MERCHANT_ID, amount));
+                    if (Boolean.TRUE.equals(done)) {
+                        completed.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+
+        start.countDown();
+        for (Future<?> worker : workers) {
+            worker.get(2, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+
+        assertThat(completed.get()).isPositive();
+
+        BigDecimal total = jdbcTemplate.queryForObject("SELECT SUM(balance) FROM USER", BigDecimal.class)
+                .add(jdbcTemplate.queryForObject("SELECT SUM(balance) FROM USER_BALANCE_SHARD", BigDecimal.class));
+        assertThat(total).isEqualByComparingTo(INITIAL_BALANCE.multiply(BigDecimal.valueOf(PAYERS + 1)));
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM USER_BALANCE_SHARD WHERE balance > 0", Integer.class))
+                .isGreaterThan(1);
+
+        // The entity balance of a split account includes its shards
+        BigDecimal merchantBalance = jdbcTemplate.queryForObject(
+                "SELECT u.balance + (SELECT SUM(s.balance) FROM USER_BALANCE_SHARD s WHERE s.user_id = u.id) "
+                        + "FROM USER u WHERE u.id = ?", BigDecimal.class, MERCHANT_ID);
+        User merchant = userRepository.findById(MERCHANT_ID).orElseThrow();
+        assertThat(merchant.getBalance()).isEqualByComparingTo(merchantBalance);
+    }
+
+    @Test
+    @DisplayName("An account split by another instance should pay out of its shards on this one")
+    void givenAccountSplitElsewhere_whenRowRunsShort_thenShardsDrained() {
+        // Promoted by another instance: this registry never heard of it
+        jdbcTemplate.update("INSERT INTO USER (id, username, email, password, balance) "
+                + "VALUES (?, 'elsewhere', 'elsewhere@example.com', 'x', 0)", SPLIT_ELSEWHERE_ID);
+        jdbcTemplate.update("INSERT INTO USER_BALANCE_SHARD (user_id, sub, balance) VALUES (?, 0, 30), (?, 1, 20)",
+                SPLIT_ELSEWHERE_ID, SPLIT_ELSEWHERE_ID);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+
+        Boolean done = transactionTemplate.execute(status ->
+                ledgerService.transfer(SPLIT_ELSEWHERE_ID, FIRST_PAYER_ID, new BigDecimal("40.00")));
+
+        assertThat(done).isTrue();
+        assertThat(userRepository.findBalanceById(SPLIT_ELSEWHERE_ID)).contains(new BigDecimal("10.00"));
+        await().atMost(5, TimeUnit.SECONDS).until(() -> hotAccountRegistry.isSplit(SPLIT_ELSEWHERE_ID));
+    }
+}
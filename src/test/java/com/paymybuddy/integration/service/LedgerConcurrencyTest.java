@@ -0,0 +1,135 @@
+package com.paymybuddy.integration.service;
+
+import com.paymybuddy.model.Transaction;
+import com.paymybuddy.model.User;
+import com.paymybuddy.repository.UserRepository;
+import com.paymybuddy.service.TransactionService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class LedgerConcurrencyTest {
+
+    private static final int USERS = 16;
+    private static final int THREADS = 32;
+    private static final int TRANSFERS_PER_THREAD = 100;
+    private static final BigDecimal INITIAL_BALANCE = new BigDecimal("1000.00");
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("INSERT INTO USER (id, username, email, password, balance) "
+                + "SELECT X, CONCAT('user', X), CONCAT('user', X, '@example.com'), 'x', ? FROM SYSTEM_RANGE(1, ?)",
+                INITIAL_BALANCE, USERS);
+        jdbcTemplate.update("INSERT INTO USER_CONNECTIONS (user_id, connected_user_id) "
+                + "SELECT a.X, b.X FROM SYSTEM_RANGE(1, ?) a, SYSTEM_RANGE(1, ?) b WHERE a.X <> b.X", USERS, USERS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("TRUNCATE TABLE TRANSACTION");
+        jdbcTemplate.update("DELETE FROM USER_CONNECTIONS");
+        jdbcTemplate.update("DELETE FROM USER");
+    }
+
+    @Test
+    @DisplayName("Random transfers across 32 threads should conserve money without deadlocking")
+    void givenConcurrentRandomTransfers_whenSaving_thenMoneyIsConserved() throws Exception {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        AtomicInteger completed = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+        List<Future<?>> workers = new ArrayList<>(THREADS);
+        for (int thread = 0; thread < THREADS; thread++) {
+            workers.add(executor.submit(() -> {
+                start.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < TRANSFERS_PER_THREAD; i++) {
+                    int senderId = random.nextInt(1, USERS + 1);
+                    int receiverId = random.nextInt(1, USERS);
+                    if (receiverId >= senderId) {
+                        receiverId++;
+                    }
+                    // Large enough that some senders run dry and get rejected
+                    BigDecimal amount = BigDecimal.valueOf(random.nextInt(1, 50_000), 2);
+                    try {
+                        saveTransfer(transactionTemplate, senderId, receiverId, amount);
+                        completed.incrementAndGet();
+                    } catch (IllegalArgumentException exception) {
+                        assertThat(exception).hasMessage("Insufficient funds.");
+                        rejected.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+
+        start.countDown();
+        for (Future<?> worker : workers) {
+            worker.get(2, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+
+        assertThat(completed.get() + rejected.get()).isEqualTo(THREADS * TRANSFERS_PER_THREAD);
+        assertThat(completed.get()).isPositive();
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM TRANSACTION", Integer.class))
+                .isEqualTo(completed.get());
+        assertThat(jdbcTemplate.queryForObject("SELECT SUM(balance) FROM USER", BigDecimal.class))
+                .isEqualByComparingTo(INITIAL_BALANCE.multiply(BigDecimal.valueOf(USERS)));
+        assertThat(jdbcTemplate.queryForObject("SELECT MIN(balance) FROM USER", BigDecimal.class))
+                .isGreaterThanOrEqualTo(BigDecimal.ZERO);
+        // Every balance is exactly its opening amount plus what the recorded transactions moved
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM USER u WHERE u.balance <> ? "
+                + "+ (SELECT COALESCE(SUM(amount), 0) FROM TRANSACTION WHERE receiver_id = u.id) "
+                + "- (SELECT COALESCE(SUM(amount), 0) FROM TRANSACTION WHERE sender_id = u.id)",
+                Integer.class, INITIAL_BALANCE)).isZero();
+    }
+
+    private void saveTransfer(TransactionTemplate transactionTemplate, int senderId, int receiverId, BigDecimal amount) {
+        transactionTemplate.executeWithoutResult(status -> {
+            User sender = userRepository.findById(senderId).orElseThrow();
+            User receiver = userRepository.findById(receiverId).orElseThrow();
+            transactionService.saveTransaction(Transaction.builder()
+                    .sender(sender)
+                    .receiver(receiver)
+                    .amount(amount)
+                    .description("Load")
+                    .build());
+        });
+    }
+}
@@ -0,0 +1,108 @@
+package com.paymybuddy.integration.service;
+
+import com.paymybuddy.model.User;
+import com.paymybuddy.model.dto.TokenResponseDTO;
+import com.paymybuddy.service.UserService;
+import com.paymybuddy.service.security.RefreshTokenService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class RefreshTokenIntegrationTest {
+
+    private static final int USER_ID = 5000;
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private JwtDecoder jwtDecoder;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("INSERT INTO USER (id, username, email, password) VALUES (?, 'refresh', 'refresh@example.com', 'x')",
+                USER_ID);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM REFRESH_TOKEN");
+        jdbcTemplate.update("DELETE FROM USER WHERE id = ?", USER_ID);
+    }
+
+    private int storedTokens() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM REFRESH_TOKEN WHERE user_id = ?", Integer.class, USER_ID);
+    }
+
+    @Test
+    @DisplayName("A refresh token should be stored hashed and exchanged for a valid access token")
+    void givenIssuedTokens_whenRefresh_thenNewAccessTokenForSameUser() {
+        TokenResponseDTO issued = refreshTokenService.issueTokens(USER_ID, "refresh@example.com");
+
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM REFRESH_TOKEN WHERE token_hash = ?",
+                Integer.class, issued.getRefreshToken())).isZero();
+        assertThat(storedTokens()).isEqualTo(1);
+
+        TokenResponseDTO refreshed = refreshTokenService.refresh(issued.getRefreshToken());
+
+        assertThat(refreshed.getRefreshToken()).isNotEqualTo(issued.getRefreshToken());
+        assertThat(jwtDecoder.decode(refreshed.getAccessToken()).getSubject()).isEqualTo("refresh@example.com");
+        assertThat(storedTokens()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("A refresh token should be usable only once")
+    void givenUsedRefreshToken_whenRefreshAgain_thenRejected() {
+        TokenResponseDTO issued = refreshTokenService.issueTokens(USER_ID, "refresh@example.com");
+        refreshTokenService.refresh(issued.getRefreshToken());
+
+        assertThatThrownBy(() -> refreshTokenService.refresh(issued.getRefreshToken()))
+                .isInstanceOf(SecurityException.class);
+    }
+
+    @Test
+    @DisplayName("An expired refresh token should be rejected")
+    void givenExpiredRefreshToken_whenRefresh_thenRejected() {
+        TokenResponseDTO issued = refreshTokenService.issueTokens(USER_ID, "refresh@example.com");
+        jdbcTemplate.update("UPDATE REFRESH_TOKEN SET expires_at = ? WHERE user_id = ?",
+                Timestamp.from(Instant.now().minusSeconds(60)), USER_ID);
+
+        assertThatThrownBy(() -> refreshTokenService.refresh(issued.getRefreshToken()))
+                .isInstanceOf(SecurityException.class);
+        assertThat(storedTokens()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Saving a user should revoke their refresh tokens")
+    void givenIssuedTokens_whenUserSaved_thenRevoked() {
+        TokenResponseDTO issued = refreshTokenService.issueTokens(USER_ID, "refresh@example.com");
+
+        User user = userService.getUserById(USER_ID).orElseThrow();
+        user.setUsername("renamed");
+        userService.saveUser(user);
+
+        assertThat(storedTokens()).isZero();
+        assertThatThrownBy(() -> refreshTokenService.refresh(issued.getRefreshToken()))
+                .isInstanceOf(SecurityException.class);
+    }
+}
@@ -0,0 +1,117 @@
+package com.paymybuddy.integration.service;
+
+import com.paymybuddy.model.Transaction;
+import com.paymybuddy.model.User;
+import com.paymybuddy.service.TransactionService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Updates and deletes of recorded transfers must keep the balances in line with the transaction history.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class TransactionAmendmentTest {
+
+    private static final int FIRST_USER_ID = 6000;
+    private static final int USERS = 3;
+    private static final BigDecimal INITIAL_BALANCE = new BigDecimal("100.00");
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("INSERT INTO USER (id, username, email, password, balance) "
+                + "SELECT X, CONCAT('user', X), CONCAT('user', X, '@example.com'), 'x', ? FROM SYSTEM_RANGE(?, ?)",
+                INITIAL_BALANCE, FIRST_USER_ID, FIRST_USER_ID + USERS - 1);
+        jdbcTemplate.update("INSERT INTO USER_CONNECTIONS (user_id, connected_user_id) "
+                + "SELECT a.X, b.X FROM SYSTEM_RANGE(?, ?) a, SYSTEM_RANGE(?, ?) b WHERE a.X <> b.X",
+                FIRST_USER_ID, FIRST_USER_ID + USERS - 1, FIRST_USER_ID, FIRST_USER_ID + USERS - 1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM TRANSACTION WHERE sender_id BETWEEN ? AND ?", FIRST_USER_ID, FIRST_USER_ID + USERS - 1);
+        jdbcTemplate.update("DELETE FROM USER_CONNECTIONS WHERE user_id BETWEEN ? AND ?", FIRST_USER_ID, FIRST_USER_ID + USERS - 1);
+        jdbcTemplate.update("DELETE FROM USER WHERE id BETWEEN ? AND ?", FIRST_USER_ID, FIRST_USER_ID + USERS - 1);
+    }
+
+    @Test
+    @DisplayName("Balances should follow a transfer through its update and its deletion")
+    void givenRecordedTransfer_whenUpdatedThenDeleted_thenBalancesMatchHistory() {
+        Transaction transfer = transactionService.saveTransaction(transfer(FIRST_USER_ID, FIRST_USER_ID + 1, "30.00"));
+        assertBalancesMatchHistory();
+
+        transactionService.updateTransaction(transfer.getId(), Transaction.builder()
+                .receiver(User.builder().id(FIRST_USER_ID + 2).build())
+                .amount(new BigDecimal("50.00"))
+                .description("Corrected")
+                .build());
+        assertThat(balance(FIRST_USER_ID)).isEqualByComparingTo("50.00");
+        assertThat(balance(FIRST_USER_ID + 1)).isEqualByComparingTo("100.00");
+        assertThat(balance(FIRST_USER_ID + 2)).isEqualByComparingTo("150.00");
+        assertBalancesMatchHistory();
+
+        transactionService.deleteTransactionById(transfer.getId());
+        assertThat(balance(FIRST_USER_ID)).isEqualByComparingTo(INITIAL_BALANCE);
+        assertThat(balance(FIRST_USER_ID + 2)).isEqualByComparingTo(INITIAL_BALANCE);
+        assertBalancesMatchHistory();
+    }
+
+    @Test
+    @DisplayName("A deletion the receiver can no longer cover should be rejected, leaving everything as it was")
+    void givenSpentTransfer_whenDeleted_thenRejected() {
+        Transaction transfer = transactionService.saveTransaction(transfer(FIRST_USER_ID, FIRST_USER_ID + 1, "30.00"));
+        transactionService.saveTransaction(transfer(FIRST_USER_ID + 1, FIRST_USER_ID + 2, "130.00"));
+
+        assertThatThrownBy(() -> transactionService.deleteTransactionById(transfer.getId()))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Insufficient funds.");
+
+        assertThat(transactionService.getTransactionById(transfer.getId())).isPresent();
+        assertThat(balance(FIRST_USER_ID)).isEqualByComparingTo("70.00");
+        assertBalancesMatchHistory();
+    }
+
+    private static Transaction transfer(int senderId, int receiverId, String amount) {
+        return Transaction.builder()
+                .sender(User.builder().id(senderId).build())
+                .receiver(User.builder().id(receiverId).build())
+                .amount(new BigDecimal(amount))
+                .description("Payment")
+                .build();
+    }
+
+    private BigDecimal balance(int userId) {
+        return jdbcTemplate.queryForObject("SELECT balance FROM USER WHERE id = ?", BigDecimal.class, userId);
+    }
+
+    // Each balance is its initial one plus what the history says was received, minus what was sent
+    private void assertBalancesMatchHistory() {
+        BigDecimal total = BigDecimal.ZERO;
+        for (int userId = FIRST_USER_ID; userId < FIRST_USER_ID + USERS; userId++) {
+            BigDecimal received = jdbcTemplate.queryForObject(
+                    "SELECT COALESCE(SUM(amount), 0) FROM TRANSACTION WHERE receiver_id = ?", BigDecimal.class, userId);
+            BigDecimal sent = jdbcTemplate.queryForObject(
+                    "SELECT COALESCE(SUM(amount), 0) FROM TRANSACTION WHERE sender_id = ?", BigDecimal.class, userId);
+            assertThat(balance(userId)).isEqualByComparingTo(INITIAL_BALANCE.add(received).subtract(sent));
+            total = total.add(balance(userId));
+        }
+        assertThat(total).isEqualByComparingTo(INITIAL_BALANCE.multiply(BigDecimal.valueOf(USERS)));
+    }
+}
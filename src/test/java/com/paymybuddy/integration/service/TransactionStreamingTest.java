@@ -0,0 +1,76 @@
+package com.paymybuddy.integration.service;
+
+import com.paymybuddy.repository.TransactionRepository;
+import com.paymybuddy.service.TransactionService;
+import jakarta.persistence.EntityManager;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class TransactionStreamingTest {
+
+    private static final int ROWS = 1_000_000;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("INSERT INTO USER (id, username, email, password) VALUES "
+                + "(1, 'alice', 'alice@example.com', 'x'), (2, 'bob', 'bob@example.com', 'x')");
+        jdbcTemplate.update("INSERT INTO TRANSACTION (id, sender_id, receiver_id, description, amount) "
+                + "SELECT X, 1, 2, 'Payment', 10.00 FROM SYSTEM_RANGE(1, ?)", ROWS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("TRUNCATE TABLE TRANSACTION");
+        jdbcTemplate.update("DELETE FROM USER");
+    }
+
+    @Test
+    @DisplayName("forEachTransaction should visit a million rows with a bounded persistence context")
+    void givenMillionRows_whenStreaming_thenPersistenceContextStaysBounded() {
+        AtomicInteger visited = new AtomicInteger();
+        AtomicInteger maxManagedEntities = new AtomicInteger();
+        AtomicBoolean ordered = new AtomicBoolean(true);
+        AtomicReference<SessionImplementor> session = new AtomicReference<>();
+
+        transactionService.forEachTransaction(transaction -> {
+            int position = visited.incrementAndGet();
+            ordered.compareAndSet(true, transaction.getId() == position);
+            // The stream runs inside the service transaction, so this resolves to the streaming session
+            SessionImplementor streamingSession = session.updateAndGet(
+                    current -> current != null ? current : entityManager.unwrap(SessionImplementor.class));
+            int managed = streamingSession.getPersistenceContextInternal().getNumberOfManagedEntities();
+            if (managed > maxManagedEntities.get()) {
+                maxManagedEntities.set(managed);
+            }
+        });
+
+        assertThat(visited.get()).isEqualTo(ROWS);
+        assertThat(ordered.get()).isTrue();
+        // Without periodic clearing this would grow to a million managed Transaction entities
+        assertThat(maxManagedEntities.get()).isLessThanOrEqualTo(Integer.parseInt(TransactionRepository.STREAM_FETCH_SIZE));
+    }
+}
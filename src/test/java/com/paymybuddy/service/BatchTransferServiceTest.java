@@ -0,0 +1,193 @@
+package com.paymybuddy.service;
+
+import com.paymybuddy.event.TransactionEventBus;
+import com.paymybuddy.model.dto.BatchTransferItemDTO;
+import com.paymybuddy.model.dto.BatchTransferItemResultDTO;
+import com.paymybuddy.model.dto.BatchTransferItemResultDTO.Status;
+import com.paymybuddy.model.dto.BatchTransferRequestDTO;
+import com.paymybuddy.model.dto.BatchTransferResultDTO;
+import com.paymybuddy.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.invocation.InvocationOnMock;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.BDDMockito.*;
+
+public class BatchTransferServiceTest {
+
+    private static final int CHUNK_SIZE = 2;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private LedgerService ledgerService;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private TransactionEventBus transactionEventBus;
+
+    private BatchTransferServiceImpl batchTransferService;
+
+    private final AtomicInteger ids = new AtomicInteger(100);
+
+    private AutoCloseable mocks;
+
+    @BeforeEach
+    void setUp() {
+        mocks = MockitoAnnotations.openMocks(this);
+        batchTransferService = new BatchTransferServiceImpl(
+                userRepository, ledgerService, jdbcTemplate, transactionManager, transactionEventBus, CHUNK_SIZE, 5);
+
+        given(userRepository.existsById(1)).willReturn(true);
+        given(ledgerService.transfer(eq(1), anyMap())).willReturn(true);
+        given(jdbcTemplate.batchUpdate(any(PreparedStatementCreator.class), any(BatchPreparedStatementSetter.class),
+                any(KeyHolder.class))).willAnswer(this::generateKeys);
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        mocks.close();
+    }
+
+    @Test
+    @DisplayName("Transfer - Valid items are saved chunk by chunk")
+    void givenValidItems_whenTransfer_thenSaveInChunks() {
+        given(userRepository.findConnectedUserIds(eq(1), anyCollection())).willReturn(Set.of(2, 3));
+
+        BatchTransferResultDTO result = batchTransferService.transfer(request(
+                item(2, "10.00"), item(3, "5.00"), item(2, "1.00")));
+
+        assertThat(result.getCreated()).isEqualTo(3);
+        assertThat(result.getResults()).extracting(BatchTransferItemResultDTO::getTransactionId)
+                .containsExactly(101, 102, 103);
+        verify(userRepository, times(1)).findConnectedUserIds(eq(1), anyCollection());
+        verify(ledgerService).transfer(1, Map.of(2, new BigDecimal("10.00"), 3, new BigDecimal("5.00")));
+        verify(ledgerService).transfer(1, Map.of(2, new BigDecimal("1.00")));
+        verify(jdbcTemplate, times(2)).batchUpdate(
+                any(PreparedStatementCreator.class), any(BatchPreparedStatementSetter.class), any(KeyHolder.class));
+        verify(transactionManager, times(2)).commit(any());
+        verify(transactionEventBus).publishAfterCommit(101, 1, 2, new BigDecimal("10.00"), "Batch payment");
+        verify(transactionEventBus).publishAfterCommit(102, 1, 3, new BigDecimal("5.00"), "Batch payment");
+        verify(transactionEventBus).publishAfterCommit(103, 1, 2, new BigDecimal("1.00"), "Batch payment");
+    }
+
+    @Test
+    @DisplayName("Transfer - Invalid items are rejected without touching the others")
+    void givenInvalidItems_whenTransfer_thenRejectThemIndividually() {
+        given(userRepository.findConnectedUserIds(eq(1), anyCollection())).willReturn(Set.of(2));
+
+        BatchTransferResultDTO result = batchTransferService.transfer(request(
+                item(2, "10.00"), item(4, "10.00"), item(1, "10.00"), item(2, "0.00"), item(null, "10.00")));
+
+        assertThat(result.getCreated()).isEqualTo(1);
+        assertThat(result.getRejected()).isEqualTo(4);
+        assertThat(result.getResults()).extracting(BatchTransferItemResultDTO::getStatus)
+                .containsExactly(Status.CREATED, Status.REJECTED, Status.REJECTED, Status.REJECTED, Status.REJECTED);
+        assertThat(result.getResults().get(1).getMessage()).isEqualTo("You can only send money to your connections.");
+    }
+
+    @Test
+    @DisplayName("Transfer - A failing chunk does not fail the committed ones")
+    void givenFailingChunk_whenTransfer_thenMarkOnlyThatChunkFailed() {
+        given(userRepository.findConnectedUserIds(eq(1), anyCollection())).willReturn(Set.of(2, 3));
+        willAnswer(this::generateKeys).willThrow(new DataIntegrityViolationException("boom"))
+                .given(jdbcTemplate).batchUpdate(any(PreparedStatementCreator.class),
+                        any(BatchPreparedStatementSetter.class), any(KeyHolder.class));
+
+        BatchTransferResultDTO result = batchTransferService.transfer(request(
+                item(2, "10.00"), item(3, "5.00"), item(2, "1.00")));
+
+        assertThat(result.getCreated()).isEqualTo(2);
+        assertThat(result.getFailed()).isEqualTo(1);
+        assertThat(result.getResults().get(2).getStatus()).isEqualTo(Status.FAILED);
+        verify(transactionManager).rollback(any());
+    }
+
+    @Test
+    @DisplayName("Transfer - A chunk the sender cannot cover is not recorded")
+    void givenInsufficientFunds_whenTransfer_thenRejectTheChunk() {
+        given(userRepository.findConnectedUserIds(eq(1), anyCollection())).willReturn(Set.of(2, 3));
+        given(ledgerService.transfer(eq(1), anyMap())).willReturn(true, false);
+
+        BatchTransferResultDTO result = batchTransferService.transfer(request(
+                item(2, "10.00"), item(3, "5.00"), item(2, "1.00")));
+
+        assertThat(result.getCreated()).isEqualTo(2);
+        assertThat(result.getRejected()).isEqualTo(1);
+        assertThat(result.getResults().get(2).getMessage()).isEqualTo("Insufficient funds.");
+        verify(jdbcTemplate, times(1)).batchUpdate(
+                any(PreparedStatementCreator.class), any(BatchPreparedStatementSetter.class), any(KeyHolder.class));
+        verify(transactionEventBus, times(2)).publishAfterCommit(anyInt(), eq(1), anyInt(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Transfer - Unknown sender")
+    void givenUnknownSender_whenTransfer_thenThrowException() {
+        given(userRepository.existsById(1)).willReturn(false);
+
+        assertThatThrownBy(() -> batchTransferService.transfer(request(item(2, "10.00"))))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Sender not found.");
+        verifyNoInteractions(ledgerService, jdbcTemplate);
+    }
+
+    @Test
+    @DisplayName("Transfer - Batch too large")
+    void givenTooManyItems_whenTransfer_thenThrowException() {
+        BatchTransferItemDTO[] items = new BatchTransferItemDTO[6];
+        for (int i = 0; i < items.length; i++) {
+            items[i] = item(2, "1.00");
+        }
+
+        assertThatThrownBy(() -> batchTransferService.transfer(request(items)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("A batch cannot contain more than 5 transfers.");
+        verifyNoInteractions(ledgerService, jdbcTemplate);
+    }
+
+    private int[] generateKeys(InvocationOnMock invocation) {
+        BatchPreparedStatementSetter setter = invocation.getArgument(1);
+        KeyHolder keyHolder = invocation.getArgument(2);
+        for (int i = 0; i < setter.getBatchSize(); i++) {
+            keyHolder.getKeyList().add(Map.of("ID", ids.incrementAndGet()));
+        }
+        return new int[setter.getBatchSize()];
+    }
+
+    private static BatchTransferRequestDTO request(BatchTransferItemDTO... items) {
+        BatchTransferRequestDTO request = new BatchTransferRequestDTO();
+        request.setSenderId(1);
+        request.setTransfers(new ArrayList<>(List.of(items)));
+        return request;
+    }
+
+    private static BatchTransferItemDTO item(Integer receiverId, String amount) {
+        return new BatchTransferItemDTO(receiverId, new BigDecimal(amount), "Batch payment");
+    }
+}
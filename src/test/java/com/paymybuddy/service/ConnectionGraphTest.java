@@ -0,0 +1,139 @@
+package com.paymybuddy.service;
+
+import com.paymybuddy.event.ConnectionChangedEvent;
+import com.paymybuddy.event.UserDeletedEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.*;
+
+public class ConnectionGraphTest {
+
+    @Mock
+    private DataSource dataSource;
+
+    private ConnectionGraph connectionGraph;
+
+    private AutoCloseable mocks;
+
+    @BeforeEach
+    void setUp() {
+        mocks = MockitoAnnotations.openMocks(this);
+        connectionGraph = new ConnectionGraph(dataSource);
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        mocks.close();
+    }
+
+    @Test
+    @DisplayName("connect should add the edge in both directions and keep neighbours sorted")
+    void testConnect() {
+        connectionGraph.connect(1, 5);
+        connectionGraph.connect(1, 3);
+        connectionGraph.connect(1, 3);
+
+        assertThat(connectionGraph.contains(1, 3)).isTrue();
+        assertThat(connectionGraph.contains(5, 1)).isTrue();
+        assertThat(connectionGraph.contains(3, 5)).isFalse();
+        assertThat(connectionGraph.degree(1)).isEqualTo(2);
+        assertThat(connectionGraph.neighbours(1)).containsExactly(3, 5);
+        assertThat(connectionGraph.footprint().edges()).isEqualTo(4);
+    }
+
+    @Test
+    @DisplayName("copyNeighbours should copy at most the given number of ids at the offset")
+    void testCopyNeighbours() {
+        connectionGraph.connect(1, 2);
+        connectionGraph.connect(1, 3);
+        connectionGraph.connect(1, 4);
+        int[] target = new int[4];
+
+        assertThat(connectionGraph.copyNeighbours(1, target, 1, 2)).isEqualTo(2);
+        assertThat(target).containsExactly(0, 2, 3, 0);
+        assertThat(connectionGraph.copyNeighbours(9, target, 0, 4)).isZero();
+    }
+
+    @Test
+    @DisplayName("disconnect should remove the edge in both directions")
+    void testDisconnect() {
+        connectionGraph.onConnectionChanged(new ConnectionChangedEvent(1, 2, true));
+        connectionGraph.onConnectionChanged(new ConnectionChangedEvent(1, 3, true));
+
+        connectionGraph.onConnectionChanged(new ConnectionChangedEvent(2, 1, false));
+
+        assertThat(connectionGraph.contains(1, 2)).isFalse();
+        assertThat(connectionGraph.contains(2, 1)).isFalse();
+        assertThat(connectionGraph.neighbours(1)).containsExactly(3);
+        assertThat(connectionGraph.footprint().edges()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("onUserDeleted should drop the user from every neighbour")
+    void testRemoveUser() {
+        connectionGraph.connect(1, 2);
+        connectionGraph.connect(1, 3);
+        connectionGraph.connect(2, 3);
+
+        connectionGraph.onUserDeleted(new UserDeletedEvent(1));
+
+        assertThat(connectionGraph.degree(1)).isZero();
+        assertThat(connectionGraph.neighbours(2)).containsExactly(3);
+        assertThat(connectionGraph.neighbours(3)).containsExactly(2);
+    }
+
+    @Test
+    @DisplayName("Unknown users should have no neighbours")
+    void testUnknownUser() {
+        assertThat(connectionGraph.contains(42, 1)).isFalse();
+        assertThat(connectionGraph.degree(-1)).isZero();
+        assertThat(connectionGraph.neighbours(42)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("neighbours should return a copy the caller cannot use to change the graph")
+    void testNeighboursIsCopy() {
+        connectionGraph.connect(1, 2);
+
+        connectionGraph.neighbours(1)[0] = 99;
+
+        assertThat(connectionGraph.contains(1, 2)).isTrue();
+    }
+
+    @Test
+    @DisplayName("load should keep the graph empty when the database is unavailable")
+    void testLoadDatabaseDown() throws SQLException {
+        given(dataSource.getConnection()).willThrow(new SQLException("down"));
+
+        connectionGraph.load();
+
+        assertThat(connectionGraph.footprint().edges()).isZero();
+    }
+
+    @Test
+    @DisplayName("A million edges should cost a few bytes each")
+    void testFootprintPerMillionEdges() {
+        SplittableRandom random = new SplittableRandom(42);
+        int users = 100_000;
+        while (connectionGraph.footprint().edges() < 1_000_000) {
+            for (int i = 0; i < 10_000; i++) {
+                connectionGraph.connect(1 + random.nextInt(users), 1 + random.nextInt(users));
+            }
+        }
+
+        ConnectionGraph.Footprint footprint = connectionGraph.footprint();
+
+        assertThat(footprint.users()).isGreaterThan(users * 9 / 10);
+        assertThat(footprint.bytesPerMillionEdges()).isLessThan(8_000_000);
+    }
+}
@@ -0,0 +1,190 @@
+package com.paymybuddy.service;
+
+import com.paymybuddy.event.ConnectionChangedEvent;
+import com.paymybuddy.model.User;
+import com.paymybuddy.model.dto.ConnectionSuggestionDTO;
+import com.paymybuddy.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.*;
+
+public class ConnectionSuggestionServiceTest {
+
+    @Mock
+    private DataSource dataSource;
+
+    @Mock
+    private UserRepository userRepository;
+
+    private ConnectionGraph connectionGraph;
+
+    private ConnectionSuggestionServiceImpl connectionSuggestionService;
+
+    private AutoCloseable mocks;
+
+    @BeforeEach
+    void setUp() {
+        mocks = MockitoAnnotations.openMocks(this);
+        connectionGraph = new ConnectionGraph(dataSource);
+        connectionSuggestionService = new ConnectionSuggestionServiceImpl(connectionGraph, userRepository,
+                2, 1_000_000, Duration.ofMinutes(10), 1000);
+        given(userRepository.findAllById(anyIterable())).willAnswer(invocation -> {
+            List<User> users = new ArrayList<>();
+            for (Integer id : invocation.<Iterable<Integer>>getArgument(0)) {
+                users.add(User.builder().id(id).username("user" + id).email("user" + id + "@example.com").build());
+            }
+            return users;
+        });
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        mocks.close();
+    }
+
+    @Test
+    @DisplayName("getSuggestions should rank friends of friends by mutual connections")
+    void testGetSuggestions() {
+        // 1 knows 2, 3 and 4; 5 knows all three of them, 6 knows two and 7 only one
+        connectionGraph.connect(1, 2);
+        connectionGraph.connect(1, 3);
+        connectionGraph.connect(1, 4);
+        connectionGraph.connect(2, 3);
+        connectionGraph.connect(5, 2);
+        connectionGraph.connect(5, 3);
+        connectionGraph.connect(5, 4);
+        connectionGraph.connect(6, 3);
+        connectionGraph.connect(6, 4);
+        connectionGraph.connect(7, 4);
+
+        List<ConnectionSuggestionDTO> suggestions = connectionSuggestionService.getSuggestions(1);
+
+        assertThat(suggestions).extracting(ConnectionSuggestionDTO::getUserId).containsExactly(5, 6);
+        assertThat(suggestions).extracting(ConnectionSuggestionDTO::getMutualConnections).containsExactly(3, 2);
+        assertThat(suggestions.get(0).getEmail()).isEqualTo("user5@example.com");
+    }
+
+    @Test
+    @DisplayName("getSuggestions should return nothing for a user without connections")
+    void testGetSuggestionsNoConnection() {
+        assertThat(connectionSuggestionService.getSuggestions(1)).isEmpty();
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    @DisplayName("getSuggestions should be cached until a connection of the user changes")
+    void testGetSuggestionsCached() {
+        connectionGraph.connect(1, 2);
+        connectionGraph.connect(2, 3);
+        assertThat(connectionSuggestionService.getSuggestions(1)).extracting(ConnectionSuggestionDTO::getUserId).containsExactly(3);
+
+        // 2 gets a new connection: 1's suggestions depend on it
+        connectionGraph.connect(2, 4);
+        assertThat(connectionSuggestionService.getSuggestions(1)).hasSize(1);
+        connectionSuggestionService.onConnectionChanged(new ConnectionChangedEvent(2, 4, true));
+
+        assertThat(connectionSuggestionService.getSuggestions(1)).extracting(ConnectionSuggestionDTO::getUserId).containsExactly(3, 4);
+        verify(userRepository, times(2)).findAllById(anyIterable());
+    }
+
+    @Test
+    @DisplayName("rank should skip the friends with the most connections once the scan budget is spent")
+    void testRankScanBudget() {
+        connectionSuggestionService = new ConnectionSuggestionServiceImpl(connectionGraph, userRepository,
+                10, 3, Duration.ofMinutes(10), 1000);
+        connectionGraph.connect(1, 2);
+        connectionGraph.connect(1, 3);
+        connectionGraph.connect(2, 10);
+        for (int id = 20; id < 25; id++) {
+            connectionGraph.connect(3, id);
+        }
+
+        int[][] ranked = connectionSuggestionService.rank(1);
+
+        assertThat(ranked).hasDimensions(1, 2);
+        assertThat(ranked[0]).containsExactly(10, 1);
+    }
+
+    @Test
+    @DisplayName("partitionIds should group ids sharing their high half, moving them only when there are several groups")
+    void testPartitionIds() {
+        int[] small = new SplittableRandom(1).ints(1000, 0, 60_000).toArray();
+        int[] large = new SplittableRandom(2).ints(1000, 0, 300_000).toArray();
+
+        ConnectionSuggestionServiceImpl.Buckets single = ConnectionSuggestionServiceImpl.partitionIds(small);
+        assertThat(single.ids()).isSameAs(small);
+        assertThat(single.bounds()).containsExactly(0, 1000);
+
+        ConnectionSuggestionServiceImpl.Buckets grouped = ConnectionSuggestionServiceImpl.partitionIds(large);
+        assertThat(grouped.ids()).containsExactlyInAnyOrder(large);
+        assertThat(grouped.bounds()).hasSize(6).startsWith(0).endsWith(1000);
+        for (int bucket = 0; bucket < grouped.count(); bucket++) {
+            for (int i = grouped.bounds()[bucket]; i < grouped.bounds()[bucket + 1]; i++) {
+                assertThat(grouped.ids()[i] >>> 16).isEqualTo(bucket);
+            }
+        }
+        assertThat(ConnectionSuggestionServiceImpl.partitionIds(new int[0]).count()).isZero();
+    }
+
+    @Test
+    @DisplayName("rank should count candidates spread over several buckets")
+    void testRankAcrossBuckets() {
+        connectionGraph.connect(1, 2);
+        connectionGraph.connect(1, 3);
+        connectionGraph.connect(2, 70_000);
+        connectionGraph.connect(3, 70_000);
+        connectionGraph.connect(2, 140_000);
+        connectionGraph.connect(3, 5);
+
+        int[][] ranked = connectionSuggestionService.rank(1);
+
+        assertThat(ranked).hasNumberOfRows(2);
+        assertThat(ranked[0]).containsExactly(70_000, 2);
+        assertThat(ranked[1]).containsExactly(5, 1);
+    }
+
+    @Test
+    @DisplayName("rank should match a plain count for a user with 5000 connections")
+    void testRankManyConnections() {
+        connectionSuggestionService = new ConnectionSuggestionServiceImpl(connectionGraph, userRepository,
+                10, 1_000_000, Duration.ofMinutes(10), 1000);
+        SplittableRandom random = new SplittableRandom(42);
+        int friends = 5000;
+        for (int friend = 2; friend < friends + 2; friend++) {
+            connectionGraph.connect(1, friend);
+            for (int i = 0; i < 100; i++) {
+                connectionGraph.connect(friend, 10_000 + random.nextInt(200_000));
+            }
+        }
+
+        Map<Integer, Integer> mutual = new HashMap<>();
+        for (int friend : connectionGraph.neighbours(1)) {
+            for (int candidate : connectionGraph.neighbours(friend)) {
+                if (candidate != 1 && !connectionGraph.contains(1, candidate)) {
+                    mutual.merge(candidate, 1, Integer::sum);
+                }
+            }
+        }
+        int[][] expected = mutual.entrySet().stream()
+                .sorted(Map.Entry.<Integer, Integer>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .limit(10)
+                .map(entry -> new int[]{entry.getKey(), entry.getValue()})
+                .toArray(int[][]::new);
+
+        assertThat(connectionSuggestionService.rank(1)).isDeepEqualTo(expected);
+    }
+}
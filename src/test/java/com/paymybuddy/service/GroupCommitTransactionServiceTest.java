@@ -0,0 +1,172 @@
+package com.paymybuddy.service;
+
+import com.paymybuddy.model.Transaction;
+import com.paymybuddy.model.User;
+import com.paymybuddy.service.TransactionServiceImpl.TransferOutcome;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.BDDMockito.*;
+
+public class GroupCommitTransactionServiceTest {
+
+    @Mock
+    private TransactionServiceImpl transactionServiceImpl;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private GroupCommitTransactionService groupCommitService;
+
+    private AutoCloseable mocks;
+
+    @BeforeEach
+    void setUp() {
+        mocks = MockitoAnnotations.openMocks(this);
+        given(transactionManager.getTransaction(any())).willReturn(new SimpleTransactionStatus());
+        // A long delay so that transfers submitted together land in one group
+        groupCommitService = new GroupCommitTransactionService(transactionServiceImpl, transactionManager,
+                3, Duration.ofSeconds(2), 100);
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        groupCommitService.shutdown();
+        mocks.close();
+    }
+
+    private static Transaction transfer(int receiverId) {
+        return Transaction.builder()
+                .amount(new BigDecimal("10.00"))
+                .sender(User.builder().id(1).build())
+                .receiver(User.builder().id(receiverId).build())
+                .build();
+    }
+
+    private List<CompletableFuture<Transaction>> submit(List<Transaction> transfers) {
+        return transfers.stream()
+                .map(transfer -> CompletableFuture.supplyAsync(() -> groupCommitService.saveTransaction(transfer)))
+                .toList();
+    }
+
+    @Test
+    @DisplayName("Concurrent transfers should be recorded in a single database transaction")
+    void givenConcurrentTransfers_whenSave_thenOneCommit() {
+        List<Transaction> transfers = IntStream.rangeClosed(2, 4).mapToObj(GroupCommitTransactionServiceTest::transfer).toList();
+        given(transactionServiceImpl.record(any())).willAnswer(invocation -> {
+            Transaction transaction = invocation.getArgument(0);
+            transaction.setId(transaction.getReceiver().getId() * 10);
+            return new TransferOutcome(transaction, null);
+        });
+
+        List<CompletableFuture<Transaction>> results = submit(transfers);
+
+        for (int i = 0; i < transfers.size(); i++) {
+            assertThat(results.get(i).join()).isSameAs(transfers.get(i));
+        }
+        verify(transactionManager, times(1)).getTransaction(any());
+        verify(transactionManager, times(1)).commit(any());
+        assertThat(groupCommitService.getGroupSizes().getMax()).isEqualTo(3);
+        assertThat(groupCommitService.getQueueWaits().getCount()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("A rejected transfer should fail only its own caller")
+    void givenRejectedTransfer_whenSave_thenOthersCommitted() {
+        List<Transaction> transfers = IntStream.rangeClosed(2, 4).mapToObj(GroupCommitTransactionServiceTest::transfer).toList();
+        given(transactionServiceImpl.record(any())).willAnswer(invocation -> {
+            Transaction transaction = invocation.getArgument(0);
+            return transaction.getReceiver().getId() == 3
+                    ? new TransferOutcome(null, "Insufficient funds.")
+                    : new TransferOutcome(transaction, null);
+        });
+
+        List<CompletableFuture<Transaction>> results = submit(transfers);
+
+        assertThat(results.get(0).join()).isSameAs(transfers.get(0));
+        assertThatThrownBy(results.get(1)::join)
+                .isInstanceOf(CompletionException.class)
+                .hasCauseInstanceOf(IllegalArgumentException.class)
+                .hasRootCauseMessage("Insufficient funds.");
+        assertThat(results.get(2).join()).isSameAs(transfers.get(2));
+        verify(transactionManager, times(1)).commit(any());
+    }
+
+    @Test
+    @DisplayName("A failing group should be rolled back and its transfers retried one by one")
+    void givenGroupFailure_whenSave_thenTransfersRetriedAlone() {
+        List<Transaction> transfers = IntStream.rangeClosed(2, 4).mapToObj(GroupCommitTransactionServiceTest::transfer).toList();
+        given(transactionServiceImpl.record(any())).willAnswer(invocation -> {
+            Transaction transaction = invocation.getArgument(0);
+            transaction.setId(99);
+            if (transaction.getReceiver().getId() == 3) {
+                throw new CannotAcquireLockException("deadlock");
+            }
+            return new TransferOutcome(transaction, null);
+        });
+        given(transactionServiceImpl.saveTransaction(any())).willAnswer(invocation -> {
+            Transaction transaction = invocation.getArgument(0);
+            assertThat(transaction.getId()).isNull();
+            if (transaction.getReceiver().getId() == 3) {
+                throw new IllegalArgumentException("Receiver not found.");
+            }
+            return transaction;
+        });
+
+        List<CompletableFuture<Transaction>> results = submit(transfers);
+
+        assertThat(results.get(0).join()).isSameAs(transfers.get(0));
+        assertThatThrownBy(results.get(1)::join).hasRootCauseMessage("Receiver not found.");
+        assertThat(results.get(2).join()).isSameAs(transfers.get(2));
+        verify(transactionManager, times(1)).rollback(any());
+        verify(transactionServiceImpl, times(3)).saveTransaction(any());
+    }
+
+    @Test
+    @DisplayName("Updates should not go through the group commit")
+    void givenExistingTransaction_whenSave_thenDelegatedDirectly() {
+        Transaction existing = transfer(2);
+        existing.setId(7);
+        given(transactionServiceImpl.saveTransaction(existing)).willReturn(existing);
+
+        assertThat(groupCommitService.saveTransaction(existing)).isSameAs(existing);
+        verify(transactionServiceImpl, never()).record(any());
+        verifyNoInteractions(transactionManager);
+    }
+
+    @Test
+    @DisplayName("Queued transfers should fail rather than wait forever when the writer stops")
+    void givenWriterError_whenSave_thenCallersFail() {
+        List<Transaction> transfers = IntStream.rangeClosed(2, 4).mapToObj(GroupCommitTransactionServiceTest::transfer).toList();
+        given(transactionServiceImpl.record(any())).willThrow(new Error("Writer failure"));
+        given(transactionServiceImpl.saveTransaction(any())).willAnswer(invocation -> invocation.getArgument(0));
+
+        List<CompletableFuture<Transaction>> results = submit(transfers);
+
+        for (CompletableFuture<Transaction> result : results) {
+            assertThat(result).failsWithin(Duration.ofSeconds(5))
+                    .withThrowableOfType(ExecutionException.class)
+                    .withCauseInstanceOf(IllegalStateException.class);
+        }
+        // Later transfers no longer wait for the writer
+        Transaction next = transfer(5);
+        assertThat(groupCommitService.saveTransaction(next)).isSameAs(next);
+    }
+}
@@ -0,0 +1,112 @@
+package com.paymybuddy.service;
+
+import com.paymybuddy.repository.BalanceShardRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.BDDMockito.*;
+
+public class HotAccountRegistryTest {
+
+    @Mock
+    private BalanceShardRepository balanceShardRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private HotAccountRegistry hotAccountRegistry;
+
+    private AutoCloseable mocks;
+
+    @BeforeEach
+    void setUp() {
+        mocks = MockitoAnnotations.openMocks(this);
+        hotAccountRegistry = new HotAccountRegistry(balanceShardRepository, transactionManager, 4, 3);
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        hotAccountRegistry.shutdown();
+        mocks.close();
+    }
+
+    @Test
+    @DisplayName("loadSplitAccounts should restore split accounts and their shard counts")
+    void testLoadSplitAccounts() {
+        given(balanceShardRepository.findShardCounts()).willReturn(Map.of(7, 2));
+
+        hotAccountRegistry.loadSplitAccounts();
+
+        assertThat(hotAccountRegistry.isSplit(7)).isTrue();
+        assertThat(hotAccountRegistry.pickShard(7)).isBetween(0, 1);
+        assertThat(hotAccountRegistry.pickShard(8)).isNull();
+    }
+
+    @Test
+    @DisplayName("loadSplitAccounts should keep plain balances when the database is unavailable")
+    void testLoadSplitAccountsDatabaseDown() {
+        given(balanceShardRepository.findShardCounts()).willThrow(new DataAccessResourceFailureException("down"));
+
+        hotAccountRegistry.loadSplitAccounts();
+
+        assertThat(hotAccountRegistry.isSplit(7)).isFalse();
+    }
+
+    @Test
+    @DisplayName("creditStarted should promote an account once enough credits wait on it")
+    void testPromotionAtThreshold() {
+        hotAccountRegistry.creditStarted(7);
+        hotAccountRegistry.creditStarted(7);
+        verify(balanceShardRepository, after(100).never()).createShards(anyInt(), anyInt());
+
+        hotAccountRegistry.creditStarted(7);
+
+        verify(balanceShardRepository, timeout(1000)).createShards(7, 4);
+    }
+
+    @Test
+    @DisplayName("creditFinished should keep sequential credits below the threshold")
+    void testNoPromotionForSequentialCredits() {
+        for (int i = 0; i < 10; i++) {
+            hotAccountRegistry.creditStarted(7);
+            hotAccountRegistry.creditFinished(7);
+        }
+
+        verify(balanceShardRepository, after(100).never()).createShards(anyInt(), anyInt());
+        assertThat(hotAccountRegistry.isSplit(7)).isFalse();
+    }
+
+    @Test
+    @DisplayName("splitElsewhere should pick up the shards another instance created")
+    void testSplitElsewhere() {
+        given(balanceShardRepository.countShards(7)).willReturn(2);
+
+        hotAccountRegistry.splitElsewhere(7);
+
+        await().atMost(1, TimeUnit.SECONDS).until(() -> hotAccountRegistry.isSplit(7));
+        assertThat(hotAccountRegistry.pickShard(7)).isBetween(0, 1);
+        verify(balanceShardRepository, never()).createShards(anyInt(), anyInt());
+    }
+
+    @Test
+    @DisplayName("promote should reuse the shards an account already has")
+    void testPromoteAlreadySplit() {
+        given(balanceShardRepository.countShards(7)).willReturn(2);
+
+        hotAccountRegistry.promote(7);
+
+        verify(balanceShardRepository, never()).createShards(anyInt(), anyInt());
+        assertThat(hotAccountRegistry.isSplit(7)).isTrue();
+    }
+}
@@ -0,0 +1,150 @@
+package com.paymybuddy.service;
+
+import com.paymybuddy.model.Transaction;
+import com.paymybuddy.repository.TransactionRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.BDDMockito.given;
+
+public class IdempotencyStoreTest {
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    private IdempotencyStore idempotencyStore;
+
+    private AtomicInteger runs;
+
+    private AutoCloseable mocks;
+
+    @BeforeEach
+    void setUp() {
+        mocks = MockitoAnnotations.openMocks(this);
+        idempotencyStore = new IdempotencyStore(transactionRepository, Duration.ofMinutes(5), 100);
+        runs = new AtomicInteger();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        mocks.close();
+    }
+
+    @Test
+    @DisplayName("execute should run the transfer once per sender and key")
+    void testReplay() {
+        Transaction first = idempotencyStore.execute(1, "key-1", this::transfer);
+        Transaction replay = idempotencyStore.execute(1, "key-1", this::transfer);
+        Transaction otherSender = idempotencyStore.execute(2, "key-1", this::transfer);
+
+        assertThat(replay).isSameAs(first);
+        assertThat(otherSender).isNotSameAs(first);
+        assertThat(runs).hasValue(2);
+    }
+
+    @Test
+    @DisplayName("execute should always run the transfer without a key")
+    void testNoKey() {
+        idempotencyStore.execute(1, null, this::transfer);
+        idempotencyStore.execute(1, " ", this::transfer);
+
+        assertThat(runs).hasValue(2);
+    }
+
+    @Test
+    @DisplayName("execute should forget a failed transfer so the client can retry")
+    void testFailureIsForgotten() {
+        assertThatThrownBy(() -> idempotencyStore.execute(1, "key-1", () -> {
+            throw new IllegalArgumentException("Insufficient funds.");
+        })).isInstanceOf(IllegalArgumentException.class);
+
+        idempotencyStore.execute(1, "key-1", this::transfer);
+
+        assertThat(runs).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("execute should make a concurrent duplicate wait for the first run")
+    void testConcurrentDuplicate() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Transaction> first = CompletableFuture.supplyAsync(() ->
+                idempotencyStore.execute(1, "key-1", () -> {
+                    started.countDown();
+                    await(release);
+                    return transfer();
+                }));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        CompletableFuture<Transaction> duplicate = CompletableFuture.supplyAsync(() ->
+                idempotencyStore.execute(1, "key-1", this::transfer));
+        assertThat(duplicate).isNotDone();
+        release.countDown();
+
+        assertThat(duplicate.get(5, TimeUnit.SECONDS)).isSameAs(first.get(5, TimeUnit.SECONDS));
+        assertThat(runs).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("execute should replay the transaction another instance saved under the same key")
+    void testDuplicateKeyRace() {
+        Transaction original = Transaction.builder().id(42).idempotencyKey("key-1").build();
+        given(transactionRepository.findBySenderIdAndIdempotencyKey(1, "key-1")).willReturn(Optional.of(original));
+
+        Transaction replay = idempotencyStore.execute(1, "key-1", () -> {
+            throw new DataIntegrityViolationException("Duplicate entry '1-key-1'");
+        });
+
+        assertThat(replay).isSameAs(original);
+        assertThat(idempotencyStore.execute(1, "key-1", this::transfer)).isSameAs(original);
+        assertThat(runs).hasValue(0);
+    }
+
+    @Test
+    @DisplayName("execute should rethrow an integrity violation that is not a duplicate key")
+    void testOtherIntegrityViolation() {
+        given(transactionRepository.findBySenderIdAndIdempotencyKey(1, "key-1")).willReturn(Optional.empty());
+        DataIntegrityViolationException violation = new DataIntegrityViolationException("Foreign key violation");
+
+        assertThatThrownBy(() -> idempotencyStore.execute(1, "key-1", () -> {
+            throw violation;
+        })).isSameAs(violation);
+
+        idempotencyStore.execute(1, "key-1", this::transfer);
+        assertThat(runs).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("execute should reject an oversized key")
+    void testKeyTooLong() {
+        assertThatThrownBy(() -> idempotencyStore.execute(1, "k".repeat(65), this::transfer))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Idempotency key must be at most 64 characters.");
+    }
+
+    private Transaction transfer() {
+        return Transaction.builder().id(runs.incrementAndGet()).build();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
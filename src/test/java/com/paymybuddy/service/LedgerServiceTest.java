@@ -0,0 +1,198 @@
+package com.paymybuddy.service;
+
+import com.paymybuddy.repository.BalanceShardRepository;
+import com.paymybuddy.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.BDDMockito.*;
+
+public class LedgerServiceTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private BalanceShardRepository balanceShardRepository;
+
+    @Mock
+    private HotAccountRegistry hotAccountRegistry;
+
+    @InjectMocks
+    private LedgerServiceImpl ledgerService;
+
+    private AutoCloseable mocks;
+
+    @BeforeEach
+    void setUp() {
+        mocks = MockitoAnnotations.openMocks(this);
+        given(userRepository.debitBalance(anyInt(), any())).willReturn(1);
+        given(userRepository.creditBalance(anyInt(), any())).willReturn(1);
+        // Mockito answers 0 for Integer: accounts are plain unless a test splits them
+        given(hotAccountRegistry.pickShard(anyInt())).willReturn(null);
+        given(balanceShardRepository.drain(anyInt())).willReturn(BigDecimal.ZERO);
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        mocks.close();
+    }
+
+    @Test
+    @DisplayName("transfer should debit before crediting when the sender has the lower id")
+    void testTransferFromLowerId() {
+        boolean done = ledgerService.transfer(1, 2, BigDecimal.TEN);
+
+        assertThat(done).isTrue();
+        InOrder inOrder = inOrder(userRepository);
+        inOrder.verify(userRepository).debitBalance(1, BigDecimal.TEN);
+        inOrder.verify(userRepository).creditBalance(2, BigDecimal.TEN);
+        verify(userRepository, never()).lockByIdIn(any());
+    }
+
+    @Test
+    @DisplayName("transfer should lock the receiver first when it has the lower id")
+    void testTransferFromHigherId() {
+        boolean done = ledgerService.transfer(2, 1, BigDecimal.TEN);
+
+        assertThat(done).isTrue();
+        InOrder inOrder = inOrder(userRepository);
+        inOrder.verify(userRepository).lockByIdIn(List.of(1));
+        inOrder.verify(userRepository).debitBalance(2, BigDecimal.TEN);
+        inOrder.verify(userRepository).creditBalance(1, BigDecimal.TEN);
+    }
+
+    @Test
+    @DisplayName("transfer should debit the total and credit receivers in id order")
+    void testTransferToManyReceivers() {
+        boolean done = ledgerService.transfer(3, Map.of(5, BigDecimal.ONE, 1, BigDecimal.TWO, 4, BigDecimal.TEN));
+
+        assertThat(done).isTrue();
+        InOrder inOrder = inOrder(userRepository);
+        inOrder.verify(userRepository).lockByIdIn(List.of(1));
+        inOrder.verify(userRepository).debitBalance(3, new BigDecimal("13"));
+        inOrder.verify(userRepository).creditBalance(1, BigDecimal.TWO);
+        inOrder.verify(userRepository).creditBalance(4, BigDecimal.TEN);
+        inOrder.verify(userRepository).creditBalance(5, BigDecimal.ONE);
+    }
+
+    @Test
+    @DisplayName("transfer should write nothing when the sender cannot cover the amount")
+    void testTransferInsufficientFunds() {
+        given(userRepository.debitBalance(1, BigDecimal.TEN)).willReturn(0);
+
+        boolean done = ledgerService.transfer(1, 2, BigDecimal.TEN);
+
+        assertThat(done).isFalse();
+        verify(userRepository, never()).creditBalance(anyInt(), any());
+    }
+
+    @Test
+    @DisplayName("move should write each account in id order, debits and credits alike")
+    void testMove() {
+        ledgerService.move(Map.of(3, BigDecimal.ONE, 1, BigDecimal.TEN, 2, new BigDecimal("-11")));
+
+        InOrder inOrder = inOrder(userRepository);
+        inOrder.verify(userRepository).creditBalance(1, BigDecimal.TEN);
+        inOrder.verify(userRepository).debitBalance(2, new BigDecimal("11"));
+        inOrder.verify(userRepository).creditBalance(3, BigDecimal.ONE);
+    }
+
+    @Test
+    @DisplayName("move should fail when a debited account cannot cover its amount")
+    void testMoveInsufficientFunds() {
+        given(userRepository.debitBalance(2, BigDecimal.TEN)).willReturn(0);
+
+        assertThatThrownBy(() -> ledgerService.move(Map.of(1, BigDecimal.TEN, 2, BigDecimal.TEN.negate())))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Insufficient funds.");
+    }
+
+    @Test
+    @DisplayName("deposit should fail for an unknown user")
+    void testDepositUnknownUser() {
+        given(userRepository.creditBalance(9, BigDecimal.TEN)).willReturn(0);
+
+        assertThatThrownBy(() -> ledgerService.deposit(9, BigDecimal.TEN))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("User not found.");
+    }
+
+    @Test
+    @DisplayName("transfer should credit one shard of a split receiver and report the wait on plain rows")
+    void testTransferToSplitReceiver() {
+        given(hotAccountRegistry.pickShard(2)).willReturn(3);
+        given(balanceShardRepository.credit(2, 3, BigDecimal.TEN)).willReturn(1);
+
+        boolean done = ledgerService.transfer(1, Map.of(2, BigDecimal.TEN, 4, BigDecimal.ONE));
+
+        assertThat(done).isTrue();
+        InOrder inOrder = inOrder(userRepository, balanceShardRepository, hotAccountRegistry);
+        inOrder.verify(userRepository).debitBalance(1, new BigDecimal("11"));
+        inOrder.verify(balanceShardRepository).credit(2, 3, BigDecimal.TEN);
+        inOrder.verify(hotAccountRegistry).creditStarted(4);
+        inOrder.verify(userRepository).creditBalance(4, BigDecimal.ONE);
+        inOrder.verify(hotAccountRegistry).creditFinished(4);
+        verify(userRepository, never()).creditBalance(eq(2), any());
+    }
+
+    @Test
+    @DisplayName("transfer should lock a lower split receiver on the shard it will credit")
+    void testTransferToLowerSplitReceiver() {
+        given(hotAccountRegistry.pickShard(1)).willReturn(0);
+        given(balanceShardRepository.credit(1, 0, BigDecimal.TEN)).willReturn(1);
+
+        ledgerService.transfer(2, 1, BigDecimal.TEN);
+
+        InOrder inOrder = inOrder(userRepository, balanceShardRepository);
+        inOrder.verify(balanceShardRepository).lock(1, 0);
+        inOrder.verify(userRepository).debitBalance(2, BigDecimal.TEN);
+        inOrder.verify(balanceShardRepository).credit(1, 0, BigDecimal.TEN);
+        verify(userRepository, never()).lockByIdIn(any());
+    }
+
+    @Test
+    @DisplayName("transfer should refill a split sender from its shards when its row runs short")
+    void testTransferFromSplitSender() {
+        given(userRepository.debitBalance(1, BigDecimal.TEN)).willReturn(0, 1);
+        given(hotAccountRegistry.isSplit(1)).willReturn(true);
+        given(balanceShardRepository.drain(1)).willReturn(new BigDecimal("25"));
+
+        boolean done = ledgerService.transfer(1, 2, BigDecimal.TEN);
+
+        assertThat(done).isTrue();
+        InOrder inOrder = inOrder(userRepository, balanceShardRepository);
+        inOrder.verify(userRepository).lockByIdIn(List.of(1));
+        inOrder.verify(balanceShardRepository).drain(1);
+        inOrder.verify(userRepository).creditBalance(1, new BigDecimal("25"));
+        inOrder.verify(userRepository).debitBalance(1, BigDecimal.TEN);
+        inOrder.verify(userRepository).creditBalance(2, BigDecimal.TEN);
+        verify(hotAccountRegistry, never()).splitElsewhere(anyInt());
+    }
+
+    @Test
+    @DisplayName("transfer should refill a sender split by another instance from its shards, and report it")
+    void testTransferFromSenderSplitElsewhere() {
+        given(userRepository.debitBalance(1, BigDecimal.TEN)).willReturn(0, 1);
+        given(hotAccountRegistry.isSplit(1)).willReturn(false);
+        given(balanceShardRepository.drain(1)).willReturn(new BigDecimal("25"));
+
+        boolean done = ledgerService.transfer(1, 2, BigDecimal.TEN);
+
+        assertThat(done).isTrue();
+        verify(userRepository).creditBalance(1, new BigDecimal("25"));
+        verify(hotAccountRegistry).splitElsewhere(1);
+    }
+}
@@ -0,0 +1,156 @@
+package com.paymybuddy.service;
+
+import com.paymybuddy.event.UserChangedEvent;
+import com.paymybuddy.event.UserDeletedEvent;
+import com.paymybuddy.model.dto.UserSummaryDTO;
+import com.paymybuddy.repository.UserRepository;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.*;
+
+public class PrincipalCacheTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    private PrincipalCache principalCache;
+
+    private AutoCloseable mocks;
+
+    private UserSummaryDTO user;
+
+    @BeforeEach
+    void setUp() {
+        mocks = MockitoAnnotations.openMocks(this);
+        principalCache = new PrincipalCache(userRepository, Duration.ofMinutes(10), 100);
+        user = new UserSummaryDTO(1, "testuser", "test@example.com", "hash");
+        given(userRepository.findSummaryByEmail("test@example.com")).willReturn(Optional.of(user));
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        mocks.close();
+    }
+
+    @Configuration
+    @EnableTransactionManagement
+    static class TransactionConfig {
+
+        @Bean
+        PlatformTransactionManager transactionManager() {
+            JdbcDataSource dataSource = new JdbcDataSource();
+            dataSource.setURL("jdbc:h2:mem:principal-cache");
+            return new DataSourceTransactionManager(dataSource);
+        }
+
+        @Bean
+        PrincipalCache principalCache(UserRepository userRepository) {
+            return new PrincipalCache(userRepository, Duration.ofMinutes(10), 100);
+        }
+    }
+
+    @Test
+    @DisplayName("getByEmail should read the database once and then serve the cached summary")
+    void testGetByEmailCached() {
+        assertThat(principalCache.getByEmail("test@example.com")).containsSame(user);
+        assertThat(principalCache.getByEmail("test@example.com")).containsSame(user);
+
+        verify(userRepository, times(1)).findSummaryByEmail("test@example.com");
+        assertThat(principalCache.stats().hitCount()).isEqualTo(1);
+        assertThat(principalCache.stats().missCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("getByEmail should load outside the caller's read-only transaction, hence from the primary")
+    void testGetByEmailOutsideReadOnlyTransaction() {
+        new ApplicationContextRunner()
+                .withBean(UserRepository.class, () -> userRepository)
+                .withUserConfiguration(TransactionConfig.class)
+                .run(context -> {
+                    List<Boolean> readOnly = new ArrayList<>();
+                    given(userRepository.findSummaryByEmail("test@example.com")).willAnswer(invocation -> {
+                        readOnly.add(TransactionSynchronizationManager.isCurrentTransactionReadOnly());
+                        return Optional.of(user);
+                    });
+                    TransactionTemplate transactionTemplate = new TransactionTemplate(
+                            context.getBean(PlatformTransactionManager.class));
+                    transactionTemplate.setReadOnly(true);
+
+                    transactionTemplate.executeWithoutResult(status ->
+                            context.getBean(PrincipalCache.class).getByEmail("test@example.com"));
+
+                    assertThat(readOnly).containsExactly(false);
+                });
+    }
+
+    @Test
+    @DisplayName("getByEmail should not remember unknown emails")
+    void testGetByEmailUnknown() {
+        given(userRepository.findSummaryByEmail("new@example.com")).willReturn(Optional.empty());
+
+        assertThat(principalCache.getByEmail("new@example.com")).isEmpty();
+        given(userRepository.findSummaryByEmail("new@example.com"))
+                .willReturn(Optional.of(new UserSummaryDTO(2, "new", "new@example.com", "hash")));
+
+        assertThat(principalCache.getByEmail("new@example.com")).isPresent();
+        assertThat(principalCache.getByEmail(null)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("onUserChanged should drop the user under its previous email too")
+    void testOnUserChanged() {
+        principalCache.getByEmail("test@example.com");
+
+        principalCache.onUserChanged(new UserChangedEvent(1, "renamed@example.com"));
+        principalCache.getByEmail("test@example.com");
+
+        verify(userRepository, times(2)).findSummaryByEmail("test@example.com");
+    }
+
+    @Test
+    @DisplayName("onUserChanged should leave the other users cached")
+    void testOnUserChangedOtherUsers() {
+        given(userRepository.findSummaryByEmail("other@example.com"))
+                .willReturn(Optional.of(new UserSummaryDTO(2, "other", "other@example.com", "hash")));
+        principalCache.getByEmail("test@example.com");
+        principalCache.getByEmail("other@example.com");
+
+        principalCache.onUserChanged(new UserChangedEvent(1, "test@example.com"));
+        principalCache.getByEmail("test@example.com");
+        principalCache.getByEmail("other@example.com");
+
+        verify(userRepository, times(2)).findSummaryByEmail("test@example.com");
+        verify(userRepository, times(1)).findSummaryByEmail("other@example.com");
+    }
+
+    @Test
+    @DisplayName("onUserDeleted should drop the user")
+    void testOnUserDeleted() {
+        principalCache.getByEmail("test@example.com");
+        given(userRepository.findSummaryByEmail("test@example.com")).willReturn(Optional.empty());
+
+        principalCache.onUserDeleted(new UserDeletedEvent(1));
+
+        assertThat(principalCache.getByEmail("test@example.com")).isEmpty();
+    }
+}
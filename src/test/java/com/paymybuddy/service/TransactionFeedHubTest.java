@@ -0,0 +1,322 @@
+package com.paymybuddy.service;
+
+import com.paymybuddy.event.TransactionEvent;
+import com.paymybuddy.event.TransactionEventBus;
+import com.paymybuddy.model.dto.TransactionFeedItemDTO;
+import com.paymybuddy.model.dto.TransactionFeedItemDTO.Direction;
+import com.paymybuddy.model.dto.TransactionFeedMessageDTO;
+import com.paymybuddy.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class TransactionFeedHubTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    private TransactionEventBus eventBus;
+
+    private TransactionFeedHub transactionFeedHub;
+
+    private AutoCloseable mocks;
+
+    @BeforeEach
+    public void setUp() {
+        mocks = MockitoAnnotations.openMocks(this);
+        given(userRepository.findUsernameById(1)).willReturn(Optional.of("alice"));
+        given(userRepository.findUsernameById(2)).willReturn(Optional.of("bob"));
+        eventBus = new TransactionEventBus(64);
+        transactionFeedHub = new TransactionFeedHub(eventBus, userRepository, 2, 100, Duration.ofMinutes(5), 2, 4, Duration.ofHours(1), 1000);
+        transactionFeedHub.start();
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        transactionFeedHub.shutdown();
+        eventBus.shutdown();
+        mocks.close();
+    }
+
+    @Test
+    @DisplayName("Transfers should reach the feeds of both their sender and their receiver")
+    void givenFeedsOpen_whenTransferCommitted_thenSenderAndReceiverNotified() {
+        RecordingEmitter alice = new RecordingEmitter();
+        RecordingEmitter bob = new RecordingEmitter();
+        transactionFeedHub.register(1, transactionFeedHub.currentSequence(), alice);
+        transactionFeedHub.register(2, transactionFeedHub.currentSequence(), bob);
+
+        eventBus.publish(10, 1, 2, new BigDecimal("25.00"), "Lunch");
+
+        await().atMost(5, TimeUnit.SECONDS).until(() -> !alice.items().isEmpty() && !bob.items().isEmpty());
+        TransactionFeedItemDTO sent = alice.items().getFirst();
+        assertThat(sent.getId()).isEqualTo(10);
+        assertThat(sent.getDirection()).isEqualTo(Direction.SENT);
+        assertThat(sent.getCounterpartUsername()).isEqualTo("bob");
+        assertThat(sent.getAmount()).isEqualByComparingTo("25.00");
+        TransactionFeedItemDTO received = bob.items().getFirst();
+        assertThat(received.getDirection()).isEqualTo(Direction.RECEIVED);
+        assertThat(received.getCounterpartUsername()).isEqualTo("alice");
+        assertThat(received.getDescription()).isEqualTo("Lunch");
+    }
+
+    @Test
+    @DisplayName("A feed should open with the balance of its user, then send it again with each transfer")
+    void givenFeedOpen_whenTransferCommitted_thenBalanceSentWithIt() {
+        given(userRepository.findBalanceById(2)).willReturn(Optional.of(new BigDecimal("100.00")),
+                Optional.of(new BigDecimal("125.00")));
+        RecordingEmitter bob = new RecordingEmitter();
+        transactionFeedHub.register(2, transactionFeedHub.currentSequence(), bob);
+
+        await().atMost(5, TimeUnit.SECONDS).until(() -> bob.balances().size() == 1);
+        assertThat(bob.items()).isEmpty();
+        eventBus.publish(10, 1, 2, new BigDecimal("25.00"), "Lunch");
+
+        await().atMost(5, TimeUnit.SECONDS).until(() -> bob.balances().size() == 2);
+        assertThat(bob.balances()).containsExactly(new BigDecimal("100.00"), new BigDecimal("125.00"));
+        assertThat(bob.items()).extracting(TransactionFeedItemDTO::getId).containsExactly(10);
+    }
+
+    @Test
+    @DisplayName("The connections of one user should share a single balance read per group of transfers")
+    void givenTwoFeedsOfOneUser_whenTransferCommitted_thenBalanceReadOnce() {
+        given(userRepository.findBalanceById(2)).willReturn(Optional.of(new BigDecimal("125.00")));
+        RecordingEmitter first = new RecordingEmitter();
+        RecordingEmitter second = new RecordingEmitter();
+        transactionFeedHub.register(2, transactionFeedHub.currentSequence(), first);
+        transactionFeedHub.register(2, transactionFeedHub.currentSequence(), second);
+        await().atMost(5, TimeUnit.SECONDS).until(() -> first.balances().size() == 1 && second.balances().size() == 1);
+
+        eventBus.publish(10, 1, 2, new BigDecimal("25.00"), "Lunch");
+
+        await().atMost(5, TimeUnit.SECONDS).until(() -> first.items().size() == 1 && second.items().size() == 1);
+        // One read for each opening message, one for the transfer
+        verify(userRepository, times(3)).findBalanceById(2);
+        verify(userRepository, times(1)).findUsernameById(1);
+    }
+
+    @Test
+    @DisplayName("No more than max-reads senders should query the database at a time")
+    void givenManyFeedsOpening_whenBalancesRead_thenConcurrencyBounded() {
+        TransactionFeedHub bounded = new TransactionFeedHub(eventBus, userRepository, 2, 100, Duration.ofMinutes(5), 1, 4,
+                Duration.ofHours(1), 1000);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger highest = new AtomicInteger();
+        given(userRepository.findBalanceById(anyInt())).willAnswer(invocation -> {
+            highest.accumulateAndGet(running.incrementAndGet(), Math::max);
+            Thread.sleep(20);
+            running.decrementAndGet();
+            return Optional.of(BigDecimal.TEN);
+        });
+        List<RecordingEmitter> emitters = new ArrayList<>();
+        try {
+            for (int userId = 10; userId < 20; userId++) {
+                RecordingEmitter emitter = new RecordingEmitter();
+                emitters.add(emitter);
+                bounded.register(userId, bounded.currentSequence(), emitter);
+            }
+
+            await().atMost(5, TimeUnit.SECONDS).until(() -> emitters.stream().allMatch(e -> e.balances().size() == 1));
+        } finally {
+            bounded.shutdown();
+        }
+        assertThat(highest.get()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("A deposit should reach the feed of its user only, without transaction nor counterpart")
+    void givenFeedOpen_whenDepositCommitted_thenDepositPushed() {
+        RecordingEmitter bob = new RecordingEmitter();
+        transactionFeedHub.register(2, transactionFeedHub.currentSequence(), bob);
+
+        eventBus.publish(TransactionEvent.NONE, TransactionEvent.NONE, 2, new BigDecimal("40.00"), null);
+
+        await().atMost(5, TimeUnit.SECONDS).until(() -> !bob.items().isEmpty());
+        TransactionFeedItemDTO deposit = bob.items().getFirst();
+        assertThat(deposit.getDirection()).isEqualTo(Direction.DEPOSIT);
+        assertThat(deposit.getId()).isNull();
+        assertThat(deposit.getCounterpartUsername()).isNull();
+        assertThat(deposit.getAmount()).isEqualByComparingTo("40.00");
+    }
+
+    @Test
+    @DisplayName("Transfers arriving while a message is being written should follow as a single message, in order")
+    void givenBusyConnection_whenBurstPublished_thenCoalescedInOrder() throws Exception {
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingEmitter bob = new RecordingEmitter(writing, release);
+        transactionFeedHub.register(2, transactionFeedHub.currentSequence(), bob);
+
+        eventBus.publish(100, 1, 2, BigDecimal.ONE, null);
+        assertThat(writing.await(5, TimeUnit.SECONDS)).isTrue();
+        for (int i = 1; i < 40; i++) {
+            eventBus.publish(100 + i, 1, 2, BigDecimal.ONE, null);
+        }
+        long last = eventBus.getCursor();
+        await().atMost(5, TimeUnit.SECONDS).until(() -> transactionFeedHub.getSubscription().getSequence() == last);
+        release.countDown();
+
+        await().atMost(5, TimeUnit.SECONDS).until(() -> bob.items().size() == 40);
+        assertThat(bob.items()).extracting(TransactionFeedItemDTO::getId).isSorted().doesNotHaveDuplicates();
+        assertThat(bob.messages).hasSize(2);
+        assertThat(transactionFeedHub.getSubscription().getDropped()).isZero();
+    }
+
+    @Test
+    @DisplayName("A feed should be completed after the feed timeout, not the MVC default")
+    void givenFeedOpened_thenTimeoutIsTheFeedOne() {
+        SseEmitter emitter = transactionFeedHub.open(1, transactionFeedHub.currentSequence());
+
+        assertThat(emitter.getTimeout()).isEqualTo(Duration.ofMinutes(5).toMillis());
+    }
+
+    @Test
+    @DisplayName("A page rendered before transfers of its user should be sent them when its feed opens")
+    void givenTransfersSinceRender_whenFeedOpened_thenReplayed() {
+        long renderedAt = transactionFeedHub.currentSequence();
+        eventBus.publish(10, 1, 2, BigDecimal.TEN, null);
+        eventBus.publish(11, 1, 2, BigDecimal.ONE, null);
+        await().atMost(5, TimeUnit.SECONDS).until(() -> transactionFeedHub.getSubscription().getSequence() == renderedAt + 2);
+
+        RecordingEmitter stale = new RecordingEmitter();
+        transactionFeedHub.register(2, renderedAt, stale);
+        RecordingEmitter partly = new RecordingEmitter();
+        transactionFeedHub.register(1, renderedAt + 1, partly);
+        RecordingEmitter fresh = new RecordingEmitter();
+        transactionFeedHub.register(3, renderedAt, fresh);
+        eventBus.publish(12, 1, 2, BigDecimal.ONE, null);
+
+        await().atMost(5, TimeUnit.SECONDS).until(() -> stale.items().size() == 3 && partly.items().size() == 2);
+        assertThat(stale.items()).extracting(TransactionFeedItemDTO::getId).containsExactly(10, 11, 12);
+        assertThat(partly.items()).extracting(TransactionFeedItemDTO::getId).containsExactly(11, 12);
+        await().atMost(5, TimeUnit.SECONDS).until(() -> fresh.balances().size() == 1);
+        assertThat(fresh.items()).isEmpty();
+        assertThat(stale.resynced() || partly.resynced() || fresh.resynced()).isFalse();
+    }
+
+    @Test
+    @DisplayName("A feed resuming from before the transfers its user's buffer still keeps should be told to reload")
+    void givenGapOlderThanBuffer_whenFeedOpened_thenResync() {
+        long renderedAt = transactionFeedHub.currentSequence();
+        for (int i = 0; i < 5; i++) {
+            eventBus.publish(10 + i, 1, 2, BigDecimal.ONE, null);
+        }
+        await().atMost(5, TimeUnit.SECONDS).until(() -> transactionFeedHub.getSubscription().getSequence() == renderedAt + 5);
+
+        RecordingEmitter stale = new RecordingEmitter();
+        transactionFeedHub.register(2, renderedAt, stale);
+        RecordingEmitter recent = new RecordingEmitter();
+        transactionFeedHub.register(1, renderedAt + 1, recent);
+
+        await().atMost(5, TimeUnit.SECONDS).until(() -> stale.resynced() && recent.items().size() == 4);
+        assertThat(stale.completed).isTrue();
+        assertThat(stale.items()).isEmpty();
+        assertThat(recent.resynced()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Opening more feeds than allowed per user should close the oldest one")
+    void givenTooManyFeeds_whenOpened_thenOldestClosed() {
+        RecordingEmitter first = new RecordingEmitter();
+        RecordingEmitter second = new RecordingEmitter();
+        RecordingEmitter third = new RecordingEmitter();
+        long since = transactionFeedHub.currentSequence();
+
+        transactionFeedHub.register(1, since, first);
+        transactionFeedHub.register(1, since, second);
+        transactionFeedHub.register(1, since, third);
+
+        assertThat(first.completed).isTrue();
+        assertThat(second.completed).isFalse();
+        assertThat(transactionFeedHub.getConnectionCount()).isEqualTo(2);
+    }
+
+    /**
+     * Keeps what the hub sends instead of writing it to a response
+     */
+    private static class RecordingEmitter extends SseEmitter {
+
+        private final List<List<DataWithMediaType>> messages = new CopyOnWriteArrayList<>();
+        private final CountDownLatch writing;
+        private final CountDownLatch release;
+        private volatile boolean completed;
+
+        RecordingEmitter() {
+            this(new CountDownLatch(1), new CountDownLatch(0));
+        }
+
+        // The first send signals writing, then waits for release, like a slow network write
+        RecordingEmitter(CountDownLatch writing, CountDownLatch release) {
+            this.writing = writing;
+            this.release = release;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            writing.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            }
+            messages.add(new ArrayList<>(builder.build()));
+        }
+
+        @Override
+        public void complete() {
+            completed = true;
+            super.complete();
+        }
+
+        List<TransactionFeedItemDTO> items() {
+            List<TransactionFeedItemDTO> items = new ArrayList<>();
+            for (List<DataWithMediaType> message : messages) {
+                for (DataWithMediaType part : message) {
+                    if (part.getData() instanceof TransactionFeedMessageDTO feed) {
+                        items.addAll(feed.getItems());
+                    }
+                }
+            }
+            return items;
+        }
+
+        List<BigDecimal> balances() {
+            List<BigDecimal> balances = new ArrayList<>();
+            for (List<DataWithMediaType> message : messages) {
+                for (DataWithMediaType part : message) {
+                    if (part.getData() instanceof TransactionFeedMessageDTO feed) {
+                        balances.add(feed.getBalance());
+                    }
+                }
+            }
+            return balances;
+        }
+
+        boolean resynced() {
+            return messages.stream().flatMap(List::stream)
+                    .anyMatch(part -> part.getData().toString().contains("event:" + TransactionFeedHub.RESYNC_EVENT));
+        }
+    }
+}
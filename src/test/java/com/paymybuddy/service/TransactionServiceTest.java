@@ -1,8 +1,12 @@
 package com.paymybuddy.service;
 
+import com.paymybuddy.event.TransactionEventBus;
 import com.paymybuddy.model.Transaction;
 import com.paymybuddy.model.User;
+import com.paymybuddy.model.dto.TransactionHistoryDTO;
+import com.paymybuddy.model.dto.TransactionPageDTO;
 import com.paymybuddy.repository.TransactionRepository;
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -10,13 +14,16 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Limit;
 
 import java.math.BigDecimal;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.BDDMockito.*;
 
 public class TransactionServiceTest {
@@ -24,6 +31,18 @@ public class TransactionServiceTest {
     @Mock
     private TransactionRepository transactionRepository;
 
+    @Mock
+    private LedgerService ledgerService;
+
+    @Mock
+    private UserService userService;
+
+    @Mock
+    private TransactionEventBus transactionEventBus;
+
+    @Mock
+    private EntityManager entityManager;
+
     @InjectMocks
     private TransactionServiceImpl transactionService;
 
@@ -38,8 +57,6 @@ public class TransactionServiceTest {
         User sender = User.builder().id(1).username("alice").build();
         User receiver = User.builder().id(2).username("bob").build();
 
-        sender.addConnection(receiver);
-
         transaction = Transaction.builder()
                 .id(1)
                 .amount(new BigDecimal("100.00"))
@@ -47,6 +64,8 @@ public class TransactionServiceTest {
                 .sender(sender)
                 .receiver(receiver)
                 .build();
+
+        given(userService.areConnected(1, 2)).willReturn(true);
     }
 
     @AfterEach
@@ -92,22 +111,214 @@ public class TransactionServiceTest {
     }
 
     @Test
-    @DisplayName("saveTransaction should save and return transaction")
+    @DisplayName("getTransactionHistoryBySenderId should return the rows of the history query")
+    void testGetTransactionHistoryBySenderId() {
+        List<TransactionHistoryDTO> history = List.of(new TransactionHistoryDTO(1, "receiver", "Payment to friend", new BigDecimal("50.00")));
+        given(transactionRepository.findHistoryBySenderId(1)).willReturn(history);
+
+        List<TransactionHistoryDTO> result = transactionService.getTransactionHistoryBySenderId(1);
+
+        assertThat(result).isSameAs(history);
+    }
+
+    @Test
+    @DisplayName("getTransactionsBySenderId should return a page and a cursor when more rows exist")
+    void testGetTransactionsBySenderIdFirstPage() {
+        Transaction older = Transaction.builder().id(0).amount(BigDecimal.ONE).build();
+        given(transactionRepository.findBySenderIdAndIdLessThanOrderByIdDesc(1, Integer.MAX_VALUE, Limit.of(2)))
+                .willReturn(List.of(transaction, older));
+
+        TransactionPageDTO page = transactionService.getTransactionsBySenderId(1, null, 1);
+
+        assertThat(page.getTransactions()).containsExactly(transaction);
+        assertThat(page.getNext()).isNotBlank();
+    }
+
+    @Test
+    @DisplayName("getTransactionsBySenderId should resume after the cursor and stop on the last page")
+    void testGetTransactionsBySenderIdNextPage() {
+        given(transactionRepository.findBySenderIdAndIdLessThanOrderByIdDesc(1, Integer.MAX_VALUE, Limit.of(2)))
+                .willReturn(List.of(transaction, Transaction.builder().id(0).build()));
+        String cursor = transactionService.getTransactionsBySenderId(1, null, 1).getNext();
+
+        given(transactionRepository.findBySenderIdAndIdLessThanOrderByIdDesc(1, 1, Limit.of(2)))
+                .willReturn(List.of());
+
+        TransactionPageDTO page = transactionService.getTransactionsBySenderId(1, cursor, 1);
+
+        assertThat(page.getTransactions()).isEmpty();
+        assertThat(page.getNext()).isNull();
+        verify(transactionRepository, times(1)).findBySenderIdAndIdLessThanOrderByIdDesc(1, 1, Limit.of(2));
+    }
+
+    @Test
+    @DisplayName("getTransactionsByReceiverId should cap the page size")
+    void testGetTransactionsByReceiverIdCapsPageSize() {
+        given(transactionRepository.findByReceiverIdAndIdLessThanOrderByIdDesc(
+                2, Integer.MAX_VALUE, Limit.of(TransactionServiceImpl.MAX_PAGE_SIZE + 1)))
+                .willReturn(List.of(transaction));
+
+        TransactionPageDTO page = transactionService.getTransactionsByReceiverId(2, null, 10_000);
+
+        assertThat(page.getTransactions()).hasSize(1);
+        assertThat(page.getNext()).isNull();
+    }
+
+    @Test
+    @DisplayName("getTransactionsBySenderId should reject a malformed cursor")
+    void testGetTransactionsBySenderIdInvalidCursor() {
+        assertThatThrownBy(() -> transactionService.getTransactionsBySenderId(1, "not a cursor!", 10))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("saveTransaction should reject a transaction already recorded")
     void testSaveTransaction() {
+        assertThatThrownBy(() -> transactionService.saveTransaction(transaction))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("A recorded transaction can only be changed through an update.");
+        verify(transactionRepository, never()).save(any());
+        verifyNoInteractions(ledgerService);
+        verifyNoInteractions(transactionEventBus);
+    }
+
+    @Test
+    @DisplayName("saveTransaction should move balances for a new transaction")
+    void testSaveNewTransactionMovesBalances() {
+        transaction.setId(null);
+        given(ledgerService.transfer(1, 2, new BigDecimal("100.00"))).willReturn(true);
         given(transactionRepository.save(transaction)).willReturn(transaction);
 
-        Transaction saved = transactionService.saveTransaction(transaction);
+        transactionService.saveTransaction(transaction);
 
-        assertThat(saved).isNotNull();
-        assertThat(saved.getDescription()).isEqualTo("Payment to friend");
+        verify(ledgerService, times(1)).transfer(1, 2, new BigDecimal("100.00"));
         verify(transactionRepository, times(1)).save(transaction);
+        verify(transactionEventBus, times(1)).publishAfterCommit(transaction);
+    }
+
+    @Test
+    @DisplayName("saveTransaction should return the original transaction of a replayed idempotency key")
+    void testSaveNewTransactionReplayedKey() {
+        Transaction original = Transaction.builder().id(7).build();
+        transaction.setId(null);
+        transaction.setIdempotencyKey("3f1c6d2e");
+        given(transactionRepository.findBySenderIdAndIdempotencyKey(1, "3f1c6d2e")).willReturn(Optional.of(original));
+
+        Transaction saved = transactionService.saveTransaction(transaction);
+
+        assertThat(saved).isSameAs(original);
+        verifyNoInteractions(ledgerService);
+        verify(transactionRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("saveTransaction should reject a receiver the sender is not connected to")
+    void testSaveTransactionNotConnected() {
+        transaction.setId(null);
+        given(userService.areConnected(1, 2)).willReturn(false);
+
+        assertThatThrownBy(() -> transactionService.saveTransaction(transaction))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("You can only send money to your connections.");
+        verify(transactionRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("saveTransaction should reject a transfer the sender cannot cover")
+    void testSaveNewTransactionInsufficientFunds() {
+        transaction.setId(null);
+        given(ledgerService.transfer(1, 2, new BigDecimal("100.00"))).willReturn(false);
+
+        assertThatThrownBy(() -> transactionService.saveTransaction(transaction))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Insufficient funds.");
+        verify(transactionRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("saveTransaction should reject a non-positive amount")
+    void testSaveNewTransactionNegativeAmount() {
+        transaction.setId(null);
+        transaction.setAmount(new BigDecimal("-5.00"));
+
+        assertThatThrownBy(() -> transactionService.saveTransaction(transaction))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Amount must be positive.");
+        verifyNoInteractions(ledgerService);
+    }
+
+    @Test
+    @DisplayName("record should return a rejection instead of throwing it")
+    void testRecordInsufficientFunds() {
+        transaction.setId(null);
+        given(ledgerService.transfer(1, 2, new BigDecimal("100.00"))).willReturn(false);
+
+        TransactionServiceImpl.TransferOutcome outcome = transactionService.record(transaction);
+
+        assertThat(outcome.transaction()).isNull();
+        assertThat(outcome.rejection()).isEqualTo("Insufficient funds.");
+        verify(transactionRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("updateTransaction should move balances by the difference with the stored transaction")
+    void testUpdateTransactionAmount() {
+        given(transactionRepository.findForUpdateById(1)).willReturn(Optional.of(transaction));
+        given(transactionRepository.save(transaction)).willReturn(transaction);
+
+        Optional<Transaction> updated = transactionService.updateTransaction(1, Transaction.builder()
+                .amount(new BigDecimal("150.00"))
+                .description("Dinner")
+                .build());
+
+        assertThat(updated).containsSame(transaction);
+        assertThat(transaction.getAmount()).isEqualByComparingTo("150.00");
+        assertThat(transaction.getDescription()).isEqualTo("Dinner");
+        verify(ledgerService, times(1)).move(Map.of(1, new BigDecimal("-50.00"), 2, new BigDecimal("50.00")));
     }
 
     @Test
-    @DisplayName("deleteTransactionById should delete transaction by id")
+    @DisplayName("updateTransaction should leave balances alone when only the description changes")
+    void testUpdateTransactionDescription() {
+        given(transactionRepository.findForUpdateById(1)).willReturn(Optional.of(transaction));
+        given(transactionRepository.save(transaction)).willReturn(transaction);
+
+        transactionService.updateTransaction(1, Transaction.builder().description("Dinner").build());
+
+        assertThat(transaction.getAmount()).isEqualByComparingTo("100.00");
+        verifyNoInteractions(ledgerService);
+    }
+
+    @Test
+    @DisplayName("updateTransaction should keep the stored description when none is given")
+    void testUpdateTransactionKeepsDescription() {
+        transaction.setDescription("Lunch");
+        given(transactionRepository.findForUpdateById(1)).willReturn(Optional.of(transaction));
+        given(transactionRepository.save(transaction)).willReturn(transaction);
+
+        transactionService.updateTransaction(1, Transaction.builder().amount(new BigDecimal("150.00")).build());
+
+        assertThat(transaction.getAmount()).isEqualByComparingTo("150.00");
+        assertThat(transaction.getDescription()).isEqualTo("Lunch");
+    }
+
+    @Test
+    @DisplayName("updateTransaction should return empty for an unknown transaction")
+    void testUpdateTransactionNotFound() {
+        given(transactionRepository.findForUpdateById(1)).willReturn(Optional.empty());
+
+        assertThat(transactionService.updateTransaction(1, transaction)).isEmpty();
+        verifyNoInteractions(ledgerService);
+    }
+
+    @Test
+    @DisplayName("deleteTransactionById should reverse the transaction, then delete it")
     void testDeleteTransactionById() {
+        given(transactionRepository.findForUpdateById(1)).willReturn(Optional.of(transaction));
+
         transactionService.deleteTransactionById(1);
 
-        verify(transactionRepository, times(1)).deleteById(1);
+        verify(ledgerService, times(1)).move(Map.of(1, new BigDecimal("100.00"), 2, new BigDecimal("-100.00")));
+        verify(transactionRepository, times(1)).delete(transaction);
     }
 }
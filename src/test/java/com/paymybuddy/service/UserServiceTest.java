@@ -1,6 +1,12 @@
 package com.paymybuddy.service;
 
+import com.paymybuddy.event.ConnectionChangedEvent;
+import com.paymybuddy.event.TransactionEventBus;
+import com.paymybuddy.event.UserChangedEvent;
+import com.paymybuddy.event.UserDeletedEvent;
 import com.paymybuddy.model.User;
+import com.paymybuddy.model.dto.ConnectionDTO;
+import com.paymybuddy.model.dto.UserSummaryDTO;
 import com.paymybuddy.repository.UserRepository;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -9,11 +15,15 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import java.math.BigDecimal;
+import java.util.List;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.BDDMockito.*;
 
 public class UserServiceTest {
@@ -24,6 +34,21 @@ public class UserServiceTest {
     @Mock
     private PasswordEncoder passwordEncoder;
 
+    @Mock
+    private LedgerService ledgerService;
+
+    @Mock
+    private ConnectionGraph connectionGraph;
+
+    @Mock
+    private PrincipalCache principalCache;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private TransactionEventBus transactionEventBus;
+
     @InjectMocks
     private UserServiceImpl userService;
 
@@ -93,6 +118,17 @@ public class UserServiceTest {
         assertThat(savedUser).isNotNull();
         assertThat(savedUser.getUsername()).isEqualTo("testuser");
         verify(userRepository, times(1)).save(user);
+        verify(eventPublisher).publishEvent(new UserChangedEvent(1, "test@example.com"));
+    }
+
+    @Test
+    @DisplayName("getUserSummaryByEmail should go through the principal cache")
+    void testGetUserSummaryByEmail() {
+        UserSummaryDTO summary = new UserSummaryDTO(1, "testuser", "test@example.com", "hash");
+        given(principalCache.getByEmail("test@example.com")).willReturn(Optional.of(summary));
+
+        assertThat(userService.getUserSummaryByEmail("test@example.com")).containsSame(summary);
+        verifyNoInteractions(userRepository);
     }
 
     @Test
@@ -103,5 +139,81 @@ public class UserServiceTest {
         userService.deleteUserById(1);
 
         verify(userRepository, times(1)).deleteById(1);
+        verify(eventPublisher).publishEvent(new UserDeletedEvent(1));
+    }
+
+    @Test
+    @DisplayName("connectUsers should connect both users and announce it")
+    void testConnectUsers() {
+        User other = User.builder().id(2).username("other").email("other@example.com").build();
+        given(userRepository.findById(1)).willReturn(Optional.of(user));
+        given(userRepository.findById(2)).willReturn(Optional.of(other));
+
+        userService.connectUsers(1, 2);
+
+        assertThat(user.getConnections()).containsExactly(other);
+        assertThat(other.getConnections()).containsExactly(user);
+        verify(eventPublisher).publishEvent(new ConnectionChangedEvent(1, 2, true));
+    }
+
+    @Test
+    @DisplayName("disconnectUsers should remove the connection on both sides and announce it")
+    void testDisconnectUsers() {
+        User other = User.builder().id(2).username("other").email("other@example.com").build();
+        user.addConnection(other);
+        given(userRepository.findById(1)).willReturn(Optional.of(user));
+        given(userRepository.findById(2)).willReturn(Optional.of(other));
+
+        userService.disconnectUsers(1, 2);
+
+        assertThat(user.getConnections()).isEmpty();
+        assertThat(other.getConnections()).isEmpty();
+        verify(userRepository).save(user);
+        verify(eventPublisher).publishEvent(new ConnectionChangedEvent(1, 2, false));
+    }
+
+    @Test
+    @DisplayName("getConnections should return the projected connections")
+    void testGetConnections() {
+        List<ConnectionDTO> connections = List.of(new ConnectionDTO(2, "other", "other@example.com"));
+        given(userRepository.findConnectionsByUserId(1)).willReturn(connections);
+
+        assertThat(userService.getConnections(1)).isSameAs(connections);
+    }
+
+    @Test
+    @DisplayName("areConnected should answer from the connection graph when it knows the edge")
+    void testAreConnectedFromGraph() {
+        given(connectionGraph.contains(1, 2)).willReturn(true);
+
+        assertThat(userService.areConnected(1, 2)).isTrue();
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    @DisplayName("areConnected should confirm a graph miss against the database")
+    void testAreConnected() {
+        given(userRepository.countConnections(1, 2)).willReturn(1L);
+
+        assertThat(userService.areConnected(1, 2)).isTrue();
+        assertThat(userService.areConnected(2, 3)).isFalse();
+    }
+
+    @Test
+    @DisplayName("deposit should credit the user through the ledger and publish it")
+    void testDeposit() {
+        userService.deposit(1, new BigDecimal("50.00"));
+
+        verify(ledgerService, times(1)).deposit(1, new BigDecimal("50.00"));
+        verify(transactionEventBus, times(1)).publishDepositAfterCommit(1, new BigDecimal("50.00"));
+    }
+
+    @Test
+    @DisplayName("deposit should reject a non-positive amount")
+    void testDepositNegativeAmount() {
+        assertThatThrownBy(() -> userService.deposit(1, BigDecimal.ZERO))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Amount must be positive.");
+        verifyNoInteractions(ledgerService, transactionEventBus);
     }
 }
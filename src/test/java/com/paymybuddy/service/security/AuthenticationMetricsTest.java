@@ -0,0 +1,82 @@
+package com.paymybuddy.service.security;
+
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.ProviderNotFoundException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.event.AuthenticationFailureBadCredentialsEvent;
+import org.springframework.security.authentication.event.AuthenticationFailureProviderNotFoundEvent;
+import org.springframework.security.authentication.event.AuthenticationSuccessEvent;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AuthenticationMetricsTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private AuthenticationMetrics authenticationMetrics;
+
+    @BeforeEach
+    public void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        authenticationMetrics = new AuthenticationMetrics(meterRegistry);
+    }
+
+    private double count(String mechanism, String outcome, String reason) {
+        return meterRegistry.get(AuthenticationMetrics.METER)
+                .tag("mechanism", mechanism)
+                .tag("outcome", outcome)
+                .tag("reason", reason)
+                .counter()
+                .count();
+    }
+
+    @Test
+    @DisplayName("Outcomes should be counted by mechanism, outcome and failure reason")
+    void givenAuthenticationEvents_whenPublished_thenCountedByOutcome() {
+        UsernamePasswordAuthenticationToken password =
+                UsernamePasswordAuthenticationToken.unauthenticated("alice@example.com", "secret");
+        Jwt jwt = new Jwt("token", Instant.now(), Instant.now().plusSeconds(60), Map.of("alg", "HS256"),
+                Map.of("sub", "alice@example.com"));
+
+        authenticationMetrics.onSuccess(new AuthenticationSuccessEvent(password));
+        authenticationMetrics.onSuccess(new AuthenticationSuccessEvent(new JwtAuthenticationToken(jwt)));
+        authenticationMetrics.onSuccess(new AuthenticationSuccessEvent(new JwtAuthenticationToken(jwt)));
+        authenticationMetrics.onFailure(new AuthenticationFailureBadCredentialsEvent(password,
+                new BadCredentialsException("Bad credentials")));
+        authenticationMetrics.onFailure(new AuthenticationFailureProviderNotFoundEvent(password,
+                new ProviderNotFoundException("No provider")));
+
+        assertThat(count("password", "success", "none")).isEqualTo(1);
+        assertThat(count("jwt", "success", "none")).isEqualTo(2);
+        assertThat(count("password", "failure", "bad-credentials")).isEqualTo(1);
+        assertThat(count("password", "failure", "provider-not-found")).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Tags should never carry who authenticated")
+    void givenAuthenticationEvents_whenCounted_thenNoUserInTags() {
+        authenticationMetrics.onSuccess(new AuthenticationSuccessEvent(
+                UsernamePasswordAuthenticationToken.unauthenticated("alice@example.com", "secret")));
+        authenticationMetrics.onFailure(new AuthenticationFailureBadCredentialsEvent(
+                UsernamePasswordAuthenticationToken.unauthenticated("bob@example.com", "wrong"),
+                new BadCredentialsException("Bad credentials")));
+
+        List<String> tagValues = meterRegistry.getMeters().stream()
+                .map(Meter::getId)
+                .flatMap(id -> id.getTags().stream())
+                .map(tag -> tag.getValue())
+                .toList();
+        assertThat(tagValues).noneMatch(value -> value.contains("@"));
+    }
+}
@@ -0,0 +1,98 @@
+package com.paymybuddy.service.security;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BoundedBCryptPasswordEncoderTest {
+
+    private BoundedBCryptPasswordEncoder passwordEncoder;
+
+    @BeforeEach
+    void setUp() {
+        passwordEncoder = new BoundedBCryptPasswordEncoder(4, 1, 1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        passwordEncoder.shutdown();
+    }
+
+    @Test
+    @DisplayName("encode and matches should run BCrypt with the configured strength")
+    void testEncodeAndMatches() {
+        String hash = passwordEncoder.encode("secret");
+
+        assertThat(hash).startsWith("$2a$04$");
+        assertThat(passwordEncoder.matches("secret", hash)).isTrue();
+        assertThat(passwordEncoder.matches("wrong", hash)).isFalse();
+    }
+
+    @Test
+    @DisplayName("upgradeEncoding should ask for a rehash only when the stored cost is below the strength")
+    void testUpgradeEncoding() {
+        BoundedBCryptPasswordEncoder stronger = new BoundedBCryptPasswordEncoder(5, 1, 1);
+        assertThat(stronger.upgradeEncoding(stronger.encode("secret"))).isFalse();
+        assertThat(stronger.upgradeEncoding(passwordEncoder.encode("secret"))).isTrue();
+        assertThat(passwordEncoder.upgradeEncoding(stronger.encode("secret"))).isFalse();
+        stronger.shutdown();
+        assertThat(passwordEncoder.upgradeEncoding("plain")).isFalse();
+        assertThat(passwordEncoder.upgradeEncoding(null)).isFalse();
+    }
+
+    @Test
+    @DisplayName("isBCryptHash should tell hashes from raw passwords")
+    void testIsBCryptHash() {
+        assertThat(BoundedBCryptPasswordEncoder.isBCryptHash(new BCryptPasswordEncoder(4).encode("secret"))).isTrue();
+        assertThat(BoundedBCryptPasswordEncoder.isBCryptHash("$2b$04$" + "a".repeat(53))).isTrue();
+        assertThat(BoundedBCryptPasswordEncoder.isBCryptHash("$2a$secret")).isFalse();
+        assertThat(BoundedBCryptPasswordEncoder.isBCryptHash(null)).isFalse();
+    }
+
+    @Test
+    @DisplayName("A saturated pool should reject at once and count the rejection")
+    void testRejectWhenSaturated() throws Exception {
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+        try {
+            // One task on the single thread, one in the single queue slot
+            callers.submit(() -> passwordEncoder.execute(() -> {
+                running.countDown();
+                return release.await(10, TimeUnit.SECONDS);
+            }));
+            running.await(10, TimeUnit.SECONDS);
+            callers.submit(() -> passwordEncoder.execute(() -> true));
+            while (passwordEncoder.getQueueDepth() == 0) {
+                Thread.onSpinWait();
+            }
+
+            assertThat(passwordEncoder.getActiveCount()).isEqualTo(1);
+            assertThatThrownBy(() -> passwordEncoder.matches("secret", "hash"))
+                    .isInstanceOf(PasswordHashingRejectedException.class);
+            assertThat(passwordEncoder.getRejectedCount()).isEqualTo(1);
+        } finally {
+            release.countDown();
+            callers.shutdown();
+            callers.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    @DisplayName("calibrate should not go below the default strength")
+    void testCalibrate() {
+        assertThat(BoundedBCryptPasswordEncoder.calibrate(Duration.ofMillis(1)))
+                .isEqualTo(BoundedBCryptPasswordEncoder.MIN_CALIBRATED_STRENGTH);
+    }
+}
@@ -0,0 +1,125 @@
+package com.paymybuddy.service.security;
+
+import com.paymybuddy.event.UserChangedEvent;
+import com.paymybuddy.event.UserDeletedEvent;
+import com.paymybuddy.model.dto.UserSummaryDTO;
+import com.paymybuddy.service.PrincipalCache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.BDDMockito.*;
+
+class CachingAuthenticationProviderTest {
+
+    @Mock
+    private UserDetailsServiceImpl userDetailsService;
+
+    @Mock
+    private PasswordEncoder passwordEncoder;
+
+    @Mock
+    private PrincipalCache principalCache;
+
+    private CachingAuthenticationProvider cachingAuthenticationProvider;
+
+    private AutoCloseable mocks;
+
+    @BeforeEach
+    void setUp() {
+        mocks = MockitoAnnotations.openMocks(this);
+        cachingAuthenticationProvider = new CachingAuthenticationProvider(userDetailsService, passwordEncoder,
+                principalCache, Duration.ofMinutes(1), 100);
+        given(userDetailsService.loadUserByUsername("test@example.com")).willAnswer(invocation ->
+                User.withUsername("test@example.com").password("hash").roles("USER").build());
+        given(passwordEncoder.matches("secret", "hash")).willReturn(true);
+        given(principalCache.getByEmail("test@example.com"))
+                .willReturn(Optional.of(new UserSummaryDTO(1, "test", "test@example.com", "hash")));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        mocks.close();
+    }
+
+    @Test
+    @DisplayName("A verified credential should be served from the cache on the next request")
+    void givenVerifiedCredential_whenAuthenticateAgain_thenPasswordIsNotChecked() {
+        Authentication first = cachingAuthenticationProvider.authenticate(credentials("secret"));
+        Authentication second = cachingAuthenticationProvider.authenticate(credentials("secret"));
+
+        assertThat(first.isAuthenticated()).isTrue();
+        assertThat(second.isAuthenticated()).isTrue();
+        assertThat(second.getName()).isEqualTo("test@example.com");
+        assertThat(second.getCredentials()).isNull();
+        assertThat(second.getAuthorities()).extracting("authority").containsExactly("ROLE_USER");
+        verify(passwordEncoder, times(1)).matches("secret", "hash");
+        assertThat(cachingAuthenticationProvider.stats().hitCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("A wrong password should never be cached nor match a cached credential")
+    void givenWrongPassword_whenAuthenticate_thenRejectedEveryTime() {
+        cachingAuthenticationProvider.authenticate(credentials("secret"));
+
+        assertThatThrownBy(() -> cachingAuthenticationProvider.authenticate(credentials("wrong")))
+                .isInstanceOf(BadCredentialsException.class);
+        assertThatThrownBy(() -> cachingAuthenticationProvider.authenticate(credentials("wrong")))
+                .isInstanceOf(BadCredentialsException.class);
+        verify(passwordEncoder, times(2)).matches("wrong", "hash");
+        assertThat(cachingAuthenticationProvider.size()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("A committed change of the user should drop their cached credentials")
+    void givenUserChanged_whenAuthenticate_thenPasswordIsCheckedAgain() {
+        cachingAuthenticationProvider.authenticate(credentials("secret"));
+
+        cachingAuthenticationProvider.onUserChanged(new UserChangedEvent(1, "test@example.com"));
+        cachingAuthenticationProvider.authenticate(credentials("secret"));
+
+        verify(passwordEncoder, times(2)).matches("secret", "hash");
+    }
+
+    @Test
+    @DisplayName("A committed change of another user should keep the cached credentials")
+    void givenOtherUserChanged_whenAuthenticate_thenServedFromCache() {
+        cachingAuthenticationProvider.authenticate(credentials("secret"));
+
+        cachingAuthenticationProvider.onUserDeleted(new UserDeletedEvent(2));
+        cachingAuthenticationProvider.authenticate(credentials("secret"));
+
+        verify(passwordEncoder, times(1)).matches("secret", "hash");
+        assertThat(cachingAuthenticationProvider.size()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("A check racing with a password change should not be cached")
+    void givenChangeDuringCheck_whenAuthenticate_thenNotCached() {
+        given(passwordEncoder.matches("secret", "hash")).willAnswer(invocation -> {
+            cachingAuthenticationProvider.onUserChanged(new UserChangedEvent(1, "test@example.com"));
+            return true;
+        });
+
+        cachingAuthenticationProvider.authenticate(credentials("secret"));
+
+        assertThat(cachingAuthenticationProvider.size()).isZero();
+    }
+
+    private static UsernamePasswordAuthenticationToken credentials(String password) {
+        return UsernamePasswordAuthenticationToken.unauthenticated("test@example.com", password);
+    }
+}
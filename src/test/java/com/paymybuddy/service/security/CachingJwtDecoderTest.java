@@ -0,0 +1,102 @@
+package com.paymybuddy.service.security;
+
+import com.nimbusds.jose.jwk.source.ImmutableSecret;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
+import org.springframework.security.oauth2.jwt.*;
+
+import javax.crypto.spec.SecretKeySpec;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+public class CachingJwtDecoderTest {
+
+    private static final byte[] SECRET = "66A39E5BBC888714F2C67EF6E17C1BD3A41C77F29791F44F565382EA38".getBytes();
+
+    private JwtEncoder jwtEncoder;
+
+    private JwtDecoder nimbusJwtDecoder;
+
+    @BeforeEach
+    void setUp() {
+        jwtEncoder = new NimbusJwtEncoder(new ImmutableSecret<>(SECRET));
+        nimbusJwtDecoder = spy(NimbusJwtDecoder
+                .withSecretKey(new SecretKeySpec(SECRET, "RSA"))
+                .macAlgorithm(MacAlgorithm.HS256)
+                .build());
+    }
+
+    private String token(Instant issuedAt, Instant expiresAt) {
+        JwtClaimsSet claims = JwtClaimsSet.builder()
+                .issuer("self")
+                .issuedAt(issuedAt)
+                .expiresAt(expiresAt)
+                .subject("test@example.com")
+                .build();
+        return jwtEncoder.encode(JwtEncoderParameters.from(JwsHeader.with(MacAlgorithm.HS256).build(), claims)).getTokenValue();
+    }
+
+    @Test
+    @DisplayName("decode should verify a token once and then serve the cached Jwt")
+    void testDecodeCached() {
+        CachingJwtDecoder decoder = new CachingJwtDecoder(nimbusJwtDecoder, 100, Duration.ofMinutes(5));
+        String token = token(Instant.now(), Instant.now().plusSeconds(60));
+
+        Jwt first = decoder.decode(token);
+        Jwt second = decoder.decode(token);
+
+        assertThat(second).isSameAs(first);
+        assertThat(second.getSubject()).isEqualTo("test@example.com");
+        verify(nimbusJwtDecoder, times(1)).decode(token);
+        assertThat(decoder.stats().hitCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("decode should reject an expired token exactly like the Nimbus decoder")
+    void testDecodeExpired() {
+        CachingJwtDecoder decoder = new CachingJwtDecoder(nimbusJwtDecoder, 100, Duration.ofMinutes(5));
+        String token = token(Instant.now().minusSeconds(600), Instant.now().minusSeconds(300));
+
+        assertThatThrownBy(() -> nimbusJwtDecoder.decode(token)).isInstanceOf(JwtValidationException.class);
+        assertThatThrownBy(() -> decoder.decode(token)).isInstanceOf(JwtValidationException.class);
+        assertThat(decoder.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("decode should reject a cached token once it has expired")
+    void testDecodeCachedThenExpired() {
+        Instant now = Instant.now();
+        JwtTimestampValidator validator = new JwtTimestampValidator(Duration.ZERO);
+        validator.setClock(Clock.fixed(now, ZoneOffset.UTC));
+        CachingJwtDecoder decoder = new CachingJwtDecoder(nimbusJwtDecoder, validator, 100,
+                Duration.ofMinutes(5), Clock.systemUTC());
+        String token = token(now, now.plusSeconds(60));
+        decoder.decode(token);
+
+        validator.setClock(Clock.fixed(now.plusSeconds(120), ZoneOffset.UTC));
+
+        assertThatThrownBy(() -> decoder.decode(token)).isInstanceOf(JwtValidationException.class);
+        assertThat(decoder.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("decode should not cache a token with a bad signature")
+    void testDecodeBadSignature() {
+        CachingJwtDecoder decoder = new CachingJwtDecoder(nimbusJwtDecoder, 100, Duration.ofMinutes(5));
+        String token = token(Instant.now(), Instant.now().plusSeconds(60));
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+
+        assertThatThrownBy(() -> decoder.decode(tampered)).isInstanceOf(JwtException.class);
+        assertThatThrownBy(() -> decoder.decode(tampered)).isInstanceOf(JwtException.class);
+        verify(nimbusJwtDecoder, times(2)).decode(tampered);
+        assertThat(decoder.size()).isZero();
+    }
+}
@@ -1,7 +1,9 @@
 package com.paymybuddy.service.security;
 
-import com.paymybuddy.model.User;
+import com.paymybuddy.event.PasswordRehashedEvent;
+import com.paymybuddy.model.dto.UserSummaryDTO;
 import com.paymybuddy.repository.UserRepository;
+import com.paymybuddy.service.PrincipalCache;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -9,6 +11,7 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 
@@ -17,27 +20,31 @@ import java.util.Optional;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.verify;
 
 class UserDetailsServiceTest {
 
+    @Mock
+    private PrincipalCache principalCache;
+
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private UserDetailsServiceImpl userDetailsService;
 
     private AutoCloseable mocks;
 
-    private User user;
+    private UserSummaryDTO user;
 
     @BeforeEach
     void setUp() {
         mocks = MockitoAnnotations.openMocks(this);
 
-        user = User.builder()
-                .email("test@example.com")
-                .password("password")
-                .build();
+        user = new UserSummaryDTO(1, "test", "test@example.com", "password");
     }
 
     @AfterEach
@@ -48,7 +55,7 @@ class UserDetailsServiceTest {
     @Test
     @DisplayName("Load User - Success")
     void givenExistingUsername_whenLoadUserByUsername_thenReturnUserDetails() {
-        given(userRepository.findByEmail(user.getEmail())).willReturn(Optional.ofNullable(user));
+        given(principalCache.getByEmail(user.getEmail())).willReturn(Optional.of(user));
 
         UserDetails userDetails = userDetailsService.loadUserByUsername(user.getEmail());
 
@@ -60,10 +67,23 @@ class UserDetailsServiceTest {
     @Test
     @DisplayName("Load User - Not Found")
     void givenNonExistingUsername_whenLoadUserByUsername_thenThrowException() {
-        given(userRepository.findByEmail("nonexistent@example.com")).willReturn(Optional.empty());
+        given(principalCache.getByEmail("nonexistent@example.com")).willReturn(Optional.empty());
 
         assertThrows(UsernameNotFoundException.class, () ->
                 userDetailsService.loadUserByUsername("nonexistent@example.com")
         );
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Update Password - Stores the rehashed password and announces it as a rehash")
+    void givenUpgradedHash_whenUpdatePassword_thenPasswordIsStored() {
+        given(principalCache.getByEmail(user.getEmail())).willReturn(Optional.of(user));
+        UserDetails userDetails = userDetailsService.loadUserByUsername(user.getEmail());
+
+        UserDetails updated = userDetailsService.updatePassword(userDetails, "newHash");
+
+        assertThat(updated.getPassword()).isEqualTo("newHash");
+        verify(userRepository).updatePassword(1, "newHash");
+        verify(eventPublisher).publishEvent(new PasswordRehashedEvent(1, "test@example.com"));
+    }
+}